@@ -80,6 +80,11 @@ public class BufferedByteDataSource implements ByteDataSource {
         return ret;
     }
 
+    @Override
+    public void setReadLength(int readLength) {
+        backend.setReadLength(readLength);
+    }
+
     @Override
     public @Nullable MediaType getMediaType() {
         return backend.getMediaType();
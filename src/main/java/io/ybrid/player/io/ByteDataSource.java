@@ -39,4 +39,16 @@ public interface ByteDataSource extends DataSource {
     @Override
     @NotNull
     ByteDataBlock read() throws IOException;
+
+    /**
+     * Sets the maximum number of bytes returned by a single {@link #read()}.
+     * <P>
+     * Smaller reads pass data on earlier at the cost of more overhead per byte.
+     * This must be called before the first read. Implementations are free to ignore this.
+     * The default implementation does nothing.
+     *
+     * @param readLength The maximum number of bytes per read in [byte].
+     */
+    default void setReadLength(int readLength) {
+    }
 }
@@ -33,14 +33,12 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
 public class DataBlockMetadataUpdateThread extends Thread implements Consumer<DataBlock> {
     private static final int METADATA_BLOCK_QUEUE_SIZE = 32;
 
-    private final @NotNull BlockingQueue<DataBlock> metadataBlockQueue = new LinkedBlockingQueue<>(METADATA_BLOCK_QUEUE_SIZE);
+    private final @NotNull MetadataBlockQueue metadataBlockQueue = new MetadataBlockQueue(METADATA_BLOCK_QUEUE_SIZE);
     private final @NotNull Session session;
     private final @NotNull RequestExecutor requestExecutor;
 
@@ -60,7 +58,7 @@ public class DataBlockMetadataUpdateThread extends Thread implements Consumer<Da
         while (!isInterrupted()) {
 
             try {
-                final DataBlock block = metadataBlockQueue.take();
+                final @NotNull DataBlock block = metadataBlockQueue.take();
                 final @NotNull Sync newSync = block.getSync();
                 final @Nullable PlayoutInfo newPlayoutInfo = block.getPlayoutInfo();
                 boolean playoutInfoChanged = false;
@@ -88,14 +86,16 @@ public class DataBlockMetadataUpdateThread extends Thread implements Consumer<Da
         }
     }
 
+    /**
+     * Queues a block for metadata update.
+     * <P>
+     * If the thread fell behind the oldest queued block is dropped, so the newest block always gets updated.
+     * This may be called by different buffer threads during a handover.
+     *
+     * @param dataBlock The block to update.
+     */
     @Override
     public void accept(DataBlock dataBlock) {
-        try {
-            metadataBlockQueue.add(dataBlock);
-        } catch (IllegalStateException e) {
-            /* If the queue is full we fall behind. clear it and try again. */
-            metadataBlockQueue.clear();
-            metadataBlockQueue.add(dataBlock);
-        }
+        metadataBlockQueue.add(dataBlock);
     }
 }
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io;
+
+import io.ybrid.api.util.MediaType;
+import io.ybrid.player.io.audio.SignalInformation;
+import io.ybrid.player.util.SPSCChannel;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Objects;
+
+/**
+ * This implements a {@link ByteDataSource} that reads ahead the encoded stream.
+ * <P>
+ * The buffer sits directly on top of the transport, below any demuxer or decoder, so all parsing of the stream
+ * is done by the thread reading from this buffer. Only the raw bytes are touched by the thread pumping the backend.
+ * Holding the audio in encoded form uses a fraction of the memory needed for the same audio as PCM.
+ * <P>
+ * The amount of audio held is estimated from the average number of bytes consumed per second of decoded audio.
+ * The decoded audio is reported by the consumer using {@link #onDecoded(SignalInformation)}. Until enough audio has
+ * been decoded {@link #DEFAULT_BYTE_RATE} is assumed.
+ */
+@ApiStatus.Internal
+public final class EncodedBuffer implements ByteDataSource {
+    private static final @NonNls String ENCODED_BUFFER_THREAD_NAME = "Encoded Buffer Thread";
+    /** The byte rate assumed before it has been measured (128kbit/s) in [byte/s]. */
+    public static final double DEFAULT_BYTE_RATE = 16000;
+    private static final double MINIMUM_DECODED_LENGTH = 0.5; /* decoded audio needed to measure the byte rate [s] */
+    private static final double LOW_WATERMARK_FACTOR = 0.9; /* refill when dropping below this factor of the target */
+    private static final int CAPACITY = 4096; /* [block] */
+
+    private final @NotNull ByteDataSource backend;
+    private final @Nullable MediaType mediaType;
+    private final double target;
+    /* Guards the accounting below. Signaled by the reader when the buffer drops to the low watermark. */
+    private final @NotNull Object lock = new Object();
+    private final @NotNull SPSCChannel<ByteDataBlock> buffer = new SPSCChannel<>(CAPACITY);
+    private final @NotNull Thread thread;
+    private long bufferedBytes = 0; /* [byte] */
+    private long consumedBytes = 0; /* [byte] */
+    private double decodedLength = 0; /* [s] */
+    private volatile @Nullable IOException exception = null;
+
+    /**
+     * Creates an instance and starts reading from the backend.
+     * <P>
+     * Settings of the backend such as {@link ByteDataSource#setReadLength(int)} must be applied before
+     * calling this as the backend is read by an internal thread from now on.
+     *
+     * @param backend The backend to use.
+     * @param target The amount of audio to be buffered in [s].
+     */
+    public EncodedBuffer(@NotNull ByteDataSource backend, double target) {
+        this.backend = backend;
+        this.target = target;
+        // The backend may connect when asked for the media type, so this is done before the pump is started.
+        this.mediaType = backend.getMediaType();
+        this.thread = new Thread(this::run, ENCODED_BUFFER_THREAD_NAME);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                waitForLowWatermark();
+                pump();
+            }
+            exception = new InterruptedIOException();
+        } catch (InterruptedException e) {
+            exception = new InterruptedIOException();
+        } catch (IOException e) {
+            exception = e;
+        } catch (RuntimeException e) {
+            exception = new IOException(e);
+        }
+
+        // This wakes up the reader if it is waiting for a block.
+        buffer.close();
+    }
+
+    private double getByteRate() {
+        if (decodedLength < MINIMUM_DECODED_LENGTH)
+            return DEFAULT_BYTE_RATE;
+        return consumedBytes / decodedLength;
+    }
+
+    private void waitForLowWatermark() throws InterruptedException {
+        synchronized (lock) {
+            if (bufferedBytes <= target * getByteRate())
+                return;
+
+            while (bufferedBytes > target * LOW_WATERMARK_FACTOR * getByteRate())
+                lock.wait();
+        }
+    }
+
+    private void pump() throws IOException, InterruptedException {
+        final @NotNull ByteDataBlock block = backend.read();
+
+        synchronized (lock) {
+            bufferedBytes += block.getData().length;
+        }
+
+        buffer.put(block);
+    }
+
+    /**
+     * Reports audio decoded from the data read from this buffer.
+     * <P>
+     * This is used to estimate the byte rate of the stream and must be called by the consumer.
+     *
+     * @param decoded The audio that has been decoded.
+     */
+    public void onDecoded(@NotNull SignalInformation decoded) {
+        synchronized (lock) {
+            decodedLength += (double) decoded.getLengthAsFrames() / decoded.getSampleRate();
+        }
+    }
+
+    /**
+     * Gets the estimated amount of audio currently buffered.
+     * @return The length in [s].
+     */
+    public double getLength() {
+        synchronized (lock) {
+            return bufferedBytes / getByteRate();
+        }
+    }
+
+    /**
+     * Gets the amount of data currently buffered.
+     * @return The size in [byte].
+     */
+    public long getBufferedBytes() {
+        synchronized (lock) {
+            return bufferedBytes;
+        }
+    }
+
+    @Override
+    public @NotNull ByteDataBlock read() throws IOException {
+        @Nullable ByteDataBlock block = buffer.poll();
+
+        if (block == null) {
+            try {
+                block = buffer.take();
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+
+            // The channel is only closed by the pump after it failed or was closed.
+            if (block == null)
+                throw Objects.requireNonNull(exception);
+        }
+
+        synchronized (lock) {
+            bufferedBytes -= block.getData().length;
+            consumedBytes += block.getData().length;
+            if (bufferedBytes <= target * LOW_WATERMARK_FACTOR * getByteRate())
+                lock.notifyAll();
+        }
+
+        return block;
+    }
+
+    @Override
+    public boolean isValid() {
+        return !buffer.isEmpty() || exception == null;
+    }
+
+    @Override
+    public @Nullable MediaType getMediaType() {
+        return mediaType;
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        backend.close();
+    }
+}
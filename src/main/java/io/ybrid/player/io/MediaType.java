@@ -35,6 +35,11 @@ public final class MediaType {
      * PCM stream as stream of blocks of {@code short[]}.
      */
     public static final @NotNull io.ybrid.api.util.MediaType PCM_STREAM_SHORT = new io.ybrid.api.util.MediaType("!_block-stream/pcm-java-short-array");
+    /**
+     * PCM stream as stream of blocks of {@code float[]}.
+     * The blocks are {@link io.ybrid.player.io.audio.FloatPCMDataBlock}s.
+     */
+    public static final @NotNull io.ybrid.api.util.MediaType PCM_STREAM_FLOAT = new io.ybrid.api.util.MediaType("!_block-stream/pcm-java-float-array");
     /**
      * Demuxed Opus stream.
      */
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * This is the bounded queue of blocks waiting for a metadata update, see {@link DataBlockMetadataUpdateThread}.
+ * <P>
+ * If the queue is full the oldest block is evicted, so the newest block is always delivered.
+ * After that the consumer skips ahead to the newest block, as only the latest metadata is of interest.
+ * <P>
+ * Any number of threads may add blocks, but only one thread may take them.
+ */
+final class MetadataBlockQueue {
+    private final @NotNull ArrayBlockingQueue<DataBlock> queue;
+    private volatile boolean fellBehind = false;
+
+    /**
+     * Creates a new queue.
+     * @param capacity The maximum number of blocks queued.
+     */
+    MetadataBlockQueue(int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Adds a block. This never blocks.
+     * <P>
+     * This is synchronized as eviction must not race with other producers.
+     * The lock is uncontended in the normal case.
+     *
+     * @param block The block to add.
+     */
+    synchronized void add(@NotNull DataBlock block) {
+        if (queue.offer(block))
+            return;
+
+        /* We fell behind. Evict the oldest block so the newest one is kept. */
+        fellBehind = true;
+        queue.poll();
+        // Only producers add and they are serialized, so there is space now.
+        queue.offer(block);
+    }
+
+    /**
+     * Takes the next block waiting for one if needed.
+     * If the queue overflowed since the last call, this skips to the newest block.
+     *
+     * @return The block.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    @NotNull DataBlock take() throws InterruptedException {
+        DataBlock block = queue.take();
+
+        if (fellBehind) {
+            fellBehind = false;
+            for (DataBlock next = queue.poll(); next != null; next = queue.poll())
+                block = next;
+        }
+
+        return block;
+    }
+}
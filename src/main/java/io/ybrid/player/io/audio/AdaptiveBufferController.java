@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This adapts the target and goal of a {@link Buffer} to the observed network jitter.
+ * <P>
+ * For every block the time the backend took to deliver it is compared to the length of the block.
+ * The sum of all delays not yet made up for by faster deliveries is the time the buffer would have been
+ * drained by the link alone. The peak of this value decays slowly and is used to calculate the target and goal.
+ * Targets grow immediately but shrink only slowly. Underruns increase both target and goal.
+ * <P>
+ * This class is thread safe.
+ */
+final class AdaptiveBufferController {
+    private static final double SAFETY_FACTOR = 2;
+    private static final double UNDERRUN_FACTOR = 1.5;
+    private static final double SHRINK_RATE = 0.05; /* maximum reduction of the target per second of audio [s/s] */
+    private static final double JITTER_HALF_LIFE = 60; /* [s] of audio */
+    private static final double MINIMUM_CHANGE = 0.05; /* minimum change of the target before it is applied [s] */
+
+    private final @NotNull AdaptiveBufferPolicy policy;
+    private double lateness = 0; /* [s] */
+    private double peakLateness = 0; /* [s] */
+    private double underrunBoost = 1;
+    private double target;
+    private double appliedTarget;
+    private double goal;
+
+    /**
+     * Creates a new controller.
+     * @param policy The policy to use.
+     * @param target The initial target in [s].
+     */
+    AdaptiveBufferController(@NotNull AdaptiveBufferPolicy policy, double target) {
+        this.policy = policy;
+        this.target = policy.clampTarget(target);
+        this.appliedTarget = this.target;
+        this.goal = policy.getMinimumGoal();
+    }
+
+    private boolean update(double elapsed) {
+        final double desired = policy.clampTarget((policy.getMinimumTarget() + SAFETY_FACTOR * peakLateness) * underrunBoost);
+
+        if (desired > target) {
+            target = desired;
+        } else {
+            target = Math.max(desired, target - SHRINK_RATE * elapsed);
+        }
+
+        goal = policy.clampGoal((policy.getMinimumGoal() + SAFETY_FACTOR * peakLateness) * underrunBoost);
+
+        if (target == appliedTarget)
+            return false;
+        // Small steps are collected unless a bound is reached.
+        if (Math.abs(target - appliedTarget) < MINIMUM_CHANGE && target != policy.getMinimumTarget() && target != policy.getMaximumTarget())
+            return false;
+
+        appliedTarget = target;
+        return true;
+    }
+
+    /**
+     * Accounts for a block that has been read from the backend.
+     *
+     * @param readTime The time it took the backend to deliver the block in [ns].
+     * @param duration The length of the block in [s].
+     * @return Whether the target changed.
+     */
+    synchronized boolean onBlock(long readTime, double duration) {
+        lateness = Math.max(0, lateness + readTime / 1e9 - duration);
+        peakLateness = Math.max(lateness, peakLateness * Math.pow(0.5, duration / JITTER_HALF_LIFE));
+        underrunBoost = Math.max(1, underrunBoost * Math.pow(0.5, duration / JITTER_HALF_LIFE));
+        return update(duration);
+    }
+
+    /**
+     * Accounts for an underrun.
+     * @return Whether the target changed.
+     */
+    synchronized boolean onUnderrun() {
+        underrunBoost *= UNDERRUN_FACTOR;
+        return update(0);
+    }
+
+    /**
+     * Gets the current target.
+     * @return The target in [s].
+     */
+    synchronized double getTarget() {
+        return appliedTarget;
+    }
+
+    /**
+     * Gets the current goal.
+     * @return The goal in [s].
+     */
+    synchronized double getGoal() {
+        return goal;
+    }
+}
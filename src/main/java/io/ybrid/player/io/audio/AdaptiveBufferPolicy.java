@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+
+/**
+ * This holds the bounds used to adapt buffer targets and buffer goals to the observed network jitter.
+ * <P>
+ * The target is the amount of audio a {@link Buffer} reads ahead.
+ * The goal is the amount of audio that must be buffered before playback starts or resumes after an underrun.
+ */
+final public class AdaptiveBufferPolicy implements Serializable {
+    private static final long serialVersionUID = -6415322906457180513L;
+
+    /**
+     * The default policy.
+     */
+    public static final @NotNull AdaptiveBufferPolicy DEFAULT = new AdaptiveBufferPolicy(2, 30, 0.5, 10);
+
+    private final double minimumTarget;
+    private final double maximumTarget;
+    private final double minimumGoal;
+    private final double maximumGoal;
+
+    /**
+     * Creates a new policy.
+     *
+     * @param minimumTarget The minimum buffer target in [s].
+     * @param maximumTarget The maximum buffer target in [s].
+     * @param minimumGoal The minimum buffer goal in [s].
+     * @param maximumGoal The maximum buffer goal in [s].
+     */
+    public AdaptiveBufferPolicy(double minimumTarget, double maximumTarget, double minimumGoal, double maximumGoal) {
+        if (minimumTarget <= 0 || maximumTarget < minimumTarget)
+            throw new IllegalArgumentException("Invalid target bounds: " + minimumTarget + " to " + maximumTarget);
+        if (minimumGoal <= 0 || maximumGoal < minimumGoal || maximumGoal > maximumTarget)
+            throw new IllegalArgumentException("Invalid goal bounds: " + minimumGoal + " to " + maximumGoal);
+
+        this.minimumTarget = minimumTarget;
+        this.maximumTarget = maximumTarget;
+        this.minimumGoal = minimumGoal;
+        this.maximumGoal = maximumGoal;
+    }
+
+    /**
+     * Gets the minimum buffer target.
+     * @return The minimum target in [s].
+     */
+    @Contract(pure = true)
+    public double getMinimumTarget() {
+        return minimumTarget;
+    }
+
+    /**
+     * Gets the maximum buffer target.
+     * @return The maximum target in [s].
+     */
+    @Contract(pure = true)
+    public double getMaximumTarget() {
+        return maximumTarget;
+    }
+
+    /**
+     * Gets the minimum buffer goal.
+     * @return The minimum goal in [s].
+     */
+    @Contract(pure = true)
+    public double getMinimumGoal() {
+        return minimumGoal;
+    }
+
+    /**
+     * Gets the maximum buffer goal.
+     * @return The maximum goal in [s].
+     */
+    @Contract(pure = true)
+    public double getMaximumGoal() {
+        return maximumGoal;
+    }
+
+    @Contract(pure = true)
+    double clampTarget(double target) {
+        return Math.min(maximumTarget, Math.max(minimumTarget, target));
+    }
+
+    @Contract(pure = true)
+    double clampGoal(double goal) {
+        return Math.min(maximumGoal, Math.max(minimumGoal, goal));
+    }
+
+    @Override
+    public @NotNull String toString() {
+        //noinspection HardCodedStringLiteral
+        return "AdaptiveBufferPolicy{" +
+                "minimumTarget=" + minimumTarget +
+                ", maximumTarget=" + maximumTarget +
+                ", minimumGoal=" + minimumGoal +
+                ", maximumGoal=" + maximumGoal +
+                "}";
+    }
+}
@@ -26,147 +26,189 @@ import io.ybrid.api.util.Identifier;
 import io.ybrid.api.util.MediaType;
 import io.ybrid.api.util.hasIdentifier;
 import io.ybrid.player.io.DataBlock;
+import io.ybrid.player.util.SPSCChannel;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.time.Duration;
-import java.time.Instant;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.DoubleSupplier;
 
 /**
  * This implements a buffered {@link PCMDataSource} based on another such source.
  *
  * The purpose of this class is to provide a buffer for audio.
+ * <P>
+ * For long buffers the samples can be held outside of the Java heap, see {@link #setDirectStorage(boolean)}.
  */
-public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifier {
+public class Buffer implements PCMDataSource, BufferStatusProvider, BufferMetricsProvider, hasIdentifier {
+    /**
+     * The system property enabling direct storage for new buffers, see {@link #setDirectStorage(boolean)}.
+     */
+    @ApiStatus.Experimental
+    public static final @NonNls String DIRECT_STORAGE_PROPERTY = "io.ybrid.player.io.audio.Buffer.directStorage";
     private static final String AUDIO_BUFFER_THREAD_NAME = "Audio Buffer Thread"; //NON-NLS
 
     private final BufferThread thread;
     private Identifier identifier;
 
-    private static class Status implements BufferStatusProvider {
-        private static final Duration MINIMUM_BETWEEN_ANNOUNCE = Duration.ofMillis(1000);
+    private static class Status implements BufferStatusProvider, BufferMetricsProvider {
+        private static final long MINIMUM_BETWEEN_ANNOUNCE = TimeUnit.MILLISECONDS.toNanos(1000);
 
-        private final Set<BufferStatusConsumer> consumers = new HashSet<>();
+        private final @NotNull List<BufferStatusConsumer> consumers = new CopyOnWriteArrayList<>();
         private final @NotNull Buffer buffer;
-        private @Nullable Instant lastAnnounce = null;
-        private long underruns = 0;
-        private @Nullable Instant underrunTimestamp = null;
-        private long overruns = 0;
-        private @Nullable Instant overrunTimestamp = null;
-        private double max = 0;
-        private @Nullable Instant maxTimestamp = null;
-        private double minAfterMax = 0;
-        private @Nullable Instant minAfterMaxTimestamp = null;
-        private double current = 0;
-        private @Nullable Instant currentTimestamp = null;
-        private long samplesRead;
-        private long samplesForwarded;
+        /* Guarded by this. */
+        private final @NotNull BufferMetrics metrics = new BufferMetrics();
+        private boolean announced = false;
+        private long lastAnnounce = 0;
 
         private Status(@NotNull Buffer buffer) {
             this.buffer = buffer;
         }
 
         private void underrun() {
-            underruns++;
-            underrunTimestamp = Instant.now();
-            announce(true, underrunTimestamp);
+            final @Nullable BufferStatus status;
+
+            synchronized (this) {
+                final long now = System.nanoTime();
+                metrics.underrun(now);
+                status = prepareAnnounce(true, now);
+            }
+            announce(status);
         }
 
         private void overrun() {
-            overruns++;
-            overrunTimestamp = Instant.now();
-            announce(true, overrunTimestamp);
-        }
+            final @Nullable BufferStatus status;
 
-        private void setCurrent(double current, long samplesRead, long samplesForwarded) {
-            Instant now = Instant.now();
-            boolean forceAnnounce = false;
-
-            this.current = current;
-            this.samplesRead = samplesRead;
-            this.samplesForwarded = samplesForwarded;
-            currentTimestamp = now;
-
-            if (current > max) {
-                max = current;
-                maxTimestamp = now;
-                minAfterMax = current;
-                minAfterMaxTimestamp = now;
-                forceAnnounce = true;
-            } else if (current < minAfterMax) {
-                minAfterMax = current;
-                minAfterMaxTimestamp = now;
-                forceAnnounce = true;
+            synchronized (this) {
+                final long now = System.nanoTime();
+                metrics.overrun(now);
+                status = prepareAnnounce(true, now);
             }
+            announce(status);
+        }
 
-            announce(forceAnnounce, now);
+        private synchronized void setTarget(double target, double goal) {
+            metrics.setTarget(target, goal);
         }
 
-        private synchronized void announce(boolean force, @NotNull final Instant now) {
-            final BufferStatus status;
+        private void setCurrent(double current, long samplesRead, long samplesForwarded) {
+            final @Nullable BufferStatus status;
+
+            synchronized (this) {
+                final long now = System.nanoTime();
+                status = prepareAnnounce(metrics.setCurrent(current, samplesRead, samplesForwarded, now), now);
+            }
+            announce(status);
+        }
 
+        /**
+         * Builds the status to announce if any.
+         * Nothing is allocated if there are no consumers.
+         */
+        private @Nullable BufferStatus prepareAnnounce(boolean force, long now) {
             if (consumers.isEmpty())
-                return;
+                return null;
 
-            if (!force && lastAnnounce != null && lastAnnounce.plus(MINIMUM_BETWEEN_ANNOUNCE).isAfter(now))
-                return;
+            if (!force && announced && (now - lastAnnounce) < MINIMUM_BETWEEN_ANNOUNCE)
+                return null;
 
-            status = new BufferStatus(buffer.getIdentifier(), underruns, underrunTimestamp, overruns, overrunTimestamp, max, maxTimestamp, minAfterMax, minAfterMaxTimestamp, current, currentTimestamp, samplesRead, samplesForwarded);
+            announced = true;
+            lastAnnounce = now;
+            return metrics.toBufferStatus(buffer.getIdentifier());
+        }
 
-            synchronized (consumers) {
-                for (BufferStatusConsumer consumer : consumers)
-                    consumer.onBufferStatusUpdate(status);
-            }
+        /* This is called without holding any lock, so consumers can not block the buffer. */
+        private void announce(@Nullable BufferStatus status) {
+            if (status == null)
+                return;
 
-            lastAnnounce = now;
+            for (final @NotNull BufferStatusConsumer consumer : consumers)
+                consumer.onBufferStatusUpdate(status);
+        }
+
+        @Override
+        public synchronized boolean getMetrics(@NotNull BufferMetrics metrics) {
+            metrics.copyFrom(this.metrics);
+            metrics.setIdentifier(buffer.getIdentifier());
+            return true;
         }
 
         @Override
         public void addBufferStatusConsumer(@NotNull BufferStatusConsumer consumer) {
-            synchronized (consumers) {
-                if (consumers.add(consumer))
-                    lastAnnounce = null; // force next announce
+            synchronized (this) {
+                if (!consumers.contains(consumer)) {
+                    consumers.add(consumer);
+                    announced = false; // force next announce
+                }
             }
         }
 
         @Override
         public void removeBufferStatusConsumer(@NotNull BufferStatusConsumer consumer) {
-            synchronized (consumers) {
-                consumers.remove(consumer);
-            }
+            consumers.remove(consumer);
         }
     }
 
-    private static class BufferThread extends Thread implements PCMDataSource, BufferStatusProvider {
-        private static final long POLL_TIMEOUT = 123; /* [ms] */
-        private static final int SLEEP_TIME = 773; /* [ms] */
+    private static class BufferThread extends Thread implements PCMDataSource, BufferStatusProvider, BufferMetricsProvider, BufferMemoryGovernor.Member {
         private static final double STARVATION_FACTOR = 0.1; /* maximum as factor of target */
         private static final double STARVATION_ABSOLUTE = 0.5; /* maximum as absolute [s] */
+        private static final double MINIMUM_BLOCK_LENGTH = 0.0025; /* shortest expected block (2.5ms Opus frame) [s] */
+        private static final int MINIMUM_CAPACITY = 64; /* [block] */
 
+        /* Signaled by the reader when the buffer drops to the low watermark while the pump is idle. */
         private final @NotNull Object readAnnounce = new Object();
-        private final BlockingQueue<PCMDataBlock> buffer = new LinkedBlockingQueue<>();
+        /* Only the pump thread writes to this, and only the reader reads from it. */
+        private final @NotNull SPSCChannel<PCMDataBlock> buffer;
+        private final @NotNull FrameAccumulator length = new FrameAccumulator();
         private final Status state;
         @NotNull private final PCMDataSource backend;
         private final Consumer<DataBlock> inputConsumer;
-        private Exception exception = null;
-        private double target;
-        private double starvationTarget;
+        private final @Nullable DoubleSupplier upstreamLength;
+        private final @NotNull BufferMemoryGovernor.Registration registration;
+        private final @Nullable AdaptiveBufferController controller;
+        /* Only the pump thread stores blocks, any thread may replace the store. */
+        private volatile @Nullable DirectSampleStore store = null;
+        private volatile Exception exception = null;
+        private volatile boolean pumpWaiting = false;
+        private volatile double target;
+        private volatile double starvationTarget;
+        private volatile double requestedTarget;
+        private volatile double targetLimit = Double.POSITIVE_INFINITY;
         private long samplesRead = 0;
         private long samplesForwarded = 0;
+        /* Whether the reader found the buffer empty. Only used by the reader. */
+        private boolean starved = false;
+        private volatile long pumpIdleWakeups = 0;
 
-        public BufferThread(String name, @NotNull Buffer buffer, @NotNull PCMDataSource backend, Consumer<DataBlock> inputConsumer, double target) {
+        public BufferThread(String name, @NotNull Buffer buffer, @NotNull PCMDataSource backend, Consumer<DataBlock> inputConsumer, double target, @Nullable DoubleSupplier upstreamLength, @Nullable AdaptiveBufferPolicy policy) {
             super(name);
             this.backend = backend;
             this.inputConsumer = inputConsumer;
+            this.upstreamLength = upstreamLength;
             this.state = new Status(buffer);
+
+            if (policy != null) {
+                controller = new AdaptiveBufferController(policy, target);
+                target = controller.getTarget();
+                this.buffer = new SPSCChannel<>(MINIMUM_CAPACITY + (int) Math.ceil(policy.getMaximumTarget() / MINIMUM_BLOCK_LENGTH));
+                state.setTarget(target, controller.getGoal());
+            } else {
+                controller = null;
+                this.buffer = new SPSCChannel<>(MINIMUM_CAPACITY + (int) Math.ceil(target / MINIMUM_BLOCK_LENGTH));
+                state.setTarget(target, Double.NaN);
+            }
+
             setTarget(target);
+            this.requestedTarget = target;
+            this.registration = BufferMemoryGovernor.getInstance().register(this, target);
         }
 
         private void setTarget(double target) {
@@ -181,29 +223,80 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
                 this.starvationTarget = target;
         }
 
+        private void updateRequestedTarget() {
+            // The lock keeps the two values consistent if updated by different threads.
+            synchronized (registration) {
+                registration.setTarget(Math.min(requestedTarget, targetLimit));
+            }
+        }
+
+        private void setRequestedTarget(double requestedTarget) {
+            this.requestedTarget = requestedTarget;
+            updateRequestedTarget();
+        }
+
+        void setTargetLimit(double targetLimit) {
+            if (this.targetLimit == targetLimit)
+                return;
+            this.targetLimit = targetLimit;
+            updateRequestedTarget();
+        }
+
+        @Override
+        public void setEffectiveTarget(double target) {
+            setTarget(target);
+            state.setTarget(target, controller == null ? Double.NaN : controller.getGoal());
+
+            // Let the pump re-check the new target.
+            synchronized (readAnnounce) {
+                readAnnounce.notifyAll();
+            }
+        }
+
         @Override
         public void run() {
             try {
                 while (!isInterrupted()) {
-                    final double length = getBufferLength();
-                    if (length > target) {
+                    if (getBufferLength() > target) {
                         state.overrun();
-                        //noinspection BusyWait
-                        sleep((long) ((length - starvationTarget) * 1000));
-                        synchronized (readAnnounce) {
-                            readAnnounce.wait(SLEEP_TIME);
-                        }
+                        waitForLowWatermark();
                     } else {
                         pump();
                     }
                 }
+                // Interrupted between two operations, readers must still see why the buffer ended.
+                exception = new InterruptedIOException();
             } catch (InterruptedException | IOException e) {
                 exception = e;
             }
+
+            // This wakes up the reader if it is waiting for a block.
+            buffer.close();
+        }
+
+        /**
+         * Blocks the pump until the reader drained the buffer to the low watermark.
+         * The reader signals exactly when this point is crossed, so there is no polling.
+         */
+        private void waitForLowWatermark() throws InterruptedException {
+            synchronized (readAnnounce) {
+                pumpWaiting = true;
+                try {
+                    while (length.getLength() > starvationTarget) {
+                        readAnnounce.wait();
+                        if (length.getLength() > starvationTarget)
+                            pumpIdleWakeups++;
+                    }
+                } finally {
+                    pumpWaiting = false;
+                }
+            }
         }
 
         private void pump() throws IOException, InterruptedException {
-            final @NotNull PCMDataBlock block;
+            final @Nullable DirectSampleStore store = this.store;
+            @NotNull PCMDataBlock block;
+            final long start = System.nanoTime();
 
             try {
                 block = backend.read();
@@ -211,14 +304,27 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
                 throw new IOException(e);
             }
 
+            if (controller != null) {
+                if (controller.onBlock(System.nanoTime() - start, (double) block.getLengthAsFrames() / block.getSampleRate()))
+                    setRequestedTarget(controller.getTarget());
+                state.setTarget(target, controller.getGoal());
+            }
+
             try {
                 if (inputConsumer != null)
                     inputConsumer.accept(block);
             } catch (Exception ignored) {
             }
 
+            if (store != null)
+                block = store.store(block);
+
+            // Account for the block before it becomes visible to the reader so the length never goes negative.
+            length.add(block);
+            registration.setBytesPerSecond((long) block.getSampleRate() * block.getNumberOfChannels() * block.getSampleSize());
+            registration.add((long) block.getDataLength() * block.getSampleSize());
+            samplesRead += block.getDataLength();
             buffer.put(block);
-            samplesRead += block.getData().length;
         }
 
         private IOException toIOException(Exception e) {
@@ -228,79 +334,132 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
             return new IOException(e);
         }
 
+        private void onUnderrun() {
+            state.underrun();
+            // The first read always finds the buffer empty, this is not caused by the network.
+            if (controller != null && samplesForwarded > 0 && controller.onUnderrun())
+                setRequestedTarget(controller.getTarget());
+        }
+
         @Override
         public @NotNull PCMDataBlock read() throws IOException {
-            try {
-                PCMDataBlock block = buffer.poll();
-
-                if (block != null) {
-                    // Update state.
-                    getBufferLength();
-                    samplesForwarded += block.getData().length;
-
-                    synchronized (readAnnounce) {
-                        readAnnounce.notifyAll();
-                    }
-                    return block;
+            PCMDataBlock block = buffer.poll();
+
+            if (block == null) {
+                // If poll() already found the buffer empty this underrun has been accounted for.
+                if (!starved)
+                    onUnderrun();
+                try {
+                    block = buffer.take();
+                } catch (InterruptedException e) {
+                    throw toIOException(e);
                 }
 
-                state.underrun();
-
-                do {
-                    if (exception != null) {
-                        throw toIOException(exception);
-                    }
-                    block = buffer.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
-                } while (block == null);
+                // The channel is only closed by the pump after it failed.
+                if (block == null)
+                    throw toIOException(Objects.requireNonNull(exception));
+            }
 
-                // Update state.
-                getBufferLength();
-                samplesForwarded += block.getData().length;
+            return consume(block);
+        }
 
-                synchronized (readAnnounce) {
-                    readAnnounce.notifyAll();
+        /**
+         * Reads a block if one is available. This never blocks.
+         * An underrun is only accounted once until a block becomes available again.
+         *
+         * @return The block or {@code null} if the buffer is empty.
+         * @throws IOException Thrown if the buffer is empty and the input failed.
+         */
+        public @Nullable PCMDataBlock poll() throws IOException {
+            final @Nullable PCMDataBlock block = buffer.poll();
+
+            if (block == null) {
+                // The channel is only closed by the pump after it failed.
+                if (buffer.isClosed() && buffer.isEmpty())
+                    throw toIOException(Objects.requireNonNull(exception));
+                if (!starved) {
+                    starved = true;
+                    onUnderrun();
                 }
-                return block;
-            } catch (InterruptedException e) {
-                throw toIOException(e);
+                return null;
             }
+
+            return consume(block);
         }
 
         /**
-         * Returns the fullness of the buffer.
-         * @return The fullness in [s].
+         * Reads frames into a buffer provided by the caller.
+         * Only the first block is waited for, the read then continues with what is buffered without waiting.
+         *
+         * @param buffer The buffer to read into.
+         * @param offset The offset in {@code buffer} in [sample].
+         * @param frames The maximum number of frames to read in [frame].
+         * @param result The result to update.
+         * @param wait Whether to wait for the first block.
+         * @return The number of frames read in [frame].
+         * @throws IOException Thrown if no frames were read and the input failed.
          */
-        public double getBufferLength() {
-            /* This is a faster implementation, but it breaks abstraction: */
-            final long skipped = backend.getSkippedSamples();
-            double ret = 0;
+        public int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result, boolean wait) throws IOException {
+            @Nullable PCMDataBlock block;
 
-            for (PCMDataBlock block : buffer) {
-                ret += (double)block.getLengthAsFrames() / (double)block.getSampleRate();
+            result.begin(buffer, offset, frames);
+            if (!result.consumePending())
+                return result.getLengthAsFrames();
+
+            if (result.getLengthAsFrames() == 0) {
+                block = wait ? read() : poll();
+                if (block == null || !result.consume(block))
+                    return result.getLengthAsFrames();
             }
 
-            state.setCurrent(ret, samplesRead + skipped, samplesForwarded > 0 ? samplesForwarded + skipped : 0);
+            // Running out of buffered blocks here is not an underrun as frames have been read already.
+            while ((block = this.buffer.poll()) != null) {
+                if (!result.consume(consume(block)))
+                    break;
+            }
 
-            return ret;
+            return result.getLengthAsFrames();
         }
 
-        /* Nice implementation yet incredibly slow on Android:
-        public double getBufferLength() {
-            final long skipped = backend.getSkippedSamples();
-            Duration duration = Duration.ZERO;
-            double ret;
+        private @NotNull PCMDataBlock consume(@NotNull PCMDataBlock block) {
+            starved = false;
+            length.remove(block);
+            registration.remove((long) block.getDataLength() * block.getSampleSize());
 
-            for (PCMDataBlock block : buffer) {
-                duration = duration.plus(block.getLength());
+            // Update state.
+            if (getBufferLength() <= starvationTarget && pumpWaiting) {
+                synchronized (readAnnounce) {
+                    readAnnounce.notifyAll();
+                }
             }
+            samplesForwarded += block.getDataLength();
 
-            ret = duration.getSeconds() + (duration.getNano() / 1000000000.);
+            return block;
+        }
 
-            state.setCurrent(ret, samplesRead + skipped, samplesForwarded > 0 ? samplesForwarded + skipped : 0);
+        /**
+         * Gets the number of times the pump, or the reader woke up without any work to do.
+         * @return The number of idle wakeups.
+         */
+        long getIdleWakeups() {
+            return pumpIdleWakeups + buffer.getIdleWakeups();
+        }
+
+        /**
+         * Returns the fullness of the buffer.
+         * This runs in constant time as the length is updated as blocks enter and leave the buffer.
+         * The reported status also includes the audio buffered upstream, if any.
+         * @return The fullness in [s].
+         */
+        public double getBufferLength() {
+            final long skipped = backend.getSkippedSamples();
+            final double ret = length.getLength();
+            final double upstream = upstreamLength == null ? 0 : upstreamLength.getAsDouble();
+
+            state.setCurrent(ret + upstream, samplesRead + skipped, samplesForwarded > 0 ? samplesForwarded + skipped : 0);
 
             return ret;
         }
-         */
 
         @Override
         public void addBufferStatusConsumer(@NotNull BufferStatusConsumer consumer) {
@@ -312,6 +471,11 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
             state.removeBufferStatusConsumer(consumer);
         }
 
+        @Override
+        public boolean getMetrics(@NotNull BufferMetrics metrics) {
+            return state.getMetrics(metrics);
+        }
+
         @Override
         public boolean isValid() {
             return !buffer.isEmpty() || exception == null;
@@ -325,12 +489,27 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
         @Override
         public void close() throws IOException {
             interrupt();
+            registration.close();
             backend.close();
         }
 
+        void setPreferred(boolean preferred) {
+            registration.setPreferred(preferred);
+        }
+
         public boolean hasInputReachedEOF() {
             return exception != null;
         }
+
+        void setDirectStorage(boolean enabled) {
+            if (enabled == (store != null))
+                return;
+            store = enabled ? new DirectSampleStore() : null;
+        }
+
+        @Nullable DirectSampleStore getStore() {
+            return store;
+        }
     }
 
     /**
@@ -353,8 +532,38 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
      * @param inputConsumer A {@link Consumer} that is called when a new block is read into the buffer.
      */
     public Buffer(@Nullable Identifier identifier, double target, @NotNull PCMDataSource backend, Consumer<DataBlock> inputConsumer) {
+        this(identifier, target, backend, inputConsumer, null);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param identifier The identifier for this buffer.
+     * @param target The amount of audio to be buffered in [s].
+     * @param backend The backend to use.
+     * @param inputConsumer A {@link Consumer} that is called when a new block is read into the buffer.
+     * @param upstreamLength A supplier for the amount of audio buffered before the backend in [s] or {@code null}.
+     *                       This is added to the reported {@link BufferStatus}.
+     */
+    Buffer(@Nullable Identifier identifier, double target, @NotNull PCMDataSource backend, Consumer<DataBlock> inputConsumer, @Nullable DoubleSupplier upstreamLength) {
+        this(identifier, target, backend, inputConsumer, upstreamLength, null);
+    }
+
+    /**
+     * Create an instance.
+     *
+     * @param identifier The identifier for this buffer.
+     * @param target The amount of audio to be buffered in [s]. If {@code policy} is given this is the initial target.
+     * @param backend The backend to use.
+     * @param inputConsumer A {@link Consumer} that is called when a new block is read into the buffer.
+     * @param upstreamLength A supplier for the amount of audio buffered before the backend in [s] or {@code null}.
+     *                       This is added to the reported {@link BufferStatus}.
+     * @param policy The policy used to adapt the target to the network conditions or {@code null} to use a fixed target.
+     */
+    Buffer(@Nullable Identifier identifier, double target, @NotNull PCMDataSource backend, Consumer<DataBlock> inputConsumer, @Nullable DoubleSupplier upstreamLength, @Nullable AdaptiveBufferPolicy policy) {
         setIdentifier(identifier);
-        thread = new BufferThread(AUDIO_BUFFER_THREAD_NAME, this, backend, inputConsumer, target);
+        thread = new BufferThread(AUDIO_BUFFER_THREAD_NAME, this, backend, inputConsumer, target, upstreamLength, policy);
+        thread.setDirectStorage(Boolean.getBoolean(DIRECT_STORAGE_PROPERTY));
         thread.start();
     }
 
@@ -384,6 +593,51 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
         return thread.read();
     }
 
+    /**
+     * Reads frames into a buffer provided by the caller.
+     * <P>
+     * This waits for the buffer to become non-empty and then reads frames of as many buffered blocks as fit
+     * without waiting any further.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update.
+     * @return The number of frames read in [frame].
+     * @throws IOException Thrown if no frames were read and the input failed.
+     */
+    @Override
+    public int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) throws IOException {
+        return thread.read(buffer, offset, frames, result, true);
+    }
+
+    /**
+     * Reads frames into a buffer provided by the caller if any are available.
+     * Unlike {@link #read(short[], int, int, PCMReadResult)} this never blocks.
+     * This must be called by the same thread that calls {@link #read(short[], int, int, PCMReadResult)}.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update.
+     * @return The number of frames read in [frame]. This is zero if the buffer is currently empty.
+     * @throws IOException Thrown if the buffer is empty and the input failed.
+     */
+    public int poll(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) throws IOException {
+        return thread.read(buffer, offset, frames, result, false);
+    }
+
+    /**
+     * Reads a block if one is available. Unlike {@link #read()} this never blocks.
+     * This must be called by the same thread that calls {@link #read()}.
+     *
+     * @return The block or {@code null} if the buffer is currently empty.
+     * @throws IOException Thrown if the buffer is empty and the input failed.
+     */
+    public @Nullable PCMDataBlock poll() throws IOException {
+        return thread.poll();
+    }
+
     @Override
     public boolean isValid() {
         return thread.isValid();
@@ -399,12 +653,102 @@ public class Buffer implements PCMDataSource, BufferStatusProvider, hasIdentifie
         thread.removeBufferStatusConsumer(consumer);
     }
 
+    /**
+     * Fills the given snapshot with the current metrics of this buffer.
+     * This does not allocate any objects and can be called at any rate.
+     * @param metrics The snapshot to fill.
+     * @return Always {@code true}.
+     */
+    @Override
+    public boolean getMetrics(@NotNull BufferMetrics metrics) {
+        return thread.getMetrics(metrics);
+    }
+
     @Override
     public void close() throws IOException {
         thread.close();
     }
 
 
+    /**
+     * Gets the number of times the buffer's threads woke up without any work to do.
+     * This is used to validate the scheduling of the buffer.
+     * @return The number of idle wakeups.
+     */
+    long getIdleWakeups() {
+        return thread.getIdleWakeups();
+    }
+
+    /**
+     * Limits the target of this buffer. This is applied in addition to any adaption to network conditions
+     * and the {@link BufferMemoryGovernor}.
+     * @param limit The maximum target in [s] or {@link Double#POSITIVE_INFINITY}.
+     */
+    void setTargetLimit(double limit) {
+        thread.setTargetLimit(limit);
+    }
+
+    /**
+     * Sets the priority of the thread reading from the backend.
+     * @param priority The priority as used by {@link Thread#setPriority(int)}.
+     */
+    void setPriority(int priority) {
+        if (thread.getPriority() != priority)
+            thread.setPriority(priority);
+    }
+
+    /**
+     * Gets the amount of audio currently held by this buffer.
+     * @return The length in [s].
+     */
+    double getLength() {
+        return thread.length.getLength();
+    }
+
+    /**
+     * Sets whether this buffer is currently played.
+     * Preferred buffers are served first by the {@link BufferMemoryGovernor}.
+     * @param preferred Whether this buffer is preferred.
+     */
+    void setPreferred(boolean preferred) {
+        thread.setPreferred(preferred);
+    }
+
+    /**
+     * Sets whether samples are stored outside of the Java heap.
+     * <P>
+     * This reduces the heap footprint and the work of the garbage collector for long buffers
+     * such as large targets or timeshift. Blocks entering the buffer are copied into native memory
+     * and returned as {@link DirectPCMDataBlock}s. Blocks already buffered are not changed.
+     * Blocks holding {@code float} samples are kept on the heap.
+     * The default is set by the system property {@value #DIRECT_STORAGE_PROPERTY}.
+     *
+     * @param enabled Whether to enable direct storage.
+     */
+    @ApiStatus.Experimental
+    public void setDirectStorage(boolean enabled) {
+        thread.setDirectStorage(enabled);
+    }
+
+    /**
+     * Gets whether samples are stored outside of the Java heap.
+     * @return Whether direct storage is enabled.
+     * @see #setDirectStorage(boolean)
+     */
+    @ApiStatus.Experimental
+    public boolean isDirectStorage() {
+        return thread.getStore() != null;
+    }
+
+    /**
+     * Gets the amount of native memory currently allocated to store samples.
+     * @return The size in [byte].
+     */
+    long getDirectStorageAllocated() {
+        final @Nullable DirectSampleStore store = thread.getStore();
+        return store == null ? 0 : store.getAllocated();
+    }
+
     /**
      * Gets whether the input side has reached EOF.
      * @return Whether input reached EOF.
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This enforces a common memory budget for all {@link Buffer}s.
+ * <P>
+ * Every {@link Buffer} registers with the governor returned by {@link #getInstance()}.
+ * As long as the sum of the memory needed by all buffers to reach their targets fits the budget nothing is changed.
+ * If it does not fit the targets are reduced. Buffers that are currently played (preferred buffers)
+ * are served first. The rest of the budget is split between all other buffers proportionally to their targets.
+ * Targets are never reduced below {@link #MINIMUM_TARGET}.
+ * <P>
+ * Reducing the target of a buffer stops it from reading more data until it has been played out below
+ * the new target. No audio is discarded.
+ * <P>
+ * This class is thread safe.
+ */
+public final class BufferMemoryGovernor {
+    /**
+     * The value used for no budget.
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+    /**
+     * The smallest target a buffer is reduced to in [s].
+     */
+    public static final double MINIMUM_TARGET = 0.5; /* [s] */
+
+    private static final @NotNull BufferMemoryGovernor INSTANCE = new BufferMemoryGovernor();
+
+    /**
+     * This is implemented by objects that are controlled by the governor.
+     */
+    interface Member {
+        /**
+         * Sets the target that is allowed by the current budget.
+         * @param target The new target in [s].
+         */
+        void setEffectiveTarget(double target);
+    }
+
+    /**
+     * This represents a {@link Member} registered with the governor.
+     */
+    final class Registration {
+        private final @NotNull Member member;
+        private double target;
+        private volatile long bytesPerSecond = 0;
+        private long usage = 0;
+        private boolean preferred = false;
+        private boolean closed = false;
+        private double effectiveTarget;
+
+        private Registration(@NotNull Member member, double target) {
+            this.member = member;
+            this.target = target;
+            this.effectiveTarget = target;
+        }
+
+        private long getDemand() {
+            return (long) Math.ceil(target * bytesPerSecond);
+        }
+
+        private void apply(double effectiveTarget) {
+            if (effectiveTarget == this.effectiveTarget)
+                return;
+
+            this.effectiveTarget = effectiveTarget;
+            member.setEffectiveTarget(effectiveTarget);
+        }
+
+        /**
+         * Accounts for memory that became used.
+         * @param bytes The amount of memory in [byte].
+         */
+        synchronized void add(long bytes) {
+            if (closed)
+                return;
+            usage += bytes;
+            updateUsage(bytes);
+        }
+
+        /**
+         * Accounts for memory that is no longer used.
+         * @param bytes The amount of memory in [byte].
+         */
+        synchronized void remove(long bytes) {
+            if (closed)
+                return;
+            usage -= bytes;
+            updateUsage(-bytes);
+        }
+
+        /**
+         * Sets the amount of memory needed for one second of audio.
+         * This is used to convert the budget into targets.
+         * @param bytesPerSecond The amount of memory in [byte/s].
+         */
+        void setBytesPerSecond(long bytesPerSecond) {
+            if (this.bytesPerSecond == bytesPerSecond)
+                return;
+
+            this.bytesPerSecond = bytesPerSecond;
+            rebalance();
+        }
+
+        /**
+         * Sets the target requested by the member.
+         * @param target The new target in [s].
+         */
+        void setTarget(double target) {
+            synchronized (BufferMemoryGovernor.this) {
+                if (this.target == target)
+                    return;
+                this.target = target;
+                rebalance();
+            }
+        }
+
+        /**
+         * Sets whether this member is preferred. This is the case for buffers that are currently played.
+         * @param preferred Whether this member is preferred.
+         */
+        void setPreferred(boolean preferred) {
+            synchronized (BufferMemoryGovernor.this) {
+                if (this.preferred == preferred)
+                    return;
+                this.preferred = preferred;
+                rebalance();
+            }
+        }
+
+        /**
+         * Unregisters this member. Any memory still accounted for is released.
+         */
+        void close() {
+            synchronized (this) {
+                if (closed)
+                    return;
+                closed = true;
+                updateUsage(-usage);
+                usage = 0;
+            }
+
+            synchronized (BufferMemoryGovernor.this) {
+                registrations.remove(this);
+                rebalance();
+            }
+        }
+    }
+
+    private final @NotNull List<Registration> registrations = new ArrayList<>();
+    private final @NotNull AtomicLong current = new AtomicLong();
+    private final @NotNull AtomicLong peak = new AtomicLong();
+    private long budget = UNLIMITED;
+    private boolean lowMemory = false;
+
+    BufferMemoryGovernor() {
+    }
+
+    /**
+     * Gets the governor shared by all {@link Buffer}s.
+     * @return The instance.
+     */
+    @Contract(pure = true)
+    public static @NotNull BufferMemoryGovernor getInstance() {
+        return INSTANCE;
+    }
+
+    private void updateUsage(long delta) {
+        final long now = current.addAndGet(delta);
+        peak.accumulateAndGet(now, Math::max);
+    }
+
+    private static long sumDemand(@NotNull List<Registration> registrations, boolean preferred) {
+        long ret = 0;
+
+        for (final @NotNull Registration registration : registrations) {
+            if (registration.preferred == preferred)
+                ret += registration.getDemand();
+        }
+
+        return ret;
+    }
+
+    private static long distribute(@NotNull List<Registration> registrations, boolean preferred, long available) {
+        final long demand = sumDemand(registrations, preferred);
+        final double factor = demand <= available ? 1. : ((double) Math.max(0, available) / (double) demand);
+        long used = 0;
+
+        for (final @NotNull Registration registration : registrations) {
+            final double target;
+
+            if (registration.preferred != preferred)
+                continue;
+
+            target = Math.min(registration.target, Math.max(MINIMUM_TARGET, registration.target * factor));
+            registration.apply(target);
+            used += (long) Math.ceil(target * registration.bytesPerSecond);
+        }
+
+        return used;
+    }
+
+    private synchronized void rebalance() {
+        final long available = lowMemory ? 0 : budget;
+
+        if (available == UNLIMITED) {
+            for (final @NotNull Registration registration : registrations)
+                registration.apply(registration.target);
+            return;
+        }
+
+        distribute(registrations, false, available - distribute(registrations, true, available));
+    }
+
+    /**
+     * Registers a new member.
+     * @param member The member to register.
+     * @param target The target requested by the member in [s].
+     * @return The registration.
+     */
+    synchronized @NotNull Registration register(@NotNull Member member, double target) {
+        final @NotNull Registration registration = new Registration(member, target);
+        registrations.add(registration);
+        rebalance();
+        return registration;
+    }
+
+    /**
+     * Sets the budget for all buffers.
+     * @param budget The budget in [byte] or {@link #UNLIMITED}.
+     */
+    public synchronized void setBudget(long budget) {
+        if (budget < 0)
+            throw new IllegalArgumentException("Budget must be positive, got " + budget);
+        this.budget = budget;
+        rebalance();
+    }
+
+    /**
+     * Gets the budget for all buffers.
+     * @return The budget in [byte] or {@link #UNLIMITED}.
+     */
+    public synchronized long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Signals that the system is low on memory.
+     * <P>
+     * This reduces the targets of all buffers to {@link #MINIMUM_TARGET} until {@link #clearLowMemory()} is called.
+     * The buffers stop reading immediately and release their memory as they are played out.
+     */
+    public synchronized void onLowMemory() {
+        lowMemory = true;
+        rebalance();
+    }
+
+    /**
+     * Clears a low memory condition signaled by {@link #onLowMemory()}.
+     */
+    public synchronized void clearLowMemory() {
+        lowMemory = false;
+        rebalance();
+    }
+
+    /**
+     * Resets the peak memory usage to the current usage.
+     */
+    public void resetPeak() {
+        peak.set(current.get());
+    }
+
+    /**
+     * Gets the current status.
+     * @return The status.
+     */
+    public synchronized @NotNull BufferMemoryStatus getStatus() {
+        return new BufferMemoryStatus(budget, current.get(), peak.get(), registrations.size(), lowMemory);
+    }
+}
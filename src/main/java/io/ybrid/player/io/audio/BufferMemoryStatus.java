@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+
+/**
+ * This class holds a snapshot of the memory usage as tracked by the {@link BufferMemoryGovernor}.
+ */
+final public class BufferMemoryStatus implements Serializable {
+    private static final long serialVersionUID = 4893150931624582610L;
+
+    private final long budget;
+    private final long current;
+    private final long peak;
+    private final int buffers;
+    private final boolean lowMemory;
+
+    BufferMemoryStatus(long budget, long current, long peak, int buffers, boolean lowMemory) {
+        this.budget = budget;
+        this.current = current;
+        this.peak = peak;
+        this.buffers = buffers;
+        this.lowMemory = lowMemory;
+    }
+
+    /**
+     * Gets the budget for all buffers.
+     * @return The budget in [byte] or {@link BufferMemoryGovernor#UNLIMITED}.
+     */
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Gets the memory currently used by all buffers.
+     * @return The memory used in [byte].
+     */
+    public long getCurrent() {
+        return current;
+    }
+
+    /**
+     * Gets the maximum memory used by all buffers at the same time.
+     * @return The peak memory used in [byte].
+     */
+    public long getPeak() {
+        return peak;
+    }
+
+    /**
+     * Gets the number of buffers currently registered.
+     * @return The number of buffers.
+     */
+    public int getBuffers() {
+        return buffers;
+    }
+
+    /**
+     * Gets whether a low memory condition has been signaled.
+     * @return Whether memory is low.
+     * @see BufferMemoryGovernor#onLowMemory()
+     */
+    public boolean isLowMemory() {
+        return lowMemory;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        //noinspection HardCodedStringLiteral
+        return "BufferMemoryStatus{" +
+                "budget=" + budget +
+                ", current=" + current +
+                ", peak=" + peak +
+                ", buffers=" + buffers +
+                ", lowMemory=" + lowMemory +
+                "}";
+    }
+}
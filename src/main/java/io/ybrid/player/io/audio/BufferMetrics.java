@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.util.Identifier;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * This class holds a snapshot of the metrics of a {@link Buffer}.
+ * <P>
+ * In contrast to {@link BufferStatus} this class is mutable and only contains primitive values.
+ * It is intended to be allocated once and filled in by {@link BufferMetricsProvider#getMetrics(BufferMetrics)}
+ * as often as the caller needs it. Doing so does not allocate any objects.
+ * <P>
+ * All timestamps are in the time base of {@link System#nanoTime()}.
+ * Timestamps of events that did not happen yet are {@link #NO_TIMESTAMP}.
+ * <P>
+ * This class is not thread safe. Each thread should use its own instance.
+ */
+public final class BufferMetrics {
+    /**
+     * The value of timestamps of events that did not happen yet.
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private @Nullable Identifier identifier = null;
+    private long underruns = 0;
+    private long underrunTimestamp = NO_TIMESTAMP;
+    private long overruns = 0;
+    private long overrunTimestamp = NO_TIMESTAMP;
+    private double max = 0;
+    private long maxTimestamp = NO_TIMESTAMP;
+    private double minAfterMax = 0;
+    private long minAfterMaxTimestamp = NO_TIMESTAMP;
+    private double current = 0;
+    private long currentTimestamp = NO_TIMESTAMP;
+    private long samplesRead = 0;
+    private long samplesForwarded = 0;
+    private double target = 0;
+    private double goal = Double.NaN;
+
+    /**
+     * Copies all values from another instance.
+     * @param other The instance to copy from.
+     */
+    void copyFrom(@NotNull BufferMetrics other) {
+        identifier = other.identifier;
+        underruns = other.underruns;
+        underrunTimestamp = other.underrunTimestamp;
+        overruns = other.overruns;
+        overrunTimestamp = other.overrunTimestamp;
+        max = other.max;
+        maxTimestamp = other.maxTimestamp;
+        minAfterMax = other.minAfterMax;
+        minAfterMaxTimestamp = other.minAfterMaxTimestamp;
+        current = other.current;
+        currentTimestamp = other.currentTimestamp;
+        samplesRead = other.samplesRead;
+        samplesForwarded = other.samplesForwarded;
+        target = other.target;
+        goal = other.goal;
+    }
+
+    void setIdentifier(@Nullable Identifier identifier) {
+        this.identifier = identifier;
+    }
+
+    void underrun(long now) {
+        underruns++;
+        underrunTimestamp = now;
+    }
+
+    void overrun(long now) {
+        overruns++;
+        overrunTimestamp = now;
+    }
+
+    /**
+     * Updates the current fill.
+     * @param current The current fill in [s].
+     * @param samplesRead The read clock.
+     * @param samplesForwarded The forward clock.
+     * @param now The current time.
+     * @return Whether a new maximum or a new minimum after the maximum was reached.
+     */
+    boolean setCurrent(double current, long samplesRead, long samplesForwarded, long now) {
+        this.current = current;
+        this.samplesRead = samplesRead;
+        this.samplesForwarded = samplesForwarded;
+        currentTimestamp = now;
+
+        if (current > max) {
+            max = current;
+            maxTimestamp = now;
+            minAfterMax = current;
+            minAfterMaxTimestamp = now;
+            return true;
+        } else if (current < minAfterMax) {
+            minAfterMax = current;
+            minAfterMaxTimestamp = now;
+            return true;
+        }
+
+        return false;
+    }
+
+    void setTarget(double target, double goal) {
+        this.target = target;
+        this.goal = goal;
+    }
+
+    /**
+     * Converts this snapshot into a {@link BufferStatus}.
+     * @param identifier The identifier of the buffer.
+     * @return The new status.
+     */
+    @NotNull BufferStatus toBufferStatus(@NotNull Identifier identifier) {
+        final long nanoTime = System.nanoTime();
+        final @NotNull Instant now = Instant.now();
+
+        return new BufferStatus(identifier,
+                underruns, toInstant(underrunTimestamp, nanoTime, now),
+                overruns, toInstant(overrunTimestamp, nanoTime, now),
+                max, toInstant(maxTimestamp, nanoTime, now),
+                minAfterMax, toInstant(minAfterMaxTimestamp, nanoTime, now),
+                current, toInstant(currentTimestamp, nanoTime, now), samplesRead, samplesForwarded,
+                target, goal);
+    }
+
+    @Contract(pure = true)
+    private static @Nullable Instant toInstant(long timestamp, long nanoTime, @NotNull Instant now) {
+        if (timestamp == NO_TIMESTAMP)
+            return null;
+        return now.minus(Duration.ofNanos(nanoTime - timestamp));
+    }
+
+    /**
+     * Gets the identifier of the buffer.
+     * @return The identifier of the buffer or {@code null} if this snapshot was never filled.
+     */
+    public @Nullable Identifier getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Get number total of underruns.
+     * @return Number of underruns.
+     */
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    /**
+     * Get time of last underrun.
+     * @return Time of last underrun or {@link #NO_TIMESTAMP}.
+     */
+    public long getUnderrunTimestamp() {
+        return underrunTimestamp;
+    }
+
+    /**
+     * Get number of total overruns.
+     * @return Number of overruns.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Get time of last overrun.
+     * @return Time of last overrun or {@link #NO_TIMESTAMP}.
+     */
+    public long getOverrunTimestamp() {
+        return overrunTimestamp;
+    }
+
+    /**
+     * Get maximum buffer fill ever reached.
+     * @return Maximum buffer fill in [s].
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Get time of maximum buffer fill.
+     * @return Time of maximum buffer fill or {@link #NO_TIMESTAMP}.
+     */
+    public long getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Get minimum buffer fill since last time max was reached.
+     * @return Minimum buffer fill in [s].
+     */
+    public double getMinAfterMax() {
+        return minAfterMax;
+    }
+
+    /**
+     * Get time of minimum buffer fill. This is always later or equal to {@link #getMaxTimestamp()}.
+     * @return Time of last minimum buffer fill or {@link #NO_TIMESTAMP}.
+     */
+    public long getMinAfterMaxTimestamp() {
+        return minAfterMaxTimestamp;
+    }
+
+    /**
+     * Get the current buffer fill.
+     * This value is recorded at {@link #getCurrentTimestamp()}.
+     * @return The current buffer fill in [s].
+     */
+    public double getCurrent() {
+        return current;
+    }
+
+    /**
+     * Get time of when current buffer fill was recorded.
+     * @return Time of record or {@link #NO_TIMESTAMP}.
+     */
+    public long getCurrentTimestamp() {
+        return currentTimestamp;
+    }
+
+    /**
+     * Gets the current read clock of the buffer.
+     * @return The read clock.
+     * @see BufferStatus#getCurrentSamplesRead()
+     */
+    public long getCurrentSamplesRead() {
+        return samplesRead;
+    }
+
+    /**
+     * Gets the current forward clock of the buffer.
+     * @return The forward clock.
+     * @see BufferStatus#getCurrentSamplesForwarded()
+     */
+    public long getCurrentSamplesForwarded() {
+        return samplesForwarded;
+    }
+
+    /**
+     * Gets the current target of the buffer. This is the amount of audio the buffer reads ahead.
+     * @return The target in [s].
+     */
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * Gets the recommended amount of audio to buffer before starting playback.
+     * @return The goal in [s] or {@link Double#NaN} if there is no recommendation.
+     * @see BufferStatus#getGoal()
+     */
+    public double getGoal() {
+        return goal;
+    }
+
+    @NonNls
+    @Override
+    public String toString() {
+        return "BufferMetrics{" +
+                "Buffer Identifier = " + identifier +
+                ", Current = " + current +
+                " clock: " + samplesRead + " -> " + samplesForwarded +
+                ", Max = " + max +
+                ", MinAfterMax = " + minAfterMax +
+                ", Overruns = " + overruns +
+                ", Underruns = " + underruns +
+                ", Target = " + target +
+                ", Goal = " + goal +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This interface is implemented by classes that allow polling the metrics of an audio buffer
+ * such as {@link Buffer}.
+ * <P>
+ * Polling is an alternative to registering a {@link BufferStatusConsumer}. It allows the caller to
+ * read the metrics at its own cadence without any allocation.
+ */
+public interface BufferMetricsProvider {
+    /**
+     * Fills the given snapshot with the current metrics.
+     * @param metrics The snapshot to fill.
+     * @return Whether metrics are available. If {@code false} the snapshot is not altered.
+     */
+    boolean getMetrics(@NotNull BufferMetrics metrics);
+}
@@ -28,8 +28,11 @@ import io.ybrid.api.transaction.CompletionState;
 import io.ybrid.api.transaction.RequestExecutor;
 import io.ybrid.api.transaction.Transaction;
 import io.ybrid.api.transport.ServiceTransportDescription;
+import io.ybrid.api.util.Identifier;
 import io.ybrid.player.io.DataBlock;
 import io.ybrid.player.io.DataBlockMetadataUpdateThread;
+import io.ybrid.player.io.EncodedBuffer;
+import io.ybrid.player.util.EventDispatcher;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -37,12 +40,25 @@ import org.jetbrains.annotations.Nullable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
 
-public class BufferMuxer implements PCMDataSource, BufferStatusProvider, BufferStatusConsumer {
+public class BufferMuxer implements PCMDataSource, BufferStatusProvider, BufferMetricsProvider, BufferStatusConsumer {
     @NonNls
     static final Logger LOGGER = Logger.getLogger(BufferMuxer.class.getName());
-    private static final double AUDIO_BUFFER_TARGET = 10; /* [s] */
+    private static final double AUDIO_BUFFER_DEFAULT_TARGET = 10; /* [s] */
+    private static final double AUDIO_BUFFER_DECODE_AHEAD = 0.5; /* PCM buffered after the decoder when buffering encoded data [s] */
+    private static final double HANDOVER_OUTGOING_TARGET = 2; /* target of the selected entry while the next one is filling [s] */
+    private static final double HANDOVER_NEXT_MINIMUM_TARGET = 2; /* minimum target of the next entry [s] */
+    private static final double HANDOVER_TARGET_STEP = 0.5; /* granularity of target updates [s] */
+    private static final @NonNls String CLEANUP_THREAD_NAME = "BufferMuxer Cleanup Thread";
+    private static final @NonNls String CALLBACK_THREAD_NAME = "BufferMuxer Callback Thread";
+    private static final @NonNls String EVENT_THREAD_NAME = "BufferMuxer Event Thread";
 
     private interface DataBlockConsumer {
         void blockAccept(@NotNull DataBlock dataBlock, @NotNull Entry entry);
@@ -53,12 +69,14 @@ public class BufferMuxer implements PCMDataSource, BufferStatusProvider, BufferS
         private final @NotNull ServiceTransportDescription transportDescription;
         private final @NotNull PCMDataSource source;
         private final @Nullable PCMDataSource silenceEliminator;
+        private final @NotNull EventDispatcher eventDispatcher;
 
-        public Entry(@NotNull PCMDataSource source, @NotNull DataBlockConsumer consumer, @NotNull ServiceTransportDescription transportDescription) {
-            final @NotNull PCMDataSource usedSource;
+        public Entry(@NotNull PCMDataSource source, @NotNull DataBlockConsumer consumer, @NotNull ServiceTransportDescription transportDescription, double target, @Nullable EncodedBuffer encodedBuffer, @Nullable AdaptiveBufferPolicy policy, int chunkLength, @NotNull EventDispatcher eventDispatcher) {
+            @NotNull PCMDataSource usedSource;
 
             this.source = source;
             this.transportDescription = transportDescription;
+            this.eventDispatcher = eventDispatcher;
 
             if (transportDescription.getActiveWorkarounds().get(Workaround.WORKAROUND_SKIP_SILENCE).toBool(true)) {
                 silenceEliminator = new SilenceEliminator<>(source, SilenceEliminator.SilenceType.ANALOG);
@@ -68,7 +86,19 @@ public class BufferMuxer implements PCMDataSource, BufferStatusProvider, BufferS
                 usedSource = source;
             }
 
-            this.buffer = new Buffer(AUDIO_BUFFER_TARGET, usedSource, dataBlock -> consumer.blockAccept(dataBlock, this));
+            if (chunkLength > 0)
+                usedSource = new Rechunker<>(usedSource, chunkLength);
+
+            if (encodedBuffer != null) {
+                LOGGER.info("Buffering encoded data for " + source);
+                this.buffer = new Buffer(new Identifier(Buffer.class), Math.min(AUDIO_BUFFER_DECODE_AHEAD, target), usedSource, dataBlock -> {
+                    if (dataBlock instanceof SignalInformation)
+                        encodedBuffer.onDecoded((SignalInformation) dataBlock);
+                    consumer.blockAccept(dataBlock, this);
+                }, encodedBuffer::getLength);
+            } else {
+                this.buffer = new Buffer(new Identifier(Buffer.class), target, usedSource, dataBlock -> consumer.blockAccept(dataBlock, this), null, policy);
+            }
         }
 
         public @NotNull Buffer getBuffer() {
@@ -76,10 +106,28 @@ public class BufferMuxer implements PCMDataSource, BufferStatusProvider, BufferS
         }
 
         public @NotNull PCMDataBlock read() throws IOException {
-            final @NotNull PCMDataBlock block = buffer.read();
+            return forward(buffer.read());
+        }
+
+        public @Nullable PCMDataBlock poll() throws IOException {
+            final @Nullable PCMDataBlock block = buffer.poll();
+            return block == null ? null : forward(block);
+        }
+
+        public int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result, boolean wait) throws IOException {
+            final int ret = wait ? this.buffer.read(buffer, offset, frames, result) : this.buffer.poll(buffer, offset, frames, result);
+
+            for (int i = 0; i < result.getNumberOfBlocks(); i++)
+                forward(result.getBlock(i));
+
+            return ret;
+        }
+
+        private @NotNull PCMDataBlock forward(@NotNull PCMDataBlock block) {
             final @NotNull Transaction transaction = transportDescription.getTransaction();
 
-            block.onAudible(() -> transaction.setAudioComplete(CompletionState.DONE));
+            // This is called by the audio output. The transaction is completed for every block, so pending updates are coalesced.
+            block.onAudible(() -> eventDispatcher.dispatch(transaction, () -> transaction.setAudioComplete(CompletionState.DONE)));
 
             if (silenceEliminator != null && silenceEliminator.getSkippedSamples() > source.getSkippedSamples()) {
                 transportDescription.getActiveWorkarounds().enableIfAutomatic(Workaround.WORKAROUND_SKIP_SILENCE);
@@ -101,208 +149,563 @@ public class BufferMuxer implements PCMDataSource, BufferStatusProvider, BufferS
         }
     }
 
+    /**
+     * This runs a callback once per EOF. {@link #run()} and {@link #recover()} are only called by the reading thread
+     * and never block. The callback itself is run by the given executor.
+     */
     private static class Callback implements Runnable {
-        private @Nullable Runnable callback = null;
-        private boolean fired = false;
-        private boolean running = false;
+        private final @NotNull Executor executor;
+        private volatile @Nullable Runnable callback = null;
+        private volatile boolean fired = false;
+        private final @NotNull AtomicBoolean running = new AtomicBoolean(false);
+
+        public Callback(@NotNull Executor executor) {
+            this.executor = executor;
+        }
 
-        public synchronized void setCallback(@Nullable Runnable callback) {
+        public void setCallback(@Nullable Runnable callback) {
             this.callback = callback;
         }
 
-        public synchronized boolean isSet() {
+        public boolean isSet() {
             return callback != null;
         }
 
-        public synchronized void recover () {
+        public void recover () {
             fired = false;
         }
 
         @Override
         public void run() {
-            final @NotNull Runnable runnable;
+            final @Nullable Runnable runnable = callback;
 
-            synchronized (this) {
-                if (fired || running || callback == null)
-                    return;
+            if (fired || runnable == null || !running.compareAndSet(false, true))
+                return;
 
-                fired = true;
-                running = true;
-                runnable = callback;
-            }
+            fired = true;
 
-            new Thread(() -> {
-                try {
-                    runnable.run();
-                } catch (Throwable ignored) {
-                }
-                synchronized (Callback.this) {
-                    running = false;
-                }
-            }).start();
+            try {
+                executor.execute(() -> {
+                    try {
+                        runnable.run();
+                    } catch (Throwable ignored) {
+                    }
+                    running.set(false);
+                });
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+            }
         }
     }
 
-    private final @NotNull Set<BufferStatusConsumer> consumers = new HashSet<>();
+    private final @NotNull List<BufferStatusConsumer> consumers = new CopyOnWriteArrayList<>();
     private final @NotNull DataBlockMetadataUpdateThread metadataUpdateThread;
-    private final @NotNull List<Entry> buffers = new ArrayList<>();
-    private Entry selectedBuffer;
-    private @Nullable BufferStatus lastBufferStatus = null;
-    private final @NotNull Object callbackLock = new Object();
-    private final @NotNull Callback inputEOFCallback = new Callback();
+    /* Modifications copy the list, so the reader can iterate it without locking. */
+    private final @NotNull List<Entry> buffers = new CopyOnWriteArrayList<>();
+    /* Only written by the reader. */
+    private volatile @Nullable Entry selectedBuffer;
+    /* Registered with all entries while there are consumers. Only updates of the selected entry are forwarded. */
+    private final @NotNull BufferStatusConsumer statusForwarder = status -> {
+        final @Nullable Entry selected = selectedBuffer;
+        if (selected != null && selected.getBuffer().getIdentifier().equals(status.getIdentifier()))
+            onBufferStatusUpdate(status);
+    };
+    /* Runs everything that may block so the reader never has to. */
+    private final @NotNull ExecutorService cleanupExecutor = newExecutor(CLEANUP_THREAD_NAME);
+    /* The EOF callback may block for a long time, so it gets its own thread. */
+    private final @NotNull ExecutorService callbackExecutor = newExecutor(CALLBACK_THREAD_NAME);
+    private final @NotNull EventDispatcher eventDispatcher;
+    private final boolean ownsEventDispatcher;
+    /* Key for status updates, a newer update supersedes a pending one. */
+    private final @NotNull Object statusEventKey = new Object();
+    private final @NotNull AtomicBoolean targetsUpdatePending = new AtomicBoolean(false);
+    private final @NotNull Runnable updateTargetsTask = () -> {
+        targetsUpdatePending.set(false);
+        updateTargets();
+    };
+    private final @NotNull Object targetLock = new Object();
+    /* Length of the selected entry at the last target update. Only used by the reader. */
+    private double lastTargetsLength = Double.NaN;
+    private volatile @Nullable BufferStatus lastBufferStatus = null;
+    private final @NotNull Callback inputEOFCallback = new Callback(callbackExecutor);
+    private volatile double bufferTarget = AUDIO_BUFFER_DEFAULT_TARGET;
+    private volatile @Nullable AdaptiveBufferPolicy adaptiveBufferPolicy = null;
+    private volatile int chunkLength = 0;
 
     public BufferMuxer(@NotNull Session session, @NotNull RequestExecutor requestExecutor) {
+        this(session, requestExecutor, null);
+    }
+
+    /**
+     * Creates an instance.
+     * @param session The session to use.
+     * @param requestExecutor The executor used for requests.
+     * @param eventDispatcher The dispatcher used to run callbacks or {@code null} to create one.
+     */
+    public BufferMuxer(@NotNull Session session, @NotNull RequestExecutor requestExecutor, @Nullable EventDispatcher eventDispatcher) {
+        this.ownsEventDispatcher = eventDispatcher == null;
+        this.eventDispatcher = eventDispatcher == null ? new EventDispatcher(EVENT_THREAD_NAME) : eventDispatcher;
         metadataUpdateThread = new DataBlockMetadataUpdateThread("Main Metadata Update Thread", session, requestExecutor);
         metadataUpdateThread.start();
     }
 
+    private static @NotNull ExecutorService newExecutor(@NotNull @NonNls String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            final @NotNull Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets the amount of audio new buffers read ahead.
+     * <P>
+     * This also limits the amount of audio all entries combined buffer during a handover.
+     * Only buffers added after this call are affected.
+     *
+     * @param bufferTarget The target in [s].
+     */
+    public void setBufferTarget(double bufferTarget) {
+        if (bufferTarget <= 0)
+            throw new IllegalArgumentException("Invalid buffer target: " + bufferTarget);
+        this.bufferTarget = bufferTarget;
+    }
+
+    /**
+     * Sets the policy used to adapt the buffer targets to the network conditions.
+     * <P>
+     * If set the target of new buffers is adjusted at runtime within the bounds of the policy.
+     * The buffers also provide a recommended goal for prebuffering using {@link BufferStatus#getGoal()}.
+     * Only buffers added after this call are affected. Buffers holding encoded data are not adapted.
+     *
+     * @param policy The policy to use or {@code null} to use fixed targets.
+     */
+    public void setAdaptiveBufferPolicy(@Nullable AdaptiveBufferPolicy policy) {
+        this.adaptiveBufferPolicy = policy;
+    }
+
+    /**
+     * Sets the number of frames per block for new buffers.
+     * <P>
+     * If set the blocks of new buffers are combined or split to the given length before they are buffered,
+     * see {@link Rechunker}. Only buffers added after this call are affected.
+     *
+     * @param chunkLength The number of frames per block in [frame] or {@code 0} to keep the blocks as decoded.
+     */
+    public void setChunkLength(int chunkLength) {
+        if (chunkLength < 0)
+            throw new IllegalArgumentException("Invalid chunk length: " + chunkLength);
+        this.chunkLength = chunkLength;
+    }
+
+    /**
+     * Gets the amount of audio new buffers read ahead.
+     *
+     * @return The target in [s].
+     * @see #setBufferTarget(double)
+     */
+    public double getBufferTarget() {
+        return bufferTarget;
+    }
+
     public void addBuffer(@NotNull PCMDataSource source, @NotNull ServiceTransportDescription transportDescription) {
+        addBuffer(source, transportDescription, null);
+    }
+
+    /**
+     * Adds a new buffer for a source that reads from an {@link EncodedBuffer}.
+     * <P>
+     * The encoded buffer holds most of the audio. The buffer after the decoder only holds enough decoded audio
+     * to bridge decoding while the reported buffer status includes the audio held by the encoded buffer.
+     * The encoded buffer should be created with the target returned by {@link #getBufferTarget()}.
+     *
+     * @param source The decoder reading from {@code encodedBuffer}.
+     * @param transportDescription The transport description of the source.
+     * @param encodedBuffer The encoded buffer the decoder reads from or {@code null}.
+     */
+    public void addBuffer(@NotNull PCMDataSource source, @NotNull ServiceTransportDescription transportDescription, @Nullable EncodedBuffer encodedBuffer) {
         final @NotNull Entry newEntry = new Entry(source, ((dataBlock, entry) -> {
             if (entry == selectedBuffer)
                 metadataUpdateThread.accept(dataBlock);
-        }), transportDescription);
-
-        newEntry.getBuffer().addBufferStatusConsumer(status -> {
-            if (newEntry == selectedBuffer)
-                onBufferStatusUpdate(status);
-        });
+        }), transportDescription, bufferTarget, encodedBuffer, adaptiveBufferPolicy, chunkLength, eventDispatcher);
 
         LOGGER.info("Adding Entry: " + newEntry);
-        synchronized (buffers) {
+        synchronized (consumers) {
+            if (!consumers.isEmpty())
+                newEntry.getBuffer().addBufferStatusConsumer(statusForwarder);
             buffers.add(newEntry);
         }
+        scheduleUpdateTargets();
     }
 
-    private void selectNext() {
-        LOGGER.info("Selecting new entry...");
-        synchronized (buffers) {
-            for (final @NotNull Iterator<Entry> iterator = buffers.iterator(); iterator.hasNext(); ) {
-                final @NotNull Entry entry = iterator.next();
+    private void runLater(@NotNull Runnable runnable) {
+        try {
+            cleanupExecutor.execute(runnable);
+        } catch (RejectedExecutionException ignored) {
+            // We are closed.
+        }
+    }
 
-                if (!entry.isValid()) {
-                    try {
-                        entry.getBuffer().close();
-                    } catch (IOException ignored) {
-                    }
-                    iterator.remove();
-                    continue;
+    /**
+     * Closes an invalid entry in the background.
+     * Closing may block on I/O and must therefore never be done by the reader.
+     * @param entry The entry to retire.
+     */
+    private void retire(@NotNull Entry entry) {
+        LOGGER.info("Retiring Entry: " + entry);
+        buffers.remove(entry);
+        runLater(() -> {
+            try {
+                entry.getBuffer().close();
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    private void select(@Nullable Entry entry) {
+        final @Nullable Entry old = selectedBuffer;
+
+        LOGGER.info("Selected: " + (entry == null ? "<null>" : entry));
+        selectedBuffer = entry;
+
+        runLater(() -> {
+            if (old != null)
+                old.getBuffer().setPreferred(false);
+            if (entry != null)
+                entry.getBuffer().setPreferred(true);
+        });
+        scheduleUpdateTargets();
+    }
+
+    private void scheduleUpdateTargets() {
+        if (targetsUpdatePending.compareAndSet(false, true))
+            runLater(updateTargetsTask);
+    }
+
+    /**
+     * Schedules a target update if the length of the selected entry changed by at least {@link #HANDOVER_TARGET_STEP}.
+     * This is called by the reader.
+     * @param selected The selected entry.
+     */
+    private void checkTargets(@NotNull Entry selected) {
+        final double length;
+
+        if (buffers.size() < 2)
+            return;
+
+        length = selected.getBuffer().getLength();
+        if (Double.isNaN(lastTargetsLength) || Math.abs(length - lastTargetsLength) >= HANDOVER_TARGET_STEP) {
+            lastTargetsLength = length;
+            scheduleUpdateTargets();
+        }
+    }
+
+    /**
+     * Updates the targets of all entries to speed up handovers.
+     * <P>
+     * While there is a next entry to be selected the selected entry only keeps a small target, so it continues
+     * to play but does not compete for bandwidth. The next entry gets the highest priority and a target limited
+     * so that all entries combined do not buffer more than the buffer target.
+     * All other entries would only be selected after the next entry and stop reading.
+     */
+    private void updateTargets() {
+        synchronized (targetLock) {
+            final @Nullable Entry selected = selectedBuffer;
+            @Nullable Entry next = null;
+
+            for (final @NotNull Entry entry : buffers) {
+                if (entry != selected && entry.isValid()) {
+                    next = entry;
+                    break;
                 }
+            }
 
-                if (entry == selectedBuffer)
-                    continue;
+            for (final @NotNull Entry entry : buffers) {
+                final @NotNull Buffer buffer = entry.getBuffer();
+
+                if (next == null || entry == selected) {
+                    buffer.setTargetLimit(next == null ? Double.POSITIVE_INFINITY : HANDOVER_OUTGOING_TARGET);
+                    buffer.setPriority(Thread.NORM_PRIORITY);
+                } else if (entry == next) {
+                    final double selectedLength = selected == null ? 0 : selected.getBuffer().getLength();
+                    final double limit = bufferTarget - Math.ceil(selectedLength / HANDOVER_TARGET_STEP) * HANDOVER_TARGET_STEP;
+
+                    buffer.setTargetLimit(Math.max(HANDOVER_NEXT_MINIMUM_TARGET, limit));
+                    buffer.setPriority(Thread.NORM_PRIORITY + 1);
+                } else {
+                    buffer.setTargetLimit(0);
+                    buffer.setPriority(Thread.MIN_PRIORITY);
+                }
+            }
+        }
+    }
 
-                LOGGER.info("Selected: " + entry);
-                selectedBuffer = entry;
-                return;
+    private @Nullable Entry selectNext() {
+        LOGGER.info("Selecting new entry...");
+
+        // This iterates over a snapshot, so entries can be retired while iterating.
+        for (final @NotNull Entry entry : buffers) {
+            if (!entry.isValid()) {
+                retire(entry);
+                continue;
             }
 
-            // No valid buffer found.
-            LOGGER.info("Selected: <null>");
-            selectedBuffer = null;
+            if (entry == selectedBuffer)
+                continue;
+
+            select(entry);
+            return entry;
         }
+
+        // No valid buffer found.
+        select(null);
+        return null;
     }
 
+    private @NotNull Entry requireSelected(@Nullable Entry entry) throws IOException {
+        if (entry == null)
+            throw new IOException("No valid Buffer");
+        return entry;
+    }
+
+    /**
+     * Reads the next block from the selected entry.
+     * <P>
+     * This does not take any locks and does not perform any I/O besides reading from the buffer.
+     * Invalid entries are closed in the background.
+     *
+     * @return The block read.
+     * @throws IOException Thrown if there is no valid entry left.
+     */
     @Override
     public @NotNull PCMDataBlock read() throws IOException {
-        synchronized (buffers) {
-            if (selectedBuffer == null || !selectedBuffer.isValid()) {
-                LOGGER.info("Buffer is invalid, selecting a new one.");
-                selectNext();
-                if (selectedBuffer == null || !selectedBuffer.isValid()) {
-                    LOGGER.info("Buffer is still invalid. Throwing error.");
-                    throw new IOException("No valid Buffer");
-                }
+        return Objects.requireNonNull(read(true));
+    }
+
+    /**
+     * Reads the next block from the selected entry if one is available.
+     * <P>
+     * Unlike {@link #read()} this does not wait for the selected entry to receive data.
+     * This must be called by the same thread that calls {@link #read()}.
+     *
+     * @return The block read or {@code null} if the selected entry is currently empty.
+     * @throws IOException Thrown if there is no valid entry left.
+     * @see Buffer#poll()
+     */
+    public @Nullable PCMDataBlock poll() throws IOException {
+        return read(false);
+    }
+
+    private @Nullable PCMDataBlock read(@NotNull Entry entry, boolean wait) throws IOException {
+        return wait ? entry.read() : entry.poll();
+    }
+
+    private @NotNull Entry selectForRead() throws IOException {
+        @Nullable Entry selected = selectedBuffer;
+
+        if (selected == null || !selected.isValid()) {
+            LOGGER.info("Buffer is invalid, selecting a new one.");
+            selected = selectNext();
+            if (selected == null || !selected.isValid()) {
+                LOGGER.info("Buffer is still invalid. Throwing error.");
+                throw new IOException("No valid Buffer");
             }
-            try {
-                synchronized (callbackLock) {
-                    if (inputEOFCallback.isSet()) {
-                        if (selectedBuffer.getBuffer().hasInputReachedEOF()) {
-                            inputEOFCallback.run();
-                        } else {
-                            inputEOFCallback.recover();
-                        }
-                    }
-                }
-                return selectedBuffer.read();
-            } catch (EOFException e) {
-                LOGGER.info("Reached EOF (by EOFException), selecting next buffer...");
-                selectNext();
-                return selectedBuffer.read();
-            } catch (Exception e) {
-                LOGGER.info("Unexpected error (" + e + "), selecting next buffer...");
-                selectNext();
-                return selectedBuffer.read();
+        }
+
+        return selected;
+    }
+
+    private void checkInputEOF(@NotNull Entry selected) {
+        if (inputEOFCallback.isSet()) {
+            if (selected.getBuffer().hasInputReachedEOF()) {
+                inputEOFCallback.run();
+            } else {
+                inputEOFCallback.recover();
             }
         }
     }
 
+    private @NotNull Entry selectAfterError(@NotNull Exception e) throws IOException {
+        if (e instanceof EOFException) {
+            LOGGER.info("Reached EOF (by EOFException), selecting next buffer...");
+        } else {
+            LOGGER.info("Unexpected error (" + e + "), selecting next buffer...");
+        }
+        return requireSelected(selectNext());
+    }
+
+    private @Nullable PCMDataBlock read(boolean wait) throws IOException {
+        @NotNull Entry selected = selectForRead();
+        final @Nullable PCMDataBlock block;
+
+        try {
+            checkInputEOF(selected);
+            block = read(selected, wait);
+        } catch (Exception e) {
+            selected = selectAfterError(e);
+            return read(selected, wait);
+        }
+
+        checkTargets(selected);
+        return block;
+    }
+
+    /**
+     * Reads frames from the selected entry into a buffer provided by the caller.
+     * <P>
+     * This works like {@link #read()} but does not build blocks, see {@link Buffer#read(short[], int, int, PCMReadResult)}.
+     * Frames kept in the result from the previously selected entry are read first, so handovers are seamless.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update.
+     * @return The number of frames read in [frame].
+     * @throws IOException Thrown if there is no valid entry left.
+     */
+    @Override
+    public int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) throws IOException {
+        return read(buffer, offset, frames, result, true);
+    }
+
+    /**
+     * Reads frames from the selected entry into a buffer provided by the caller if any are available.
+     * <P>
+     * Unlike {@link #read(short[], int, int, PCMReadResult)} this does not wait for the selected entry to receive data.
+     * This must be called by the same thread that calls {@link #read(short[], int, int, PCMReadResult)}.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update.
+     * @return The number of frames read in [frame]. This is zero if the selected entry is currently empty.
+     * @throws IOException Thrown if there is no valid entry left.
+     */
+    public int poll(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) throws IOException {
+        return read(buffer, offset, frames, result, false);
+    }
+
+    private int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result, boolean wait) throws IOException {
+        @NotNull Entry selected = selectForRead();
+        final int ret;
+
+        try {
+            checkInputEOF(selected);
+            ret = selected.read(buffer, offset, frames, result, wait);
+        } catch (Exception e) {
+            selected = selectAfterError(e);
+            return selected.read(buffer, offset, frames, result, wait);
+        }
+
+        checkTargets(selected);
+        return ret;
+    }
+
     @Override
     public boolean isValid() {
-        synchronized (buffers) {
-            for (final @NotNull Entry entry : buffers) {
-                if (entry.isValid())
-                    return true;
-            }
+        for (final @NotNull Entry entry : buffers) {
+            if (entry.isValid())
+                return true;
         }
         return false;
     }
 
     public boolean isInHandover() {
-        synchronized (buffers) {
-            if (!selectedBuffer.getBuffer().hasInputReachedEOF())
-                return false;
+        final @Nullable Entry selected = selectedBuffer;
 
-            for (final @NotNull Entry entry : buffers) {
-                if (entry == selectedBuffer)
-                    continue;
+        if (selected == null || !selected.getBuffer().hasInputReachedEOF())
+            return false;
 
-                if (entry.isValid())
-                    return true;
-            }
+        for (final @NotNull Entry entry : buffers) {
+            if (entry == selected)
+                continue;
+
+            if (entry.isValid())
+                return true;
         }
         return false;
     }
 
     public void setInputEOFCallback(@Nullable Runnable inputEOFCallback) {
-        synchronized (callbackLock) {
-            this.inputEOFCallback.setCallback(inputEOFCallback);
-        }
+        this.inputEOFCallback.setCallback(inputEOFCallback);
     }
 
     @Override
     public void close() throws IOException {
         setInputEOFCallback(null);
-        synchronized (buffers) {
-            for (final @NotNull Entry entry : buffers)
-                entry.getBuffer().close();
-            buffers.clear();
-        }
+        cleanupExecutor.shutdown();
+        callbackExecutor.shutdown();
+        if (ownsEventDispatcher)
+            eventDispatcher.close();
+        for (final @NotNull Entry entry : buffers)
+            entry.getBuffer().close();
+        buffers.clear();
         metadataUpdateThread.interrupt();
     }
 
+    /**
+     * Fills the given snapshot with the metrics of the currently selected buffer.
+     * This does not allocate any objects and does not require any {@link BufferStatusConsumer} to be registered.
+     * @param metrics The snapshot to fill.
+     * @return Whether a buffer is selected.
+     */
+    @Override
+    public boolean getMetrics(@NotNull BufferMetrics metrics) {
+        final @Nullable Entry selected = selectedBuffer;
+
+        if (selected == null)
+            return false;
+
+        return selected.getBuffer().getMetrics(metrics);
+    }
+
+    /**
+     * Registers a consumer for status updates of the selected buffer.
+     * <P>
+     * Buffers only build status updates while there is at least one consumer.
+     * Consider using {@link #getMetrics(BufferMetrics)} instead.
+     * @param consumer The consumer to register.
+     */
     @Override
     public void addBufferStatusConsumer(@NotNull BufferStatusConsumer consumer) {
+        final @Nullable BufferStatus status = lastBufferStatus;
+
         synchronized (consumers) {
-            if (consumers.add(consumer)) {
-                if (lastBufferStatus != null)
-                    consumer.onBufferStatusUpdate(lastBufferStatus);
+            if (consumers.contains(consumer))
+                return;
+
+            consumers.add(consumer);
+            if (consumers.size() == 1) {
+                for (final @NotNull Entry entry : buffers)
+                    entry.getBuffer().addBufferStatusConsumer(statusForwarder);
             }
         }
+
+        if (status != null)
+            eventDispatcher.dispatch(() -> consumer.onBufferStatusUpdate(status));
     }
 
     @Override
     public void removeBufferStatusConsumer(@NotNull BufferStatusConsumer consumer) {
         synchronized (consumers) {
-            consumers.remove(consumer);
+            if (consumers.remove(consumer) && consumers.isEmpty()) {
+                for (final @NotNull Entry entry : buffers)
+                    entry.getBuffer().removeBufferStatusConsumer(statusForwarder);
+            }
         }
     }
 
+    /**
+     * Forwards a status update to all registered consumers.
+     * The consumers are called by the event dispatcher. If an update is still pending it is replaced.
+     * @param status The new status.
+     */
     @Override
     public void onBufferStatusUpdate(@NotNull BufferStatus status) {
-        synchronized (consumers) {
-            lastBufferStatus = status;
-            for (BufferStatusConsumer consumer : consumers)
+        lastBufferStatus = status;
+        eventDispatcher.dispatch(statusEventKey, () -> {
+            for (final @NotNull BufferStatusConsumer consumer : consumers)
                 consumer.onBufferStatusUpdate(status);
-        }
+        });
     }
 }
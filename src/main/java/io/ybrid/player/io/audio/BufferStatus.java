@@ -50,13 +50,16 @@ final public class BufferStatus implements Serializable, hasIdentifier {
     private final @Nullable Instant currentTimestamp;
     private final long currentSamplesRead;
     private final long currentSamplesForwarded;
+    private final double target;
+    private final double goal;
 
     BufferStatus(@NotNull Identifier identifier,
                  long underruns, Instant underrunTimestamp,
                  long overruns, @Nullable Instant overrunTimestamp,
                  double max, @Nullable Instant maxTimestamp,
                  double minAfterMax, @Nullable Instant minAfterMaxTimestamp,
-                 double current, @Nullable Instant currentTimestamp, long currentSamplesRead, long currentSamplesForwarded) {
+                 double current, @Nullable Instant currentTimestamp, long currentSamplesRead, long currentSamplesForwarded,
+                 double target, double goal) {
         this.identifier = identifier;
         this.underruns = underruns;
         this.underrunTimestamp = underrunTimestamp;
@@ -70,6 +73,8 @@ final public class BufferStatus implements Serializable, hasIdentifier {
         this.currentTimestamp = currentTimestamp;
         this.currentSamplesRead = currentSamplesRead;
         this.currentSamplesForwarded = currentSamplesForwarded;
+        this.target = target;
+        this.goal = goal;
     }
 
     /**
@@ -194,6 +199,24 @@ final public class BufferStatus implements Serializable, hasIdentifier {
         return currentTimestamp;
     }
 
+    /**
+     * Gets the current target of the buffer. This is the amount of audio the buffer reads ahead.
+     * @return The target in [s].
+     */
+    public double getTarget() {
+        return target;
+    }
+
+    /**
+     * Gets the recommended amount of audio to buffer before starting playback.
+     * This is only provided by buffers that adapt to the network conditions.
+     * @return The goal in [s] or {@link Double#NaN} if there is no recommendation.
+     * @see AdaptiveBufferPolicy
+     */
+    public double getGoal() {
+        return goal;
+    }
+
     @NonNls
     @Override
     public String toString() {
@@ -205,6 +228,8 @@ final public class BufferStatus implements Serializable, hasIdentifier {
                 ", MinAfterMax = " + minAfterMax + "[" + minAfterMaxTimestamp + "]" +
                 ", Overruns = " + overruns + "[" + overrunTimestamp + "]" +
                 ", Underruns = " + underruns + "[" + underrunTimestamp + "]" +
+                ", Target = " + target +
+                ", Goal = " + goal +
                 '}';
     }
 }
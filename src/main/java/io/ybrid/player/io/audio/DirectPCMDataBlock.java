@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.PlayoutInfo;
+import io.ybrid.api.metadata.Sync;
+import org.jetbrains.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * This implements a {@link PCMDataBlock} that holds its samples outside of the Java heap.
+ * <P>
+ * Blocks of this type are created by a {@link Buffer} with direct storage enabled, see {@link Buffer#setDirectStorage(boolean)}.
+ * Consumers that can handle this should use {@link #getDirectData()} or {@link #copyTo(int, short[], int, int)}.
+ * {@link #getData()} and {@link #getBackingData()} copy the samples to the heap on the first call.
+ * <P>
+ * Blocks are reference counted. The native memory is reused once the last reference of the block
+ * and all of its views is released, see {@link PCMDataBlock#release()}.
+ */
+@ApiStatus.Experimental
+public class DirectPCMDataBlock extends PCMDataBlock {
+    private final @NotNull DirectSampleStore.Slab slab;
+    private final @NotNull ByteBuffer bytes;
+    /* The block holding the slab if this is a view. */
+    private final @Nullable DirectPCMDataBlock root;
+    /* The samples copied to the heap, created on first use. */
+    private volatile short[] copy = null;
+
+    DirectPCMDataBlock(@NotNull Sync sync,
+                       PlayoutInfo playoutInfo,
+                       @NotNull DirectSampleStore.Slab slab,
+                       @NotNull ByteBuffer bytes,
+                       int length,
+                       @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                       @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels) {
+        this(sync, playoutInfo, slab, bytes, length, sampleRate, numberOfChannels, null);
+    }
+
+    private DirectPCMDataBlock(@NotNull Sync sync,
+                               PlayoutInfo playoutInfo,
+                               @NotNull DirectSampleStore.Slab slab,
+                               @NotNull ByteBuffer bytes,
+                               int length,
+                               @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                               @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels,
+                               @Nullable DirectPCMDataBlock root) {
+        super(sync, playoutInfo, length, sampleRate, numberOfChannels, true);
+        this.slab = slab;
+        this.bytes = bytes;
+        this.root = root;
+
+        if (root != null)
+            root.retain();
+    }
+
+    /**
+     * Gets the samples without copying them.
+     * <P>
+     * The returned buffer is read-only and holds the {@link #getDataLength()} samples of this block
+     * as 16 bit values in the byte order of the buffer, starting at position zero.
+     * A new buffer is returned by every call, so the caller is free to change its position and limit.
+     *
+     * @return The samples.
+     */
+    public @NotNull ByteBuffer getDirectData() {
+        return bytes.duplicate().order(bytes.order());
+    }
+
+    /**
+     * Copies samples into an array.
+     *
+     * @param start The first sample to copy in [sample].
+     * @param destination The array to copy to.
+     * @param offset The offset in {@code destination} in [sample].
+     * @param length The number of samples to copy in [sample].
+     */
+    public void copyTo(int start, short[] destination, int offset, int length) {
+        final @NotNull ShortBuffer samples = getDirectData().asShortBuffer();
+
+        samples.position(start);
+        samples.get(destination, offset, length);
+    }
+
+    /**
+     * Gets the samples copied to the heap.
+     * <P>
+     * The samples are copied on the first call.
+     *
+     * @return The PCM data of the block.
+     */
+    @Override
+    public short[] getData() {
+        short[] ret = copy;
+
+        if (ret == null) {
+            ret = new short[length];
+            copyTo(0, ret, 0, length);
+            copy = ret;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the samples copied to the heap.
+     * This is the same as {@link #getData()}.
+     *
+     * @return The array.
+     */
+    @Override
+    public short[] getBackingData() {
+        return getData();
+    }
+
+    /**
+     * Gets the index of the first sample in the array returned by {@link #getBackingData()}.
+     * @return The offset in [sample], always 0.
+     */
+    @Override
+    @Contract(pure = true)
+    public int getDataOffset() {
+        return 0;
+    }
+
+    @Override
+    protected void deallocate() {
+        if (root != null) {
+            root.release();
+        } else {
+            slab.free(length);
+        }
+    }
+
+    /**
+     * Creates a new block that is a sub block of this.
+     * The new block is a view sharing the samples with this block, so no samples are copied.
+     * The view holds a reference to this block until it is released itself.
+     *
+     * @param start The first frame to include in [frame].
+     * @param end The last frame to include in [frame].
+     * @return The resulting block.
+     * @see #trim(int, int)
+     */
+    @Override
+    @Contract("_, _ -> new")
+    public @NotNull DirectPCMDataBlock subBlock(int start, int end) {
+        final int frames = getLengthAsFrames();
+        final @NotNull ByteBuffer view;
+
+        if (end < start || start < 0 || start > frames || end > frames)
+            throw new IllegalArgumentException("start (" + start + ") or end (" + end + ") invalid. Total length is " + frames);
+
+        view = bytes.duplicate();
+        view.position(start * numberOfChannels * Short.BYTES);
+        view.limit(end * numberOfChannels * Short.BYTES);
+
+        return new DirectPCMDataBlock(getSync(), getPlayoutInfo(), slab, view.slice().order(bytes.order()), (end - start) * numberOfChannels, sampleRate, numberOfChannels, root != null ? root : this);
+    }
+
+    @Override
+    @Contract("_, _ -> new")
+    public @NotNull DirectPCMDataBlock trim(int startTrim, int endTrim) {
+        return subBlock(startTrim, getLengthAsFrames() - endTrim);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * This stores the samples of blocks held by a {@link Buffer} outside of the Java heap.
+ * <P>
+ * Samples are copied into large direct {@link ByteBuffer}s, called slabs, one block after the other.
+ * As blocks leave a buffer in the order they entered it, a slab becomes free as soon as all of its blocks
+ * have been released, see {@link PCMDataBlock#release()}. Free slabs are kept for reuse up to a small number,
+ * so a buffer of constant length does not allocate any native memory once it has been filled.
+ * This keeps the number and size of objects on the heap small for long buffers.
+ * Slabs of blocks that are never released are freed by the garbage collector.
+ * <P>
+ * Only one thread may call {@link #store(PCMDataBlock)}. All other methods can be called by any thread.
+ */
+@ApiStatus.Internal
+final class DirectSampleStore {
+    /**
+     * The size of a slab. This holds about five seconds of 48kHz stereo audio.
+     */
+    static final int SLAB_SIZE = 1 << 20; // [byte]
+    /**
+     * The byte order of the stored samples.
+     */
+    static final @NotNull ByteOrder BYTE_ORDER = ByteOrder.nativeOrder();
+    private static final int MAXIMUM_FREE_SLABS = 2;
+
+    /**
+     * A slab of native memory. Blocks hold a read-only view of the part of a slab holding their samples.
+     */
+    static final class Slab {
+        private final @NotNull DirectSampleStore store;
+        private final @NotNull ByteBuffer bytes;
+        /* Only used by the thread calling store(). */
+        private final @NotNull ShortBuffer writer;
+        /* Guarded by the store. */
+        private int used = 0; // [sample]
+        private int blocks = 0;
+
+        private Slab(@NotNull DirectSampleStore store, int size) {
+            this.store = store;
+            this.bytes = ByteBuffer.allocateDirect(size).order(BYTE_ORDER);
+            this.writer = bytes.asShortBuffer();
+        }
+
+        private @NotNull ByteBuffer view(int offset, int length) {
+            final @NotNull ByteBuffer ret = bytes.duplicate();
+
+            ret.position(offset * Short.BYTES);
+            ret.limit((offset + length) * Short.BYTES);
+            return ret.slice().asReadOnlyBuffer().order(BYTE_ORDER);
+        }
+
+        /**
+         * Releases a block stored in this slab.
+         * @param length The number of samples of the block in [sample].
+         */
+        void free(int length) {
+            store.free(this, length);
+        }
+    }
+
+    private final @NotNull ArrayDeque<Slab> free = new ArrayDeque<>();
+    private @Nullable Slab current = null;
+    private long allocated = 0; // [byte]
+    private long stored = 0; // [byte]
+
+    /**
+     * Copies the samples of a block into native memory.
+     * <P>
+     * The returned block takes over the callbacks and parts of the given block, which is released.
+     * Blocks holding {@code float} samples or larger than a slab are returned unchanged.
+     *
+     * @param block The block to store.
+     * @return The stored block.
+     */
+    @NotNull PCMDataBlock store(@NotNull PCMDataBlock block) {
+        final int length = block.getDataLength();
+        final @NotNull Slab slab;
+        final int offset;
+        final @NotNull DirectPCMDataBlock ret;
+
+        if (block instanceof FloatPCMDataBlock || block instanceof DirectPCMDataBlock || length * Short.BYTES > SLAB_SIZE)
+            return block;
+
+        synchronized (this) {
+            if (current == null || current.used + length > current.writer.capacity()) {
+                if (current != null && current.blocks == 0)
+                    recycle(current);
+                current = free.isEmpty() ? allocate() : free.pop();
+            }
+            slab = current;
+            offset = slab.used;
+            slab.used += length;
+            slab.blocks++;
+            stored += (long) length * Short.BYTES;
+        }
+
+        // The range is reserved for this block, so it is written without holding the lock.
+        slab.writer.position(offset);
+        slab.writer.put(block.getBackingData(), block.getDataOffset(), length);
+
+        ret = new DirectPCMDataBlock(block.getSync(), block.getPlayoutInfo(), slab, slab.view(offset, length), length, block.getSampleRate(), block.getNumberOfChannels());
+        ret.onAudible.addAll(block.onAudible);
+        for (int i = 0; i < block.getNumberOfParts(); i++)
+            ret.addPart(block.getPartOffset(i), block.getPart(i));
+
+        block.release();
+        return ret;
+    }
+
+    private @NotNull Slab allocate() {
+        allocated += SLAB_SIZE;
+        return new Slab(this, SLAB_SIZE);
+    }
+
+    private void recycle(@NotNull Slab slab) {
+        slab.used = 0;
+        if (free.size() < MAXIMUM_FREE_SLABS) {
+            free.push(slab);
+        } else {
+            allocated -= SLAB_SIZE;
+        }
+    }
+
+    private synchronized void free(@NotNull Slab slab, int length) {
+        stored -= (long) length * Short.BYTES;
+        slab.blocks--;
+        if (slab.blocks > 0)
+            return;
+
+        // The slab currently filled is simply started over.
+        if (slab == current) {
+            slab.used = 0;
+        } else {
+            recycle(slab);
+        }
+    }
+
+    /**
+     * Gets the amount of native memory allocated by this store including free slabs kept for reuse.
+     * @return The size in [byte].
+     */
+    synchronized long getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Gets the amount of samples currently stored.
+     * @return The size in [byte].
+     */
+    synchronized long getStored() {
+        return stored;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.PlayoutInfo;
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.player.io.MediaType;
+import org.jetbrains.annotations.*;
+
+/**
+ * This implements a {@link PCMDataBlock} that holds its samples as {@code float} values.
+ * <P>
+ * The nominal range of the samples is [-1, 1]. Values outside of that range are kept as they are,
+ * so a chain of processing stages can work on the signal without clipping it in between.
+ * The samples are converted to 16 bit values only if a consumer asks for them using {@link #getData()}
+ * or {@link #getBackingData()}. This is done once per block, normally by the output.
+ * Stages that can handle {@code float} samples should check for this type and use
+ * {@link #getFloatData()}, {@link #getFloatOffset()}, and {@link #getDataLength()} instead.
+ * <P>
+ * Sources emitting blocks of this type use {@link MediaType#PCM_STREAM_FLOAT} as their media type.
+ * The samples of these blocks are not pooled.
+ */
+@ApiStatus.Experimental
+public class FloatPCMDataBlock extends PCMDataBlock {
+    /**
+     * The factor between a {@code float} sample and a 16 bit sample.
+     */
+    public static final float SCALE = 32768f;
+
+    /**
+     * Internal storage for PCM data. The samples of this block are {@link #length} samples starting at {@link #floatOffset}.
+     */
+    protected final float[] floatData;
+    /**
+     * The index of the first sample of this block in {@link #floatData}.
+     */
+    protected final int floatOffset;
+    /* The samples converted to 16 bit values, created on first use. */
+    private volatile short[] converted = null;
+
+    /**
+     * Create a block from an array of samples.
+     *
+     * @param sync The {@link Sync} to use for the new DataBlock.
+     * @param playoutInfo The {@link PlayoutInfo} to use for the new DataBlock.
+     * @param data The samples to use as interleaved values with a nominal range of [-1, 1].
+     * @param sampleRate The sample rate of the signal in [Hz].
+     * @param numberOfChannels The number of channels represented.
+     */
+    public FloatPCMDataBlock(@NotNull Sync sync,
+                             PlayoutInfo playoutInfo,
+                             float[] data,
+                             @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                             @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels) {
+        this(sync, playoutInfo, data, 0, data.length, sampleRate, numberOfChannels);
+    }
+
+    /**
+     * Create a block from a range of an array of samples.
+     * The array is not copied. It must not be altered as long as the block is in use.
+     *
+     * @param sync The {@link Sync} to use for the new DataBlock.
+     * @param playoutInfo The {@link PlayoutInfo} to use for the new DataBlock.
+     * @param data The array holding the samples as interleaved values with a nominal range of [-1, 1].
+     * @param offset The index of the first sample in {@code data}.
+     * @param length The number of samples.
+     * @param sampleRate The sample rate of the signal in [Hz].
+     * @param numberOfChannels The number of channels represented.
+     */
+    public FloatPCMDataBlock(@NotNull Sync sync,
+                             PlayoutInfo playoutInfo,
+                             float[] data,
+                             int offset,
+                             int length,
+                             @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                             @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels) {
+        super(sync, playoutInfo, length, sampleRate, numberOfChannels);
+
+        if (offset < 0 || offset > data.length - length)
+            throw new IllegalArgumentException("offset (" + offset + ") or length (" + length + ") invalid. Total length is " + data.length);
+
+        this.floatData = data;
+        this.floatOffset = offset;
+    }
+
+    /**
+     * Converts a block to a block with {@code float} samples.
+     * If the block already holds {@code float} samples it is returned as is.
+     * Otherwise the samples are copied and the callbacks of the new block report the given block as audible.
+     * The caller keeps its reference to the given block.
+     *
+     * @param block The block to convert.
+     * @return The converted block.
+     */
+    public static @NotNull FloatPCMDataBlock of(@NotNull PCMDataBlock block) {
+        final short[] data;
+        final int offset;
+        final float[] ret;
+        final @NotNull FloatPCMDataBlock converted;
+
+        if (block instanceof FloatPCMDataBlock)
+            return (FloatPCMDataBlock) block;
+
+        data = block.getBackingData();
+        offset = block.getDataOffset();
+        ret = new float[block.getDataLength()];
+        for (int i = 0; i < ret.length; i++)
+            ret[i] = toFloat(data[offset + i]);
+
+        converted = new FloatPCMDataBlock(block.getSync(), block.getPlayoutInfo(), ret, block.getSampleRate(), block.getNumberOfChannels());
+        converted.onAudible(block::audible);
+        return converted;
+    }
+
+    /**
+     * Converts a 16 bit sample to a {@code float} sample.
+     *
+     * @param sample The sample to convert.
+     * @return The converted sample.
+     */
+    @Contract(pure = true)
+    public static float toFloat(short sample) {
+        return sample / SCALE;
+    }
+
+    /**
+     * Converts a {@code float} sample to a 16 bit sample.
+     * Values outside of the range of 16 bit samples are clipped.
+     *
+     * @param sample The sample to convert.
+     * @return The converted sample.
+     */
+    @Contract(pure = true)
+    public static short toShort(float sample) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(sample * SCALE)));
+    }
+
+    /**
+     * Gets the array holding the samples without copying it.
+     * The samples of this block are {@link #getDataLength()} samples starting at {@link #getFloatOffset()}.
+     * The array may be shared with other blocks and must not be altered.
+     *
+     * @return The array.
+     */
+    @Contract(pure = true)
+    public float[] getFloatData() {
+        return floatData;
+    }
+
+    /**
+     * Gets the index of the first sample of this block in the array returned by {@link #getFloatData()}.
+     * @return The offset in [sample].
+     */
+    @Contract(pure = true)
+    public int getFloatOffset() {
+        return floatOffset;
+    }
+
+    /**
+     * Gets the samples as 16 bit values.
+     * <P>
+     * The samples are converted on the first call. Values outside of the nominal range are clipped.
+     *
+     * @return The PCM data of the block.
+     */
+    @Override
+    public short[] getData() {
+        short[] ret = converted;
+
+        if (ret == null) {
+            ret = new short[length];
+            for (int i = 0; i < length; i++)
+                ret[i] = toShort(floatData[floatOffset + i]);
+            converted = ret;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Gets the samples as 16 bit values.
+     * This is the same as {@link #getData()} as the converted samples are not shared with other blocks.
+     *
+     * @return The array.
+     */
+    @Override
+    public short[] getBackingData() {
+        return getData();
+    }
+
+    /**
+     * Gets the index of the first sample in the array returned by {@link #getBackingData()}.
+     * @return The offset in [sample], always 0.
+     */
+    @Override
+    @Contract(pure = true)
+    public int getDataOffset() {
+        return 0;
+    }
+
+    @Override
+    @Contract(pure = true)
+    public int getSampleSize() {
+        return Float.BYTES;
+    }
+
+    /**
+     * Creates a new block that is a sub block of this.
+     * The new block is a view sharing the samples with this block, so no samples are copied.
+     *
+     * @param start The first frame to include in [frame].
+     * @param end The last frame to include in [frame].
+     * @return The resulting block.
+     * @see #trim(int, int)
+     */
+    @Override
+    @Contract("_, _ -> new")
+    public @NotNull FloatPCMDataBlock subBlock(int start, int end) {
+        final int frames = getLengthAsFrames();
+
+        if (end < start || start < 0 || start > frames || end > frames)
+            throw new IllegalArgumentException("start (" + start + ") or end (" + end + ") invalid. Total length is " + frames);
+
+        return new FloatPCMDataBlock(getSync(), getPlayoutInfo(), floatData, floatOffset + start * numberOfChannels, (end - start) * numberOfChannels, sampleRate, numberOfChannels);
+    }
+
+    @Override
+    @Contract("_, _ -> new")
+    public @NotNull FloatPCMDataBlock trim(int startTrim, int endTrim) {
+        return subBlock(startTrim, getLengthAsFrames() - endTrim);
+    }
+}
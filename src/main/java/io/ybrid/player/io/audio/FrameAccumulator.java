@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2022 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * This keeps track of the total length of a set of signals such as the blocks held by a {@link Buffer}.
+ * <P>
+ * The length is tracked as number of frames per sample rate. This allows adding and removing of signals
+ * without any rounding error and to query the total length in constant time regardless of the number of signals.
+ * <P>
+ * This class is thread safe.
+ */
+final class FrameAccumulator {
+    private static final int INITIAL_SLOTS = 2;
+
+    private int[] sampleRates = new int[INITIAL_SLOTS];
+    private long[] frames = new long[INITIAL_SLOTS];
+    private int slots = 0;
+    private long totalFrames = 0;
+
+    private int findSlot(int sampleRate) {
+        for (int i = 0; i < slots; i++) {
+            if (sampleRates[i] == sampleRate)
+                return i;
+        }
+        return -1;
+    }
+
+    private void update(int sampleRate, long delta) {
+        int slot = findSlot(sampleRate);
+
+        if (slot < 0) {
+            if (slots == sampleRates.length) {
+                sampleRates = Arrays.copyOf(sampleRates, slots * 2);
+                frames = Arrays.copyOf(frames, slots * 2);
+            }
+            slot = slots++;
+            sampleRates[slot] = sampleRate;
+            frames[slot] = 0;
+        }
+
+        frames[slot] += delta;
+        totalFrames += delta;
+
+        // Release slots of sample rates no longer in use so the number of slots stays small.
+        if (frames[slot] == 0) {
+            slots--;
+            sampleRates[slot] = sampleRates[slots];
+            frames[slot] = frames[slots];
+        }
+    }
+
+    /**
+     * Adds the length of a signal.
+     * @param signal The signal to add.
+     */
+    public synchronized void add(@NotNull SignalInformation signal) {
+        update(signal.getSampleRate(), signal.getLengthAsFrames());
+    }
+
+    /**
+     * Removes the length of a signal that was previously added using {@link #add(SignalInformation)}.
+     * @param signal The signal to remove.
+     */
+    public synchronized void remove(@NotNull SignalInformation signal) {
+        update(signal.getSampleRate(), -signal.getLengthAsFrames());
+    }
+
+    /**
+     * Gets the total number of frames regardless of the sample rate.
+     * @return The number of frames in [frame].
+     */
+    public synchronized long getLengthAsFrames() {
+        return totalFrames;
+    }
+
+    /**
+     * Gets the number of sample rates currently tracked.
+     * This is the amount of work done by {@link #getLength()}.
+     * @return The number of sample rates.
+     */
+    synchronized int getNumberOfSlots() {
+        return slots;
+    }
+
+    /**
+     * Gets the total length.
+     * @return The length in [s].
+     */
+    public synchronized double getLength() {
+        double ret = 0;
+
+        for (int i = 0; i < slots; i++)
+            ret += (double) frames[i] / (double) sampleRates[i];
+
+        return ret;
+    }
+}
@@ -28,21 +28,51 @@ import io.ybrid.player.io.DataBlock;
 import io.ybrid.player.io.audio.analysis.result.Block;
 import org.jetbrains.annotations.*;
 
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * This implements a {@link DataBlock} that holds PCM samples.
+ * <P>
+ * A block may be a view of a range of a larger array that is shared with other blocks,
+ * as returned by {@link #subBlock(int, int)}. Consumers that can handle this should use
+ * {@link #getBackingData()}, {@link #getDataOffset()}, and {@link #getDataLength()}
+ * instead of {@link #getData()}, which needs to copy the samples of views.
+ * <P>
+ * Blocks with pooled samples are reference counted. A new block holds one reference owned by its creator.
+ * Whoever owns a reference and no longer needs the samples calls {@link #release()}, which also hands the block
+ * over to the next stage of a pipeline that does not keep it. A stage keeping a block beyond the call it was passed in,
+ * such as a queue, takes a reference of its own using {@link #retain()}.
+ * Once the last reference is released the samples must no longer be accessed, but the block itself stays valid,
+ * so {@link #audible()} can still be called. Blocks created with a {@link SamplePool} then return their array to the pool.
+ * Views hold a reference to the block whose array they share.
+ * Failing to release a block is not an error but the array is left to the garbage collector.
+ * Blocks with samples stored outside of the Java heap, see {@link DirectPCMDataBlock}, are reference counted as well.
+ * For all other blocks {@link #retain()} and {@link #release()} have no effect,
+ * so sources may still pass the same block more than once.
  */
 public class PCMDataBlock extends DataBlock implements MultiChannelSignalInformation {
     static final @NonNls Logger LOGGER = Logger.getLogger(PCMDataBlock.class.getName());
+    private static final @NotNull AtomicIntegerFieldUpdater<PCMDataBlock> REFERENCES = AtomicIntegerFieldUpdater.newUpdater(PCMDataBlock.class, "references");
 
     /**
-     * Internal storage for PCM data.
+     * Internal storage for PCM data. The samples of this block are {@link #length} samples starting at {@link #offset}.
+     * This is {@code null} for subclasses storing their samples in a different format, see {@link FloatPCMDataBlock}.
      */
     protected final short[] data;
+    /**
+     * The index of the first sample of this block in {@link #data}.
+     */
+    protected final int offset;
+    /**
+     * The number of samples of this block.
+     */
+    protected final int length;
     /**
      * Internal storage for sample rate of the block.
      */
@@ -54,6 +84,21 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
 
     protected final @NotNull Set<@NotNull Runnable> onAudible = new HashSet<>();
 
+    /* Blocks starting within this block, see addPart(). Allocated on first use. */
+    private @Nullable PCMDataBlock[] parts = null;
+    private @Nullable int[] partOffsets = null;
+    private int numberOfParts = 0;
+    /* The samples of a view copied to an array of their own, created by getData() on first use. */
+    private volatile short[] compact = null;
+    /* The pool the array is returned to once the last reference is released, if any. */
+    private final @Nullable SamplePool pool;
+    /* The block owning the array if this is a view of a block with a pooled array. */
+    private final @Nullable PCMDataBlock owner;
+    private final @Nullable Object leakTracker;
+    private final boolean referenceCounted;
+    @SuppressWarnings("unused") // updated using REFERENCES
+    private volatile int references = 1;
+
     /**
      * Create a block from an array if samples.
      *
@@ -68,25 +113,194 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
                         short[] data,
                         @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
                         @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels) {
+        this(sync, playoutInfo, data, 0, data.length, sampleRate, numberOfChannels);
+    }
+
+    /**
+     * Create a block from a range of an array of samples.
+     * The array is not copied. It must not be altered as long as the block is in use.
+     *
+     * @param sync The {@link Sync} to use for the new DataBlock.
+     * @param playoutInfo The {@link PlayoutInfo} to use for the new DataBlock.
+     * @param data The array holding the samples as 16 bit PCM interleaved values.
+     * @param offset The index of the first sample in {@code data}.
+     * @param length The number of samples.
+     * @param sampleRate The sample rate of the signal in [Hz].
+     * @param numberOfChannels The number of channels represented.
+     */
+    public PCMDataBlock(@NotNull Sync sync,
+                        PlayoutInfo playoutInfo,
+                        short[] data,
+                        int offset,
+                        int length,
+                        @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                        @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels) {
+        this(sync, playoutInfo, data, offset, length, sampleRate, numberOfChannels, null, null, false);
+    }
+
+    /**
+     * Create a block from a range of an array taken from a {@link SamplePool}.
+     * The block takes over the array. It is returned to the pool once the last reference to the block is released.
+     *
+     * @param sync The {@link Sync} to use for the new DataBlock.
+     * @param playoutInfo The {@link PlayoutInfo} to use for the new DataBlock.
+     * @param data The array holding the samples as 16 bit PCM interleaved values as returned by {@link SamplePool#acquire(int)}.
+     * @param offset The index of the first sample in {@code data}.
+     * @param length The number of samples.
+     * @param sampleRate The sample rate of the signal in [Hz].
+     * @param numberOfChannels The number of channels represented.
+     * @param pool The pool to return the array to.
+     */
+    @ApiStatus.Experimental
+    public PCMDataBlock(@NotNull Sync sync,
+                        PlayoutInfo playoutInfo,
+                        short[] data,
+                        int offset,
+                        int length,
+                        @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                        @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels,
+                        @NotNull SamplePool pool) {
+        this(sync, playoutInfo, data, offset, length, sampleRate, numberOfChannels, pool, null, false);
+    }
+
+    /**
+     * Create a block for subclasses that store their samples in a different format.
+     * Such subclasses must override {@link #getData()}, {@link #getBackingData()}, {@link #getDataOffset()},
+     * and {@link #subBlock(int, int)}.
+     *
+     * @param sync The {@link Sync} to use for the new DataBlock.
+     * @param playoutInfo The {@link PlayoutInfo} to use for the new DataBlock.
+     * @param length The number of samples.
+     * @param sampleRate The sample rate of the signal in [Hz].
+     * @param numberOfChannels The number of channels represented.
+     */
+    protected PCMDataBlock(@NotNull Sync sync,
+                           PlayoutInfo playoutInfo,
+                           int length,
+                           @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                           @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels) {
+        this(sync, playoutInfo, length, sampleRate, numberOfChannels, false);
+    }
+
+    /**
+     * Create a block for subclasses that store their samples in a different format.
+     * Subclasses that manage their storage themselves can request reference counting
+     * and are notified by {@link #deallocate()} once the last reference is released.
+     *
+     * @param sync The {@link Sync} to use for the new DataBlock.
+     * @param playoutInfo The {@link PlayoutInfo} to use for the new DataBlock.
+     * @param length The number of samples.
+     * @param sampleRate The sample rate of the signal in [Hz].
+     * @param numberOfChannels The number of channels represented.
+     * @param referenceCounted Whether {@link #retain()} and {@link #release()} count references.
+     * @see #PCMDataBlock(Sync, PlayoutInfo, int, int, int)
+     */
+    protected PCMDataBlock(@NotNull Sync sync,
+                           PlayoutInfo playoutInfo,
+                           int length,
+                           @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                           @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels,
+                           boolean referenceCounted) {
+        this(sync, playoutInfo, null, 0, length, sampleRate, numberOfChannels, null, null, referenceCounted);
+    }
+
+    private PCMDataBlock(@NotNull Sync sync,
+                         PlayoutInfo playoutInfo,
+                         short[] data,
+                         int offset,
+                         int length,
+                         @Range(from = 1, to = Integer.MAX_VALUE) int sampleRate,
+                         @Range(from = 1, to = Integer.MAX_VALUE) int numberOfChannels,
+                         @Nullable SamplePool pool,
+                         @Nullable PCMDataBlock owner,
+                         boolean referenceCounted) {
         super(sync, playoutInfo);
+
+        if (offset < 0 || length < 0 || (data != null && offset > data.length - length))
+            throw new IllegalArgumentException("offset (" + offset + ") or length (" + length + ") invalid. Total length is " + (data == null ? 0 : data.length));
+
         this.data = data;
+        this.offset = offset;
+        this.length = length;
         this.sampleRate = sampleRate;
         this.numberOfChannels = numberOfChannels;
+        this.pool = pool;
+        this.owner = owner;
+        this.leakTracker = pool == null ? null : pool.track(this);
+        this.referenceCounted = referenceCounted || pool != null || owner != null;
+
+        if (owner != null)
+            owner.retain();
 
-        if ((data.length % numberOfChannels) != 0) {
-            LOGGER.log(Level.WARNING, "Creating questionable PCMDataBlock: Number of samples (" + data.length + ") is not a multiple of number of channels (" + numberOfChannels + ")", new IllegalArgumentException());
+        if ((length % numberOfChannels) != 0) {
+            LOGGER.log(Level.WARNING, "Creating questionable PCMDataBlock: Number of samples (" + length + ") is not a multiple of number of channels (" + numberOfChannels + ")", new IllegalArgumentException());
         }
     }
 
     /**
      * Gets the PCM data,
+     * <P>
+     * If this block is a view of a larger array the samples are copied on the first call.
      *
-     * @return The PCM data as stored by the block.
+     * @return The PCM data of the block.
+     * @see #getBackingData()
      */
     public short[] getData() {
+        short[] ret;
+
+        if (offset == 0 && length == data.length)
+            return data;
+
+        ret = compact;
+        if (ret == null) {
+            ret = Arrays.copyOfRange(data, offset, offset + length);
+            compact = ret;
+        }
+        return ret;
+    }
+
+    /**
+     * Gets the array holding the PCM data without copying it.
+     * The samples of this block are {@link #getDataLength()} samples starting at {@link #getDataOffset()}.
+     * The array may be shared with other blocks and must not be altered.
+     *
+     * @return The array.
+     */
+    @Contract(pure = true)
+    public short[] getBackingData() {
         return data;
     }
 
+    /**
+     * Gets the index of the first sample of this block in the array returned by {@link #getBackingData()}.
+     * @return The offset in [sample].
+     */
+    @Contract(pure = true)
+    public int getDataOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the number of samples of this block.
+     * @return The length in [sample].
+     */
+    @Contract(pure = true)
+    public int getDataLength() {
+        return length;
+    }
+
+    /**
+     * Gets the size of a sample as stored by this block.
+     * This is used to account for the memory used by buffered blocks.
+     *
+     * @return The size in [byte].
+     */
+    @ApiStatus.Experimental
+    @Contract(pure = true)
+    public int getSampleSize() {
+        return Short.BYTES;
+    }
+
     /**
      * Gets the sample rate for this block.
      *
@@ -114,7 +328,7 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
      */
     @Override
     public @Range(from = 0, to = Integer.MAX_VALUE) int getLengthAsFrames() {
-        final int samples = getData().length;
+        final int samples = length;
 
         if ((samples % getNumberOfChannels()) != 0)
             throw new IllegalArgumentException("Number of samples (" + samples + ") is not a multiple of number of channels (" + getNumberOfChannels() + ")");
@@ -134,10 +348,22 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
 
     /**
      * This should be called when the block is audible.
-     * It calls the callbacks scheduled by {@link #onAudible(Runnable)} if any.
+     * It calls the callbacks scheduled by {@link #onAudible(Runnable)} if any
+     * and reports all parts added using {@link #addPart(int, PCMDataBlock)} as audible.
      * This may also update statistics or provide hints to other parts of the runtime.
      */
     public void audible() {
+        audible(true);
+    }
+
+    /**
+     * This works like {@link #audible()} but allows to exclude the parts of this block.
+     * This is used by callers that report the parts audible at their respective offsets.
+     *
+     * @param includeParts Whether to also report the parts of this block as audible.
+     */
+    @ApiStatus.Internal
+    public void audible(boolean includeParts) {
         for (final @NotNull Runnable runnable : onAudible) {
             try {
                 runnable.run();
@@ -145,6 +371,141 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
                 LOGGER.warning("on audible handler " + runnable + " for PCM block " + this + " failed with " + e);
             }
         }
+
+        if (includeParts) {
+            for (int i = 0; i < numberOfParts; i++)
+                Objects.requireNonNull(parts)[i].audible();
+        }
+    }
+
+    /**
+     * Adds a block that is played as part of this block.
+     * <P>
+     * This is used by blocks that are made from the audio of other blocks, see {@link Rechunker}.
+     * The part is to be reported as audible once the given frame of this block is audible.
+     * Parts must be added in the order of their offsets.
+     *
+     * @param offset The frame of this block the part starts at in [frame].
+     * @param part The part.
+     */
+    @ApiStatus.Internal
+    public void addPart(int offset, @NotNull PCMDataBlock part) {
+        if (offset < 0 || (numberOfParts > 0 && offset < Objects.requireNonNull(partOffsets)[numberOfParts - 1]))
+            throw new IllegalArgumentException("Invalid offset: " + offset);
+
+        if (parts == null || partOffsets == null) {
+            parts = new PCMDataBlock[1];
+            partOffsets = new int[1];
+        } else if (numberOfParts == parts.length) {
+            parts = Arrays.copyOf(parts, numberOfParts * 2);
+            partOffsets = Arrays.copyOf(partOffsets, numberOfParts * 2);
+        }
+
+        parts[numberOfParts] = part;
+        partOffsets[numberOfParts] = offset;
+        numberOfParts++;
+    }
+
+    /**
+     * Gets the number of parts added using {@link #addPart(int, PCMDataBlock)}.
+     * @return The number of parts.
+     */
+    @ApiStatus.Internal
+    public int getNumberOfParts() {
+        return numberOfParts;
+    }
+
+    /**
+     * Gets a part of this block.
+     * @param index The index of the part.
+     * @return The part.
+     */
+    @ApiStatus.Internal
+    public @NotNull PCMDataBlock getPart(int index) {
+        if (index < 0 || index >= numberOfParts)
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return Objects.requireNonNull(parts)[index];
+    }
+
+    /**
+     * Gets the frame of this block a part starts at.
+     * @param index The index of the part.
+     * @return The offset in [frame].
+     */
+    @ApiStatus.Internal
+    public int getPartOffset(int index) {
+        if (index < 0 || index >= numberOfParts)
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return Objects.requireNonNull(partOffsets)[index];
+    }
+
+    /**
+     * Adds a reference to this block.
+     * This must be called by anyone keeping the block beyond the call it was passed in, see {@link #release()}.
+     *
+     * @throws IllegalStateException Thrown if the last reference has already been released.
+     */
+    public void retain() {
+        int current;
+
+        if (!referenceCounted)
+            return;
+
+        do {
+            current = references;
+            if (current < 1)
+                throw new IllegalStateException("Block has already been released: " + this);
+        } while (!REFERENCES.compareAndSet(this, current, current + 1));
+    }
+
+    /**
+     * Releases a reference to this block.
+     * <P>
+     * Once the last reference is released the samples must no longer be accessed.
+     * If the block was created with a {@link SamplePool} its array is then returned to the pool.
+     * If it is a view of such a block the reference the view holds to it is released.
+     *
+     * @throws IllegalStateException Thrown if the last reference has already been released.
+     */
+    public void release() {
+        final int left;
+
+        if (!referenceCounted)
+            return;
+
+        left = REFERENCES.decrementAndGet(this);
+        if (left > 0)
+            return;
+
+        if (left < 0) {
+            REFERENCES.incrementAndGet(this);
+            throw new IllegalStateException("Block has already been released: " + this);
+        }
+
+        if (pool != null) {
+            pool.untrack(leakTracker);
+            pool.release(data);
+        }
+        if (owner != null)
+            owner.release();
+        deallocate();
+    }
+
+    /**
+     * This is called once the last reference to a block created with reference counting requested is released.
+     * Subclasses managing their storage themselves free it here. The default implementation does nothing.
+     */
+    protected void deallocate() {
+        // Nothing to do.
+    }
+
+    /**
+     * Gets the number of references currently held to this block.
+     * @return The number of references.
+     */
+    @ApiStatus.Internal
+    public int getReferenceCount() {
+        return references;
     }
 
     /**
@@ -159,26 +520,23 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
 
     /**
      * Creates a new block that is a sub block of this.
+     * The new block is a view sharing the samples with this block, so no samples are copied.
+     * If the samples are pooled the view holds a reference to the block owning them until it is released itself.
+     * The caller is free to release its reference to this block after the view has been created.
+     *
      * @param start The first frame to include in [frame].
      * @param end The last frame to include in [frame].
      * @return The resulting block.
      * @see #trim(int, int)
      */
-    @Contract(pure = true)
+    @Contract("_, _ -> new")
     public @NotNull PCMDataBlock subBlock(int start, int end) {
-        final int length = getLengthAsFrames();
-        final short[] n;
-
-        if (end < start || start < 0 || start > length || end > length)
-            throw new IllegalArgumentException("start (" + start + ") or end (" + end + ") invalid. Total length is " + length);
+        final int frames = getLengthAsFrames();
 
-        start *= numberOfChannels;
-        end *= numberOfChannels;
+        if (end < start || start < 0 || start > frames || end > frames)
+            throw new IllegalArgumentException("start (" + start + ") or end (" + end + ") invalid. Total length is " + frames);
 
-        n = new short[end - start];
-        System.arraycopy(data, start, n, 0, n.length);
-
-        return new PCMDataBlock(getSync(), getPlayoutInfo(), n, sampleRate, numberOfChannels);
+        return new PCMDataBlock(getSync(), getPlayoutInfo(), data, offset + start * numberOfChannels, (end - start) * numberOfChannels, sampleRate, numberOfChannels, null, pool != null ? this : owner, false);
     }
 
     /**
@@ -188,7 +546,7 @@ public class PCMDataBlock extends DataBlock implements MultiChannelSignalInforma
      * @return The resulting block.
      * @see #subBlock(int, int)
      */
-    @Contract(pure = true)
+    @Contract("_, _ -> new")
     public @NotNull PCMDataBlock trim(int startTrim, int endTrim) {
         return subBlock(startTrim, getLengthAsFrames() - endTrim);
     }
@@ -24,13 +24,19 @@ package io.ybrid.player.io.audio;
 
 import io.ybrid.api.util.MediaType;
 import io.ybrid.player.io.DataSource;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.nio.ShortBuffer;
 
 /**
  * This interface is implemented by classes that allow reading PCM data as {@link PCMDataBlock}.
+ * <P>
+ * In addition PCM data can be read into a buffer provided by the caller using
+ * {@link #read(short[], int, int, PCMReadResult)}. By default this is implemented using {@link #read()}.
+ * Sources that can provide frames without building blocks should implement it natively.
  */
 public interface PCMDataSource extends DataSource {
     /**
@@ -42,6 +48,58 @@ public interface PCMDataSource extends DataSource {
     @Override
     @NotNull PCMDataBlock read() throws IOException;
 
+    /**
+     * Reads frames into a buffer provided by the caller.
+     * <P>
+     * This waits until at least one frame is available and reads up to the given number of frames.
+     * Fewer frames are read if the buffer is full, or the format, the {@link io.ybrid.api.metadata.Sync}, or the
+     * {@link io.ybrid.api.PlayoutInfo} changes. The result tells the format and metadata of the frames read.
+     * The same result must be passed to all calls, see {@link PCMReadResult}.
+     * <P>
+     * The default implementation reads blocks using {@link #read()} and copies them.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update.
+     * @return The number of frames read in [frame].
+     * @throws IOException And I/O-Errors occurred while reading.
+     */
+    @ApiStatus.Experimental
+    default int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) throws IOException {
+        return result.read(this, buffer, offset, frames);
+    }
+
+    /**
+     * Reads frames into a buffer provided by the caller.
+     * <P>
+     * This works like {@link #read(short[], int, int, PCMReadResult)}.
+     * The samples are put at the position of the buffer, which is advanced accordingly.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update.
+     * @return The number of frames read in [frame].
+     * @throws IOException And I/O-Errors occurred while reading.
+     */
+    @ApiStatus.Experimental
+    default int read(@NotNull ShortBuffer buffer, int frames, @NotNull PCMReadResult result) throws IOException {
+        final short[] scratch;
+        final int ret;
+
+        // The array can only be used directly if the buffer's limit is the end of the array.
+        if (buffer.hasArray() && buffer.arrayOffset() + buffer.limit() == buffer.array().length) {
+            ret = read(buffer.array(), buffer.arrayOffset() + buffer.position(), frames, result);
+            buffer.position(buffer.position() + ret * result.getNumberOfChannels());
+            return ret;
+        }
+
+        scratch = result.getScratch(buffer.remaining());
+        ret = read(scratch, 0, frames, result);
+        buffer.put(scratch, 0, ret * result.getNumberOfChannels());
+        return ret;
+    }
+
     /**
      * Gets the number of samples skipped by this data source including all backends.
      * <P>
@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.PlayoutInfo;
+import io.ybrid.api.metadata.Sync;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This holds the result of a read into a caller supplied buffer,
+ * see {@link PCMDataSource#read(short[], int, int, PCMReadResult)}.
+ * <P>
+ * All frames returned by a single read share the same format, {@link Sync}, and {@link PlayoutInfo}.
+ * A read ends early at any point those change, so each change point is at the start of a read.
+ * {@link #isFormatChanged()} and {@link #isSyncChanged()} tell whether this is the case for the last read.
+ * <P>
+ * The result also keeps the rest of a block that did not fit into the buffer for the next read.
+ * Therefore the same instance must be passed to all reads from a source,
+ * and a consumer must not mix reading blocks and reading into buffers from the same source.
+ * Instances are reused for all reads, so steady state reading does not allocate any objects.
+ * <P>
+ * Blocks whose first frame has been read are listed so the consumer can report them as audible,
+ * see {@link #audible()}. Blocks are released once all of their frames have been read, see {@link PCMDataBlock#release()}.
+ * <P>
+ * This class is not thread safe.
+ */
+@ApiStatus.Experimental
+public final class PCMReadResult {
+    private short[] buffer = null;
+    private int offset = 0; // [sample]
+    private int maxFrames = 0; // [frame]
+    private int frames = 0; // [frame]
+    private boolean hasFormat = false;
+    private int sampleRate = 0; // [Hz]
+    private int numberOfChannels = 0;
+    private @Nullable Sync sync = null;
+    private @Nullable PlayoutInfo playoutInfo = null;
+    private boolean formatChanged = false;
+    private boolean syncChanged = false;
+    private @NotNull PCMDataBlock[] blocks = new PCMDataBlock[4];
+    private int[] blockOffsets = new int[4]; // [frame]
+    private int numberOfBlocks = 0;
+    /* The block a read ended in and the position of its first frame not yet read in [frame]. */
+    private @Nullable PCMDataBlock pending = null;
+    private int pendingPosition = 0;
+    /* An exception of the source deferred as frames had already been read. */
+    private @Nullable IOException exception = null;
+    private short[] scratch = null;
+
+    /**
+     * Gets the number of frames read by the last read.
+     * @return The number of frames in [frame].
+     */
+    public int getLengthAsFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the sample rate of the frames read. This is only valid once a read returned frames.
+     * @return The sample rate in [Hz].
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Gets the number of channels of the frames read. This is only valid once a read returned frames.
+     * @return The number of channels.
+     */
+    public int getNumberOfChannels() {
+        return numberOfChannels;
+    }
+
+    /**
+     * Gets the {@link Sync} of the frames read. This is only valid once a read returned frames.
+     * @return The Sync.
+     */
+    public @Nullable Sync getSync() {
+        return sync;
+    }
+
+    /**
+     * Gets the {@link PlayoutInfo} of the frames read.
+     * @return The PlayoutInfo or {@code null}.
+     */
+    public @Nullable PlayoutInfo getPlayoutInfo() {
+        return playoutInfo;
+    }
+
+    /**
+     * Gets whether the sample rate or the number of channels changed with the last read.
+     * This is {@code false} for the first read.
+     * @return Whether the format changed.
+     */
+    public boolean isFormatChanged() {
+        return formatChanged;
+    }
+
+    /**
+     * Gets whether the {@link Sync} or the {@link PlayoutInfo} changed with the last read.
+     * This is {@code false} for the first read.
+     * @return Whether the Sync changed.
+     */
+    public boolean isSyncChanged() {
+        return syncChanged;
+    }
+
+    /**
+     * Gets the number of blocks whose first frame has been read by the last read.
+     * @return The number of blocks.
+     */
+    public int getNumberOfBlocks() {
+        return numberOfBlocks;
+    }
+
+    /**
+     * Gets a block whose first frame has been read by the last read.
+     * The samples of the block must not be accessed.
+     *
+     * @param index The index of the block.
+     * @return The block.
+     */
+    public @NotNull PCMDataBlock getBlock(int index) {
+        if (index < 0 || index >= numberOfBlocks)
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return blocks[index];
+    }
+
+    /**
+     * Gets the frame of the last read a block starts at.
+     * @param index The index of the block.
+     * @return The offset in [frame].
+     */
+    public int getBlockOffset(int index) {
+        if (index < 0 || index >= numberOfBlocks)
+            throw new IndexOutOfBoundsException("Invalid index: " + index);
+        return blockOffsets[index];
+    }
+
+    /**
+     * Reports all blocks started by the last read as audible. See {@link PCMDataBlock#audible()}.
+     * Consumers that know when the frames are actually played should report the blocks at their offsets instead.
+     */
+    public void audible() {
+        for (int i = 0; i < numberOfBlocks; i++)
+            blocks[i].audible();
+    }
+
+    /* --------[ Sources ]-------- */
+
+    /**
+     * Starts a new read. This is called by sources.
+     *
+     * @param buffer The buffer to read into.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     */
+    @ApiStatus.Internal
+    public void begin(short[] buffer, int offset, int frames) {
+        if (offset < 0 || offset > buffer.length || frames < 0)
+            throw new IllegalArgumentException("offset (" + offset + ") or frames (" + frames + ") invalid. Total length is " + buffer.length);
+
+        Arrays.fill(blocks, 0, numberOfBlocks, null);
+        numberOfBlocks = 0;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.maxFrames = frames;
+        this.frames = 0;
+        formatChanged = false;
+        syncChanged = false;
+    }
+
+    /**
+     * Prepares writing frames of the given format. This is called by sources.
+     * <P>
+     * If this is the first call of a read the format is set. Otherwise it must match the frames already read.
+     * The frames are written to the buffer at {@code offset + getLengthAsFrames() * numberOfChannels}
+     * and committed using {@link #commit(int)}.
+     *
+     * @param sync The {@link Sync} of the frames.
+     * @param playoutInfo The {@link PlayoutInfo} of the frames.
+     * @param sampleRate The sample rate in [Hz].
+     * @param numberOfChannels The number of channels.
+     * @return The number of frames that can be written in [frame], zero at a change point or if the buffer is full.
+     */
+    @ApiStatus.Internal
+    public int prepare(@NotNull Sync sync, @Nullable PlayoutInfo playoutInfo, int sampleRate, int numberOfChannels) {
+        if (frames == 0) {
+            formatChanged = hasFormat && (this.sampleRate != sampleRate || this.numberOfChannels != numberOfChannels);
+            syncChanged = hasFormat && (!Objects.equals(this.sync, sync) || !Objects.equals(this.playoutInfo, playoutInfo));
+            hasFormat = true;
+            this.sampleRate = sampleRate;
+            this.numberOfChannels = numberOfChannels;
+            this.sync = sync;
+            this.playoutInfo = playoutInfo;
+        } else if (this.sampleRate != sampleRate || this.numberOfChannels != numberOfChannels ||
+                !Objects.equals(this.sync, sync) || !Objects.equals(this.playoutInfo, playoutInfo)) {
+            return 0;
+        }
+
+        return Math.max(0, Math.min(maxFrames, (buffer.length - offset) / numberOfChannels) - frames);
+    }
+
+    /**
+     * Commits frames written after {@link #prepare(Sync, PlayoutInfo, int, int)}. This is called by sources.
+     * @param frames The number of frames written in [frame].
+     */
+    @ApiStatus.Internal
+    public void commit(int frames) {
+        this.frames += frames;
+    }
+
+    private boolean isFull() {
+        return frames == maxFrames || (offset + (frames + 1) * numberOfChannels) > buffer.length;
+    }
+
+    private void addBlock(@NotNull PCMDataBlock block) {
+        if (numberOfBlocks == blocks.length) {
+            blocks = Arrays.copyOf(blocks, numberOfBlocks * 2);
+            blockOffsets = Arrays.copyOf(blockOffsets, numberOfBlocks * 2);
+        }
+        blocks[numberOfBlocks] = block;
+        blockOffsets[numberOfBlocks] = frames;
+        numberOfBlocks++;
+    }
+
+    private boolean consume(@NotNull PCMDataBlock block, int position) {
+        final int channels = block.getNumberOfChannels();
+        final int length = block.getLengthAsFrames();
+        final int copy = Math.min(length - position, prepare(block.getSync(), block.getPlayoutInfo(), block.getSampleRate(), channels));
+
+        if (copy > 0 || length == 0) {
+            if (position == 0)
+                addBlock(block);
+            if (block instanceof DirectPCMDataBlock) {
+                ((DirectPCMDataBlock) block).copyTo(position * channels, buffer, offset + frames * channels, copy * channels);
+            } else {
+                System.arraycopy(block.getBackingData(), block.getDataOffset() + position * channels, buffer, offset + frames * channels, copy * channels);
+            }
+            commit(copy);
+            position += copy;
+        }
+
+        if (position < length) {
+            pending = block;
+            pendingPosition = position;
+            return false;
+        }
+
+        block.release();
+        return !isFull();
+    }
+
+    /**
+     * Reads frames from a block. This is called by sources after {@link #consumePending()}.
+     * <P>
+     * The result takes over the reference to the block. What does not fit is kept for the next read.
+     *
+     * @param block The block to read.
+     * @return Whether the read can continue with the next block.
+     */
+    @ApiStatus.Internal
+    public boolean consume(@NotNull PCMDataBlock block) {
+        return consume(block, 0);
+    }
+
+    /**
+     * Reads the frames kept from the last read, if any. This is called by sources after {@link #begin(short[], int, int)}.
+     * @return Whether the read can continue with the next block.
+     */
+    @ApiStatus.Internal
+    public boolean consumePending() {
+        final @Nullable PCMDataBlock block = pending;
+
+        if (block == null)
+            return !isFull();
+
+        pending = null;
+        return consume(block, pendingPosition);
+    }
+
+    /**
+     * Reads from a source using its block API. This is the default implementation of
+     * {@link PCMDataSource#read(short[], int, int, PCMReadResult)}.
+     * <P>
+     * Blocks are read until the buffer is full or a change point is reached. If the source fails after
+     * frames have been read the exception is thrown by the next read.
+     *
+     * @param source The source to read from.
+     * @param buffer The buffer to read into.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @return The number of frames read in [frame].
+     * @throws IOException Thrown if the source failed before any frames were read.
+     */
+    @ApiStatus.Internal
+    public int read(@NotNull PCMDataSource source, short[] buffer, int offset, int frames) throws IOException {
+        begin(buffer, offset, frames);
+
+        if (!consumePending())
+            return this.frames;
+
+        if (exception != null) {
+            final @NotNull IOException e = exception;
+
+            if (this.frames > 0)
+                return this.frames;
+
+            exception = null;
+            throw e;
+        }
+
+        while (true) {
+            final @NotNull PCMDataBlock block;
+
+            try {
+                block = source.read();
+            } catch (IOException e) {
+                if (this.frames == 0)
+                    throw e;
+                exception = e;
+                break;
+            }
+
+            if (!consume(block))
+                break;
+        }
+
+        return this.frames;
+    }
+
+    /**
+     * Gets an array of at least the given length that is kept with this result. This is used by sources.
+     * @param length The minimum length in [sample].
+     * @return The array.
+     */
+    @ApiStatus.Internal
+    public short[] getScratch(int length) {
+        if (scratch == null || scratch.length < length)
+            scratch = new short[length];
+        return scratch;
+    }
+
+    /**
+     * Releases the frames kept for the next read, if any. This must be called if a consumer stops reading.
+     */
+    public void clear() {
+        final @Nullable PCMDataBlock block = pending;
+
+        pending = null;
+        exception = null;
+        if (block != null)
+            block.release();
+    }
+
+    @Override
+    public String toString() {
+        //noinspection HardCodedStringLiteral
+        return "PCMReadResult{" +
+                "frames=" + frames +
+                ", sampleRate=" + sampleRate +
+                ", numberOfChannels=" + numberOfChannels +
+                ", formatChanged=" + formatChanged +
+                ", syncChanged=" + syncChanged +
+                ", numberOfBlocks=" + numberOfBlocks +
+                "}";
+    }
+}
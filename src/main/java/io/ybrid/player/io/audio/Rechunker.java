@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * This implements a {@link FilterPCMDataSource} that returns blocks of a fixed number of frames.
+ * <P>
+ * Blocks from the backend are combined or split as needed. This reduces the number of blocks passed to the
+ * audio output for codecs with small frames and allows the block size to be aligned to the period of the output.
+ * Blocks split from a single larger block are views sharing its samples, see {@link PCMDataBlock#subBlock(int, int)}.
+ * Blocks read from the backend are released as soon as their samples have been copied or all views have been created.
+ * Blocks holding {@code float} samples are combined into {@link FloatPCMDataBlock}s so they are not converted.
+ * Larger blocks increase the latency by up to their length as the backend is read until a block is complete.
+ * <P>
+ * A block is ended early if the format, the {@link io.ybrid.api.metadata.Sync} or the
+ * {@link io.ybrid.api.PlayoutInfo} changes, so metadata always takes effect at the exact frame.
+ * Each block read from the backend is added as a part to the block it starts in, see
+ * {@link PCMDataBlock#addPart(int, PCMDataBlock)}. Outputs using a {@link io.ybrid.player.io.audio.output.FrameClock}
+ * report it audible when its first frame is played.
+ * <P>
+ * If the backend fails while a block is incomplete, the incomplete block is returned
+ * and the exception is thrown by the next call to {@link #read()}.
+ */
+@ApiStatus.Experimental
+public class Rechunker<T extends PCMDataSource> extends FilterPCMDataSource<T> {
+    private final int frames;
+    /* The block currently being split, if any. */
+    private @Nullable PCMDataBlock pending = null;
+    private int pendingOffset = 0; // [frame]
+    private @Nullable IOException exception = null;
+
+    /**
+     * Creates an instance.
+     *
+     * @param backend The backend to use.
+     * @param frames The number of frames per block in [frame].
+     */
+    public Rechunker(@NotNull T backend, int frames) {
+        super(backend);
+        if (frames < 1)
+            throw new IllegalArgumentException("Invalid number of frames: " + frames);
+        this.frames = frames;
+    }
+
+    /**
+     * Gets the number of frames per block.
+     * @return The number of frames in [frame].
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    private static boolean isContinuation(@NotNull PCMDataBlock first, @NotNull PCMDataBlock next) {
+        return first.getSampleRate() == next.getSampleRate() &&
+                (first instanceof FloatPCMDataBlock) == (next instanceof FloatPCMDataBlock) &&
+                first.getNumberOfChannels() == next.getNumberOfChannels() &&
+                Objects.equals(first.getSync(), next.getSync()) &&
+                Objects.equals(first.getPlayoutInfo(), next.getPlayoutInfo());
+    }
+
+    @Override
+    public @NotNull PCMDataBlock read() throws IOException {
+        final @NotNull PCMDataBlock ret;
+        @Nullable PCMDataBlock first = null;
+        short[] data = null;
+        float[] floatData = null;
+        int filled = 0;
+        int parts = 0;
+        @NotNull PCMDataBlock[] partBlocks = new PCMDataBlock[1];
+        int[] partOffsets = new int[1];
+
+        if (exception != null) {
+            final @NotNull IOException e = exception;
+            exception = null;
+            throw e;
+        }
+
+        while (filled < frames) {
+            final @NotNull PCMDataBlock block;
+            final int length;
+            final int copy;
+
+            if (pending == null) {
+                try {
+                    pending = backend.read();
+                } catch (IOException e) {
+                    if (first == null)
+                        throw e;
+                    exception = e;
+                    break;
+                }
+                pendingOffset = 0;
+            }
+            block = pending;
+
+            if (first == null) {
+                // A block that is completely taken from a single block is returned as a view, so nothing is copied.
+                if (block.getLengthAsFrames() - pendingOffset >= frames) {
+                    ret = block.subBlock(pendingOffset, pendingOffset + frames);
+                    if (pendingOffset == 0)
+                        ret.addPart(0, block);
+                    pendingOffset += frames;
+                    if (pendingOffset == block.getLengthAsFrames()) {
+                        pending = null;
+                        block.release();
+                    }
+                    return ret;
+                }
+
+                first = block;
+                if (first instanceof FloatPCMDataBlock) {
+                    floatData = new float[frames * first.getNumberOfChannels()];
+                } else {
+                    data = new short[frames * first.getNumberOfChannels()];
+                }
+            } else if (!isContinuation(first, block)) {
+                break;
+            }
+
+            if (pendingOffset == 0) {
+                if (parts == partBlocks.length) {
+                    partBlocks = Arrays.copyOf(partBlocks, parts * 2);
+                    partOffsets = Arrays.copyOf(partOffsets, parts * 2);
+                }
+                partBlocks[parts] = block;
+                partOffsets[parts] = filled;
+                parts++;
+            }
+
+            length = block.getLengthAsFrames();
+            copy = Math.min(length - pendingOffset, frames - filled);
+            if (floatData != null) {
+                final @NotNull FloatPCMDataBlock floatBlock = (FloatPCMDataBlock) block;
+                System.arraycopy(floatBlock.getFloatData(), floatBlock.getFloatOffset() + pendingOffset * block.getNumberOfChannels(), floatData, filled * block.getNumberOfChannels(), copy * block.getNumberOfChannels());
+            } else {
+                System.arraycopy(block.getBackingData(), block.getDataOffset() + pendingOffset * block.getNumberOfChannels(), data, filled * block.getNumberOfChannels(), copy * block.getNumberOfChannels());
+            }
+            filled += copy;
+            pendingOffset += copy;
+
+            if (pendingOffset == length) {
+                pending = null;
+                block.release();
+            }
+        }
+
+        Objects.requireNonNull(first);
+        if (floatData != null) {
+            if (filled < frames)
+                floatData = Arrays.copyOf(floatData, filled * first.getNumberOfChannels());
+            ret = new FloatPCMDataBlock(first.getSync(), first.getPlayoutInfo(), floatData, first.getSampleRate(), first.getNumberOfChannels());
+        } else {
+            if (filled < frames)
+                data = Arrays.copyOf(data, filled * first.getNumberOfChannels());
+            ret = new PCMDataBlock(first.getSync(), first.getPlayoutInfo(), data, first.getSampleRate(), first.getNumberOfChannels());
+        }
+        for (int i = 0; i < parts; i++)
+            ret.addPart(partOffsets[i], partBlocks[i]);
+
+        return ret;
+    }
+
+    @Override
+    public boolean isValid() {
+        return pending != null || exception != null || super.isValid();
+    }
+}
@@ -0,0 +1,504 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * This implements a {@link FilterPCMDataSource} that converts all blocks to a fixed sample rate and number of channels.
+ * <P>
+ * This allows an audio output to keep its configuration when the format of the stream changes, for example on
+ * a handover between services using different codecs. Blocks already in the output format are passed unchanged.
+ * <P>
+ * Channels are converted by duplicating channels when the number of channels increases
+ * and by averaging channels when it decreases.
+ * <P>
+ * Blocks holding {@code float} samples are converted to {@link FloatPCMDataBlock}s without clipping,
+ * so the conversion to 16 bit samples is left to the output.
+ * <P>
+ * The input is treated as one continuous signal. When the sample rate changes the frames kept for interpolation are
+ * carried over, so the frames of the old format still pending are converted and the new format does not start
+ * from silence. This avoids clicks on handovers.
+ * <P>
+ * Blocks can also be converted using {@link #process(PCMDataBlock)} if they are read from the backend by other means.
+ * Instances must only be used by one thread at a time.
+ */
+@ApiStatus.Experimental
+public class Resampler<T extends PCMDataSource> extends FilterPCMDataSource<T> {
+    /**
+     * The quality of the sample rate conversion.
+     */
+    public enum Quality {
+        /**
+         * Linear interpolation between two frames. This is the cheapest method but causes audible aliasing.
+         */
+        LINEAR(0, 1),
+        /**
+         * Cubic Hermite interpolation using four frames.
+         */
+        CUBIC(1, 2),
+        /**
+         * Band limited interpolation using a Kaiser windowed sinc filter with 32 taps.
+         * This suppresses aliasing when converting down.
+         */
+        POLYPHASE(POLYPHASE_HALF_TAPS - 1, POLYPHASE_HALF_TAPS);
+
+        /* Frames needed before and after the interpolated position. */
+        private final int before;
+        private final int after;
+
+        Quality(int before, int after) {
+            this.before = before;
+            this.after = after;
+        }
+    }
+
+    /* Frames over which the position is aligned to the input when a conversion ends. */
+    private static final int ALIGN_FRAMES = 64;
+    private static final int POLYPHASE_HALF_TAPS = 16;
+    private static final int POLYPHASE_PHASES = 256;
+    private static final double POLYPHASE_BETA = 8; /* Kaiser window shape */
+    private static final double POLYPHASE_ROLLOFF = 0.85; /* cutoff relative to the lower Nyquist frequency, leaves room for the transition band */
+
+    private final @NotNull Quality quality;
+    private int outputSampleRate = 0;
+    private int outputChannels = 0;
+    /* Sample rate of the input being converted or 0 if blocks are passed. */
+    private int inputSampleRate = 0;
+    /* Input converted to the output channels, oldest frame first. */
+    private float[] input = new float[0];
+    private int inputFrames = 0;
+    /* Position of the next output frame in input frames. */
+    private double time = 0;
+    private double step = 1;
+    /* Frames before this index are in the previous sample rate and advance by previousStep. */
+    private int boundary = 0;
+    private double previousStep = 1;
+    /* Output frames of the block being converted. */
+    private float[] output = new float[0];
+    /* Filter coefficients for POLYPHASE_PHASES + 1 phases, so the last phase can be interpolated. */
+    private float[] coefficients = null;
+
+    /**
+     * Creates an instance.
+     *
+     * @param backend The backend to use.
+     * @param quality The quality of the sample rate conversion.
+     */
+    public Resampler(@NotNull T backend, @NotNull Quality quality) {
+        super(backend);
+        this.quality = quality;
+    }
+
+    /**
+     * Sets the format blocks are converted to.
+     *
+     * @param sampleRate The sample rate in [Hz].
+     * @param channels The number of channels.
+     */
+    public void setOutputFormat(int sampleRate, int channels) {
+        if (sampleRate < 1 || channels < 1)
+            throw new IllegalArgumentException("Invalid format: " + sampleRate + "Hz, " + channels + " channels");
+        if (sampleRate == outputSampleRate && channels == outputChannels)
+            return;
+        outputSampleRate = sampleRate;
+        outputChannels = channels;
+        inputSampleRate = 0;
+        step = 1;
+        boundary = 0;
+        // The history before the first frame is silence.
+        inputFrames = quality.before;
+        input = new float[inputFrames * outputChannels];
+        time = quality.before;
+    }
+
+    /**
+     * Gets the quality of the sample rate conversion.
+     * @return The quality.
+     */
+    public @NotNull Quality getQuality() {
+        return quality;
+    }
+
+    @Override
+    public @NotNull PCMDataBlock read() throws IOException {
+        return process(backend.read());
+    }
+
+    /**
+     * Converts a block to the output format.
+     * <P>
+     * The sample rate conversion keeps a few frames of the input to interpolate with the next block.
+     * Therefore the returned block may be slightly shorter or longer than the input would suggest.
+     * The block ending a conversion also contains the frames still pending from the previous blocks.
+     * The returned block takes over the metadata of the input block and reports it as audible when it is audible itself.
+     * The input block is released once it has been converted, see {@link PCMDataBlock#release()}.
+     * If no output format is set or the block already is in the output format it is returned unchanged.
+     *
+     * @param block The block to convert.
+     * @return The converted block.
+     */
+    public @NotNull PCMDataBlock process(@NotNull PCMDataBlock block) {
+        final @NotNull PCMDataBlock ret;
+
+        if (outputSampleRate == 0)
+            return block;
+
+        if (block.getSampleRate() == outputSampleRate && inputSampleRate == 0) {
+            keep(block);
+            if (block.getNumberOfChannels() == outputChannels)
+                return block;
+
+            if (block instanceof FloatPCMDataBlock) {
+                ret = new FloatPCMDataBlock(block.getSync(), block.getPlayoutInfo(), convertChannels((FloatPCMDataBlock) block), outputSampleRate, outputChannels);
+            } else {
+                ret = new PCMDataBlock(block.getSync(), block.getPlayoutInfo(), convertChannels(block), outputSampleRate, outputChannels);
+            }
+        } else if (block.getSampleRate() == outputSampleRate && block.getLengthAsFrames() >= quality.after) {
+            ret = build(block, finish(block));
+        } else {
+            // This includes blocks in the output sample rate too short to interpolate the pending frames with.
+            if (block.getSampleRate() != inputSampleRate)
+                start(block.getSampleRate());
+            append(block, 0);
+            ret = build(block, resample());
+        }
+
+        ret.onAudible(block::audible);
+        block.release();
+        return ret;
+    }
+
+    /* Builds a block from the given number of output frames. */
+    private @NotNull PCMDataBlock build(@NotNull PCMDataBlock block, int frames) {
+        if (block instanceof FloatPCMDataBlock) {
+            final float[] data = new float[frames * outputChannels];
+
+            for (int i = 0; i < data.length; i++)
+                data[i] = output[i] / FloatPCMDataBlock.SCALE;
+            return new FloatPCMDataBlock(block.getSync(), block.getPlayoutInfo(), data, outputSampleRate, outputChannels);
+        } else {
+            final short[] data = new short[frames * outputChannels];
+
+            for (int i = 0; i < data.length; i++)
+                data[i] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, Math.round(output[i])));
+            return new PCMDataBlock(block.getSync(), block.getPlayoutInfo(), data, outputSampleRate, outputChannels);
+        }
+    }
+
+    private @NotNull short[] convertChannels(@NotNull PCMDataBlock block) {
+        final short[] data = block.getBackingData();
+        final int offset = block.getDataOffset();
+        final int channels = block.getNumberOfChannels();
+        final int frames = block.getLengthAsFrames();
+        final short[] ret = new short[frames * outputChannels];
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (int channel = 0; channel < outputChannels; channel++)
+                ret[frame * outputChannels + channel] = (short) Math.round(mix(data, offset + frame * channels, channels, channel));
+        }
+
+        return ret;
+    }
+
+    private @NotNull float[] convertChannels(@NotNull FloatPCMDataBlock block) {
+        final float[] data = block.getFloatData();
+        final int offset = block.getFloatOffset();
+        final int channels = block.getNumberOfChannels();
+        final int frames = block.getLengthAsFrames();
+        final float[] ret = new float[frames * outputChannels];
+
+        for (int frame = 0; frame < frames; frame++) {
+            for (int channel = 0; channel < outputChannels; channel++)
+                ret[frame * outputChannels + channel] = mix(data, offset + frame * channels, channels, channel);
+        }
+
+        return ret;
+    }
+
+    /* Gets the value of an output channel from an input frame. */
+    private float mix(short[] data, int offset, int channels, int channel) {
+        float sum = 0;
+        int count = 0;
+
+        if (channels <= outputChannels)
+            return data[offset + channel % channels];
+
+        for (int i = channel; i < channels; i += outputChannels) {
+            sum += data[offset + i];
+            count++;
+        }
+
+        return sum / count;
+    }
+
+    /* Same as above for float samples. */
+    private float mix(float[] data, int offset, int channels, int channel) {
+        float sum = 0;
+        int count = 0;
+
+        if (channels <= outputChannels)
+            return data[offset + channel % channels];
+
+        for (int i = channel; i < channels; i += outputChannels) {
+            sum += data[offset + i];
+            count++;
+        }
+
+        return sum / count;
+    }
+
+    /* Switches to a new input sample rate. The frames already appended are still converted using the old one. */
+    private void start(int sampleRate) {
+        inputSampleRate = sampleRate;
+        previousStep = step;
+        boundary = inputFrames;
+        step = (double) sampleRate / outputSampleRate;
+
+        if (quality == Quality.POLYPHASE)
+            coefficients = buildCoefficients(Math.min(1., 1. / step) * POLYPHASE_ROLLOFF);
+    }
+
+    /* Ends a conversion with a block in the output sample rate: Converts the frames pending before it, then passes it. */
+    private int finish(@NotNull PCMDataBlock block) {
+        final int end = inputFrames;
+        final int next;
+        final int aligned;
+        int frames;
+
+        start(outputSampleRate);
+        append(block, 0);
+        frames = render(end, 0);
+
+        // The position is between two frames now. Advance slightly faster for a few frames to reach a frame
+        // instead of skipping to it.
+        next = (int) Math.ceil(time);
+        aligned = next + Math.max(0, Math.min(ALIGN_FRAMES, inputFrames - quality.after - next));
+        if (aligned > next) {
+            step = (aligned - time) / (aligned - next);
+            frames = render(aligned - step / 2, frames);
+        }
+
+        for (int frame = aligned; frame < inputFrames; frame++, frames++) {
+            ensureOutput(frames + 1);
+            System.arraycopy(input, frame * outputChannels, output, frames * outputChannels, outputChannels);
+        }
+
+        inputSampleRate = 0;
+        step = 1;
+        boundary = 0;
+        trim();
+        return frames;
+    }
+
+    /* Keeps the end of a block that is passed, so it can be used as history if a conversion starts. */
+    private void keep(@NotNull PCMDataBlock block) {
+        append(block, Math.max(0, block.getLengthAsFrames() - quality.before));
+        trim();
+    }
+
+    /* Keeps only the last frames needed as history for the next frame. */
+    private void trim() {
+        final int discard = Math.max(0, inputFrames - quality.before);
+
+        System.arraycopy(input, discard * outputChannels, input, 0, (inputFrames - discard) * outputChannels);
+        inputFrames -= discard;
+        time = inputFrames;
+    }
+
+    /* Appends the frames of the block starting with the given one. */
+    private void append(@NotNull PCMDataBlock block, int first) {
+        final int channels = block.getNumberOfChannels();
+        final int frames = block.getLengthAsFrames() - first;
+
+        if ((inputFrames + frames) * outputChannels > input.length) {
+            final float[] n = new float[(inputFrames + frames) * outputChannels * 2];
+            System.arraycopy(input, 0, n, 0, inputFrames * outputChannels);
+            input = n;
+        }
+
+        // The input is kept in the scale of 16 bit samples regardless of the type of the blocks.
+        if (block instanceof FloatPCMDataBlock) {
+            final float[] data = ((FloatPCMDataBlock) block).getFloatData();
+            final int offset = ((FloatPCMDataBlock) block).getFloatOffset() + first * channels;
+
+            for (int frame = 0; frame < frames; frame++) {
+                for (int channel = 0; channel < outputChannels; channel++)
+                    input[(inputFrames + frame) * outputChannels + channel] = mix(data, offset + frame * channels, channels, channel) * FloatPCMDataBlock.SCALE;
+            }
+        } else {
+            final short[] data = block.getBackingData();
+            final int offset = block.getDataOffset() + first * channels;
+
+            for (int frame = 0; frame < frames; frame++) {
+                for (int channel = 0; channel < outputChannels; channel++)
+                    input[(inputFrames + frame) * outputChannels + channel] = mix(data, offset + frame * channels, channels, channel);
+            }
+        }
+        inputFrames += frames;
+    }
+
+    private void ensureOutput(int frames) {
+        if (frames * outputChannels > output.length) {
+            final float[] n = new float[frames * outputChannels * 2];
+            System.arraycopy(output, 0, n, 0, output.length);
+            output = n;
+        }
+    }
+
+    /* Converts all frames that have enough input to interpolate. Returns the number of output frames. */
+    private int resample() {
+        final int frames = render(inputFrames - quality.after, 0);
+
+        discard();
+        return frames;
+    }
+
+    /* Renders output frames for all positions before the limit, starting at the given output frame. */
+    private int render(double limit, int frames) {
+        while (time < limit) {
+            final int index = (int) time;
+            final float fraction = (float) (time - index);
+
+            ensureOutput(frames + 1);
+            for (int channel = 0; channel < outputChannels; channel++)
+                output[frames * outputChannels + channel] = interpolate(index, fraction, channel);
+
+            if (time < boundary) {
+                time += previousStep;
+                // The part past the boundary is in frames of the new sample rate.
+                if (time > boundary)
+                    time = boundary + (time - boundary) * step / previousStep;
+            } else {
+                time += step;
+            }
+            frames++;
+        }
+
+        return frames;
+    }
+
+    /* Keeps only the frames needed for the next output frame. */
+    private void discard() {
+        final int discard = Math.max(0, Math.min(inputFrames, (int) time - quality.before));
+
+        System.arraycopy(input, discard * outputChannels, input, 0, (inputFrames - discard) * outputChannels);
+        inputFrames -= discard;
+        time -= discard;
+        boundary = Math.max(0, boundary - discard);
+    }
+
+    private float interpolate(int index, float fraction, int channel) {
+        switch (quality) {
+            case LINEAR:
+                return linear(index, fraction, channel);
+            case CUBIC:
+                return cubic(index, fraction, channel);
+            default:
+                return polyphase(index, fraction, channel);
+        }
+    }
+
+    private float sample(int frame, int channel) {
+        return input[frame * outputChannels + channel];
+    }
+
+    private float linear(int index, float fraction, int channel) {
+        final float a = sample(index, channel);
+        return a + (sample(index + 1, channel) - a) * fraction;
+    }
+
+    private float cubic(int index, float fraction, int channel) {
+        final float y0 = sample(index - 1, channel);
+        final float y1 = sample(index, channel);
+        final float y2 = sample(index + 1, channel);
+        final float y3 = sample(index + 2, channel);
+        final float c1 = 0.5f * (y2 - y0);
+        final float c2 = y0 - 2.5f * y1 + 2f * y2 - 0.5f * y3;
+        final float c3 = 0.5f * (y3 - y0) + 1.5f * (y1 - y2);
+
+        return ((c3 * fraction + c2) * fraction + c1) * fraction + y1;
+    }
+
+    private float polyphase(int index, float fraction, int channel) {
+        final float position = fraction * POLYPHASE_PHASES;
+        // The fraction may be rounded up to one.
+        final int phase = Math.min((int) position, POLYPHASE_PHASES - 1);
+        final float weight = position - phase;
+        final int a = phase * 2 * POLYPHASE_HALF_TAPS;
+        final int b = a + 2 * POLYPHASE_HALF_TAPS;
+        final int first = index - (POLYPHASE_HALF_TAPS - 1);
+        float sum = 0;
+
+        for (int tap = 0; tap < 2 * POLYPHASE_HALF_TAPS; tap++) {
+            final float c = coefficients[a + tap] + (coefficients[b + tap] - coefficients[a + tap]) * weight;
+            sum += c * input[(first + tap) * outputChannels + channel];
+        }
+
+        return sum;
+    }
+
+    private static double bessel0(double x) {
+        double sum = 1;
+        double term = 1;
+
+        for (int k = 1; k < 32; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+        }
+
+        return sum;
+    }
+
+    /* Builds the coefficients for all phases, each normalized to a gain of one at DC. */
+    private static float[] buildCoefficients(double cutoff) {
+        final int taps = 2 * POLYPHASE_HALF_TAPS;
+        final float[] ret = new float[(POLYPHASE_PHASES + 1) * taps];
+        final double norm = bessel0(POLYPHASE_BETA);
+
+        for (int phase = 0; phase <= POLYPHASE_PHASES; phase++) {
+            final double fraction = (double) phase / POLYPHASE_PHASES;
+            double sum = 0;
+
+            for (int tap = 0; tap < taps; tap++) {
+                final double x = tap - (POLYPHASE_HALF_TAPS - 1) - fraction;
+                final double w = x / POLYPHASE_HALF_TAPS;
+                final double window = Math.abs(w) >= 1 ? 0 : bessel0(POLYPHASE_BETA * Math.sqrt(1 - w * w)) / norm;
+                final double sinc = x == 0 ? 1 : Math.sin(Math.PI * cutoff * x) / (Math.PI * cutoff * x);
+                final double value = cutoff * sinc * window;
+
+                ret[phase * taps + tap] = (float) value;
+                sum += value;
+            }
+
+            for (int tap = 0; tap < taps; tap++)
+                ret[phase * taps + tap] /= (float) sum;
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This implements a pool of sample arrays as used by {@link PCMDataBlock}.
+ * <P>
+ * Arrays are grouped in size classes of two classes per power of two, starting at {@value #MIN_SIZE} samples.
+ * {@link #acquire(int)} returns an array of the size class that fits the requested length. It is taken from the pool
+ * if one is available, and allocated otherwise. Blocks created with a pool return their array once their last
+ * reference is released, see {@link PCMDataBlock#release()}. Arrays larger than the largest size class are not pooled.
+ * <P>
+ * For debugging leak detection can be enabled using {@link #setLeakDetection(boolean)} or for the default pool
+ * by setting the system property {@value #LEAK_DETECTION_PROPERTY} to {@code true}.
+ * Blocks that are garbage collected without being released are then logged with the stack trace of their creation.
+ * This is expensive and should not be enabled in production.
+ * <P>
+ * This class is thread safe.
+ */
+@ApiStatus.Experimental
+public final class SamplePool {
+    static final @NonNls Logger LOGGER = Logger.getLogger(SamplePool.class.getName());
+
+    /**
+     * The system property enabling leak detection for the default pool.
+     */
+    public static final @NonNls String LEAK_DETECTION_PROPERTY = "io.ybrid.player.io.audio.SamplePool.leakDetection";
+    /**
+     * The size of the smallest size class in [sample].
+     */
+    public static final int MIN_SIZE = 256; // [sample]
+    /**
+     * The size of the largest size class in [sample].
+     */
+    public static final int MAX_SIZE = 131072; // [sample]
+    /**
+     * The default number of arrays kept per size class.
+     */
+    public static final int DEFAULT_CAPACITY = 256; // [array]
+
+    private static final int MIN_EXPONENT = 8; // log2(MIN_SIZE)
+    private static final int MAX_EXPONENT = 17; // log2(MAX_SIZE)
+    private static final int CLASSES = 2 * (MAX_EXPONENT - MIN_EXPONENT) + 1;
+    private static final @NotNull SamplePool DEFAULT = new SamplePool(DEFAULT_CAPACITY);
+
+    static {
+        DEFAULT.setLeakDetection(Boolean.getBoolean(LEAK_DETECTION_PROPERTY));
+    }
+
+    private static final class SizeClass {
+        private final int size; // [sample]
+        private final short[][] arrays;
+        private int count = 0;
+
+        private SizeClass(int size, int capacity) {
+            this.size = size;
+            this.arrays = new short[capacity][];
+        }
+
+        private synchronized short[] poll() {
+            final short[] ret;
+
+            if (count == 0)
+                return null;
+
+            ret = arrays[--count];
+            arrays[count] = null;
+            return ret;
+        }
+
+        private synchronized boolean offer(short[] array) {
+            if (count == arrays.length)
+                return false;
+
+            arrays[count++] = array;
+            return true;
+        }
+
+        private synchronized int size() {
+            return count;
+        }
+    }
+
+    private static final class Tracker extends PhantomReference<PCMDataBlock> {
+        private final @NotNull Throwable origin = new Throwable("Block created here");
+
+        private Tracker(@NotNull PCMDataBlock referent, @NotNull ReferenceQueue<? super PCMDataBlock> queue) {
+            super(referent, queue);
+        }
+    }
+
+    private final @NotNull SizeClass[] classes = new SizeClass[CLASSES];
+    private final @NotNull AtomicLong allocations = new AtomicLong();
+    private final @NotNull AtomicLong reuses = new AtomicLong();
+    private final @NotNull AtomicLong leaks = new AtomicLong();
+    private final @NotNull ReferenceQueue<PCMDataBlock> collected = new ReferenceQueue<>();
+    /* Keeps the trackers reachable until their block is released or collected. */
+    private final @NotNull Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+    private volatile boolean leakDetection = false;
+
+    /**
+     * Gets the pool shared by all decoders.
+     * @return The default pool.
+     */
+    @Contract(pure = true)
+    public static @NotNull SamplePool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Creates a new pool.
+     *
+     * @param capacity The maximum number of arrays kept per size class. Arrays released to a full class are left to the garbage collector.
+     */
+    public SamplePool(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity must be >= 0, got " + capacity);
+
+        for (int i = 0; i < CLASSES; i++)
+            classes[i] = new SizeClass(sizeOf(i), capacity);
+    }
+
+    private static int sizeOf(int index) {
+        if ((index & 1) == 0)
+            return 1 << (MIN_EXPONENT + index / 2);
+        return 3 << (MIN_EXPONENT + index / 2 - 1);
+    }
+
+    /* Returns the index of the smallest class that can hold length samples or -1 if there is none. */
+    private static int classOf(int length) {
+        final int exponent;
+
+        if (length <= MIN_SIZE)
+            return 0;
+        if (length > MAX_SIZE)
+            return -1;
+
+        // 2^exponent < length <= 2^(exponent + 1)
+        exponent = 31 - Integer.numberOfLeadingZeros(length - 1);
+        return 2 * (exponent - MIN_EXPONENT) + (length <= (3 << (exponent - 1)) ? 1 : 2);
+    }
+
+    /**
+     * Gets the size of the array {@link #acquire(int)} would return for a given length.
+     *
+     * @param length The requested length in [sample].
+     * @return The size of the array in [sample].
+     */
+    @Contract(pure = true)
+    public static int getSize(int length) {
+        final int index = classOf(length);
+        return index < 0 ? length : sizeOf(index);
+    }
+
+    /**
+     * Gets an array.
+     * <P>
+     * The content of the array is undefined. The array may be longer than requested.
+     *
+     * @param length The minimum length of the array in [sample].
+     * @return The array.
+     */
+    public short[] acquire(int length) {
+        final int index;
+        final short[] ret;
+
+        if (length < 0)
+            throw new IllegalArgumentException("Invalid length: " + length);
+
+        if (leakDetection)
+            reportLeaks();
+
+        index = classOf(length);
+        if (index < 0) {
+            allocations.incrementAndGet();
+            return new short[length];
+        }
+
+        ret = classes[index].poll();
+        if (ret != null) {
+            reuses.incrementAndGet();
+            return ret;
+        }
+
+        allocations.incrementAndGet();
+        return new short[classes[index].size];
+    }
+
+    /**
+     * Returns an array to the pool.
+     * <P>
+     * The caller must not access the array after this call.
+     * Arrays that do not match a size class are ignored.
+     *
+     * @param array The array to return.
+     */
+    public void release(short[] array) {
+        final int index = classOf(array.length);
+
+        if (index >= 0 && classes[index].size == array.length)
+            classes[index].offer(array);
+    }
+
+    /**
+     * Gets the number of arrays allocated by this pool.
+     * @return The number of arrays.
+     */
+    public long getAllocations() {
+        return allocations.get();
+    }
+
+    /**
+     * Gets the number of times an array was taken from the pool instead of being allocated.
+     * @return The number of arrays.
+     */
+    public long getReuses() {
+        return reuses.get();
+    }
+
+    /**
+     * Gets the number of arrays currently kept by the pool.
+     * @return The number of arrays.
+     */
+    public int getPooled() {
+        int ret = 0;
+
+        for (final @NotNull SizeClass sizeClass : classes)
+            ret += sizeClass.size();
+
+        return ret;
+    }
+
+    /**
+     * Enables or disables leak detection for blocks created after this call.
+     * @param leakDetection Whether to enable leak detection.
+     */
+    public void setLeakDetection(boolean leakDetection) {
+        this.leakDetection = leakDetection;
+    }
+
+    /**
+     * Gets whether leak detection is enabled.
+     * @return Whether leak detection is enabled.
+     */
+    public boolean isLeakDetection() {
+        return leakDetection;
+    }
+
+    /**
+     * Gets the number of leaked blocks detected so far.
+     * A block is detected as leaked once it has been garbage collected, so this may lag behind.
+     * @return The number of leaked blocks.
+     */
+    public long getLeaks() {
+        reportLeaks();
+        return leaks.get();
+    }
+
+    /**
+     * Starts tracking a block for leak detection.
+     *
+     * @param block The block.
+     * @return The tracker to pass to {@link #untrack(Object)} or {@code null} if leak detection is disabled.
+     */
+    @Nullable Object track(@NotNull PCMDataBlock block) {
+        final @NotNull Tracker tracker;
+
+        if (!leakDetection)
+            return null;
+
+        tracker = new Tracker(block, collected);
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * Stops tracking a block after it was released.
+     * @param tracker The tracker as returned by {@link #track(PCMDataBlock)}.
+     */
+    void untrack(@Nullable Object tracker) {
+        if (tracker instanceof Tracker) {
+            trackers.remove(tracker);
+            ((Tracker) tracker).clear();
+        }
+    }
+
+    private void reportLeaks() {
+        Tracker tracker;
+
+        while ((tracker = (Tracker) collected.poll()) != null) {
+            if (trackers.remove(tracker)) {
+                leaks.incrementAndGet();
+                LOGGER.log(Level.WARNING, "PCM block was garbage collected without being released", tracker.origin);
+            }
+        }
+    }
+}
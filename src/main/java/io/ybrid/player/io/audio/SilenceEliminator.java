@@ -77,13 +77,21 @@ public final class SilenceEliminator<T extends PCMDataSource> extends Skipper<T>
         if (!preSkipDone) {
             final short maxValue = silenceType.getMaxValue();
 
-            final short[] data = block.getData();
+            if (block instanceof FloatPCMDataBlock) {
+                examine((FloatPCMDataBlock) block, FloatPCMDataBlock.toFloat(maxValue));
+                return;
+            }
+
+            final short[] data = block.getBackingData();
+            final int offset = block.getDataOffset();
+            final int length = block.getDataLength();
             final int numberOfChannels = block.getNumberOfChannels();
 
-            for (int toSkip = 0; toSkip < data.length; toSkip += numberOfChannels) {
+            for (int toSkip = 0; toSkip < length; toSkip += numberOfChannels) {
                 boolean isSilence = true;
                 for (int i = 0; i < numberOfChannels; i++) {
-                    if (data[toSkip + i] < -maxValue || data[toSkip + i] > maxValue) {
+                    final short value = data[offset + toSkip + i];
+                    if (value < -maxValue || value > maxValue) {
                         isSilence = false;
                         break;
                     }
@@ -96,4 +104,20 @@ public final class SilenceEliminator<T extends PCMDataSource> extends Skipper<T>
             }
         }
     }
+
+    private void examine(@NotNull FloatPCMDataBlock block, float maxValue) {
+        final float[] data = block.getFloatData();
+        final int offset = block.getFloatOffset();
+        final int length = block.getDataLength();
+        final int numberOfChannels = block.getNumberOfChannels();
+
+        for (int toSkip = 0; toSkip < length; toSkip += numberOfChannels) {
+            for (int i = 0; i < numberOfChannels; i++) {
+                final float value = data[offset + toSkip + i];
+                if (value < -maxValue || value > maxValue)
+                    return;
+            }
+            preSkip++;
+        }
+    }
 }
@@ -86,6 +86,13 @@ public abstract class Skipper<T extends PCMDataSource> extends FilterPCMDataSour
 
     private void skipBlock(@NotNull PCMDataBlock block) {
         skipped += block.getLengthAsFrames();
+        block.release();
+    }
+
+    private static @NotNull PCMDataBlock subBlock(@NotNull PCMDataBlock block, int start, int end) {
+        final @NotNull PCMDataBlock ret = block.subBlock(start, end);
+        block.release();
+        return ret;
     }
 
     /**
@@ -107,7 +114,7 @@ public abstract class Skipper<T extends PCMDataSource> extends FilterPCMDataSour
                 return block;
             } else {
                 preSkipDone = true;
-                return block.subBlock(block.getLengthAsFrames() - (int)(read - preSkip), block.getLengthAsFrames());
+                return subBlock(block, block.getLengthAsFrames() - (int)(read - preSkip), block.getLengthAsFrames());
             }
         }
 
@@ -147,7 +154,7 @@ public abstract class Skipper<T extends PCMDataSource> extends FilterPCMDataSour
             throw new IOException("Invalid queue state.");
 
         left = (int)((read - postSkip) - (written + preSkip));
-        return block.subBlock(0, left);
+        return subBlock(block, 0, left);
     }
 
     @Override
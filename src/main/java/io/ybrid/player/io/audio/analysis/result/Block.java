@@ -22,6 +22,8 @@
 
 package io.ybrid.player.io.audio.analysis.result;
 
+import io.ybrid.player.io.audio.DirectPCMDataBlock;
+import io.ybrid.player.io.audio.FloatPCMDataBlock;
 import io.ybrid.player.io.audio.MultiChannelSignalInformation;
 import io.ybrid.player.io.audio.PCMDataBlock;
 import org.jetbrains.annotations.ApiStatus;
@@ -40,7 +42,15 @@ public class Block implements MultiChannelSignalInformation {
         this.channels = new Channel[block.getNumberOfChannels()];
 
         for (int channelIndex = 0; channelIndex < block.getNumberOfChannels(); channelIndex++) {
-            this.channels[channelIndex] = new Channel(block.getSampleRate(), block.getNumberOfChannels(), channelIndex, block.getData());
+            if (block instanceof FloatPCMDataBlock) {
+                final @NotNull FloatPCMDataBlock floatBlock = (FloatPCMDataBlock) block;
+                this.channels[channelIndex] = new Channel(block.getSampleRate(), block.getNumberOfChannels(), channelIndex, floatBlock.getFloatData(), floatBlock.getFloatOffset(), block.getDataLength());
+            } else if (block instanceof DirectPCMDataBlock) {
+                // The samples are read in place, so they are not copied to the heap.
+                this.channels[channelIndex] = new Channel(block.getSampleRate(), block.getNumberOfChannels(), channelIndex, ((DirectPCMDataBlock) block).getDirectData().asShortBuffer(), block.getDataLength());
+            } else {
+                this.channels[channelIndex] = new Channel(block.getSampleRate(), block.getNumberOfChannels(), channelIndex, block.getBackingData(), block.getDataOffset(), block.getDataLength());
+            }
         }
     }
 
@@ -22,10 +22,13 @@
 
 package io.ybrid.player.io.audio.analysis.result;
 
+import io.ybrid.player.io.audio.FloatPCMDataBlock;
 import io.ybrid.player.io.audio.analysis.Util;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Range;
 
+import java.nio.ShortBuffer;
 import java.util.Locale;
 
 @ApiStatus.Experimental
@@ -34,28 +37,30 @@ public class Channel implements Result {
     private final int frames;
     private final short min;
     private final short max;
+    private final double minAsDouble;
+    private final double maxAsDouble;
     private final double dc;
     private final double power;
 
-    Channel(int sampleRate, int channels, int channelIndex, short[] data) {
-        if ((data.length % channels) != 0)
+    Channel(int sampleRate, int channels, int channelIndex, short[] data, int offset, int length) {
+        if ((length % channels) != 0)
             throw new IllegalArgumentException();
 
         this.sampleRate = sampleRate;
-        this.frames = data.length / channels;
+        this.frames = length / channels;
 
-        if (data.length == 0) {
+        if (length == 0) {
             min = 0;
             max = 0;
             dc = 0.;
             power = 0.;
         } else {
-            short currentMin = data[channelIndex];
-            short currentMax = data[channelIndex];
+            short currentMin = data[offset + channelIndex];
+            short currentMax = data[offset + channelIndex];
             double currentDC = 0.;
             double currentPower = 0.;
 
-            for (int i = channelIndex; i < data.length; i += channels) {
+            for (int i = offset + channelIndex; i < offset + length; i += channels) {
                 final short value = data[i];
                 final double valueAsDouble = Util.shortToDouble(value);
 
@@ -74,6 +79,92 @@ public class Channel implements Result {
 
             power = Math.sqrt(currentPower / (double) frames);
         }
+
+        minAsDouble = Util.shortToDouble(min);
+        maxAsDouble = Util.shortToDouble(max);
+    }
+
+    Channel(int sampleRate, int channels, int channelIndex, @NotNull ShortBuffer data, int length) {
+        if ((length % channels) != 0)
+            throw new IllegalArgumentException();
+
+        this.sampleRate = sampleRate;
+        this.frames = length / channels;
+
+        if (length == 0) {
+            min = 0;
+            max = 0;
+            dc = 0.;
+            power = 0.;
+        } else {
+            short currentMin = data.get(channelIndex);
+            short currentMax = data.get(channelIndex);
+            double currentDC = 0.;
+            double currentPower = 0.;
+
+            for (int i = channelIndex; i < length; i += channels) {
+                final short value = data.get(i);
+                final double valueAsDouble = Util.shortToDouble(value);
+
+                if (value < currentMin)
+                    currentMin = value;
+                if (value > currentMax)
+                    currentMax = value;
+
+                currentDC += valueAsDouble;
+                currentPower += Math.pow(valueAsDouble, 2);
+            }
+
+            min = currentMin;
+            max = currentMax;
+            dc = currentDC / (double) frames;
+
+            power = Math.sqrt(currentPower / (double) frames);
+        }
+
+        minAsDouble = Util.shortToDouble(min);
+        maxAsDouble = Util.shortToDouble(max);
+    }
+
+    Channel(int sampleRate, int channels, int channelIndex, float[] data, int offset, int length) {
+        if ((length % channels) != 0)
+            throw new IllegalArgumentException();
+
+        this.sampleRate = sampleRate;
+        this.frames = length / channels;
+
+        if (length == 0) {
+            minAsDouble = 0.;
+            maxAsDouble = 0.;
+            dc = 0.;
+            power = 0.;
+        } else {
+            float currentMin = data[offset + channelIndex];
+            float currentMax = data[offset + channelIndex];
+            double currentDC = 0.;
+            double currentPower = 0.;
+
+            for (int i = offset + channelIndex; i < offset + length; i += channels) {
+                final float value = data[i];
+
+                if (value < currentMin)
+                    currentMin = value;
+                if (value > currentMax)
+                    currentMax = value;
+
+                currentDC += value;
+                currentPower += (double) value * value;
+            }
+
+            minAsDouble = currentMin;
+            maxAsDouble = currentMax;
+            dc = currentDC / (double) frames;
+
+            power = Math.sqrt(currentPower / (double) frames);
+        }
+
+        min = FloatPCMDataBlock.toShort((float) minAsDouble);
+        max = FloatPCMDataBlock.toShort((float) maxAsDouble);
     }
 
     @Override
@@ -96,6 +187,28 @@ public class Channel implements Result {
         return max;
     }
 
+    /**
+     * Gets the minimum value in the signal as a {@code double}.
+     * For signals analysed from {@code float} samples this value is not clipped.
+     *
+     * @return The minimum value or 0 if there are no samples.
+     */
+    @Override
+    public double getMinAsDouble() {
+        return minAsDouble;
+    }
+
+    /**
+     * Gets the maximum value in the signal as a {@code double}.
+     * For signals analysed from {@code float} samples this value is not clipped.
+     *
+     * @return The maximum value or 0 if there are no samples.
+     */
+    @Override
+    public double getMaxAsDouble() {
+        return maxAsDouble;
+    }
+
     @Override
     public double getDCDouble() {
         return dc;
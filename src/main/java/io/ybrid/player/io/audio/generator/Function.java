@@ -25,6 +25,8 @@ package io.ybrid.player.io.audio.generator;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Arrays;
+
 @ApiStatus.Experimental
 public abstract class Function {
     public interface State {
@@ -32,7 +34,15 @@ public abstract class Function {
 
     abstract @NotNull State createState();
 
-    abstract short[] generate(@NotNull State state, int sampleRate, int channels, int frames);
+    abstract void generate(@NotNull State state, int sampleRate, int channels, short[] buffer, int offset, int frames);
+
+    short[] generate(@NotNull State state, int sampleRate, int channels, int frames) {
+        final short[] out = new short[channels*frames];
+
+        generate(state, sampleRate, channels, out, 0, frames);
+
+        return out;
+    }
 
     static public @NotNull Function createSilence() {
         return new Function() {
@@ -43,8 +53,8 @@ public abstract class Function {
             }
 
             @Override
-            short[] generate(@NotNull State state, int sampleRate, int channels, int frames) {
-                return new short[channels*frames];
+            void generate(@NotNull State state, int sampleRate, int channels, short[] buffer, int offset, int frames) {
+                Arrays.fill(buffer, offset, offset + channels*frames, (short) 0);
             }
         };
     }
@@ -72,18 +82,14 @@ public abstract class Function {
             }
 
             @Override
-            short[] generate(@NotNull State state, int sampleRate, int channels, int frames) {
-                short[] out = new short[channels*frames];
-
+            void generate(@NotNull State state, int sampleRate, int channels, short[] buffer, int offset, int frames) {
                 for (int i = 0; i < frames; i++) {
                     short value = (short)(Short.MAX_VALUE * amplitude * Math.cos(((CosState)state).getPhaseAndAdvance(sampleRate)));
 
                     for (int c = 0; c < channels; c++) {
-                        out[i * channels + c] = value;
+                        buffer[offset + i * channels + c] = value;
                     }
                 }
-
-                return out;
             }
         };
     }
@@ -28,6 +28,7 @@ import io.ybrid.api.metadata.source.Source;
 import io.ybrid.api.metadata.source.SourceType;
 import io.ybrid.player.io.audio.PCMDataBlock;
 import io.ybrid.player.io.audio.PCMDataSource;
+import io.ybrid.player.io.audio.PCMReadResult;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -74,6 +75,31 @@ public class Generator implements PCMDataSource {
         }
     }
 
+    /**
+     * Generates frames directly into the buffer provided by the caller.
+     * If the number of blocks is limited the frames are generated as blocks, so the limit is applied exactly.
+     */
+    @Override
+    public int read(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) throws IOException {
+        final int count;
+
+        if (blocksLeft != null)
+            return PCMDataSource.super.read(buffer, offset, frames, result);
+
+        if (!valid)
+            throw new EOFException();
+
+        result.begin(buffer, offset, frames);
+        if (!result.consumePending())
+            return result.getLengthAsFrames();
+
+        count = result.prepare(sync, playoutInfo, sampleRate, channels);
+        function.generate(state, sampleRate, channels, buffer, offset + result.getLengthAsFrames() * channels, count);
+        result.commit(count);
+
+        return result.getLengthAsFrames();
+    }
+
     @Override
     public void close() {
         valid = false;
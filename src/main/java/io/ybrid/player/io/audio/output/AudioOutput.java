@@ -36,8 +36,11 @@ import java.io.IOException;
  * After {@link #prepare(PCMDataBlock)} {@link #play()} is called to set the backend into playback mode.
  * {@link #write(PCMDataBlock)} is called for each audio data block including the block passed to {@link #prepare(PCMDataBlock)}
  * if that block is to be played.
+ * Outputs that know the position of the device call {@link PCMDataBlock#audible()} when a block is actually played
+ * and report it using {@link #getFramePosition()}, see also {@link FrameClock}.
  * The interface user will call {@link #close()} when done.
- *
+ * <P>
+ * Outputs that can pull audio at the pace of the device implement {@link PullAudioOutput}.
  */
 public interface AudioOutput extends Closeable {
     /**
@@ -50,18 +53,65 @@ public interface AudioOutput extends Closeable {
 
     /**
      * Start playback mode of the backend.
+     * This is also called to resume playback after {@link #pause()}.
      */
     void play();
 
+    /**
+     * Pauses playback keeping the device open.
+     * <P>
+     * Audio already written is kept and played once {@link #play()} is called again.
+     * The default implementation does nothing, so audio already written is played out.
+     */
+    default void pause() {
+    }
+
     /**
      * Writes an actual block of PCM data to the output buffer of the interface.
      *
      * This call blocks on average for the time represented by the block.
      * Also, this call is responsible to call {@link PCMDataBlock#audible()} on {@code block}
      * when the block is audible.
+     * The samples of the block may only be accessed until this call returns unless the output takes
+     * a reference of its own using {@link PCMDataBlock#retain()}.
      *
      * @param block The block to write to the backend.
      * @throws IOException Thrown on backend related I/O-Error.
      */
     void write(@NotNull PCMDataBlock block) throws IOException;
+
+    /**
+     * Sets the preferred length of the buffer of the output device.
+     * <P>
+     * A shorter buffer lowers the output latency but requires the caller to keep up more precisely.
+     * This must be called before {@link #prepare(PCMDataBlock)}. Implementations are free to ignore this.
+     * The default implementation does nothing.
+     *
+     * @param bufferLength The length in [s].
+     */
+    default void setBufferLength(double bufferLength) {
+    }
+
+    /**
+     * Gets the number of frames played by the device so far.
+     * <P>
+     * The position is counted in frames of the respective audio format, continues across format changes,
+     * and never decreases. Implementations should make this cheap enough to be called for every block.
+     * The default implementation returns {@code -1}.
+     *
+     * @return The position in [frame] or {@code -1} if not supported.
+     */
+    default long getFramePosition() {
+        return -1;
+    }
+
+    /**
+     * Gets the time it takes for a frame written now to be played.
+     * The default implementation returns {@link Double#NaN}.
+     *
+     * @return The latency in [s] or {@link Double#NaN} if not known.
+     */
+    default double getLatency() {
+        return Double.NaN;
+    }
 }
@@ -23,14 +23,33 @@
 package io.ybrid.player.io.audio.output;
 
 import io.ybrid.player.io.audio.output.implementation.DefaultFactory;
+import io.ybrid.player.io.audio.output.implementation.HeadlessFactory;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
 
 /**
  * This interface is implemented by factory classes that allow to build a {@link AudioOutput}.
  */
 public interface AudioOutputFactory {
+    /**
+     * The formats supported by {@link #getFileFactory(Path, FileFormat, SinkStatistics)}.
+     */
+    @ApiStatus.Experimental
+    enum FileFormat {
+        /**
+         * A WAV file with 16 bit PCM. The format of the audio must not change.
+         */
+        WAV,
+        /**
+         * Raw 16 bit signed little endian PCM with interleaved channels and no header.
+         */
+        RAW;
+    }
+
     /**
      * Build a new {@link AudioOutput}.
      *
@@ -48,4 +67,36 @@ public interface AudioOutputFactory {
     static @NotNull AudioOutputFactory getDefaultFactory() {
         return DefaultFactory.INSTANCE;
     }
+
+    /**
+     * Gets a factory for outputs that discard all audio.
+     * <P>
+     * This allows running the player without sound hardware, for example for testing.
+     * If not paced at realtime the outputs consume audio as fast as it is passed,
+     * so the player runs as fast as it can receive and decode the stream.
+     *
+     * @param realtime Whether the outputs consume audio at the pace of a real device.
+     * @param statistics The statistics to update for all outputs or {@code null}.
+     * @return The factory.
+     */
+    @Contract(pure = true)
+    @ApiStatus.Experimental
+    static @NotNull AudioOutputFactory getNullFactory(boolean realtime, @Nullable SinkStatistics statistics) {
+        return HeadlessFactory.getNullFactory(realtime, statistics);
+    }
+
+    /**
+     * Gets a factory for outputs that write the audio to a file.
+     * The outputs consume audio as fast as it is passed. Each output created replaces the file.
+     *
+     * @param path The file to write to.
+     * @param format The format of the file.
+     * @param statistics The statistics to update for all outputs or {@code null}.
+     * @return The factory.
+     */
+    @Contract(pure = true)
+    @ApiStatus.Experimental
+    static @NotNull AudioOutputFactory getFileFactory(@NotNull Path path, @NotNull FileFormat format, @Nullable SinkStatistics statistics) {
+        return HeadlessFactory.getFileFactory(path, format, statistics);
+    }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This tracks the playback position of an audio output based on the frames written to the device
+ * and the frames the device reports as played.
+ * <P>
+ * Blocks are scheduled with the frame they start at. {@link PCMDataBlock#audible()} is called for a block
+ * as soon as the device played its first frame, not when it was written to the device.
+ * The same applies to the parts of a block, which are reported once the device played the frame they start at.
+ * <P>
+ * Positions are counted in frames of the respective audio format and continue across reconfiguration
+ * of the device. The position never decreases.
+ * This class is thread safe. Updating the position only collects the blocks that became audible.
+ * Their callbacks are run by {@link #runAudible()} without holding any lock. Outputs call it from the thread
+ * writing to the device, so callbacks never run on threads that merely query the position.
+ */
+@ApiStatus.Experimental
+public final class FrameClock {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /* Ring of scheduled blocks that are not yet audible, ordered by start frame. */
+    private @Nullable PCMDataBlock[] blocks = new PCMDataBlock[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private int head = 0;
+    private int size = 0;
+    /* Number of blocks at the head of the ring that are audible but not yet reported. */
+    private int due = 0;
+    private long framesWritten = 0;
+    /* Frames written before the device was last reconfigured. */
+    private long base = 0;
+    private long position = 0;
+
+    /**
+     * Schedules a block to be reported audible once the given frame has been played.
+     * The parts of the block are scheduled at their respective offsets, see {@link PCMDataBlock#addPart(int, PCMDataBlock)}.
+     *
+     * @param block The block.
+     * @param start The frame the block starts at. This must not be before the start of any block scheduled before.
+     */
+    public synchronized void schedule(@NotNull PCMDataBlock block, long start) {
+        add(block, start);
+        for (int i = 0; i < block.getNumberOfParts(); i++)
+            schedule(block.getPart(i), start + block.getPartOffset(i));
+    }
+
+    private void add(@NotNull PCMDataBlock block, long start) {
+        if (size == blocks.length) {
+            final @NotNull PCMDataBlock[] newBlocks = new PCMDataBlock[size * 2];
+            final @NotNull long[] newStarts = new long[size * 2];
+
+            for (int i = 0; i < size; i++) {
+                newBlocks[i] = blocks[(head + i) % blocks.length];
+                newStarts[i] = starts[(head + i) % blocks.length];
+            }
+            blocks = newBlocks;
+            starts = newStarts;
+            head = 0;
+        }
+
+        blocks[(head + size) % blocks.length] = block;
+        starts[(head + size) % blocks.length] = start;
+        size++;
+    }
+
+    /**
+     * Schedules a block to start with the next frame written.
+     * @param block The block.
+     */
+    public synchronized void schedule(@NotNull PCMDataBlock block) {
+        schedule(block, framesWritten);
+    }
+
+    /**
+     * Accounts frames written to the device.
+     * @param frames The number of frames in [frame].
+     */
+    public synchronized void written(int frames) {
+        framesWritten += frames;
+    }
+
+    /**
+     * Updates the position from the one reported by the device.
+     * <P>
+     * If the device can not report a position all frames written are assumed to be played.
+     * Blocks that became audible are reported by the next call to {@link #runAudible()}.
+     *
+     * @param devicePosition The frames played since the device was last configured or {@code -1} if unknown.
+     */
+    public synchronized void update(long devicePosition) {
+        final long reported = devicePosition < 0 ? framesWritten : Math.min(framesWritten, base + devicePosition);
+
+        if (reported > position)
+            position = reported;
+
+        while (due < size && starts[(head + due) % blocks.length] < position)
+            due++;
+    }
+
+    private synchronized @Nullable PCMDataBlock pollAudible() {
+        final @Nullable PCMDataBlock block;
+
+        if (due == 0)
+            return null;
+
+        block = blocks[head];
+        blocks[head] = null;
+        head = (head + 1) % blocks.length;
+        size--;
+        due--;
+        return block;
+    }
+
+    /**
+     * Calls {@link PCMDataBlock#audible(boolean)} for all blocks that became audible as of the last update.
+     * <P>
+     * The callbacks are run by the calling thread without holding the lock of this clock.
+     * This must not be called while holding any lock the callbacks may need.
+     */
+    public void runAudible() {
+        for (@Nullable PCMDataBlock block = pollAudible(); block != null; block = pollAudible())
+            block.audible(false);
+    }
+
+    /**
+     * Signals that the device was reconfigured after all frames written have been played or discarded.
+     * The device position is expected to start at zero again.
+     */
+    public synchronized void rebase() {
+        base = framesWritten;
+        update(0);
+    }
+
+    /**
+     * Gets the total number of frames written.
+     * @return The number of frames in [frame].
+     */
+    public synchronized long getFramesWritten() {
+        return framesWritten;
+    }
+
+    /**
+     * Gets the number of frames played. This is as of the last update.
+     * @return The position in [frame].
+     */
+    public synchronized long getFramePosition() {
+        return position;
+    }
+
+    /**
+     * Gets the number of frames written but not yet played. This is as of the last update.
+     * @return The number of frames in [frame].
+     */
+    public synchronized long getFramesPending() {
+        return framesWritten - position;
+    }
+
+    @Override
+    public synchronized @NotNull String toString() {
+        //noinspection HardCodedStringLiteral
+        return "FrameClock{" +
+                "framesWritten=" + framesWritten +
+                ", position=" + position +
+                ", scheduled=" + size +
+                "}";
+    }
+}
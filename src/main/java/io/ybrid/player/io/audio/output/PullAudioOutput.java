@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio.output;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+
+/**
+ * This interface is implemented by {@link AudioOutput}s that can pull audio at the pace of the device.
+ * <P>
+ * Instead of calling {@link #write(io.ybrid.player.io.audio.PCMDataBlock)} the user passes a {@link RenderQueue}
+ * to {@link #start(RenderQueue)} after {@link #prepare(io.ybrid.player.io.audio.PCMDataBlock)}.
+ * The output then renders periods from the queue on its own thread and plays silence if the queue runs empty.
+ * The user keeps the queue filled from another thread. Changes of the audio format are handled by the output.
+ * <P>
+ * {@link #close()} stops rendering.
+ */
+@ApiStatus.Experimental
+public interface PullAudioOutput extends AudioOutput {
+    /**
+     * Starts playback pulling audio from the given queue.
+     * This replaces {@link #play()}.
+     *
+     * @param queue The queue to render from.
+     * @throws IOException Thrown on backend related I/O-Error.
+     */
+    void start(@NotNull RenderQueue queue) throws IOException;
+
+    /**
+     * Gets the number of periods rendered while the queue did not provide enough audio.
+     * @return The number of underruns.
+     */
+    long getUnderruns();
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio.output;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.PCMDataSource;
+import io.ybrid.player.io.audio.PCMReadResult;
+import io.ybrid.player.util.SPSCChannel;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This is a small staging area between a thread feeding blocks of PCM data and the render thread of a
+ * {@link PullAudioOutput}.
+ * <P>
+ * The feeder adds whole blocks using {@link #put(PCMDataBlock)}. The render thread reads any number of frames
+ * into its own buffer using {@link #poll(short[], int, int, PCMReadResult)}, independent of the block boundaries.
+ * Neither side takes a lock. Only the feeder may block, and only if the queue is full.
+ * <P>
+ * Exactly one thread may feed and exactly one thread may render at any time.
+ * <P>
+ * The queue takes a reference to each block added, which is released once its last frame has been rendered,
+ * see {@link PCMDataBlock#retain()}.
+ */
+@ApiStatus.Experimental
+public final class RenderQueue {
+    /**
+     * The default number of blocks staged.
+     */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final @NotNull SPSCChannel<PCMDataBlock> channel;
+
+    /**
+     * Creates a new queue.
+     * @param capacity The number of blocks to stage.
+     */
+    public RenderQueue(int capacity) {
+        channel = new SPSCChannel<>(capacity);
+    }
+
+    /**
+     * Creates a new queue with {@link #DEFAULT_CAPACITY}.
+     */
+    public RenderQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /* --------[ Feeder ]-------- */
+
+    /**
+     * Adds a block, waiting for space if needed.
+     * @param block The block to add.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    public void put(@NotNull PCMDataBlock block) throws InterruptedException {
+        block.retain();
+        try {
+            channel.put(block);
+        } catch (InterruptedException e) {
+            block.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a block if there is space left. This never blocks.
+     * @param block The block to add.
+     * @return Whether the block was added.
+     */
+    public boolean offer(@NotNull PCMDataBlock block) {
+        block.retain();
+        if (channel.offer(block))
+            return true;
+        block.release();
+        return false;
+    }
+
+    /**
+     * Signals that no more blocks will be added.
+     */
+    public void close() {
+        channel.close();
+    }
+
+    /* --------[ Render thread ]-------- */
+
+    /**
+     * Reads frames into the given buffer. This never blocks.
+     * <P>
+     * This works like {@link PCMDataSource#read(short[], int, int, PCMReadResult)} but returns zero if the queue is
+     * empty. A read stops early at any change of the format or the metadata, so the caller can reconfigure
+     * the device before writing the frames. The blocks started by the read are listed by the result.
+     * The caller reports them as audible, for example by scheduling them with the {@link FrameClock} of the output
+     * at their offsets.
+     *
+     * @param buffer The buffer to read into as interleaved samples.
+     * @param offset The offset in {@code buffer} in [sample].
+     * @param frames The maximum number of frames to read in [frame].
+     * @param result The result to update. The same result must be passed to all calls.
+     * @return The number of frames read in [frame].
+     */
+    public int poll(short[] buffer, int offset, int frames, @NotNull PCMReadResult result) {
+        result.begin(buffer, offset, frames);
+
+        if (result.consumePending()) {
+            for (@Nullable PCMDataBlock block = channel.poll(); block != null; block = channel.poll()) {
+                if (!result.consume(block))
+                    break;
+            }
+        }
+
+        return result.getLengthAsFrames();
+    }
+
+    /**
+     * Releases all blocks still staged. This must only be called once the render thread has stopped.
+     */
+    public void clear() {
+        for (@Nullable PCMDataBlock block = channel.poll(); block != null; block = channel.poll())
+            block.release();
+    }
+
+    /* --------[ Any thread ]-------- */
+
+    /**
+     * Gets whether the feeder closed the queue and all blocks have been taken by the render thread.
+     * Frames of the last block may still be kept by the render thread's {@link PCMReadResult}.
+     * @return Whether the queue is drained.
+     */
+    public boolean isDrained() {
+        return channel.isClosed() && channel.isEmpty();
+    }
+
+    /**
+     * Gets the number of blocks currently staged. This does not include a partly rendered block.
+     * @return The number of blocks.
+     */
+    public int size() {
+        return channel.size();
+    }
+
+    /**
+     * Gets the maximum number of blocks staged.
+     * @return The capacity.
+     */
+    public int capacity() {
+        return channel.capacity();
+    }
+}
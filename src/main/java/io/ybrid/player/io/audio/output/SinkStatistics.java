@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This collects statistics about the audio consumed by headless outputs such as those returned by
+ * {@link AudioOutputFactory#getNullFactory(boolean, SinkStatistics)}.
+ * <P>
+ * The main use is to measure the throughput of the pipeline when it runs faster than realtime.
+ * One instance can be shared by all outputs of a factory. This class is thread safe.
+ */
+@ApiStatus.Experimental
+public final class SinkStatistics {
+    private long frames = 0;
+    private double length = 0;
+    private long blocks = 0;
+    private long firstWrite = 0;
+    private long lastWrite = 0;
+
+    /**
+     * Accounts audio consumed by an output.
+     *
+     * @param frames The number of frames in [frame].
+     * @param sampleRate The sample rate of the audio in [Hz].
+     */
+    @ApiStatus.Internal
+    public synchronized void add(int frames, int sampleRate) {
+        final long now = System.nanoTime();
+
+        if (blocks == 0)
+            firstWrite = now;
+        lastWrite = now;
+        blocks++;
+        this.frames += frames;
+        length += (double) frames / sampleRate;
+    }
+
+    /**
+     * Gets the number of blocks consumed.
+     * @return The number of blocks.
+     */
+    public synchronized long getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * Gets the number of frames consumed regardless of the sample rate.
+     * @return The number of frames in [frame].
+     */
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Gets the length of the audio consumed.
+     * @return The length in [s].
+     */
+    public synchronized double getLength() {
+        return length;
+    }
+
+    /**
+     * Gets the time between the first and the last block consumed.
+     * @return The time in [s].
+     */
+    public synchronized double getElapsed() {
+        return (double) (lastWrite - firstWrite) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the number of seconds of audio consumed per second of wall time.
+     * A value of 1 means realtime.
+     *
+     * @return The factor or {@link Double#NaN} if not enough blocks have been consumed yet.
+     */
+    public synchronized double getRealtimeFactor() {
+        final double elapsed = getElapsed();
+
+        if (blocks < 2 || elapsed <= 0)
+            return Double.NaN;
+
+        return length / elapsed;
+    }
+
+    @Override
+    public synchronized @NotNull String toString() {
+        //noinspection HardCodedStringLiteral
+        return "SinkStatistics{" +
+                "blocks=" + blocks +
+                ", frames=" + frames +
+                ", length=" + length +
+                ", elapsed=" + getElapsed() +
+                "}";
+    }
+}
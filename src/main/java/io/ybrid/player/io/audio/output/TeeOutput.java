@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.util.SPSCChannel;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * This implements an {@link AudioOutput} that passes all audio to a primary output and any number of branches.
+ * <P>
+ * The primary output is used as if it was used directly. It alone reports blocks as audible and provides the position.
+ * Each branch is another {@link AudioOutput}, for example one writing to a file, that is fed by its own thread
+ * from a bounded queue. If a branch can not keep up blocks are dropped for that branch,
+ * so a slow branch never stalls the primary output. The blocks passed to branches are views sharing the audio data
+ * with the original blocks but have no audible callbacks. They are released once the branch has written them.
+ * <P>
+ * To use this with a player create the instance in an {@link AudioOutputFactory}:
+ * <pre>{@code
+ * factory = () -> {
+ *     final TeeOutput tee = new TeeOutput(AudioOutputFactory.getDefaultFactory().getAudioOutput());
+ *     recorder = tee.addBranch(AudioOutputFactory.getFileFactory(path, FileFormat.WAV, null).getAudioOutput(), 256);
+ *     return tee;
+ * };
+ * }</pre>
+ * Branches must be added before {@link #prepare(PCMDataBlock)}.
+ */
+@ApiStatus.Experimental
+public final class TeeOutput implements AudioOutput {
+    static final @NonNls Logger LOGGER = Logger.getLogger(TeeOutput.class.getName());
+
+    private static final @NonNls String BRANCH_THREAD_NAME = "TeeOutput Branch Thread";
+    private static final long BRANCH_DRAIN_TIMEOUT = 5000; // [ms]
+
+    /**
+     * This is a branch of a {@link TeeOutput}. It provides statistics about the audio passed to the branch.
+     */
+    public static final class Branch {
+        private final @NotNull AudioOutput output;
+        private final @NotNull SPSCChannel<PCMDataBlock> queue;
+        private final @NotNull Thread thread;
+        private final @NotNull AtomicLong queued = new AtomicLong(); // [ns] of audio
+        private volatile long written = 0;
+        private volatile long dropped = 0;
+        private volatile @Nullable IOException exception = null;
+
+        private Branch(@NotNull AudioOutput output, int capacity) {
+            this.output = output;
+            this.queue = new SPSCChannel<>(capacity);
+            this.thread = new Thread(this::run, BRANCH_THREAD_NAME);
+            this.thread.setDaemon(true);
+        }
+
+        private static long getLength(@NotNull PCMDataBlock block) {
+            return TimeUnit.SECONDS.toNanos(block.getLengthAsFrames()) / block.getSampleRate();
+        }
+
+        /* Called by the thread writing to the TeeOutput. */
+        private void offer(@NotNull PCMDataBlock block) {
+            final @NotNull PCMDataBlock copy;
+
+            if (exception != null || queue.isClosed()) {
+                //noinspection NonAtomicOperationOnVolatileField
+                dropped++;
+                return;
+            }
+
+            copy = block.subBlock(0, block.getLengthAsFrames());
+            queued.addAndGet(getLength(copy));
+            if (!queue.offer(copy)) {
+                queued.addAndGet(-getLength(copy));
+                copy.release();
+                //noinspection NonAtomicOperationOnVolatileField
+                dropped++;
+            }
+        }
+
+        private void run() {
+            boolean prepared = false;
+
+            try {
+                for (PCMDataBlock block = queue.take(); block != null; block = queue.take()) {
+                    queued.addAndGet(-getLength(block));
+                    try {
+                        if (!prepared) {
+                            output.prepare(block);
+                            output.play();
+                            prepared = true;
+                        }
+                        output.write(block);
+                    } finally {
+                        block.release();
+                    }
+                    //noinspection NonAtomicOperationOnVolatileField
+                    written++;
+                }
+            } catch (InterruptedException ignored) {
+            } catch (IOException e) {
+                LOGGER.warning("Branch " + output + " failed: " + e);
+                exception = e;
+            }
+
+            for (PCMDataBlock block = queue.poll(); block != null; block = queue.poll())
+                block.release();
+            queued.set(0);
+            try {
+                output.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        /**
+         * Gets the output of this branch.
+         * @return The output.
+         */
+        public @NotNull AudioOutput getOutput() {
+            return output;
+        }
+
+        /**
+         * Gets the number of blocks written to the output of this branch.
+         * @return The number of blocks.
+         */
+        public long getWritten() {
+            return written;
+        }
+
+        /**
+         * Gets the number of blocks not passed to this branch because its queue was full or the branch failed.
+         * @return The number of blocks.
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * Gets how far this branch lags behind the primary output, that is the length of the audio in its queue.
+         * @return The lag in [s].
+         */
+        public double getLag() {
+            return (double) queued.get() / TimeUnit.SECONDS.toNanos(1);
+        }
+
+        /**
+         * Gets the exception the output of this branch failed with.
+         * A failed branch drops all further blocks.
+         *
+         * @return The exception or {@code null} if the branch did not fail.
+         */
+        public @Nullable IOException getException() {
+            return exception;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            //noinspection HardCodedStringLiteral
+            return "Branch{" +
+                    "output=" + output +
+                    ", written=" + written +
+                    ", dropped=" + dropped +
+                    ", lag=" + getLag() +
+                    "}";
+        }
+    }
+
+    private final @NotNull AudioOutput primary;
+    private final @NotNull List<@NotNull Branch> branches = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a new instance.
+     * @param primary The primary output.
+     */
+    public TeeOutput(@NotNull AudioOutput primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * Adds a branch.
+     *
+     * @param output The output of the branch. It is closed when this output is closed.
+     * @param capacity The number of blocks the queue of the branch can hold.
+     * @return The new branch.
+     */
+    public @NotNull Branch addBranch(@NotNull AudioOutput output, int capacity) {
+        final @NotNull Branch branch = new Branch(output, capacity);
+
+        branches.add(branch);
+        branch.thread.start();
+        return branch;
+    }
+
+    /**
+     * Gets the branches of this output.
+     * @return The branches.
+     */
+    public @NotNull List<@NotNull Branch> getBranches() {
+        return branches;
+    }
+
+    @Override
+    public void prepare(@NotNull PCMDataBlock block) throws IOException {
+        primary.prepare(block);
+    }
+
+    @Override
+    public void play() {
+        primary.play();
+    }
+
+    @Override
+    public void pause() {
+        primary.pause();
+    }
+
+    @Override
+    public void write(@NotNull PCMDataBlock block) throws IOException {
+        for (final @NotNull Branch branch : branches)
+            branch.offer(block);
+        primary.write(block);
+    }
+
+    @Override
+    public void setBufferLength(double bufferLength) {
+        primary.setBufferLength(bufferLength);
+    }
+
+    @Override
+    public long getFramePosition() {
+        return primary.getFramePosition();
+    }
+
+    @Override
+    public double getLatency() {
+        return primary.getLatency();
+    }
+
+    /**
+     * Closes the primary output and all branches.
+     * The branches are given some time to write the blocks still queued.
+     *
+     * @throws IOException Thrown by the primary output.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            primary.close();
+        } finally {
+            for (final @NotNull Branch branch : branches)
+                branch.queue.close();
+
+            for (final @NotNull Branch branch : branches) {
+                try {
+                    branch.thread.join(BRANCH_DRAIN_TIMEOUT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                branch.thread.interrupt();
+            }
+        }
+    }
+}
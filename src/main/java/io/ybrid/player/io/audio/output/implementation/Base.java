@@ -24,6 +24,7 @@ package io.ybrid.player.io.audio.output.implementation;
 
 import io.ybrid.player.io.audio.PCMDataBlock;
 import io.ybrid.player.io.audio.output.AudioOutput;
+import io.ybrid.player.io.audio.output.FrameClock;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
@@ -39,9 +40,20 @@ abstract class Base implements AudioOutput {
     protected abstract void deConfigureBackend() throws IOException;
     protected abstract void writeToBackend(@NotNull PCMDataBlock block) throws IOException;
 
+    /**
+     * Gets the number of frames played since the backend was last configured.
+     * The default implementation returns {@code -1}, so all frames written are assumed to be played.
+     * @return The number of frames or {@code -1} if not known.
+     */
+    protected long getBackendFramePosition() {
+        return -1;
+    }
+
     @Contract(pure = true)
     protected abstract boolean available() throws Throwable;
 
+    /* Backends account the frames they write, blocks are scheduled by this class. */
+    protected final @NotNull FrameClock clock = new FrameClock();
     private boolean opened = false;
     private @Nullable PCMDataBlock config = null;
 
@@ -55,6 +67,7 @@ abstract class Base implements AudioOutput {
             if (block.getSampleRate() != config.getSampleRate() ||
                     block.getNumberOfChannels() != config.getNumberOfChannels()) {
                 deConfigureBackend();
+                clock.rebase();
                 config = null;
             }
         }
@@ -64,23 +77,71 @@ abstract class Base implements AudioOutput {
         config = block;
     }
 
+    /**
+     * Re-configures the backend with the current configuration.
+     * This is used if the backend's settings need to be changed.
+     * @throws IOException Thrown on backend related I/O-Error.
+     */
+    protected synchronized void reconfigure() throws IOException {
+        if (config == null)
+            return;
+
+        deConfigureBackend();
+        clock.rebase();
+        configureBackend(config);
+    }
+
+    /**
+     * Updates the clock from the position reported by the backend and reports the blocks that became audible.
+     * This must be called by the thread writing to the backend after writing to it, without holding any lock.
+     * Queries such as {@link #getFramePosition()} only update the clock, so callbacks are never run by them.
+     */
+    protected void updateClock() {
+        synchronized (this) {
+            clock.update(getBackendFramePosition());
+        }
+        clock.runAudible();
+    }
+
     @Override
     public void play() {}
 
     @Override
     public void write(@NotNull PCMDataBlock block) throws IOException {
         prepare(block);
+        clock.schedule(block);
         writeToBackend(block);
+        updateClock();
     }
 
     @Override
-    public synchronized void close() throws IOException {
-        if (config != null)
-            deConfigureBackend();
-        config = null;
-
-        if (opened)
-            closeBackend();
-        opened = false;
+    public synchronized long getFramePosition() {
+        clock.update(getBackendFramePosition());
+        return clock.getFramePosition();
+    }
+
+    @Override
+    public synchronized double getLatency() {
+        if (config == null)
+            return Double.NaN;
+
+        clock.update(getBackendFramePosition());
+        return (double) clock.getFramesPending() / config.getSampleRate();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (config != null) {
+                deConfigureBackend();
+                clock.rebase();
+            }
+            config = null;
+
+            if (opened)
+                closeBackend();
+            opened = false;
+        }
+        clock.runAudible();
     }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import io.ybrid.player.io.audio.output.SinkStatistics;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * This output writes the audio to a file as 16 bit signed little endian PCM, either with a WAV header or raw.
+ * <P>
+ * The audio is collected in a large buffer and written using a {@link FileChannel}, so only few system calls are made.
+ * The file is written as fast as the audio is passed. A WAV file can not change its format,
+ * so a format change results in an {@link IOException}. Raw files just continue in the new format.
+ */
+@ApiStatus.Internal
+class FileOutput extends Base {
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024; // [byte]
+    private static final int WAV_HEADER_SIZE = 44; // [byte]
+    private static final int WAV_FORMAT_PCM = 1;
+    private static final int WAV_FMT_CHUNK_SIZE = 16; // [byte]
+
+    private final @NotNull Path path;
+    private final @NotNull AudioOutputFactory.FileFormat format;
+    private final @Nullable SinkStatistics statistics;
+    private final @NotNull ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private @Nullable FileChannel channel = null;
+    private int sampleRate = 0;
+    private int channels = 0;
+    private long dataLength = 0; // [byte]
+
+    FileOutput(@NotNull Path path, @NotNull AudioOutputFactory.FileFormat format, @Nullable SinkStatistics statistics) {
+        this.path = path;
+        this.format = format;
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected void openBackend() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (format == AudioOutputFactory.FileFormat.WAV)
+            channel.position(WAV_HEADER_SIZE);
+        dataLength = 0;
+        sampleRate = 0;
+        channels = 0;
+    }
+
+    @Override
+    protected void closeBackend() throws IOException {
+        final @NotNull FileChannel channel = Objects.requireNonNull(this.channel);
+
+        try {
+            flush();
+            if (format == AudioOutputFactory.FileFormat.WAV && sampleRate != 0)
+                writeWAVHeader(channel);
+        } finally {
+            this.channel = null;
+            channel.close();
+        }
+    }
+
+    @Override
+    protected void configureBackend(@NotNull PCMDataBlock block) throws IOException {
+        if (format == AudioOutputFactory.FileFormat.WAV && sampleRate != 0 &&
+                (block.getSampleRate() != sampleRate || block.getNumberOfChannels() != channels))
+            throw new IOException("WAV files can not change format: " + sampleRate + "Hz, " + channels +
+                    " channels -> " + block.getSampleRate() + "Hz, " + block.getNumberOfChannels() + " channels");
+
+        sampleRate = block.getSampleRate();
+        channels = block.getNumberOfChannels();
+    }
+
+    @Override
+    protected void deConfigureBackend() throws IOException {
+        flush();
+    }
+
+    @Override
+    protected void writeToBackend(@NotNull PCMDataBlock block) throws IOException {
+        final short[] data = block.getBackingData();
+        final int end = block.getDataOffset() + block.getDataLength();
+        int offset = block.getDataOffset();
+
+        while (offset < end) {
+            final int length;
+
+            if (buffer.remaining() < Short.BYTES)
+                flush();
+
+            length = Math.min(buffer.remaining() / Short.BYTES, end - offset);
+            buffer.asShortBuffer().put(data, offset, length);
+            buffer.position(buffer.position() + length * Short.BYTES);
+            offset += length;
+        }
+
+        dataLength += (long) block.getDataLength() * Short.BYTES;
+        clock.written(block.getLengthAsFrames());
+        if (statistics != null)
+            statistics.add(block.getLengthAsFrames(), block.getSampleRate());
+    }
+
+    private void flush() throws IOException {
+        final @NotNull FileChannel channel = Objects.requireNonNull(this.channel);
+
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    private void writeWAVHeader(@NotNull FileChannel channel) throws IOException {
+        final @NotNull ByteBuffer header = ByteBuffer.allocate(WAV_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        final int blockAlign = channels * Short.BYTES;
+
+        // Sizes are limited to 32 bit by the format.
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII)); //NON-NLS
+        header.putInt((int) Math.min(0xFFFFFFFFL, WAV_HEADER_SIZE - 8 + dataLength));
+        header.put("WAVEfmt ".getBytes(StandardCharsets.US_ASCII)); //NON-NLS
+        header.putInt(WAV_FMT_CHUNK_SIZE);
+        header.putShort((short) WAV_FORMAT_PCM);
+        header.putShort((short) channels);
+        header.putInt(sampleRate);
+        header.putInt(sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) (Short.BYTES * 8));
+        header.put("data".getBytes(StandardCharsets.US_ASCII)); //NON-NLS
+        header.putInt((int) Math.min(0xFFFFFFFFL, dataLength));
+        header.flip();
+
+        while (header.hasRemaining())
+            channel.write(header, header.position());
+    }
+
+    @Override
+    protected boolean available() {
+        return true;
+    }
+}
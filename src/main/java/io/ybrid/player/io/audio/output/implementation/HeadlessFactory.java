@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import io.ybrid.player.io.audio.output.SinkStatistics;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * This provides factories for outputs that do not need sound hardware.
+ * Use {@link AudioOutputFactory#getNullFactory(boolean, SinkStatistics)}
+ * and {@link AudioOutputFactory#getFileFactory(Path, AudioOutputFactory.FileFormat, SinkStatistics)} instead.
+ */
+@ApiStatus.Internal
+public final class HeadlessFactory {
+    @Contract(pure = true)
+    private HeadlessFactory() {
+    }
+
+    @Contract(pure = true)
+    public static @NotNull AudioOutputFactory getNullFactory(boolean realtime, @Nullable SinkStatistics statistics) {
+        return () -> new NullOutput(realtime, statistics);
+    }
+
+    @Contract(pure = true)
+    public static @NotNull AudioOutputFactory getFileFactory(@NotNull Path path, @NotNull AudioOutputFactory.FileFormat format, @Nullable SinkStatistics statistics) {
+        return () -> new FileOutput(path, format, statistics);
+    }
+}
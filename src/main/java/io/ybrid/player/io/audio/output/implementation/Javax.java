@@ -22,22 +22,37 @@
 
 package io.ybrid.player.io.audio.output.implementation;
 
+import io.ybrid.player.io.audio.DirectPCMDataBlock;
 import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.PCMReadResult;
+import io.ybrid.player.io.audio.output.PullAudioOutput;
+import io.ybrid.player.io.audio.output.RenderQueue;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.sound.sampled.*;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.Objects;
 
 @ApiStatus.Internal
-class Javax extends Base {
+class Javax extends Base implements PullAudioOutput {
     private final static ByteOrder byteOrder = ByteOrder.nativeOrder();
+    private static final double RENDER_PERIOD = 0.01; /* [s] */
+    private static final long RENDER_THREAD_JOIN_TIMEOUT = 1000; /* [ms] */
+    private static final @NonNls String RENDER_THREAD_NAME = "Javax Render Thread";
 
+    /* Only used by the thread writing to the line. */
+    private final @NotNull SampleConverter converter = new SampleConverter(byteOrder);
     private @Nullable SourceDataLine line;
+    private boolean pull = false;
+    private boolean paused = false;
+    private double bufferLength = Double.NaN;
+    private @Nullable Thread renderThread = null;
+    private volatile long underruns = 0;
 
     @Override
     protected boolean available() {
@@ -57,41 +72,187 @@ class Javax extends Base {
                     byteOrder.equals(ByteOrder.BIG_ENDIAN));
 
             line = AudioSystem.getSourceDataLine(audioFormat);
-            line.open(audioFormat);
+            // The line is only shrunk if asked to, its default buffer gives the most headroom against stalls.
+            if (!Double.isNaN(bufferLength)) {
+                line.open(audioFormat, getBufferSize(bufferLength, audioFormat));
+            } else {
+                line.open(audioFormat);
+            }
+            if (pull && !paused)
+                line.start();
+            converter.ensureCapacity(line.getBufferSize() / Short.BYTES);
         } catch (LineUnavailableException e) {
             throw new IOException(e);
         }
     }
 
+    private static int getBufferSize(double length, @NotNull AudioFormat format) {
+        // The buffer must hold more than one render period or the render thread would underrun the line between writes.
+        return (int) (Math.max(length, 2 * RENDER_PERIOD) * format.getSampleRate()) * format.getFrameSize();
+    }
+
+    @Override
+    public synchronized void setBufferLength(double bufferLength) {
+        if (!(bufferLength > 0))
+            throw new IllegalArgumentException("Invalid buffer length: " + bufferLength);
+        this.bufferLength = bufferLength;
+    }
+
     @Override
-    public void play() {
+    public synchronized void play() {
         super.play();
+        paused = false;
         Objects.requireNonNull(line).start();
     }
 
+    @Override
+    public synchronized void pause() {
+        // Stopping the line keeps the data it holds. If pulling, the render thread blocks once the line is full.
+        paused = true;
+        if (line != null)
+            line.stop();
+    }
+
+    @Override
+    public synchronized void start(@NotNull RenderQueue queue) throws IOException {
+        if (renderThread != null)
+            throw new IllegalStateException("Already started");
+
+        pull = true;
+        reconfigure();
+
+        renderThread = new Thread(() -> render(queue), RENDER_THREAD_NAME);
+        renderThread.setPriority(Thread.MAX_PRIORITY);
+        renderThread.start();
+    }
+
+    @Override
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    private void render(@NotNull RenderQueue queue) {
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        short[] samples = new short[0];
+
+        while (!Thread.currentThread().isInterrupted()) {
+            @Nullable SourceDataLine line;
+            final @NotNull AudioFormat format;
+            final int frames;
+            final int read;
+
+            synchronized (this) {
+                line = this.line;
+            }
+            if (line == null)
+                break;
+
+            format = line.getFormat();
+            frames = (int) (format.getSampleRate() * RENDER_PERIOD);
+            // The array is sized for the current format. A read in a format with more channels returns fewer frames.
+            if (samples.length != frames * format.getChannels())
+                samples = new short[frames * format.getChannels()];
+
+            read = queue.poll(samples, 0, frames, result);
+            if (read == 0) {
+                Arrays.fill(samples, (short) 0);
+                if (!queue.isDrained())
+                    underruns++;
+                write(line, samples, 0, samples.length);
+                updateClock();
+                continue;
+            }
+
+            // A read never spans a change of the format, so the device is reconfigured before writing it.
+            if (result.getSampleRate() != (int) format.getSampleRate() || result.getNumberOfChannels() != format.getChannels()) {
+                try {
+                    prepare(result.getBlock(0));
+                } catch (IOException e) {
+                    break;
+                }
+
+                synchronized (this) {
+                    line = this.line;
+                }
+                if (line == null)
+                    break;
+            }
+
+            for (int i = 0; i < result.getNumberOfBlocks(); i++)
+                clock.schedule(result.getBlock(i), clock.getFramesWritten() + result.getBlockOffset(i));
+
+            write(line, samples, 0, read * result.getNumberOfChannels());
+            updateClock();
+        }
+
+        result.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        final @Nullable Thread thread;
+
+        synchronized (this) {
+            thread = renderThread;
+            renderThread = null;
+            // Unblock the render thread if it waits for a paused line.
+            if (paused && line != null)
+                line.flush();
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(RENDER_THREAD_JOIN_TIMEOUT);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        super.close();
+
+        synchronized (this) {
+            paused = false;
+        }
+    }
+
     @Override
     protected synchronized void deConfigureBackend() {
         if (line == null)
             return;
 
-        line.drain();
+        // A paused line would never drain.
+        if (paused) {
+            line.flush();
+        } else {
+            line.drain();
+        }
         line.stop();
         line.close();
         line = null;
     }
 
-    @Override
-    protected void writeToBackend(@NotNull PCMDataBlock block) {
-        final short[] data = block.getData();
-        final @NotNull ByteBuffer buffer = ByteBuffer.allocate(data.length * 2).order(byteOrder);
+    private void write(@NotNull SourceDataLine line, short[] samples, int offset, int length) {
+        line.write(converter.convert(samples, offset, length), 0, length * Short.BYTES);
+        clock.written(length / line.getFormat().getChannels());
+    }
 
-        for (short val : data)
-            buffer.putShort(val);
+    @Override
+    protected synchronized long getBackendFramePosition() {
+        return line == null ? -1 : line.getLongFramePosition();
+    }
 
-        buffer.position(0);
+    @Override
+    protected void writeToBackend(@NotNull PCMDataBlock block) {
+        final @NotNull SourceDataLine line = Objects.requireNonNull(this.line);
 
-        Objects.requireNonNull(line).write(buffer.array(), 0, buffer.array().length);
+        // Samples stored in native memory are written without copying them to the heap first.
+        if (block instanceof DirectPCMDataBlock) {
+            line.write(converter.convert(((DirectPCMDataBlock) block).getDirectData()), 0, block.getDataLength() * Short.BYTES);
+            clock.written(block.getLengthAsFrames());
+            return;
+        }
 
-        block.audible();
+        write(line, block.getBackingData(), block.getDataOffset(), block.getDataLength());
     }
 }
@@ -27,6 +27,7 @@ public class LazyLoadingAndroidAudioOutput extends Base {
     private static final @NotNull Class<?> CLASS_AUDIO_TRACK;
     private static final @NotNull Method METHOD_AUDIO_TRACK_WRITE;
     private static final @NotNull Method METHOD_AUDIO_TRACK_PLAY;
+    private static final @NotNull Method METHOD_AUDIO_TRACK_PAUSE;
     private static final @NotNull Method METHOD_AUDIO_TRACK_FLUSH;
     private static final @NotNull Method METHOD_AUDIO_TRACK_STOP;
     private static final @NotNull Method METHOD_AUDIO_TRACK_RELEASE;
@@ -44,6 +45,7 @@ public class LazyLoadingAndroidAudioOutput extends Base {
             CLASS_AUDIO_TRACK = LOADER.loadClass("android.media.AudioTrack");
             METHOD_AUDIO_TRACK_WRITE = CLASS_AUDIO_TRACK.getMethod("write", short[].class, Integer.TYPE, Integer.TYPE);
             METHOD_AUDIO_TRACK_PLAY = CLASS_AUDIO_TRACK.getMethod("play");
+            METHOD_AUDIO_TRACK_PAUSE = CLASS_AUDIO_TRACK.getMethod("pause");
             METHOD_AUDIO_TRACK_FLUSH = CLASS_AUDIO_TRACK.getMethod("flush");
             METHOD_AUDIO_TRACK_STOP = CLASS_AUDIO_TRACK.getMethod("stop");
             METHOD_AUDIO_TRACK_RELEASE = CLASS_AUDIO_TRACK.getMethod("release");
@@ -147,15 +149,15 @@ public class LazyLoadingAndroidAudioOutput extends Base {
 
     @Override
     protected void writeToBackend(@NotNull PCMDataBlock block) {
-        final short[] buffer = block.getData();
+        final int length = block.getDataLength();
         final int ret;
 
-        ret = (int)invoke(METHOD_AUDIO_TRACK_WRITE, audioTrack, buffer, 0, buffer.length);
-        if (ret != buffer.length) {
+        ret = (int)invoke(METHOD_AUDIO_TRACK_WRITE, audioTrack, block.getBackingData(), block.getDataOffset(), length);
+        if (ret != length) {
             throw new RuntimeException("Short write");
         }
 
-        block.audible();
+        clock.written(block.getLengthAsFrames());
     }
 
     @Override
@@ -168,4 +170,9 @@ public class LazyLoadingAndroidAudioOutput extends Base {
         super.play();
         invoke(METHOD_AUDIO_TRACK_PLAY, Objects.requireNonNull(audioTrack));
     }
+
+    @Override
+    public synchronized void pause() {
+        invoke(METHOD_AUDIO_TRACK_PAUSE, Objects.requireNonNull(audioTrack));
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.output.SinkStatistics;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This output discards all audio. It either consumes audio as fast as it is written
+ * or at the pace of a device with a buffer of {@link #BUFFER_LENGTH}.
+ */
+@ApiStatus.Internal
+class NullOutput extends Base {
+    private static final double BUFFER_LENGTH = 0.1; // [s]
+    private static final long PAUSED_POLL_INTERVAL = TimeUnit.MILLISECONDS.toNanos(10); // [ns]
+
+    private final boolean realtime;
+    private final @Nullable SinkStatistics statistics;
+    private int sampleRate = 0;
+    /* Frames written and time of the first write since the backend was last configured. */
+    private long written = 0;
+    private long start = 0; // [ns], 0 if nothing was written yet
+    private long pausedAt = 0; // [ns], 0 if not paused
+
+    NullOutput(boolean realtime, @Nullable SinkStatistics statistics) {
+        this.realtime = realtime;
+        this.statistics = statistics;
+    }
+
+    @Override
+    protected synchronized void configureBackend(@NotNull PCMDataBlock block) {
+        sampleRate = block.getSampleRate();
+        written = 0;
+        start = 0;
+    }
+
+    @Override
+    protected synchronized void deConfigureBackend() {
+        sampleRate = 0;
+    }
+
+    private synchronized long getPlayed(long now) {
+        if (sampleRate == 0 || start == 0)
+            return 0;
+        return Math.min(written, (long) ((double) ((pausedAt != 0 ? pausedAt : now) - start) * sampleRate / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Override
+    protected void writeToBackend(@NotNull PCMDataBlock block) {
+        final int frames = block.getLengthAsFrames();
+
+        synchronized (this) {
+            if (start == 0)
+                start = System.nanoTime();
+            written += frames;
+        }
+        clock.written(frames);
+        if (statistics != null)
+            statistics.add(frames, block.getSampleRate());
+
+        if (!realtime)
+            return;
+
+        // Block while more than the buffer length is pending, like a device would.
+        while (!Thread.currentThread().isInterrupted()) {
+            final long wait;
+
+            synchronized (this) {
+                final long excess;
+
+                if (sampleRate == 0)
+                    return;
+                excess = written - getPlayed(System.nanoTime()) - (long) (BUFFER_LENGTH * sampleRate);
+                if (excess <= 0)
+                    return;
+                wait = pausedAt != 0 ? PAUSED_POLL_INTERVAL : TimeUnit.SECONDS.toNanos(excess) / sampleRate;
+            }
+
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    @Override
+    protected long getBackendFramePosition() {
+        return realtime ? getPlayed(System.nanoTime()) : -1;
+    }
+
+    @Override
+    public synchronized void play() {
+        super.play();
+        if (pausedAt != 0) {
+            start += System.nanoTime() - pausedAt;
+            pausedAt = 0;
+        }
+    }
+
+    @Override
+    public synchronized void pause() {
+        if (pausedAt == 0)
+            pausedAt = System.nanoTime();
+    }
+
+    @Override
+    protected boolean available() {
+        return true;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * This converts 16 bit PCM samples into bytes for backends that only accept byte arrays.
+ * <P>
+ * The conversion is done in bulk into a scratch buffer that is reused for every call.
+ * The buffer only grows, so once it has been sized to the backend no more objects are allocated.
+ * <P>
+ * This class is not thread safe.
+ */
+@ApiStatus.Internal
+final class SampleConverter {
+    private final @NotNull ByteOrder byteOrder;
+    private byte[] bytes = new byte[0];
+    private @NotNull ShortBuffer view = ShortBuffer.allocate(0);
+
+    /**
+     * Creates a new converter.
+     * @param byteOrder The byte order expected by the backend.
+     */
+    SampleConverter(@NotNull ByteOrder byteOrder) {
+        this.byteOrder = byteOrder;
+    }
+
+    /**
+     * Makes sure the scratch buffer can hold the given number of samples.
+     * @param samples The number of samples.
+     */
+    void ensureCapacity(int samples) {
+        if (view.capacity() >= samples)
+            return;
+
+        bytes = new byte[samples * Short.BYTES];
+        view = ByteBuffer.wrap(bytes).order(byteOrder).asShortBuffer();
+    }
+
+    /**
+     * Converts samples.
+     * The returned array is reused by the next call.
+     *
+     * @param samples The samples to convert.
+     * @param offset The offset of the first sample to convert.
+     * @param length The number of samples to convert.
+     * @return The scratch buffer holding {@code length * 2} bytes of converted data at its start.
+     */
+    byte[] convert(short[] samples, int offset, int length) {
+        ensureCapacity(length);
+        view.clear();
+        view.put(samples, offset, length);
+        return bytes;
+    }
+
+    /**
+     * Converts samples stored in a {@link ByteBuffer} such as native memory.
+     * If the byte order of the buffer matches the one expected by the backend the bytes are copied as they are.
+     * The returned array is reused by the next call.
+     *
+     * @param samples The samples to convert. All remaining bytes are converted.
+     * @return The scratch buffer holding {@code samples.remaining()} bytes of converted data at its start.
+     */
+    byte[] convert(@NotNull ByteBuffer samples) {
+        final int length = samples.remaining() / Short.BYTES;
+
+        ensureCapacity(length);
+        if (samples.order().equals(byteOrder)) {
+            samples.get(bytes, 0, length * Short.BYTES);
+        } else {
+            view.clear();
+            view.put(samples.asShortBuffer());
+        }
+        return bytes;
+    }
+}
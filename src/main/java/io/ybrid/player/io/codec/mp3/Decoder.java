@@ -25,14 +25,18 @@ package io.ybrid.player.io.codec.mp3;
 import io.ybrid.api.PlayoutInfo;
 import io.ybrid.api.metadata.Sync;
 import io.ybrid.player.io.ByteDataSource;
+import io.ybrid.player.io.MediaType;
 import io.ybrid.player.io.MetadataInputStream;
+import io.ybrid.player.io.audio.FloatPCMDataBlock;
 import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.SamplePool;
 import javazoom.jl.decoder.Bitstream;
 import javazoom.jl.decoder.BitstreamException;
 import javazoom.jl.decoder.Header;
 import javazoom.jl.decoder.SampleBuffer;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.Objects;
@@ -43,11 +47,28 @@ public class Decoder implements io.ybrid.player.io.decoder.Decoder {
     private final @NotNull MetadataInputStream inputStream;
     private final Bitstream bitstream;
     private final javazoom.jl.decoder.Decoder decoder;
+    private final @Nullable FloatSampleBuffer floatBuffer;
 
     public Decoder(@NotNull ByteDataSource dataSource) {
+        this(dataSource, false);
+    }
+
+    /**
+     * Creates a decoder.
+     *
+     * @param dataSource The source to read the encoded stream from.
+     * @param floatOutput Whether to emit {@link FloatPCMDataBlock}s instead of 16 bit samples.
+     */
+    public Decoder(@NotNull ByteDataSource dataSource, boolean floatOutput) {
         this.inputStream = new MetadataInputStream(dataSource);
         this.bitstream = new Bitstream(this.inputStream);
         this.decoder = new javazoom.jl.decoder.Decoder();
+        if (floatOutput) {
+            floatBuffer = new FloatSampleBuffer();
+            decoder.setOutputBuffer(floatBuffer);
+        } else {
+            floatBuffer = null;
+        }
         LOGGER.info("Decoder created");
     }
 
@@ -60,25 +81,60 @@ public class Decoder implements io.ybrid.player.io.decoder.Decoder {
         return header.mode() == Header.SINGLE_CHANNEL ? 1 : 2;
     }
 
+    private @NotNull PCMDataBlock readFloat(@NotNull FloatSampleBuffer buffer) throws IOException {
+        final @NotNull Sync sync = Objects.requireNonNull(inputStream.getSync());
+        final PlayoutInfo playoutInfo = inputStream.getPlayoutInfo();
+        final @NotNull Header header;
+        final int channels;
+        final @NotNull float[] pcm;
+
+        try {
+            header = bitstream.readFrame();
+            decoder.decodeFrame(header, bitstream);
+            channels = getChannelCount(header);
+            pcm = buffer.getInterleaved(channels);
+            bitstream.closeFrame();
+        } catch (Throwable e) {
+            LOGGER.warning("Decoder threw error: " + e);
+            throw new IOException(e);
+        }
+
+        return new FloatPCMDataBlock(sync, playoutInfo, pcm, header.frequency(), channels);
+    }
+
     @Override
     public @NotNull PCMDataBlock read() throws IOException {
         final @NotNull Sync sync = Objects.requireNonNull(inputStream.getSync());
         final PlayoutInfo playoutInfo = inputStream.getPlayoutInfo();
         final @NotNull Header header;
         final @NotNull SampleBuffer sampleBuffer;
+        final @NotNull SamplePool pool = SamplePool.getDefault();
+        final int length;
         final @NotNull short[] pcm;
 
+        if (floatBuffer != null)
+            return readFloat(floatBuffer);
+
         try {
             header = bitstream.readFrame();
             sampleBuffer = (SampleBuffer) decoder.decodeFrame(header, bitstream);
-            pcm = sampleBuffer.getBuffer().clone();
+            length = sampleBuffer.getBufferLength();
+            pcm = pool.acquire(length);
+            System.arraycopy(sampleBuffer.getBuffer(), 0, pcm, 0, length);
             bitstream.closeFrame();
         } catch (Throwable e) {
             LOGGER.warning("Decoder threw error: " + e);
             throw new IOException(e);
         }
 
-        return new PCMDataBlock(sync, playoutInfo, pcm, header.frequency(), getChannelCount(header));
+        return new PCMDataBlock(sync, playoutInfo, pcm, 0, length, header.frequency(), getChannelCount(header), pool);
+    }
+
+    @Override
+    public @Nullable io.ybrid.api.util.MediaType getMediaType() {
+        if (floatBuffer != null)
+            return MediaType.PCM_STREAM_FLOAT;
+        return MediaType.PCM_STREAM_SHORT;
     }
 
     @Override
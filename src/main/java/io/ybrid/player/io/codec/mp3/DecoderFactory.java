@@ -27,12 +27,41 @@ import io.ybrid.api.util.QualityMap.MediaTypeMap;
 import io.ybrid.api.util.QualityMap.Quality;
 import io.ybrid.player.io.ByteDataSource;
 import io.ybrid.player.io.DataSource;
+import io.ybrid.player.io.audio.FloatPCMDataBlock;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 
 public class DecoderFactory implements io.ybrid.player.io.decoder.DecoderFactory {
+    /**
+     * The system property enabling {@code float} output for instances created using {@link #DecoderFactory()}.
+     */
+    @ApiStatus.Experimental
+    public static final @NonNls String FLOAT_OUTPUT_PROPERTY = "io.ybrid.player.io.codec.mp3.DecoderFactory.floatOutput";
+
+    private final boolean floatOutput;
+
+    /**
+     * Creates a factory.
+     * The decoders emit {@link FloatPCMDataBlock}s if the system property {@value #FLOAT_OUTPUT_PROPERTY} is {@code true}.
+     */
+    public DecoderFactory() {
+        this(Boolean.getBoolean(FLOAT_OUTPUT_PROPERTY));
+    }
+
+    /**
+     * Creates a factory.
+     *
+     * @param floatOutput Whether the decoders emit {@link FloatPCMDataBlock}s instead of 16 bit samples.
+     */
+    @ApiStatus.Experimental
+    public DecoderFactory(boolean floatOutput) {
+        this.floatOutput = floatOutput;
+    }
+
     @Override
     public io.ybrid.player.io.decoder.Decoder getDecoder(@NotNull DataSource dataSource) {
-        return new Decoder((ByteDataSource) dataSource);
+        return new Decoder((ByteDataSource) dataSource, floatOutput);
     }
 
     @Override
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.codec.mp3;
+
+import io.ybrid.player.io.audio.FloatPCMDataBlock;
+import javazoom.jl.decoder.Obuffer;
+
+import java.util.Arrays;
+
+/**
+ * This implements an {@link Obuffer} that collects the output of the synthesis filter as {@code float} samples.
+ * <P>
+ * The values are scaled the same way as the 16 bit samples of {@link javazoom.jl.decoder.SampleBuffer} but not clipped.
+ */
+final class FloatSampleBuffer extends Obuffer {
+    private final float[][] samples = new float[MAXCHANNELS][OBUFFERSIZE / MAXCHANNELS];
+    private final int[] lengths = new int[MAXCHANNELS];
+
+    @Override
+    public void append(int channel, short value) {
+        samples[channel][lengths[channel]++] = FloatPCMDataBlock.toFloat(value);
+    }
+
+    @Override
+    public void appendSamples(int channel, float[] f) {
+        final float[] target = samples[channel];
+        int length = lengths[channel];
+
+        for (int i = 0; i < 32; i++)
+            target[length++] = f[i] / FloatPCMDataBlock.SCALE;
+
+        lengths[channel] = length;
+    }
+
+    /**
+     * Gets the number of frames of the last decoded frame.
+     * @return The length in [frame].
+     */
+    int getLengthAsFrames() {
+        return lengths[0];
+    }
+
+    /**
+     * Gets the last decoded frame as interleaved samples.
+     *
+     * @param channels The number of channels to interleave.
+     * @return The samples.
+     */
+    float[] getInterleaved(int channels) {
+        final int frames = getLengthAsFrames();
+        final float[] ret = new float[frames * channels];
+
+        for (int channel = 0; channel < channels; channel++) {
+            final float[] source = samples[channel];
+
+            for (int frame = 0; frame < frames; frame++)
+                ret[frame * channels + channel] = source[frame];
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void write_buffer(int val) {
+        // Nothing to do, the samples are taken using getInterleaved().
+    }
+
+    @Override
+    public void close() {
+        // Nothing to do.
+    }
+
+    @Override
+    public void clear_buffer() {
+        Arrays.fill(lengths, 0);
+    }
+
+    @Override
+    public void set_stop_flag() {
+        // Nothing to do.
+    }
+}
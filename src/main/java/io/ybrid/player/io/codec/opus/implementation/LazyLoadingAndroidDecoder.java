@@ -27,6 +27,7 @@ import io.ybrid.api.metadata.Sync;
 import io.ybrid.player.io.ByteDataBlock;
 import io.ybrid.player.io.audio.PCMDataBlock;
 import io.ybrid.player.io.audio.PCMDataSource;
+import io.ybrid.player.io.audio.SamplePool;
 import io.ybrid.player.io.audio.Skipper;
 import io.ybrid.player.io.decoder.StreamDecoder;
 import io.ybrid.player.io.mapping.Header;
@@ -233,17 +234,22 @@ public class LazyLoadingAndroidDecoder extends StreamDecoder<Stream<?, ?, ? exte
                         final @NotNull LazyObject outputFormat = new LazyObject(Objects.requireNonNull(decoder.invoke(decoder.findMethod("getOutputFormat", Integer.TYPE), idx)));
                         final @NotNull Method getInteger = outputFormat.findMethod("getInteger", String.class);
                         final @NotNull ShortBuffer samples = buffer.order(ByteOrder.nativeOrder()).asShortBuffer();
-                        final short[] pcm = new short[samples.remaining()];
+                        final @NotNull SamplePool pool = SamplePool.getDefault();
+                        final int length = samples.remaining();
+                        final short[] pcm = pool.acquire(length);
 
-                        samples.get(pcm);
+                        samples.get(pcm, 0, length);
 
                         decoder.invoke(decoder.findMethod("releaseOutputBuffer", Integer.TYPE, Boolean.TYPE), idx, false);
 
                         return new PCMDataBlock(sync,
                                 playoutInfo,
                                 pcm,
+                                0,
+                                length,
                                 outputFormat.invokeInt(getInteger, MediaFormat.getField("KEY_SAMPLE_RATE")),
-                                outputFormat.invokeInt(getInteger, MediaFormat.getField("KEY_CHANNEL_COUNT")));
+                                outputFormat.invokeInt(getInteger, MediaFormat.getField("KEY_CHANNEL_COUNT")),
+                                pool);
                     }
                 }
 
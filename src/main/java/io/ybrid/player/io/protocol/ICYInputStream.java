@@ -53,7 +53,7 @@ import java.util.logging.Logger;
 public class ICYInputStream implements Closeable, ByteDataSource {
     static final @NonNls Logger LOGGER = Logger.getLogger(ICYInputStream.class.getName());
     private static final String HEADER_ICY_METAINT = "icy-metaint"; //NON-NLS
-    private static final int MAX_READ_LENGTH = 4*1024;
+    private static final int DEFAULT_READ_LENGTH = 4*1024;
     private static final int MAX_METATDATA_INTERVAL = 128*1024;
     private static final int READ_BUFFER_LENGTH = 2048;
     private static final int ICY_METADATA_BLOCK_MULTIPLAYER = 16;
@@ -66,6 +66,7 @@ public class ICYInputStream implements Closeable, ByteDataSource {
     private Sync sync = null;
     private int status = 0;
     private @NotNull URI uri;
+    private int readLength = DEFAULT_READ_LENGTH;
 
     private int getPort() throws MalformedURLException {
         int port = uri.getPort();
@@ -341,6 +342,13 @@ public class ICYInputStream implements Closeable, ByteDataSource {
         transportDescription.signalConnectionState(TransportConnectionState.DISCONNECTED);
     }
 
+    @Override
+    public synchronized void setReadLength(int readLength) {
+        if (readLength < 1)
+            throw new IllegalArgumentException("Invalid read length: " + readLength);
+        this.readLength = readLength;
+    }
+
     @Override
     public synchronized @NotNull ByteDataBlock read() throws IOException {
         ByteDataBlock block;
@@ -351,11 +359,11 @@ public class ICYInputStream implements Closeable, ByteDataSource {
         if (metadataInterval > 0) {
             todo = metadataInterval - pos;
         } else {
-            todo = MAX_READ_LENGTH;
+            todo = readLength;
         }
 
-        if (todo > MAX_READ_LENGTH)
-            todo = MAX_READ_LENGTH;
+        if (todo > readLength)
+            todo = readLength;
 
         block = new ByteDataBlock(sync, null, inputStream, todo);
 
@@ -47,10 +47,13 @@ import java.util.Map;
 
 @ApiStatus.Internal
 public class URLSource implements ByteDataSource {
+    private static final int DEFAULT_READ_LENGTH = 2*1024;
+
     private final @NotNull ServiceURITransportDescription transportDescription;
     private final @NotNull Sync sync;
     private final InputStream inputStream;
     private final MediaType contentType;
+    private volatile int readLength = DEFAULT_READ_LENGTH;
 
     private static void acceptListToHeader(@NotNull URLConnection connection, @NonNls @NotNull String header, @Nullable QualityMap<?> list) {
         final @Nullable String ret = Utils.transform(list, QualityMap::toHTTPHeaderLikeString);
@@ -121,10 +124,16 @@ public class URLSource implements ByteDataSource {
         }
     }
 
+    @Override
+    public void setReadLength(int readLength) {
+        if (readLength < 1)
+            throw new IllegalArgumentException("Invalid read length: " + readLength);
+        this.readLength = readLength;
+    }
+
     @Override
     public @NotNull ByteDataBlock read() throws IOException {
-        //noinspection MagicNumber
-        return new ByteDataBlock(sync, null, inputStream, 1024 * 2);
+        return new ByteDataBlock(sync, null, inputStream, readLength);
     }
 
     @Override
@@ -34,8 +34,10 @@ import io.ybrid.api.transaction.Transaction;
 import io.ybrid.api.transport.ServiceTransportDescription;
 import io.ybrid.api.util.QualityMap.MediaTypeMap;
 import io.ybrid.player.io.BufferedByteDataSource;
+import io.ybrid.player.io.ByteDataSource;
 import io.ybrid.player.io.DataBlock;
 import io.ybrid.player.io.DataSourceFactory;
+import io.ybrid.player.io.EncodedBuffer;
 import io.ybrid.player.io.audio.output.AudioOutputFactory;
 import io.ybrid.player.io.decoder.Decoder;
 import io.ybrid.player.io.decoder.DecoderFactory;
@@ -49,21 +51,46 @@ import java.util.logging.Logger;
 
 public class BasePlayer extends PlayerStub {
     static final @NonNls Logger LOGGER = Logger.getLogger(BasePlayer.class.getName());
+    private static final long PLAYBACK_THREAD_JOIN_TIMEOUT = 1000; /* [ms] */
 
     private final @NotNull Control control;
     protected final @NotNull PlaybackThread playbackThread;
+    /* Maximum number of bytes per network read for new transports, 0 for the default of the source. */
+    protected volatile int readLength = 0;
+    /* Whether new transports are buffered in encoded form, see EncodedBuffer. */
+    protected volatile boolean encodedBuffer = false;
+    /* Key for metadata changes, a newer change supersedes a pending one. */
+    private final @NotNull Object metadataEventKey = new Object();
 
     private @NotNull Control buildPlayerControl() {
         return new Control() {
             private void stop(@Nullable Transaction transaction) {
+                final boolean join = Thread.currentThread() != playbackThread;
+
                 playbackThread.stop(transaction);
+                // The playback thread dispatches the final state change before it ends.
+                // It may be blocked in a call that ignores the interrupt, so the muxer is closed to unblock it anyway.
+                if (join)
+                    joinPlaybackThread();
                 try {
                     muxer.close();
                 } catch (IOException ignored) {
                 }
+                if (join && playbackThread.isAlive())
+                    joinPlaybackThread();
+                // Events already queued, including the final state change, are still run.
+                eventDispatcher.close();
                 session.detachPlayer(control);
             }
 
+            private void joinPlaybackThread() {
+                try {
+                    playbackThread.join(PLAYBACK_THREAD_JOIN_TIMEOUT);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
             @Override
             public void onDetach(@NotNull Session unused) {
                 stop(null);
@@ -77,6 +104,7 @@ public class BasePlayer extends PlayerStub {
             @Override
             public void connectTransport(@NotNull ServiceTransportDescription transportDescription) throws Exception {
                 final @Nullable Decoder decoder;
+                @Nullable EncodedBuffer encoded = null;
 
                 /*
                  * We disconnect the inputEOFCallback while we connect a new source to avoid race conditions between the
@@ -84,15 +112,23 @@ public class BasePlayer extends PlayerStub {
                  */
                 muxer.setInputEOFCallback(null);
                 try {
-                    decoder = decoderFactory.getDecoder(new BufferedByteDataSource(dataSourceFactory.getSource(transportDescription)));
+                    final @NotNull ByteDataSource source = dataSourceFactory.getSource(transportDescription);
+                    if (readLength > 0)
+                        source.setReadLength(readLength);
+                    encoded = encodedBuffer ? new EncodedBuffer(source, muxer.getBufferTarget()) : null;
+                    decoder = decoderFactory.getDecoder(new BufferedByteDataSource(encoded == null ? source : encoded));
                 } catch (Throwable e) {
                     LOGGER.severe("Unexpected exception thrown while getting decoder" + e);
+                    if (encoded != null)
+                        encoded.close();
                     throw e;
                 }
                 if (decoder == null) {
                     LOGGER.warning("Can not create decoder for new input.");
+                    if (encoded != null)
+                        encoded.close();
                 } else {
-                    muxer.addBuffer(decoder, transportDescription);
+                    muxer.addBuffer(decoder, transportDescription, encoded);
                 }
                 muxer.setInputEOFCallback(() -> onInputEOF());
             }
@@ -150,17 +186,32 @@ public class BasePlayer extends PlayerStub {
         }
     }
 
+    /**
+     * Called when the player state changed.
+     * This is run by the {@link #getEventDispatcher() event dispatcher}. State changes are never dropped.
+     * @param state The new state.
+     */
     protected void onPlayerStateChange(@NotNull PlayerState state) {
         // TODO.
     }
 
+    /**
+     * Called when a block with new metadata is played.
+     * This is run by the {@link #getEventDispatcher() event dispatcher}.
+     * If the dispatcher falls behind only the latest pending change is delivered.
+     * @param block A block holding the metadata of the played audio. It does not hold the samples.
+     * @param playoutInfo The playout info adjusted for the buffered audio or {@code null}.
+     */
     protected void onMetadataChange(@NotNull DataBlock block, @Nullable PlayoutInfo playoutInfo) {
         // no-op.
     }
 
     public BasePlayer(@NotNull Session session, @Nullable DecoderFactory externalDecoderFactory, @NotNull AudioOutputFactory audioOutputFactory, @Nullable DataSourceFactory dataSourceFactory) {
         super(session, externalDecoderFactory, audioOutputFactory, dataSourceFactory);
-        this.playbackThread = new PlaybackThread("YbridPlayer Playback Thread", session, muxer, audioOutputFactory, this::onPlayerStateChange, this::onMetadataChange, this);
+        this.playbackThread = new PlaybackThread("YbridPlayer Playback Thread", session, muxer, audioOutputFactory,
+                state -> eventDispatcher.dispatchCritical(() -> onPlayerStateChange(state)),
+                (block, playoutInfo) -> eventDispatcher.dispatch(metadataEventKey, () -> onMetadataChange(block, playoutInfo)),
+                this);
         this.control = buildPlayerControl();
         session.attachPlayer(this.control);
     }
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.player;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * This generates the audio played during gaps in the received audio and keeps statistics about them.
+ * <P>
+ * The first block of a gap repeats the end of the last block received with a linear fade out.
+ * This avoids the click of an abrupt stop. All further blocks are silence.
+ * <P>
+ * Only one thread may call {@link #conceal(PCMDataBlock, double)} and {@link #end()}.
+ * The statistics can be read by any thread.
+ */
+final class Concealer {
+    private static final double SILENCE_BLOCK_LENGTH = 0.02; // [s]
+
+    private boolean inGap = false;
+    private double gapLength = 0;
+    private volatile long gaps = 0;
+    private volatile double concealedLength = 0;
+
+    /**
+     * Generates the next block of a gap.
+     *
+     * @param last The last block played. This must be a received block at the start of a gap.
+     * @param fadeOut The length of the fade out in [s].
+     * @return The block to play.
+     */
+    public @NotNull PCMDataBlock conceal(@NotNull PCMDataBlock last, double fadeOut) {
+        final int channels = last.getNumberOfChannels();
+        final int sampleRate = last.getSampleRate();
+        final int fadeFrames = inGap ? 0 : Math.min(Math.max(1, (int) (fadeOut * sampleRate)), last.getLengthAsFrames());
+        final @NotNull short[] data;
+
+        if (!inGap) {
+            inGap = true;
+            gapLength = 0;
+            //noinspection NonAtomicOperationOnVolatileField
+            gaps++;
+        }
+
+        if (fadeFrames > 0) {
+            final @NotNull short[] tail = last.getBackingData();
+            final int offset = last.getDataOffset() + last.getDataLength() - fadeFrames * channels;
+
+            data = new short[fadeFrames * channels];
+            for (int frame = 0; frame < fadeFrames; frame++) {
+                final double gain = (double) (fadeFrames - frame) / (fadeFrames + 1);
+                for (int channel = 0; channel < channels; channel++) {
+                    final int index = frame * channels + channel;
+                    data[index] = (short) (tail[offset + index] * gain);
+                }
+            }
+        } else {
+            data = new short[Math.max(1, (int) (SILENCE_BLOCK_LENGTH * sampleRate)) * channels];
+        }
+
+        gapLength += (double) (data.length / channels) / sampleRate;
+        //noinspection NonAtomicOperationOnVolatileField
+        concealedLength += (double) (data.length / channels) / sampleRate;
+
+        return new PCMDataBlock(last.getSync(), last.getPlayoutInfo(), data, sampleRate, channels);
+    }
+
+    /**
+     * Ends the current gap if any.
+     */
+    public void end() {
+        inGap = false;
+    }
+
+    /**
+     * Gets the length of the current gap.
+     * @return The length in [s] or {@code 0} if there is no gap.
+     */
+    public double getGapLength() {
+        return inGap ? gapLength : 0;
+    }
+
+    /**
+     * Gets the number of gaps concealed so far.
+     * @return The number of gaps.
+     */
+    public long getGaps() {
+        return gaps;
+    }
+
+    /**
+     * Gets the total length of the audio generated for gaps so far.
+     * @return The length in [s].
+     */
+    public double getConcealedLength() {
+        return concealedLength;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.player;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+
+/**
+ * This holds the values that together define how far playback runs behind the live signal.
+ * <P>
+ * The end-to-end latency is mostly the sum of the amount of audio buffered before playback starts,
+ * the time needed to receive one network read, and the length of the buffer of the audio output.
+ * The buffer target limits how much audio is read ahead and therefore how far the buffered amount can grow.
+ *
+ * @see YbridPlayer#setLatencyProfile(LatencyProfile)
+ */
+@ApiStatus.Experimental
+final public class LatencyProfile implements Serializable {
+    private static final long serialVersionUID = 3168492150734869211L;
+
+    /**
+     * The default profile. It favours stable playback on bad networks.
+     */
+    public static final @NotNull LatencyProfile DEFAULT = new LatencyProfile(10, 1.5, 1.5, 0, Double.NaN);
+
+    /**
+     * A profile for interactive use with an end-to-end latency well below one second on good networks.
+     */
+    public static final @NotNull LatencyProfile LOW_LATENCY = new LatencyProfile(1, 0.25, 0.1, 512, 0.04);
+
+    private final double bufferTarget;
+    private final double prebuffer;
+    private final double rebuffer;
+    private final int readLength;
+    private final double outputBufferLength;
+
+    /**
+     * Creates a new profile.
+     *
+     * @param bufferTarget The amount of audio to read ahead in [s].
+     * @param prebuffer The amount of audio to buffer before playback starts in [s].
+     * @param rebuffer The amount of audio to buffer before playback resumes after an underrun in [s].
+     * @param readLength The maximum number of bytes per network read or {@code 0} to use the default of the source.
+     * @param outputBufferLength The length of the buffer of the audio output in [s] or {@link Double#NaN} to use the default of the output.
+     */
+    public LatencyProfile(double bufferTarget, double prebuffer, double rebuffer, int readLength, double outputBufferLength) {
+        if (bufferTarget <= 0)
+            throw new IllegalArgumentException("Invalid buffer target: " + bufferTarget);
+        if (prebuffer <= 0 || prebuffer > bufferTarget)
+            throw new IllegalArgumentException("Invalid prebuffer: " + prebuffer);
+        if (rebuffer <= 0 || rebuffer > bufferTarget)
+            throw new IllegalArgumentException("Invalid rebuffer: " + rebuffer);
+        if (readLength < 0)
+            throw new IllegalArgumentException("Invalid read length: " + readLength);
+        if (outputBufferLength <= 0)
+            throw new IllegalArgumentException("Invalid output buffer length: " + outputBufferLength);
+
+        this.bufferTarget = bufferTarget;
+        this.prebuffer = prebuffer;
+        this.rebuffer = rebuffer;
+        this.readLength = readLength;
+        this.outputBufferLength = outputBufferLength;
+    }
+
+    /**
+     * Gets the amount of audio to read ahead.
+     * @return The buffer target in [s].
+     */
+    @Contract(pure = true)
+    public double getBufferTarget() {
+        return bufferTarget;
+    }
+
+    /**
+     * Gets the amount of audio to buffer before playback starts.
+     * @return The prebuffer in [s].
+     */
+    @Contract(pure = true)
+    public double getPrebuffer() {
+        return prebuffer;
+    }
+
+    /**
+     * Gets the amount of audio to buffer before playback resumes after an underrun.
+     * @return The rebuffer in [s].
+     */
+    @Contract(pure = true)
+    public double getRebuffer() {
+        return rebuffer;
+    }
+
+    /**
+     * Gets the maximum number of bytes per network read.
+     * @return The read length in [byte] or {@code 0} for the default of the source.
+     */
+    @Contract(pure = true)
+    public int getReadLength() {
+        return readLength;
+    }
+
+    /**
+     * Gets the length of the buffer of the audio output.
+     * @return The length in [s] or {@link Double#NaN} for the default of the output.
+     */
+    @Contract(pure = true)
+    public double getOutputBufferLength() {
+        return outputBufferLength;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        //noinspection HardCodedStringLiteral
+        return "LatencyProfile{" +
+                "bufferTarget=" + bufferTarget +
+                ", prebuffer=" + prebuffer +
+                ", rebuffer=" + rebuffer +
+                ", readLength=" + readLength +
+                ", outputBufferLength=" + outputBufferLength +
+                "}";
+    }
+}
@@ -31,11 +31,13 @@ import io.ybrid.api.transaction.RequestExecutor;
 import io.ybrid.api.transaction.Transaction;
 import io.ybrid.player.io.DataBlock;
 import io.ybrid.player.io.audio.BufferMuxer;
-import io.ybrid.player.io.audio.BufferStatus;
-import io.ybrid.player.io.audio.BufferStatusConsumer;
+import io.ybrid.player.io.audio.BufferMetrics;
 import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.Resampler;
 import io.ybrid.player.io.audio.output.AudioOutput;
 import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import io.ybrid.player.io.audio.output.PullAudioOutput;
+import io.ybrid.player.io.audio.output.RenderQueue;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -46,8 +48,7 @@ import java.time.Duration;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -55,24 +56,54 @@ import java.util.function.Consumer;
 class PlaybackThread extends Thread {
     private static final double AUDIO_BUFFER_MAX_BEFORE_REBUFFER = 0.01; // [s]. Must be > 0.
     private static final double AUDIO_BUFFER_DEFAULT_GOAL = 10.0; // [s].
+    private static final long BUFFERING_POLL_INTERVAL = 50; // [ms]
+    private static final long BUFFERING_MIN_POLL_INTERVAL = 5; // [ms]
+    private static final int BUFFERING_POLLS_PER_GOAL = 10;
+    private static final double OUTPUT_DEFAULT_IDLE_TIMEOUT = 30; // [s]
 
-    private final @NotNull BlockingQueue<BufferStatus> bufferStateQueue = new LinkedBlockingQueue<>();
     private final @NotNull Set<Transaction> startTransactions = new HashSet<>();
     private final @NotNull Set<Transaction> stopTransactions = new HashSet<>();
-    // We need to store this in a variable so add and remove gets the same one:
-    private final @NotNull BufferStatusConsumer bufferStatusConsumer = bufferStateQueue::offer;
+    /* Reused for every poll so the playback loop does not allocate. */
+    private final @NotNull BufferMetrics bufferMetrics = new BufferMetrics();
     private final @NotNull Session session;
     private final @NotNull BufferMuxer muxer;
     private final @NotNull AudioOutputFactory audioBackendFactory;
     private final @NotNull Consumer<@NotNull PlayerState> playerStateConsumer;
     private final @NotNull BiConsumer<@NotNull DataBlock, @Nullable PlayoutInfo> metadataConsumer;
     private final @NotNull RequestExecutor requestExecutor;
-    private @Nullable AudioOutput audioOutput = null;
+    private volatile @Nullable AudioOutput audioOutput = null;
+    /* Only used if the output supports pulling. */
+    private @Nullable RenderQueue renderQueue = null;
     private @Nullable PCMDataBlock initialAudioBlock = null;
     private double bufferGoal = AUDIO_BUFFER_DEFAULT_GOAL;
+    private double rebufferGoal = Double.NaN;
+    private double outputBufferLength = Double.NaN;
     private @Nullable Sync lastSentSync = null;
     private @Nullable PlayoutInfo lastSentPlayoutInfo = null;
-    private @Nullable BufferStatus lastBufferStatus = null;
+    private boolean hasBufferMetrics = false;
+    private volatile @Nullable UnderrunPolicy underrunPolicy = UnderrunPolicy.DEFAULT;
+    private volatile @Nullable Resampler.Quality resamplerQuality = null;
+    /* Converts blocks to the format the output was prepared with, if enabled. */
+    private @Nullable Resampler<BufferMuxer> resampler = null;
+    private final @NotNull Concealer concealer = new Concealer();
+    private final @NotNull Object pauseLock = new Object();
+    private volatile boolean paused = false;
+    /* Time of the last call to resumePlayback() as returned by System.nanoTime(). */
+    private volatile long resumeTime = 0;
+    private volatile double resumeLatency = Double.NaN;
+    /* Position of the output when it was paused while the resume latency is measured from it, -1 otherwise. */
+    private long resumePosition = -1;
+    private volatile double outputIdleTimeout = OUTPUT_DEFAULT_IDLE_TIMEOUT;
+
+    /**
+     * Carries the metadata of a played block to the listeners.
+     * The samples are not passed on as the block may be released and its array reused before a listener runs.
+     */
+    private static final class MetadataBlock extends DataBlock {
+        private MetadataBlock(@NotNull Sync sync, @Nullable PlayoutInfo playoutInfo) {
+            super(sync, playoutInfo);
+        }
+    }
 
     public PlaybackThread(@NotNull @NonNls String name,
                           @NotNull Session session,
@@ -94,20 +125,40 @@ class PlaybackThread extends Thread {
         playerStateConsumer.accept(state);
     }
 
-    private void sendMetadata(@NotNull DataBlock block) {
-        final @Nullable PlayoutInfo playoutInfoToForward;
+    /**
+     * Forwards the metadata of a block if it changed.
+     * <P>
+     * The metadata is forwarded when the block becomes audible. The {@link PlayoutInfo} is adjusted
+     * by the time the block spent in the buffer and in the output, so it refers to the audible signal.
+     * Only the metadata is forwarded, not the block itself.
+     */
+    private void sendMetadata(@NotNull PCMDataBlock block) {
+        final @NotNull Sync sync;
+        final @Nullable PlayoutInfo playoutInfo;
+        final boolean adjust;
+        final long buffered;
+        final long read;
 
         if (Objects.equals(lastSentSync, block.getSync()) && Objects.equals(lastSentPlayoutInfo, block.getPlayoutInfo()))
             return;
         lastSentSync = block.getSync();
         lastSentPlayoutInfo = block.getPlayoutInfo();
 
-        if (lastSentPlayoutInfo != null && lastBufferStatus != null) {
-            playoutInfoToForward = lastSentPlayoutInfo.adjustTimeToNextItem(Duration.ofMillis((long) (1000 * lastBufferStatus.getCurrent())));
-        } else {
-            playoutInfoToForward = lastSentPlayoutInfo;
-        }
-        metadataConsumer.accept(block, playoutInfoToForward);
+        sync = block.getSync();
+        playoutInfo = lastSentPlayoutInfo;
+        adjust = playoutInfo != null && hasBufferMetrics;
+        buffered = hasBufferMetrics ? (long) (TimeUnit.SECONDS.toNanos(1) * bufferMetrics.getCurrent()) : 0;
+        read = System.nanoTime();
+        block.onAudible(() -> {
+            final @Nullable PlayoutInfo playoutInfoToForward;
+
+            if (adjust) {
+                playoutInfoToForward = playoutInfo.adjustTimeToNextItem(Duration.ofNanos(buffered + System.nanoTime() - read));
+            } else {
+                playoutInfoToForward = playoutInfo;
+            }
+            metadataConsumer.accept(new MetadataBlock(sync, playoutInfoToForward), playoutInfoToForward);
+        });
     }
 
     public void prepare() throws IOException, InterruptedException {
@@ -126,32 +177,363 @@ class PlaybackThread extends Thread {
         transaction.waitControlComplete();
         transaction.assertSuccess();
 
-        audioOutput = audioBackendFactory.getAudioOutput();
         initialAudioBlock = muxer.read();
-        audioOutput.prepare(initialAudioBlock);
+        openOutput(initialAudioBlock);
+
+        if (resamplerQuality != null) {
+            resampler = new Resampler<>(muxer, resamplerQuality);
+            resampler.setOutputFormat(initialAudioBlock.getSampleRate(), initialAudioBlock.getNumberOfChannels());
+        }
+    }
+
+    private void openOutput(@NotNull PCMDataBlock block) throws IOException {
+        final @NotNull AudioOutput output = audioBackendFactory.getAudioOutput();
+
+        if (!Double.isNaN(outputBufferLength))
+            output.setBufferLength(outputBufferLength);
+        output.prepare(block);
+        audioOutput = output;
+    }
+
+    private void closeOutput() {
+        final @Nullable RenderQueue queue = renderQueue;
+
+        if (queue != null)
+            queue.close();
+        renderQueue = null;
+
+        releaseOutput();
+
+        // The render thread has been joined by closing the output, so the blocks it did not take can be released.
+        if (queue != null)
+            queue.clear();
+    }
+
+    /**
+     * Closes the output but keeps the blocks staged for it.
+     * They are played once {@link #play()} starts the next output with the same queue.
+     */
+    private void releaseOutput() {
+        final @Nullable AudioOutput output = audioOutput;
+
+        audioOutput = null;
+
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException ignored) {
+            }
+        }
     }
 
     public void setBufferGoal(double bufferGoal) {
         this.bufferGoal = bufferGoal;
     }
 
-    private void buffer() {
+    /**
+     * Sets the amount of audio to buffer before playback resumes after an underrun.
+     * @param rebufferGoal The goal in [s] or {@link Double#NaN} to use the buffer goal.
+     */
+    public void setRebufferGoal(double rebufferGoal) {
+        this.rebufferGoal = rebufferGoal;
+    }
+
+    /**
+     * Sets the preferred length of the buffer of the audio output. This applies to the next {@link #prepare()}.
+     * @param outputBufferLength The length in [s] or {@link Double#NaN} to use the default of the output.
+     * @see AudioOutput#setBufferLength(double)
+     */
+    public void setOutputBufferLength(double outputBufferLength) {
+        this.outputBufferLength = outputBufferLength;
+    }
+
+    /**
+     * Sets how gaps in the received audio are handled.
+     * @param underrunPolicy The policy to use or {@code null} to stop and buffer again as soon as the buffer runs empty.
+     */
+    public void setUnderrunPolicy(@Nullable UnderrunPolicy underrunPolicy) {
+        this.underrunPolicy = underrunPolicy;
+    }
+
+    /**
+     * Sets whether blocks are converted to the format the audio output was prepared with.
+     * <P>
+     * If enabled a change of the format, for example on a handover, does not require the output to be reconfigured.
+     * This applies to the next {@link #prepare()}. By default this is disabled.
+     *
+     * @param quality The quality of the sample rate conversion or {@code null} to reconfigure the output instead.
+     */
+    public void setResamplerQuality(@Nullable Resampler.Quality quality) {
+        this.resamplerQuality = quality;
+    }
+
+    /**
+     * Gets the quality of the sample rate conversion.
+     * @return The quality or {@code null} if blocks are not converted.
+     * @see #setResamplerQuality(Resampler.Quality)
+     */
+    public @Nullable Resampler.Quality getResamplerQuality() {
+        return resamplerQuality;
+    }
+
+    /**
+     * Sets how long the audio output is kept open while paused.
+     * If a pause lasts longer the output is closed and opened again on resume.
+     *
+     * @param outputIdleTimeout The time in [s]. {@link Double#POSITIVE_INFINITY} keeps the output open.
+     */
+    public void setOutputIdleTimeout(double outputIdleTimeout) {
+        if (!(outputIdleTimeout >= 0))
+            throw new IllegalArgumentException("Invalid idle timeout: " + outputIdleTimeout);
+        this.outputIdleTimeout = outputIdleTimeout;
+    }
+
+    /**
+     * Gets the time it took for audio to become audible after the last {@link #resumePlayback()}.
+     * @return The time in [s] or {@link Double#NaN} if not yet known.
+     */
+    public double getResumeLatency() {
+        return resumeLatency;
+    }
+
+    /**
+     * Gets the number of gaps in the received audio that have been concealed.
+     * @return The number of gaps.
+     */
+    public long getConcealedGaps() {
+        return concealer.getGaps();
+    }
+
+    /**
+     * Gets the total length of audio played to conceal gaps.
+     * @return The length in [s].
+     */
+    public double getConcealedLength() {
+        return concealer.getConcealedLength();
+    }
+
+    /**
+     * Gets the number of frames played by the audio output.
+     * @return The position in [frame] or {@code -1} if not known.
+     * @see AudioOutput#getFramePosition()
+     */
+    public long getFramePosition() {
+        final @Nullable AudioOutput output = audioOutput;
+        return output == null ? -1 : output.getFramePosition();
+    }
+
+    /**
+     * Gets the time it takes for audio written to the audio output to be played.
+     * For outputs that pull this does not include the blocks staged for the output.
+     * @return The latency in [s] or {@link Double#NaN} if not known.
+     * @see AudioOutput#getLatency()
+     */
+    public double getOutputLatency() {
+        final @Nullable AudioOutput output = audioOutput;
+        return output == null ? Double.NaN : output.getLatency();
+    }
+
+    private static double getBufferGoal(@NotNull BufferMetrics metrics, double fallback) {
+        final double goal = metrics.getGoal();
+        return Double.isNaN(goal) ? fallback : goal;
+    }
+
+    /* Small goals are polled more often, so reaching them is noticed before the buffered amount is doubled. */
+    private static long getPollInterval(double goal) {
+        final long interval = (long) (TimeUnit.SECONDS.toMillis(1) * goal / BUFFERING_POLLS_PER_GOAL);
+        return Math.max(BUFFERING_MIN_POLL_INTERVAL, Math.min(BUFFERING_POLL_INTERVAL, interval));
+    }
+
+    private void pollBufferMetrics() {
+        if (muxer.getMetrics(bufferMetrics))
+            hasBufferMetrics = true;
+    }
+
+    private void buffer(double fallbackGoal) {
         setPlayerState(PlayerState.BUFFERING);
         try {
             while (!isInterrupted() && muxer.isValid()) {
-                lastBufferStatus = bufferStateQueue.take();
-                if (lastBufferStatus.getCurrent() > bufferGoal) {
+                final double goal;
+
+                pollBufferMetrics();
+                goal = hasBufferMetrics ? getBufferGoal(bufferMetrics, fallbackGoal) : fallbackGoal;
+                if (hasBufferMetrics && bufferMetrics.getCurrent() > goal) {
                     break;
                 }
+                //noinspection BusyWait
+                sleep(getPollInterval(goal));
             }
         } catch (InterruptedException ignored) {
+            interrupt();
         }
         setPlayerState(PlayerState.PLAYING);
     }
 
+    private void play() throws IOException {
+        final @NotNull AudioOutput output = Objects.requireNonNull(audioOutput);
+
+        if (output instanceof PullAudioOutput) {
+            // The queue is kept if the output was reopened after a pause.
+            if (renderQueue == null)
+                renderQueue = new RenderQueue();
+            ((PullAudioOutput) output).start(renderQueue);
+        } else {
+            output.play();
+        }
+    }
+
+    /**
+     * Passes a block to the output.
+     * If the output pulls, the block is staged and this only blocks while the staging area is full.
+     * This way the output's timing is not affected by reading from the muxer or sending metadata.
+     */
+    private void output(@NotNull PCMDataBlock block) throws IOException {
+        if (renderQueue != null) {
+            try {
+                renderQueue.put(block);
+            } catch (InterruptedException e) {
+                interrupt();
+            }
+        } else {
+            Objects.requireNonNull(audioOutput).write(block);
+        }
+    }
+
+    /**
+     * Gets the next block to play.
+     * <P>
+     * If there is an underrun policy and the buffer runs empty this returns audio to conceal the gap,
+     * so the output keeps running. Only if the gap lasts longer than the grace period playback stops and buffers again.
+     * Gaps during handovers are always concealed as the next entry is about to be selected.
+     *
+     * @param last The last block played.
+     * @return The next block.
+     */
+    private @NotNull PCMDataBlock next(@NotNull PCMDataBlock last) throws IOException {
+        final @Nullable UnderrunPolicy policy = underrunPolicy;
+        final double goal = Double.isNaN(rebufferGoal) ? bufferGoal : rebufferGoal;
+        @Nullable PCMDataBlock block;
+
+        if (policy == null) {
+            if (hasBufferMetrics && bufferMetrics.getCurrent() < AUDIO_BUFFER_MAX_BEFORE_REBUFFER && !muxer.isInHandover()) {
+                buffer(goal);
+            }
+            return convert(muxer.read());
+        }
+
+        block = muxer.poll();
+        if (block == null) {
+            if (concealer.getGapLength() < policy.getGracePeriod() || muxer.isInHandover())
+                return concealer.conceal(last, policy.getFadeOut());
+            buffer(goal);
+            block = muxer.read();
+        }
+
+        concealer.end();
+        return convert(block);
+    }
+
+    private boolean waitForResume(long timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout;
+
+        synchronized (pauseLock) {
+            while (paused) {
+                if (timeout < 0) {
+                    pauseLock.wait();
+                } else {
+                    final long left = deadline - System.nanoTime();
+                    if (left <= 0)
+                        return false;
+                    TimeUnit.NANOSECONDS.timedWait(pauseLock, left);
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Pauses the output until playback is resumed.
+     * <P>
+     * The output is kept open and keeps the audio already passed to it, so that is played right away on resume.
+     * If the pause lasts longer than the idle timeout the output is closed and opened again on resume.
+     * The buffers and the blocks staged for an output that pulls are kept in both cases.
+     * Only the audio already held by the closed device and the rest of a partly rendered block are dropped.
+     *
+     * @param next The next block to play.
+     */
+    private void pauseOutput(@NotNull PCMDataBlock next) throws IOException, InterruptedException {
+        final double idleTimeout = outputIdleTimeout;
+        final long position;
+        final double pending;
+        final boolean staged;
+
+        Objects.requireNonNull(audioOutput).pause();
+        position = getFramePosition();
+        pending = getOutputLatency();
+        setPlayerState(PlayerState.PAUSED);
+
+        if (waitForResume(Double.isInfinite(idleTimeout) ? -1 : (long) (TimeUnit.SECONDS.toNanos(1) * idleTimeout))) {
+            Objects.requireNonNull(audioOutput).play();
+            setPlayerState(PlayerState.PLAYING);
+            probeResume(position, pending > 0, next);
+        } else {
+            releaseOutput();
+            waitForResume(-1);
+            openOutput(next);
+            staged = renderQueue != null && renderQueue.size() > 0;
+            play();
+            setPlayerState(PlayerState.PLAYING);
+            // The new output starts at position zero and plays the staged blocks first.
+            probeResume(staged ? 0 : -1, staged, next);
+        }
+    }
+
+    /**
+     * Starts measuring the time from resuming to audio being audible.
+     * <P>
+     * This does not block, so the output is fed right away.
+     * If the output still holds audio the time is taken when its position advances, see {@link #checkResume()}.
+     * Otherwise, the time is taken when the next block becomes audible.
+     *
+     * @param position The position of the output to wait for or {@code -1} if not known.
+     * @param pending Whether the output holds audio to play before the next block.
+     * @param next The next block to play.
+     */
+    private void probeResume(long position, boolean pending, @NotNull PCMDataBlock next) {
+        final long resumed = resumeTime;
+
+        resumeLatency = Double.NaN;
+        if (position >= 0 && pending) {
+            resumePosition = position;
+        } else {
+            resumePosition = -1;
+            next.onAudible(() -> resumeLatency = (System.nanoTime() - resumed) / 1e9);
+        }
+    }
+
+    /**
+     * Takes the resume latency once the position of the output advanced after a resume.
+     * This is called every time a block has been passed to the output.
+     */
+    private void checkResume() {
+        if (resumePosition < 0)
+            return;
+
+        if (getFramePosition() > resumePosition) {
+            resumeLatency = (System.nanoTime() - resumeTime) / 1e9;
+            resumePosition = -1;
+        }
+    }
+
+    private @NotNull PCMDataBlock convert(@NotNull PCMDataBlock block) {
+        return resampler == null ? block : resampler.process(block);
+    }
+
     @Override
     public void run() {
         @NotNull PCMDataBlock block;
+        boolean running = true;
 
         try {
             prepare();
@@ -162,40 +544,53 @@ class PlaybackThread extends Thread {
         assert audioOutput != null;
         block = Objects.requireNonNull(initialAudioBlock);
 
-        muxer.addBufferStatusConsumer(bufferStatusConsumer);
-        buffer();
-        audioOutput.play();
-        while (!isInterrupted()) {
+        buffer(bufferGoal);
+        try {
+            play();
+        } catch (IOException e) {
+            setPlayerState(PlayerState.ERROR);
+            running = false;
+        }
+        while (running && !isInterrupted()) {
+            if (paused) {
+                try {
+                    pauseOutput(block);
+                } catch (InterruptedException e) {
+                    break;
+                } catch (IOException e) {
+                    setPlayerState(PlayerState.ERROR);
+                    break;
+                }
+            }
+
+            // This must be called before the block is passed to the output as it may become audible right away.
+            sendMetadata(block);
+
             try {
-                audioOutput.write(block);
+                output(block);
             } catch (IOException e) {
                 setPlayerState(PlayerState.ERROR);
                 break;
             }
 
-            sendMetadata(block);
-
-            while (!bufferStateQueue.isEmpty())
-                lastBufferStatus = bufferStateQueue.poll();
-
-            if (lastBufferStatus != null && lastBufferStatus.getCurrent() < AUDIO_BUFFER_MAX_BEFORE_REBUFFER && !muxer.isInHandover()) {
-                buffer();
-            }
+            checkResume();
+            pollBufferMetrics();
 
             try {
-                block = muxer.read();
+                final @NotNull PCMDataBlock last = block;
+
+                block = next(last);
+                // The last block is kept until now as it is used to conceal a gap.
+                last.release();
             } catch (IOException e) {
                 setPlayerState(PlayerState.ERROR);
                 break;
             }
         }
-        muxer.removeBufferStatusConsumer(bufferStatusConsumer);
 
-        try {
-            audioOutput.close();
-        } catch (IOException ignored) {
-        }
-        audioOutput = null;
+        block.release();
+        closeOutput();
+        resampler = null;
         for (final @NotNull Transaction t : stopTransactions) {
             t.setAudioComplete(CompletionState.DONE);
         }
@@ -209,6 +604,24 @@ class PlaybackThread extends Thread {
         interrupt();
     }
 
+    /**
+     * Pauses playback. The output and the buffers are kept, see {@link #setOutputIdleTimeout(double)}.
+     */
+    public void pausePlayback() {
+        paused = true;
+    }
+
+    /**
+     * Resumes playback after {@link #pausePlayback()}.
+     */
+    public void resumePlayback() {
+        synchronized (pauseLock) {
+            resumeTime = System.nanoTime();
+            paused = false;
+            pauseLock.notifyAll();
+        }
+    }
+
     public void start(@Nullable Transaction transaction) {
         if (transaction != null)
             startTransactions.add(transaction);
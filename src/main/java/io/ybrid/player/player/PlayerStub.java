@@ -28,12 +28,16 @@ import io.ybrid.api.transaction.Transaction;
 import io.ybrid.api.transaction.TransactionExecutionException;
 import io.ybrid.player.io.DataSourceFactory;
 import io.ybrid.player.io.DataSourceFactorySelector;
+import io.ybrid.player.io.audio.BufferMetrics;
+import io.ybrid.player.io.audio.BufferMetricsProvider;
 import io.ybrid.player.io.audio.BufferMuxer;
 import io.ybrid.player.io.audio.BufferStatusConsumer;
 import io.ybrid.player.io.audio.output.AudioOutputFactory;
 import io.ybrid.player.io.decoder.DecoderFactory;
 import io.ybrid.player.io.decoder.DecoderFactorySelector;
 import io.ybrid.player.io.decoder.DemuxerDecoderFactory;
+import io.ybrid.player.util.EventDispatcher;
+import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -46,14 +50,17 @@ import java.util.logging.Logger;
  *
  * This does not contain any audio processing.
  */
-abstract class PlayerStub implements Player {
+abstract class PlayerStub implements Player, BufferMetricsProvider {
     static final @NonNls Logger LOGGER = Logger.getLogger(PlayerStub.class.getName());
+    private static final @NonNls String EVENT_THREAD_NAME = "YbridPlayer Event Thread";
 
     protected final @NotNull Session session;
     protected final @NotNull BufferMuxer muxer;
     protected final @NotNull DecoderFactorySelector decoderFactory;
     protected final @NotNull AudioOutputFactory externalAudioBackendFactory;
     protected final @NotNull DataSourceFactory dataSourceFactory;
+    /* Runs all callbacks into the application so they can not delay the playback. */
+    protected final @NotNull EventDispatcher eventDispatcher = new EventDispatcher(EVENT_THREAD_NAME);
     protected MetadataConsumer metadataConsumer = null;
     protected boolean autoReconnect = true;
 
@@ -66,7 +73,7 @@ abstract class PlayerStub implements Player {
 
         this.dataSourceFactory = dataSourceFactory;
 
-        this.muxer = new BufferMuxer(session, this);
+        this.muxer = new BufferMuxer(session, this, eventDispatcher);
 
         this.decoderFactory = new DecoderFactorySelector();
         this.decoderFactory.add(new DemuxerDecoderFactory(this.decoderFactory));
@@ -112,6 +119,28 @@ abstract class PlayerStub implements Player {
         muxer.removeBufferStatusConsumer(consumer);
     }
 
+    /**
+     * Fills the given snapshot with the metrics of the buffer currently played.
+     * This can be called at any rate and does not allocate any objects.
+     * @param metrics The snapshot to fill.
+     * @return Whether metrics are available.
+     */
+    @Override
+    public boolean getMetrics(@NotNull BufferMetrics metrics) {
+        return muxer.getMetrics(metrics);
+    }
+
+    /**
+     * Gets the dispatcher used to run callbacks into the application.
+     * This can be used to monitor the number of dropped or late events.
+     * The dispatcher is closed when the player is stopped.
+     * @return The dispatcher.
+     */
+    @ApiStatus.Experimental
+    public @NotNull EventDispatcher getEventDispatcher() {
+        return eventDispatcher;
+    }
+
     /**
      * Execute the given transaction on this player.
      *
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.player;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Serializable;
+
+/**
+ * This controls how the player handles short gaps in the received audio.
+ * <P>
+ * When the buffer runs empty the player keeps feeding the audio output so the output's clock keeps running.
+ * The last audio is faded out and followed by silence. If no audio has been received after the grace period
+ * the player stops and buffers again.
+ *
+ * @see YbridPlayer#setUnderrunPolicy(UnderrunPolicy)
+ */
+@ApiStatus.Experimental
+final public class UnderrunPolicy implements Serializable {
+    private static final long serialVersionUID = -2207638418837152063L;
+
+    /**
+     * The default policy.
+     */
+    public static final @NotNull UnderrunPolicy DEFAULT = new UnderrunPolicy(1, 0.01);
+
+    private final double gracePeriod;
+    private final double fadeOut;
+
+    /**
+     * Creates a new policy.
+     *
+     * @param gracePeriod The maximum length of a gap to be concealed before buffering again in [s].
+     * @param fadeOut The length of the fade out at the start of a gap in [s].
+     */
+    public UnderrunPolicy(double gracePeriod, double fadeOut) {
+        if (gracePeriod < 0)
+            throw new IllegalArgumentException("Invalid grace period: " + gracePeriod);
+        if (fadeOut <= 0)
+            throw new IllegalArgumentException("Invalid fade out: " + fadeOut);
+
+        this.gracePeriod = gracePeriod;
+        this.fadeOut = fadeOut;
+    }
+
+    /**
+     * Gets the maximum length of a gap to be concealed.
+     * @return The grace period in [s].
+     */
+    @Contract(pure = true)
+    public double getGracePeriod() {
+        return gracePeriod;
+    }
+
+    /**
+     * Gets the length of the fade out at the start of a gap.
+     * @return The length in [s].
+     */
+    @Contract(pure = true)
+    public double getFadeOut() {
+        return fadeOut;
+    }
+
+    @Override
+    public @NotNull String toString() {
+        //noinspection HardCodedStringLiteral
+        return "UnderrunPolicy{" +
+                "gracePeriod=" + gracePeriod +
+                ", fadeOut=" + fadeOut +
+                "}";
+    }
+}
@@ -28,7 +28,9 @@ import io.ybrid.api.SubInfo;
 import io.ybrid.api.bouquet.Bouquet;
 import io.ybrid.player.io.DataBlock;
 import io.ybrid.player.io.DataSourceFactory;
+import io.ybrid.player.io.audio.AdaptiveBufferPolicy;
 import io.ybrid.player.io.audio.BufferStatusProvider;
+import io.ybrid.player.io.audio.Resampler;
 import io.ybrid.player.io.audio.output.AudioOutput;
 import io.ybrid.player.io.audio.output.AudioOutputFactory;
 import io.ybrid.player.io.decoder.Decoder;
@@ -48,8 +50,6 @@ import java.util.logging.Logger;
 public class YbridPlayer extends BasePlayer implements MediaController, BufferStatusProvider {
     static final @NonNls Logger LOGGER = Logger.getLogger(YbridPlayer.class.getName());
 
-    private static final double AUDIO_BUFFER_PREBUFFER = 1.5; /* [s] */
-
     private PlayerState playerState = PlayerState.STOPPED;
 
     /**
@@ -93,7 +93,196 @@ public class YbridPlayer extends BasePlayer implements MediaController, BufferSt
      */
     public YbridPlayer(@NotNull Session session, @Nullable DecoderFactory externalDecoderFactory, @NotNull AudioOutputFactory audioOutputFactory, @Nullable DataSourceFactory dataSourceFactory) {
         super(session, externalDecoderFactory, audioOutputFactory, dataSourceFactory);
-        this.playbackThread.setBufferGoal(AUDIO_BUFFER_PREBUFFER);
+        setLatencyProfile(LatencyProfile.DEFAULT);
+    }
+
+    /**
+     * Sets the profile that controls how far playback runs behind the live signal.
+     * <P>
+     * This sets the buffer target, the amount of audio buffered before playback starts and after underruns,
+     * the size of network reads, and the buffer length of the audio output together.
+     * The buffer target and the read length apply to streams connected after this call.
+     * The output buffer length applies if set before playback is prepared.
+     *
+     * @param profile The profile to use.
+     * @see LatencyProfile#LOW_LATENCY
+     */
+    @ApiStatus.Experimental
+    public void setLatencyProfile(@NotNull LatencyProfile profile) {
+        muxer.setBufferTarget(profile.getBufferTarget());
+        playbackThread.setBufferGoal(profile.getPrebuffer());
+        playbackThread.setRebufferGoal(profile.getRebuffer());
+        playbackThread.setOutputBufferLength(profile.getOutputBufferLength());
+        readLength = profile.getReadLength();
+    }
+
+    /**
+     * Sets whether the stream is buffered in encoded form and only decoded just ahead of playback.
+     * This reduces the memory used for buffering by about a factor of ten. The encoded stream is buffered before
+     * it is demuxed, so this works with all formats.
+     * The setting applies to streams connected after this call.
+     *
+     * @param encodedBuffer Whether to buffer encoded data.
+     */
+    @ApiStatus.Experimental
+    public void setEncodedBuffer(boolean encodedBuffer) {
+        this.encodedBuffer = encodedBuffer;
+    }
+
+    /**
+     * Sets the number of frames per block passed to the audio output.
+     * <P>
+     * Decoded audio is combined or split into blocks of this length before it is buffered.
+     * Longer blocks reduce the number of writes to the output and the CPU load, shorter blocks the latency.
+     * Best results are achieved with a multiple of the period of the output device,
+     * for example 480 frames for a 10ms period at 48kHz. The setting applies to streams connected after this call.
+     *
+     * @param frames The number of frames per block in [frame] or {@code 0} to pass blocks as decoded.
+     */
+    @ApiStatus.Experimental
+    public void setChunkLength(int frames) {
+        muxer.setChunkLength(frames);
+    }
+
+    /**
+     * Sets the policy used to adapt the amount of buffered audio to the network conditions.
+     * <P>
+     * If set the buffer target as well as the amount of audio buffered before playback starts are adjusted at runtime
+     * within the bounds given by the policy. The setting applies to streams connected after this call.
+     *
+     * @param policy The policy to use, {@code null} to use fixed values.
+     * @see AdaptiveBufferPolicy#DEFAULT
+     */
+    @ApiStatus.Experimental
+    public void setAdaptiveBufferPolicy(@Nullable AdaptiveBufferPolicy policy) {
+        muxer.setAdaptiveBufferPolicy(policy);
+    }
+
+    /**
+     * Sets how gaps in the received audio are handled.
+     * <P>
+     * With a policy set short gaps are concealed so the audio output keeps running
+     * and playback only stops to buffer again if a gap lasts longer than the grace period.
+     *
+     * @param policy The policy to use or {@code null} to buffer again as soon as the buffer runs empty.
+     * @see UnderrunPolicy#DEFAULT
+     */
+    @ApiStatus.Experimental
+    public void setUnderrunPolicy(@Nullable UnderrunPolicy policy) {
+        playbackThread.setUnderrunPolicy(policy);
+    }
+
+    /**
+     * Sets whether the audio is converted to the format playback started with.
+     * <P>
+     * If enabled, changes of the sample rate or the number of channels, for example on a handover between services
+     * using different codecs, do not interrupt the audio output. If disabled the audio output is reconfigured instead,
+     * which causes a short gap. The setting applies when playback is prepared.
+     * <P>
+     * Conversion is disabled by default. If enabled, the audio is converted to the format of the first stream played.
+     * {@link Resampler.Quality#POLYPHASE} is recommended unless CPU time is very limited.
+     *
+     * @param quality The quality of the sample rate conversion or {@code null} to disable conversion.
+     */
+    @ApiStatus.Experimental
+    public void setResamplerQuality(@Nullable Resampler.Quality quality) {
+        playbackThread.setResamplerQuality(quality);
+    }
+
+    /**
+     * Gets the quality used to convert the audio to the format playback started with.
+     * @return The quality or {@code null} if conversion is disabled.
+     * @see #setResamplerQuality(Resampler.Quality)
+     */
+    @ApiStatus.Experimental
+    public @Nullable Resampler.Quality getResamplerQuality() {
+        return playbackThread.getResamplerQuality();
+    }
+
+    /**
+     * Pauses playback.
+     * <P>
+     * Unlike {@link #stop()} this keeps the connection, the buffered audio and, for a while, the audio output,
+     * so that playback can be resumed quickly using {@link #resume()}.
+     *
+     * @see #setOutputIdleTimeout(double)
+     */
+    @ApiStatus.Experimental
+    public void pause() {
+        playbackThread.pausePlayback();
+    }
+
+    /**
+     * Resumes playback after {@link #pause()}.
+     * Playback continues with the buffered audio.
+     */
+    @ApiStatus.Experimental
+    public void resume() {
+        playbackThread.resumePlayback();
+    }
+
+    /**
+     * Sets how long the audio output is kept open while paused.
+     * <P>
+     * While open the output holds the audio already passed to it, so it is audible right after {@link #resume()}.
+     * After this time the output is closed to release the device and opened again on resume.
+     *
+     * @param timeout The time in [s]. {@link Double#POSITIVE_INFINITY} keeps the output open while paused.
+     */
+    @ApiStatus.Experimental
+    public void setOutputIdleTimeout(double timeout) {
+        playbackThread.setOutputIdleTimeout(timeout);
+    }
+
+    /**
+     * Gets the time it took for audio to become audible after the last call to {@link #resume()}.
+     * @return The time in [s] or {@link Double#NaN} if not yet known.
+     */
+    @ApiStatus.Experimental
+    public double getResumeLatency() {
+        return playbackThread.getResumeLatency();
+    }
+
+    /**
+     * Gets the number of gaps in the received audio that have been concealed.
+     * @return The number of gaps.
+     * @see #setUnderrunPolicy(UnderrunPolicy)
+     */
+    @ApiStatus.Experimental
+    public long getConcealedGaps() {
+        return playbackThread.getConcealedGaps();
+    }
+
+    /**
+     * Gets the total length of audio played to conceal gaps in the received audio.
+     * @return The length in [s].
+     * @see #setUnderrunPolicy(UnderrunPolicy)
+     */
+    @ApiStatus.Experimental
+    public double getConcealedLength() {
+        return playbackThread.getConcealedLength();
+    }
+
+    /**
+     * Gets the number of frames played by the audio output so far.
+     * <P>
+     * This is based on the position reported by the output device. It never decreases and is cheap to call.
+     * Frames are counted in the audio format they were played in.
+     *
+     * @return The position in [frame] or {@code -1} if not known.
+     */
+    @ApiStatus.Experimental
+    public long getPlaybackFramePosition() {
+        return playbackThread.getFramePosition();
+    }
+
+    /**
+     * Gets the time it takes for audio passed to the audio output to be played.
+     * @return The latency in [s] or {@link Double#NaN} if not known.
+     */
+    @ApiStatus.Experimental
+    public double getOutputLatency() {
+        return playbackThread.getOutputLatency();
     }
 
     @Override
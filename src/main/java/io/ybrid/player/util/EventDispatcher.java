@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * This runs events such as callbacks into the application on a dedicated thread.
+ * <P>
+ * Events are queued by any thread without waiting for previous events to complete. So a slow listener
+ * only delays other events, but never the thread producing them. There are three classes of events:
+ * <ul>
+ *     <li>Critical events are never dropped, see {@link #dispatchCritical(Runnable)}.
+ *     They are used for events that must not be missed such as player state changes.</li>
+ *     <li>Keyed events replace a pending event with the same key, see {@link #dispatch(Object, Runnable)}.
+ *     They are used for events that supersede older ones such as metadata and status updates.</li>
+ *     <li>All other events are dropped if the queue is full, see {@link #dispatch(Runnable)}.</li>
+ * </ul>
+ * <P>
+ * Events are run in the order they have been queued. A replacing event takes the place of the event it replaces.
+ * After {@link #close()} new events are dropped.
+ */
+@ApiStatus.Experimental
+public final class EventDispatcher implements Closeable {
+    static final @NonNls Logger LOGGER = Logger.getLogger(EventDispatcher.class.getName());
+
+    /**
+     * The default number of events that can be pending.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+    /**
+     * The default delay in [ns] after which an event is considered late.
+     */
+    public static final long DEFAULT_LATE_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final class Event {
+        private final @Nullable Object key;
+        private final long timestamp;
+        private @NotNull Runnable runnable;
+
+        private Event(@Nullable Object key, @NotNull Runnable runnable, long timestamp) {
+            this.key = key;
+            this.runnable = runnable;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final @NotNull ArrayDeque<Event> queue = new ArrayDeque<>();
+    private final @NotNull Map<Object, Event> pending = new HashMap<>();
+    private final int capacity;
+    private final long lateThreshold;
+    private final @NotNull Thread thread;
+    private boolean closed = false;
+    private long dropped = 0;
+    private long coalesced = 0;
+    /* Only written by the dispatch thread. */
+    private volatile long executed = 0;
+    private volatile long late = 0;
+    private volatile long maxDelay = 0;
+
+    /**
+     * Creates a new dispatcher with default settings.
+     * @param name The name of the dispatch thread.
+     */
+    public EventDispatcher(@NotNull @NonNls String name) {
+        this(name, DEFAULT_CAPACITY, DEFAULT_LATE_THRESHOLD);
+    }
+
+    /**
+     * Creates a new dispatcher.
+     * @param name The name of the dispatch thread.
+     * @param capacity The maximum number of pending events.
+     * @param lateThreshold The delay in [ns] between queuing and running an event after which it is counted as late.
+     */
+    public EventDispatcher(@NotNull @NonNls String name, int capacity, long lateThreshold) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be >= 1, got " + capacity);
+
+        this.capacity = capacity;
+        this.lateThreshold = lateThreshold;
+
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues an event.
+     * @param runnable The event to run.
+     * @return Whether the event was queued. If {@code false} the event was dropped.
+     */
+    public boolean dispatch(@NotNull Runnable runnable) {
+        return dispatch(null, runnable);
+    }
+
+    /**
+     * Queues an event that must not be dropped.
+     * <P>
+     * The event is queued even if the queue is full. This must only be used for events that are rare
+     * by nature, such as state changes, as it does not limit the number of pending events.
+     * @param runnable The event to run.
+     * @return Whether the event was queued. This is only {@code false} if the dispatcher has been closed.
+     */
+    public synchronized boolean dispatchCritical(@NotNull Runnable runnable) {
+        if (closed) {
+            dropped++;
+            return false;
+        }
+
+        queue.add(new Event(null, runnable, System.nanoTime()));
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Queues an event. If an event with the same key is still pending it is replaced.
+     * @param key The key of the event or {@code null}.
+     * @param runnable The event to run.
+     * @return Whether the event was queued. If {@code false} the event was dropped.
+     */
+    public synchronized boolean dispatch(@Nullable Object key, @NotNull Runnable runnable) {
+        final @NotNull Event event;
+
+        if (closed) {
+            dropped++;
+            return false;
+        }
+
+        if (key != null) {
+            final @Nullable Event old = pending.get(key);
+            if (old != null) {
+                old.runnable = runnable;
+                coalesced++;
+                return true;
+            }
+        }
+
+        if (queue.size() >= capacity) {
+            dropped++;
+            return false;
+        }
+
+        event = new Event(key, runnable, System.nanoTime());
+        queue.add(event);
+        if (key != null)
+            pending.put(key, event);
+        notifyAll();
+        return true;
+    }
+
+    private synchronized @Nullable Event take() throws InterruptedException {
+        final @NotNull Event event;
+
+        while (queue.isEmpty()) {
+            if (closed)
+                return null;
+            wait();
+        }
+
+        event = queue.remove();
+        if (event.key != null)
+            pending.remove(event.key);
+        return event;
+    }
+
+    private void run() {
+        try {
+            for (@Nullable Event event = take(); event != null; event = take()) {
+                final long delay = System.nanoTime() - event.timestamp;
+
+                if (delay > lateThreshold)
+                    late++;
+                if (delay > maxDelay)
+                    maxDelay = delay;
+
+                try {
+                    event.runnable.run();
+                } catch (Throwable e) {
+                    LOGGER.warning("Event " + event.runnable + " failed with " + e);
+                }
+                executed++;
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    /**
+     * Gets the number of events that have been run.
+     * @return The number of events.
+     */
+    public long getExecuted() {
+        return executed;
+    }
+
+    /**
+     * Gets the number of events that have been dropped as the queue was full or the dispatcher was closed.
+     * @return The number of events.
+     */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Gets the number of events that replaced a pending event with the same key.
+     * @return The number of events.
+     */
+    public synchronized long getCoalesced() {
+        return coalesced;
+    }
+
+    /**
+     * Gets the number of events that were run later than the threshold given to the constructor.
+     * @return The number of events.
+     */
+    public long getLate() {
+        return late;
+    }
+
+    /**
+     * Gets the longest delay between queuing and running an event.
+     * @return The delay in [ns].
+     */
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    /**
+     * Gets the number of events currently pending.
+     * @return The number of events.
+     */
+    public synchronized int getPending() {
+        return queue.size();
+    }
+
+    /**
+     * Waits for the dispatch thread to end after {@link #close()}.
+     * @param timeout The maximum time to wait.
+     * @param unit The unit of {@code timeout}.
+     * @return Whether the thread has ended.
+     * @throws InterruptedException Thrown if the calling thread is interrupted while waiting.
+     */
+    public boolean awaitTermination(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+        return !thread.isAlive();
+    }
+
+    /**
+     * Closes the dispatcher. Events already queued are still run, then the dispatch thread ends.
+     * New events are dropped.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+}
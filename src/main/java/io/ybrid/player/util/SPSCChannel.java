@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2022 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.util;
+
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This implements a bounded, array backed, lock-free channel between exactly one producer and one consumer.
+ * <P>
+ * Only one thread may use the producer methods ({@link #offer(Object)}, {@link #put(Object)}, and {@link #close()})
+ * and only one thread may use the consumer methods ({@link #poll()}, {@link #take()}, {@link #poll(long, TimeUnit)},
+ * and {@link #clear()}) at any given time. If more than one thread needs to produce (or consume) the calls must
+ * be serialized by the caller, for example by holding a common lock.
+ * All other methods can be called by any thread.
+ * <P>
+ * Blocking methods park the calling thread and are unparked by the other side.
+ * No objects are allocated by any of the methods.
+ *
+ * @param <T> The type of the elements.
+ */
+@ApiStatus.Internal
+public final class SPSCChannel<T> {
+    /* The padding keeps the producer and the consumer index on different cache lines. */
+    @SuppressWarnings("unused")
+    private static class PaddedIndex {
+        private long p0, p1, p2, p3, p4, p5, p6;
+        private volatile long value;
+        private long q0, q1, q2, q3, q4, q5, q6;
+    }
+
+    private final @Nullable Object[] slots;
+    private final int mask;
+    /* Next index to read. Written by the consumer only. */
+    private final @NotNull PaddedIndex head = new PaddedIndex();
+    /* Next index to write. Written by the producer only. */
+    private final @NotNull PaddedIndex tail = new PaddedIndex();
+    private volatile @Nullable Thread waitingConsumer = null;
+    private volatile @Nullable Thread waitingProducer = null;
+    private volatile boolean closed = false;
+    private volatile long producerIdleWakeups = 0;
+    private volatile long consumerIdleWakeups = 0;
+
+    /**
+     * Creates a new channel.
+     *
+     * @param capacity The minimum number of elements the channel can hold. This is rounded up to the next power of two.
+     */
+    public SPSCChannel(int capacity) {
+        int size = 1;
+
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be >= 1, got " + capacity);
+
+        while (size < capacity)
+            size <<= 1;
+
+        slots = new Object[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Gets the number of elements this channel can hold.
+     * @return The capacity.
+     */
+    @Contract(pure = true)
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Gets the number of elements currently queued.
+     * The value may be outdated by the time it is returned if the channel is in use.
+     * @return The number of elements.
+     */
+    public int size() {
+        final long h = head.value;
+        return (int) (tail.value - h);
+    }
+
+    /**
+     * Gets whether the channel is currently empty.
+     * @return Whether the channel is empty.
+     */
+    public boolean isEmpty() {
+        return head.value == tail.value;
+    }
+
+    /**
+     * Gets whether the producer closed the channel.
+     * A closed channel may still contain elements.
+     * @return Whether the channel is closed.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the number of times a blocked thread woke up without being able to make progress.
+     * @return The number of idle wakeups.
+     */
+    public long getIdleWakeups() {
+        return producerIdleWakeups + consumerIdleWakeups;
+    }
+
+    private static void unpark(@Nullable Thread thread) {
+        if (thread != null)
+            LockSupport.unpark(thread);
+    }
+
+    /* --------[ Producer ]-------- */
+
+    /**
+     * Adds an element if there is space left. This never blocks.
+     *
+     * @param element The element to add.
+     * @return Whether the element was added.
+     */
+    public boolean offer(@NotNull T element) {
+        final long t = tail.value;
+
+        if (closed)
+            throw new IllegalStateException("Channel is closed");
+
+        if ((t - head.value) >= slots.length)
+            return false;
+
+        slots[(int) (t & mask)] = element;
+        tail.value = t + 1;
+        unpark(waitingConsumer);
+        return true;
+    }
+
+    /**
+     * Adds an element and waits for space to become available if needed.
+     *
+     * @param element The element to add.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    public void put(@NotNull T element) throws InterruptedException {
+        if (offer(element))
+            return;
+
+        waitingProducer = Thread.currentThread();
+        try {
+            while (!offer(element)) {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                if ((tail.value - head.value) >= slots.length)
+                    producerIdleWakeups++;
+            }
+        } finally {
+            waitingProducer = null;
+        }
+    }
+
+    /**
+     * Closes the producer side of the channel.
+     * A consumer blocked in {@link #take()} or {@link #poll(long, TimeUnit)} will return {@code null}
+     * as soon as all remaining elements are consumed.
+     */
+    public void close() {
+        closed = true;
+        unpark(waitingConsumer);
+    }
+
+    /* --------[ Consumer ]-------- */
+
+    /**
+     * Removes the oldest element if any. This never blocks.
+     *
+     * @return The element or {@code null} if the channel is empty.
+     */
+    public @Nullable T poll() {
+        final long h = head.value;
+        final int index;
+        final T element;
+
+        if (h == tail.value)
+            return null;
+
+        index = (int) (h & mask);
+        //noinspection unchecked
+        element = (T) slots[index];
+        slots[index] = null;
+        head.value = h + 1;
+        unpark(waitingProducer);
+        return element;
+    }
+
+    /**
+     * Removes the oldest element waiting for one if needed.
+     *
+     * @return The element or {@code null} if the channel has been closed and all elements have been consumed.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    public @Nullable T take() throws InterruptedException {
+        return poll(-1, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Removes the oldest element waiting up to the given time for one if needed.
+     *
+     * @param timeout The maximum time to wait. A negative value waits forever.
+     * @param unit The unit of {@code timeout}.
+     * @return The element or {@code null} if the timeout expired or the channel has been closed and all elements have been consumed.
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting.
+     */
+    public @Nullable T poll(long timeout, @NotNull TimeUnit unit) throws InterruptedException {
+        final long deadline = timeout < 0 ? 0 : System.nanoTime() + unit.toNanos(timeout);
+        T element = poll();
+
+        if (element != null)
+            return element;
+
+        waitingConsumer = Thread.currentThread();
+        try {
+            // Poll again after announcing us to avoid a lost wakeup.
+            while ((element = poll()) == null) {
+                if (closed)
+                    return poll();
+
+                if (timeout < 0) {
+                    LockSupport.park(this);
+                } else {
+                    final long left = deadline - System.nanoTime();
+                    if (left <= 0)
+                        return null;
+                    LockSupport.parkNanos(this, left);
+                }
+
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                if (isEmpty() && !closed && (timeout < 0 || deadline - System.nanoTime() > 0))
+                    consumerIdleWakeups++;
+            }
+        } finally {
+            waitingConsumer = null;
+        }
+
+        return element;
+    }
+
+    /**
+     * Removes all elements.
+     */
+    public void clear() {
+        //noinspection StatementWithEmptyBody
+        while (poll() != null);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import io.ybrid.api.util.MediaType;
+import io.ybrid.player.io.audio.SignalInformation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Range;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class EncodedBufferTest {
+    private static final double TARGET = 1; // [s]
+    private static final int BLOCK_SIZE = (int) (EncodedBuffer.DEFAULT_BYTE_RATE / 10); // 0.1s at the default rate [byte]
+    private static final long TIMEOUT = 5000; // [ms]
+
+    private static final class Backend implements ByteDataSource {
+        private final @NotNull Set<String> threads = ConcurrentHashMap.newKeySet();
+        private volatile int blocksLeft;
+        private volatile int reads = 0;
+
+        private Backend(int blocksLeft) {
+            this.blocksLeft = blocksLeft;
+        }
+
+        @Override
+        public @NotNull ByteDataBlock read() throws IOException {
+            threads.add(Thread.currentThread().getName());
+            if (blocksLeft == 0)
+                throw new EOFException();
+            blocksLeft--;
+            reads++;
+            return new ByteDataBlock(Sync.Builder.buildEmpty(new Source(SourceType.SESSION)), null, new byte[BLOCK_SIZE]);
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public @Nullable MediaType getMediaType() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void waitForReads(int expected) throws InterruptedException {
+            final long end = System.currentTimeMillis() + TIMEOUT;
+            while (reads < expected) {
+                assertTrue("Timeout waiting for " + expected + " reads, got " + reads, System.currentTimeMillis() < end);
+                //noinspection BusyWait
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static final class Decoded implements SignalInformation {
+        private final int frames;
+
+        private Decoded(int frames) {
+            this.frames = frames;
+        }
+
+        @Override
+        public @Range(from = 1, to = Integer.MAX_VALUE) int getSampleRate() {
+            return 48000;
+        }
+
+        @Override
+        public @Range(from = 0, to = Integer.MAX_VALUE) int getLengthAsFrames() {
+            return frames;
+        }
+    }
+
+    @Test
+    public void readsAheadUpToTarget() throws IOException, InterruptedException {
+        final @NotNull Backend backend = new Backend(-1);
+        final @NotNull EncodedBuffer buffer = new EncodedBuffer(backend, TARGET);
+
+        try {
+            // The buffer stops after the first block that brings it above the target.
+            backend.waitForReads(11);
+            Thread.sleep(200);
+            assertEquals(11, backend.reads);
+            assertEquals(11 * BLOCK_SIZE, buffer.getBufferedBytes());
+            assertEquals(1.1, buffer.getLength(), 1e-9);
+
+            // Dropping to the low watermark refills the buffer.
+            buffer.read();
+            buffer.read();
+            backend.waitForReads(13);
+            assertTrue(buffer.isValid());
+
+            // Only the internal thread touches the backend.
+            assertEquals(Collections.singleton("Encoded Buffer Thread"), backend.threads);
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void lengthFollowsDecodedAudio() throws IOException, InterruptedException {
+        final @NotNull Backend backend = new Backend(-1);
+        final @NotNull EncodedBuffer buffer = new EncodedBuffer(backend, TARGET);
+
+        try {
+            backend.waitForReads(11);
+
+            // 5 blocks decoded to 1s of audio makes the stream half the default rate.
+            for (int i = 0; i < 5; i++)
+                buffer.read();
+            buffer.onDecoded(new Decoded(48000));
+
+            assertEquals(buffer.getBufferedBytes() / (EncodedBuffer.DEFAULT_BYTE_RATE / 2), buffer.getLength(), 1e-9);
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void forwardsEOF() throws IOException {
+        final @NotNull EncodedBuffer buffer = new EncodedBuffer(new Backend(3), TARGET);
+
+        try {
+            for (int i = 0; i < 3; i++)
+                assertEquals(BLOCK_SIZE, buffer.read().getData().length);
+            assertThrows(EOFException.class, buffer::read);
+            assertFalse(buffer.isValid());
+            assertEquals(0, buffer.getLength(), 1e-9);
+        } finally {
+            buffer.close();
+        }
+    }
+}
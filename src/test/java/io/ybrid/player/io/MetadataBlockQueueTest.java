@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.assertSame;
+
+public class MetadataBlockQueueTest {
+    private static final int CAPACITY = 32;
+    private static final @NotNull Sync SYNC = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+
+    private static @NotNull DataBlock[] blocks(int count) {
+        final @NotNull DataBlock[] ret = new DataBlock[count];
+
+        for (int i = 0; i < count; i++)
+            ret[i] = new ByteDataBlock(SYNC, null, new byte[]{(byte) i});
+
+        return ret;
+    }
+
+    @Test
+    public void inOrder() throws InterruptedException {
+        final @NotNull MetadataBlockQueue queue = new MetadataBlockQueue(CAPACITY);
+        final @NotNull DataBlock[] blocks = blocks(CAPACITY);
+
+        for (final @NotNull DataBlock block : blocks)
+            queue.add(block);
+
+        for (final @NotNull DataBlock block : blocks)
+            assertSame(block, queue.take());
+    }
+
+    @Test
+    public void newestBlockWinsOnOverflow() throws InterruptedException {
+        final @NotNull MetadataBlockQueue queue = new MetadataBlockQueue(CAPACITY);
+        final @NotNull DataBlock[] blocks = blocks(3 * CAPACITY + 1);
+        final @NotNull DataBlock next = blocks(1)[0];
+
+        for (final @NotNull DataBlock block : blocks)
+            queue.add(block);
+
+        // The consumer skips to the newest block and then continues normally.
+        assertSame(blocks[blocks.length - 1], queue.take());
+        queue.add(next);
+        assertSame(next, queue.take());
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveBufferControllerTest {
+    private static final double BLOCK_LENGTH = 0.02; // [s]
+    private static final long BLOCK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final double INITIAL_TARGET = 10; // [s]
+    private static final double DELTA = 1e-9;
+
+    /**
+     * Simulates a link delivering blocks in real time with up to 4ms of jitter on the arrival of each block
+     * and optionally a stall of the given length every {@code stallInterval} blocks.
+     * The link catches up after a stall by delivering blocks instantly.
+     */
+    private static void simulate(@NotNull AdaptiveBufferController controller, @NotNull Random random, int blocks, long stallNanos, int stallInterval) {
+        long backlog = 0;
+        long lastJitter = 0;
+
+        for (int i = 0; i < blocks; i++) {
+            final long jitter = (long) (random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(4));
+            long readTime = BLOCK_NANOS + jitter - lastJitter;
+
+            lastJitter = jitter;
+
+            if (stallInterval > 0 && (i % stallInterval) == (stallInterval / 2)) {
+                readTime += stallNanos;
+                backlog += stallNanos;
+            } else if (backlog > 0) {
+                backlog -= readTime;
+                readTime = 0;
+            }
+
+            controller.onBlock(readTime, BLOCK_LENGTH);
+        }
+    }
+
+    @Test
+    public void smoothLinkShrinksToMinimum() {
+        final @NotNull AdaptiveBufferPolicy policy = AdaptiveBufferPolicy.DEFAULT;
+        final @NotNull AdaptiveBufferController controller = new AdaptiveBufferController(policy, INITIAL_TARGET);
+
+        assertEquals(INITIAL_TARGET, controller.getTarget(), DELTA);
+
+        // 10 minutes of audio.
+        simulate(controller, new Random(1), 30_000, 0, 0);
+
+        assertEquals(policy.getMinimumTarget(), controller.getTarget(), 0.1);
+        assertEquals(policy.getMinimumGoal(), controller.getGoal(), 0.1);
+    }
+
+    @Test
+    public void jitteryLinkGrowsTargetAndGoal() {
+        final @NotNull AdaptiveBufferPolicy policy = AdaptiveBufferPolicy.DEFAULT;
+        final @NotNull AdaptiveBufferController controller = new AdaptiveBufferController(policy, policy.getMinimumTarget());
+        final @NotNull Random random = new Random(2);
+
+        // 1.5s stall every 10s.
+        simulate(controller, random, 3_000, TimeUnit.MILLISECONDS.toNanos(1500), 500);
+
+        System.out.println("Jittery link: target=" + controller.getTarget() + "s, goal=" + controller.getGoal() + "s");
+        assertTrue(controller.getTarget() >= policy.getMinimumTarget() + 2.5);
+        assertTrue(controller.getGoal() >= policy.getMinimumGoal() + 2.5);
+        assertTrue(controller.getTarget() <= policy.getMaximumTarget());
+
+        // The link becomes stable again: targets shrink, but slowly.
+        simulate(controller, random, 500, 0, 0);
+        assertTrue(controller.getTarget() > policy.getMinimumTarget() + 2);
+        simulate(controller, random, 60_000, 0, 0);
+        assertEquals(policy.getMinimumTarget(), controller.getTarget(), 0.1);
+    }
+
+    @Test
+    public void underrunsGrowTargetWithinBounds() {
+        final @NotNull AdaptiveBufferPolicy policy = new AdaptiveBufferPolicy(1, 4, 0.5, 2);
+        final @NotNull AdaptiveBufferController controller = new AdaptiveBufferController(policy, 1);
+
+        assertTrue(controller.onUnderrun());
+        assertEquals(1.5, controller.getTarget(), DELTA);
+        assertEquals(0.75, controller.getGoal(), DELTA);
+
+        for (int i = 0; i < 10; i++)
+            controller.onUnderrun();
+
+        assertEquals(policy.getMaximumTarget(), controller.getTarget(), DELTA);
+        assertEquals(policy.getMaximumGoal(), controller.getGoal(), DELTA);
+    }
+}
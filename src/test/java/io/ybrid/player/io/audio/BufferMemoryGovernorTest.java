@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BufferMemoryGovernorTest {
+    private static final double DELTA = 1e-9;
+    private static final long BYTES_PER_SECOND = 48000 * 2 * Short.BYTES; // 48kHz stereo
+
+    private static final class Member implements BufferMemoryGovernor.Member {
+        private double target;
+
+        private Member(double target) {
+            this.target = target;
+        }
+
+        @Override
+        public void setEffectiveTarget(double target) {
+            this.target = target;
+        }
+    }
+
+    private static @NotNull BufferMemoryGovernor.Registration register(@NotNull BufferMemoryGovernor governor, @NotNull Member member) {
+        final @NotNull BufferMemoryGovernor.Registration registration = governor.register(member, member.target);
+        registration.setBytesPerSecond(BYTES_PER_SECOND);
+        return registration;
+    }
+
+    @Test
+    public void unlimitedKeepsTargets() {
+        final @NotNull BufferMemoryGovernor governor = new BufferMemoryGovernor();
+        final @NotNull Member a = new Member(10);
+        final @NotNull Member b = new Member(10);
+
+        register(governor, a);
+        register(governor, b);
+
+        assertEquals(10, a.target, DELTA);
+        assertEquals(10, b.target, DELTA);
+    }
+
+    @Test
+    public void preferredIsServedFirst() {
+        final @NotNull BufferMemoryGovernor governor = new BufferMemoryGovernor();
+        final @NotNull Member selected = new Member(10);
+        final @NotNull Member a = new Member(10);
+        final @NotNull Member b = new Member(10);
+        final @NotNull BufferMemoryGovernor.Registration registration = register(governor, selected);
+
+        register(governor, a);
+        register(governor, b);
+        registration.setPreferred(true);
+
+        governor.setBudget(14 * BYTES_PER_SECOND);
+        assertEquals(10, selected.target, DELTA);
+        assertEquals(2, a.target, DELTA);
+        assertEquals(2, b.target, DELTA);
+
+        // Not even the preferred buffer fits.
+        governor.setBudget(5 * BYTES_PER_SECOND);
+        assertEquals(5, selected.target, DELTA);
+        assertEquals(BufferMemoryGovernor.MINIMUM_TARGET, a.target, DELTA);
+        assertEquals(BufferMemoryGovernor.MINIMUM_TARGET, b.target, DELTA);
+
+        governor.setBudget(BufferMemoryGovernor.UNLIMITED);
+        assertEquals(10, a.target, DELTA);
+
+        governor.onLowMemory();
+        assertEquals(BufferMemoryGovernor.MINIMUM_TARGET, selected.target, DELTA);
+        assertEquals(BufferMemoryGovernor.MINIMUM_TARGET, a.target, DELTA);
+        assertTrue(governor.getStatus().isLowMemory());
+
+        governor.clearLowMemory();
+        assertEquals(10, selected.target, DELTA);
+    }
+
+    @Test
+    public void closeReleasesTargetAndUsage() {
+        final @NotNull BufferMemoryGovernor governor = new BufferMemoryGovernor();
+        final @NotNull Member a = new Member(10);
+        final @NotNull Member b = new Member(10);
+        final @NotNull BufferMemoryGovernor.Registration registration = register(governor, a);
+
+        register(governor, b);
+        governor.setBudget(10 * BYTES_PER_SECOND);
+        assertEquals(5, b.target, DELTA);
+
+        registration.add(1000);
+        registration.add(500);
+        registration.remove(1000);
+        assertEquals(500, governor.getStatus().getCurrent());
+        assertEquals(1500, governor.getStatus().getPeak());
+
+        registration.close();
+        assertEquals(0, governor.getStatus().getCurrent());
+        assertEquals(1, governor.getStatus().getBuffers());
+        assertEquals(10, b.target, DELTA);
+
+        // Late updates after closing must not be accounted for.
+        registration.remove(500);
+        assertEquals(0, governor.getStatus().getCurrent());
+    }
+}
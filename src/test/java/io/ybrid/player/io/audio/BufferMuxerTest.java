@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.MetadataMixer;
+import io.ybrid.api.session.Session;
+import io.ybrid.api.transaction.CompletionState;
+import io.ybrid.api.transaction.Transaction;
+import io.ybrid.api.transport.ServiceTransportDescription;
+import io.ybrid.player.io.audio.generator.Function;
+import io.ybrid.player.io.audio.generator.Generator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class BufferMuxerTest {
+    private static final int SAMPLE_RATE = 1000;
+    private static final int BLOCK_SIZE = 250;
+    private static final int BLOCKS = 8;
+    private static final long TIMEOUT = 5000; // [ms]
+
+    private static final class StubSession extends Session {
+        private final @NotNull MetadataMixer metadataMixer = new MetadataMixer();
+
+        @Override
+        public @NotNull MetadataMixer getMetadataMixer() {
+            return metadataMixer;
+        }
+    }
+
+    private static final class StubTransaction implements Transaction {
+        @Override
+        public void run() {
+        }
+
+        @Override
+        public void setAudioComplete(@NotNull CompletionState state) {
+        }
+
+        @Override
+        public void onAudioComplete(@NotNull Runnable callback) {
+        }
+
+        @Override
+        public void waitControlComplete() {
+        }
+
+        @Override
+        public void assertSuccess() {
+        }
+
+        @Override
+        public @Nullable Throwable getError() {
+            return null;
+        }
+    }
+
+    private static final class StubTransportDescription extends ServiceTransportDescription {
+        private final @NotNull Transaction transaction = new StubTransaction();
+        private final @NotNull WorkaroundMap workarounds = new WorkaroundMap();
+
+        @Override
+        public @NotNull Transaction getTransaction() {
+            return transaction;
+        }
+
+        @Override
+        public @NotNull WorkaroundMap getActiveWorkarounds() {
+            return workarounds;
+        }
+    }
+
+    /**
+     * This is a backend that takes a long time to close like a network connection would.
+     * Closing blocks until {@link #release} is counted down.
+     */
+    private static final class SlowClosingBackend extends FilterPCMDataSource<Generator> {
+        private final @NotNull CountDownLatch closing = new CountDownLatch(1);
+        private final @NotNull CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean closed = false;
+
+        public SlowClosingBackend(int blocks) {
+            super(new Generator());
+            backend.setSampleRate(SAMPLE_RATE);
+            backend.setBlockSize(BLOCK_SIZE);
+            // The entry removes silence, so the backend needs to produce a signal.
+            backend.setFunction(Function.createCos(100, 0.5, 0));
+            if (blocks >= 0)
+                backend.setBlocksLeft(blocks);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Test
+    public void handoverDoesNotBlockReader() throws IOException, InterruptedException {
+        final @NotNull SlowClosingBackend outgoing = new SlowClosingBackend(BLOCKS);
+        final @NotNull SlowClosingBackend incoming = new SlowClosingBackend(-1);
+        final @NotNull BufferMuxer muxer = new BufferMuxer(new StubSession(), request -> new StubTransaction(), null);
+        final @NotNull Thread reader = new Thread(() -> {
+            try {
+                for (int i = 0; i < BLOCKS * 2; i++)
+                    muxer.read();
+            } catch (IOException ignored) {
+            }
+        });
+
+        try {
+            final long end;
+
+            muxer.addBuffer(outgoing, new StubTransportDescription());
+            muxer.addBuffer(incoming, new StubTransportDescription());
+
+            // The outgoing entry does not finish closing before the reader is done, so reading must not wait for it.
+            reader.start();
+            assertTrue(outgoing.closing.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            reader.join(TIMEOUT);
+            assertFalse(reader.isAlive());
+            assertFalse(outgoing.closed);
+
+            // The outgoing entry must still be closed, just not by the reader.
+            outgoing.release.countDown();
+            end = System.currentTimeMillis() + TIMEOUT;
+            while (!outgoing.closed) {
+                assertTrue(System.currentTimeMillis() < end);
+                //noinspection BusyWait
+                Thread.sleep(10);
+            }
+            assertFalse(incoming.closed);
+        } finally {
+            outgoing.release.countDown();
+            incoming.release.countDown();
+            reader.interrupt();
+            muxer.close();
+        }
+    }
+}
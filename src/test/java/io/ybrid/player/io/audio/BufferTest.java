@@ -0,0 +1,321 @@
+/*
+ * Copyright (c) 2022 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.player.io.audio.generator.Generator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class BufferTest {
+    /* Values are chosen so that all lengths are exact: blocks of 0.25s, low watermark at 9.5s. */
+    private static final double TARGET = 10; // [s]
+    private static final int SAMPLE_RATE = 1000;
+    private static final int BLOCK_SIZE = 250;
+    private static final int BLOCKS_WHEN_FULL = 41;
+    private static final int BLOCKS_TO_LOW_WATERMARK = 3;
+    private static final long TIMEOUT = 5000; // [ms]
+    private static final double TARGET_LIMIT = 2; // [s]
+    private static final int BLOCKS_AT_LIMIT = 9;
+    private static final int POLLS = 100_000;
+
+    /**
+     * This is a backend that counts reads and optionally blocks until reads are permitted.
+     */
+    private static final class Backend extends FilterPCMDataSource<Generator> {
+        private final @NotNull Semaphore permits = new Semaphore(0);
+        private final boolean gated;
+        private volatile int reads = 0;
+
+        public Backend(boolean gated) {
+            super(new Generator());
+            this.gated = gated;
+            backend.setSampleRate(SAMPLE_RATE);
+            backend.setBlockSize(BLOCK_SIZE);
+        }
+
+        @Override
+        public @NotNull PCMDataBlock read() throws IOException {
+            if (gated) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+            reads++;
+            return super.read();
+        }
+
+        public void setBlocksLeft(int blocksLeft) {
+            backend.setBlocksLeft(blocksLeft);
+        }
+
+        public void waitForReads(int expected) throws InterruptedException {
+            final long end = System.currentTimeMillis() + TIMEOUT;
+            while (reads < expected) {
+                assertTrue("Timeout waiting for " + expected + " reads, got " + reads, System.currentTimeMillis() < end);
+                //noinspection BusyWait
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private Backend backend;
+    private Buffer buffer;
+
+    @Before
+    public void setUp() {
+        backend = null;
+        buffer = null;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (buffer != null)
+            buffer.close();
+    }
+
+    /**
+     * Waits for a reader to find the buffer empty.
+     */
+    private void waitForUnderrun() throws InterruptedException {
+        final @NotNull BufferMetrics metrics = new BufferMetrics();
+        final long end = System.currentTimeMillis() + TIMEOUT;
+
+        while (!buffer.getMetrics(metrics) || metrics.getUnderrunTimestamp() == BufferMetrics.NO_TIMESTAMP) {
+            assertTrue("Timeout waiting for underrun", System.currentTimeMillis() < end);
+            //noinspection BusyWait
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void noIdleWakeupsAndRefillAtLowWatermark() throws IOException, InterruptedException {
+        backend = new Backend(false);
+        buffer = new Buffer(TARGET, backend, null);
+
+        backend.waitForReads(BLOCKS_WHEN_FULL);
+
+        // Buffer is full: nothing should happen as long as nobody reads.
+        Thread.sleep(500);
+        assertEquals(BLOCKS_WHEN_FULL, backend.reads);
+        assertEquals(0, buffer.getIdleWakeups());
+
+        // Reading above the low watermark must not wake the pump.
+        for (int i = 0; i < (BLOCKS_TO_LOW_WATERMARK - 1); i++)
+            buffer.read();
+        Thread.sleep(200);
+        assertEquals(BLOCKS_WHEN_FULL, backend.reads);
+
+        // Reading the block that crosses the low watermark must start the refill.
+        buffer.read();
+        backend.waitForReads(BLOCKS_WHEN_FULL + 1);
+        assertEquals(0, buffer.getIdleWakeups());
+    }
+
+    @Test
+    public void underrunRecovery() throws IOException, InterruptedException {
+        final @NotNull PCMDataBlock[] returned = new PCMDataBlock[1];
+        final @NotNull Thread reader;
+
+        backend = new Backend(true);
+        buffer = new Buffer(TARGET, backend, null);
+
+        reader = new Thread(() -> {
+            try {
+                returned[0] = buffer.read();
+            } catch (IOException ignored) {
+            }
+        });
+        reader.start();
+
+        waitForUnderrun();
+        assertTrue(reader.isAlive());
+
+        backend.permits.release();
+        reader.join(TIMEOUT);
+        assertFalse(reader.isAlive());
+        assertNotNull(returned[0]);
+        assertEquals(1, backend.reads);
+        assertEquals(0, buffer.getIdleWakeups());
+    }
+
+    @Test
+    public void inputErrorWakesReader() throws InterruptedException {
+        final @NotNull IOException[] failed = new IOException[1];
+        final @NotNull Thread reader;
+
+        backend = new Backend(true);
+        backend.setBlocksLeft(0);
+        buffer = new Buffer(TARGET, backend, null);
+
+        reader = new Thread(() -> {
+            try {
+                buffer.read();
+            } catch (IOException e) {
+                failed[0] = e;
+            }
+        });
+        reader.start();
+        waitForUnderrun();
+
+        backend.permits.release();
+        reader.join(TIMEOUT);
+        assertFalse(reader.isAlive());
+        assertNotNull(failed[0]);
+        assertTrue(buffer.hasInputReachedEOF());
+    }
+
+    @Test
+    public void pollDoesNotBlock() throws IOException, InterruptedException {
+        final @NotNull BufferMetrics metrics = new BufferMetrics();
+        final long underrun;
+        final long start;
+
+        backend = new Backend(true);
+        buffer = new Buffer(TARGET, backend, null);
+
+        // The backend does not provide any block yet, so this would hang if poll() blocked.
+        start = System.nanoTime();
+        assertNull(buffer.poll());
+        assertNull(buffer.poll());
+
+        // A gap is accounted as one underrun regardless of the number of polls.
+        buffer.getMetrics(metrics);
+        underrun = metrics.getUnderrunTimestamp();
+        assertNotEquals(BufferMetrics.NO_TIMESTAMP, underrun);
+        assertNull(buffer.poll());
+        buffer.getMetrics(metrics);
+        assertEquals(underrun, metrics.getUnderrunTimestamp());
+
+        backend.permits.release();
+        backend.waitForReads(1);
+        while ((System.nanoTime() - start) < TimeUnit.MILLISECONDS.toNanos(TIMEOUT)) {
+            if (buffer.poll() != null)
+                return;
+            //noinspection BusyWait
+            Thread.sleep(1);
+        }
+        fail("Timeout waiting for block");
+    }
+
+    @Test
+    public void interruptBetweenReadsFailsReader() throws IOException, InterruptedException {
+        final @NotNull Generator generator = new Generator();
+
+        generator.setSampleRate(SAMPLE_RATE);
+        generator.setBlockSize(BLOCK_SIZE);
+        // This behaves like close() interrupting the pump after a read completed.
+        buffer = new Buffer(TARGET, new FilterPCMDataSource<Generator>(generator) {
+            @Override
+            public @NotNull PCMDataBlock read() throws IOException {
+                Thread.currentThread().interrupt();
+                return super.read();
+            }
+        }, null);
+
+        assertNotNull(buffer.read());
+        assertThrows(InterruptedIOException.class, buffer::read);
+        assertThrows(InterruptedIOException.class, buffer::poll);
+        assertFalse(buffer.isValid());
+    }
+
+    @Test
+    public void targetLimitStopsPump() throws IOException, InterruptedException {
+        final @NotNull BufferMetrics metrics = new BufferMetrics();
+
+        backend = new Backend(true);
+        buffer = new Buffer(TARGET, backend, null);
+
+        // This is what the muxer does to the outgoing entry of a handover, so it stops competing for bandwidth.
+        buffer.setTargetLimit(TARGET_LIMIT);
+        assertTrue(buffer.getMetrics(metrics));
+        assertEquals(TARGET_LIMIT, metrics.getTarget(), 0);
+
+        // Enough input is available to fill the full target, but the pump must stop at the limit.
+        backend.permits.release(BLOCKS_WHEN_FULL);
+        backend.waitForReads(BLOCKS_AT_LIMIT);
+        Thread.sleep(200);
+        assertEquals(BLOCKS_AT_LIMIT, backend.reads);
+        assertEquals(BLOCKS_WHEN_FULL - BLOCKS_AT_LIMIT, backend.permits.availablePermits());
+
+        // Lifting the limit resumes filling up to the full target.
+        buffer.setTargetLimit(Double.POSITIVE_INFINITY);
+        assertTrue(buffer.getMetrics(metrics));
+        assertEquals(TARGET, metrics.getTarget(), 0);
+        backend.waitForReads(BLOCKS_WHEN_FULL);
+        assertEquals(0, buffer.getIdleWakeups());
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void metricsWithoutConsumers() throws IOException, InterruptedException {
+        final @NotNull BufferMetrics metrics = new BufferMetrics();
+        final @NotNull BufferStatus[] pushed = new BufferStatus[1];
+        final @NotNull BufferStatusConsumer consumer = status -> pushed[0] = status;
+        final long allocated;
+
+        backend = new Backend(false);
+        buffer = new Buffer(TARGET, backend, null);
+        backend.waitForReads(BLOCKS_WHEN_FULL);
+        buffer.read();
+
+        assertTrue(buffer.getMetrics(metrics));
+        assertEquals(buffer.getIdentifier(), metrics.getIdentifier());
+        assertEquals(TARGET, metrics.getTarget(), 0);
+        assertTrue(Double.isNaN(metrics.getGoal()));
+        assertEquals(BLOCKS_WHEN_FULL * BLOCK_SIZE, metrics.getCurrentSamplesRead());
+        assertNotEquals(BufferMetrics.NO_TIMESTAMP, metrics.getCurrentTimestamp());
+        assertNotEquals(BufferMetrics.NO_TIMESTAMP, metrics.getOverrunTimestamp());
+
+        // Warm up, then polling must not allocate. Allow for some noise by the measurement itself.
+        for (int i = 0; i < POLLS; i++)
+            buffer.getMetrics(metrics);
+        allocated = getAllocatedBytes();
+        for (int i = 0; i < POLLS; i++)
+            buffer.getMetrics(metrics);
+        assertTrue(getAllocatedBytes() - allocated < POLLS);
+
+        // Push notifications still work if requested.
+        buffer.addBufferStatusConsumer(consumer);
+        buffer.read();
+        assertNotNull(pushed[0]);
+        assertEquals(BLOCKS_WHEN_FULL * BLOCK_SIZE, pushed[0].getCurrentSamplesRead());
+        assertNotNull(pushed[0].getOverrunTimestamp());
+        buffer.removeBufferStatusConsumer(consumer);
+    }
+}
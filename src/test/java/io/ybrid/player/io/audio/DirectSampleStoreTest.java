@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.player.io.audio.analysis.result.Channel;
+import io.ybrid.player.io.audio.generator.Generator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class DirectSampleStoreTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int BLOCK_SIZE = 480; // [frame], 10ms
+    private static final double TARGET = 60; // [s]
+    private static final int COLLECTIONS = 5;
+    private static final long TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    @Test
+    public void storeAndRelease() {
+        final @NotNull DirectSampleStore store = new DirectSampleStore();
+        final @NotNull PCMDataBlock original = TestBlocks.ramp(0, BLOCK_SIZE, SAMPLE_RATE, 2);
+        final @NotNull PCMDataBlock part = TestBlocks.ramp(0, 10, SAMPLE_RATE, 2);
+        final boolean[] audible = new boolean[2];
+        final @NotNull DirectPCMDataBlock stored;
+        final @NotNull DirectPCMDataBlock view;
+        final short[] copy = new short[20];
+
+        original.onAudible(() -> audible[0] = true);
+        part.onAudible(() -> audible[1] = true);
+        original.addPart(0, part);
+
+        stored = (DirectPCMDataBlock) store.store(original);
+        assertEquals((long) BLOCK_SIZE * 2 * Short.BYTES, store.getStored());
+        assertEquals(DirectSampleStore.SLAB_SIZE, store.getAllocated());
+        assertEquals(BLOCK_SIZE, stored.getLengthAsFrames());
+        assertArrayEquals(original.getData(), stored.getData());
+        assertEquals(1, stored.getNumberOfParts());
+
+        view = stored.subBlock(10, 20);
+        view.copyTo(0, copy, 0, copy.length);
+        assertArrayEquals(Arrays.copyOfRange(original.getData(), 20, 40), copy);
+
+        stored.audible();
+        assertTrue(audible[0]);
+        assertTrue(audible[1]);
+
+        // The view keeps the samples.
+        stored.release();
+        assertEquals((long) BLOCK_SIZE * 2 * Short.BYTES, store.getStored());
+        view.release();
+        assertEquals(0, store.getStored());
+        assertThrows(IllegalStateException.class, stored::release);
+    }
+
+    @Test
+    public void slabsAreReused() {
+        final @NotNull DirectSampleStore store = new DirectSampleStore();
+        final @NotNull PCMDataBlock[] window = new PCMDataBlock[2000]; // 20s
+        long maximum = 0;
+
+        for (int i = 0; i < 20 * window.length; i++) {
+            final int slot = i % window.length;
+
+            if (window[slot] != null)
+                window[slot].release();
+            window[slot] = store.store(TestBlocks.ramp(i, BLOCK_SIZE, SAMPLE_RATE, 2));
+            maximum = Math.max(maximum, store.getAllocated());
+        }
+
+        assertEquals((long) window.length * BLOCK_SIZE * 2 * Short.BYTES, store.getStored());
+        // The window needs four slabs, one more is filled while the oldest one is drained, two are kept free.
+        assertTrue("Allocated " + maximum + " bytes", maximum <= 7L * DirectSampleStore.SLAB_SIZE);
+    }
+
+    @Test
+    public void analysisReadsInPlace() {
+        final @NotNull PCMDataBlock original = TestBlocks.ramp(7, BLOCK_SIZE, SAMPLE_RATE, 2);
+        final @NotNull Channel[] expected = original.analyse().getChannels();
+        final @NotNull Channel[] actual = new DirectSampleStore().store(TestBlocks.ramp(7, BLOCK_SIZE, SAMPLE_RATE, 2)).analyse().getChannels();
+
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getMinAsShort(), actual[i].getMinAsShort());
+            assertEquals(expected[i].getMaxAsShort(), actual[i].getMaxAsShort());
+            assertEquals(expected[i].getDCDouble(), actual[i].getDCDouble(), 1e-12);
+            assertEquals(expected[i].getPowerIndB(), actual[i].getPowerIndB(), 1e-12);
+        }
+    }
+
+    private static long getCollectionTime() {
+        long ret = 0;
+
+        for (final @NotNull GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans())
+            ret += Math.max(0, bean.getCollectionTime());
+
+        return ret;
+    }
+
+    /**
+     * Collects until the heap used stops shrinking, so garbage left by earlier tests does not skew the baseline.
+     */
+    private static long getHeapUsed() {
+        long used = Long.MAX_VALUE;
+
+        for (int i = 0; i < 8; i++) {
+            final long current;
+
+            System.gc();
+            System.runFinalization();
+            current = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (current >= used)
+                break;
+            used = current;
+        }
+
+        return used;
+    }
+
+    /**
+     * Fills a buffer of 60s and measures the heap held and the time spent in full collections.
+     * @return The heap held by the buffer in [byte] and the mean collection time in [ms].
+     */
+    private static long[] measure(boolean direct) throws IOException, InterruptedException {
+        final @NotNull Generator generator = new Generator();
+        final long before;
+        final long held;
+        final long start;
+        final @NotNull Buffer buffer;
+        final double early;
+        final long end = System.currentTimeMillis() + TIMEOUT;
+
+        generator.setSampleRate(SAMPLE_RATE);
+        generator.setChannels(2);
+        generator.setBlockSize(BLOCK_SIZE);
+
+        before = getHeapUsed();
+        buffer = new Buffer(TARGET, generator, null);
+        buffer.setDirectStorage(direct);
+        // Blocks pumped before the storage was switched stay on the heap.
+        early = buffer.getLength() + (double) BLOCK_SIZE / SAMPLE_RATE;
+        try {
+            while (buffer.getLength() < TARGET) {
+                assertTrue("Timeout filling buffer", System.currentTimeMillis() < end);
+                //noinspection BusyWait
+                Thread.sleep(10);
+            }
+            assertEquals(direct, buffer.isDirectStorage());
+            if (direct)
+                assertTrue(buffer.getDirectStorageAllocated() >= (long) ((TARGET - early) * SAMPLE_RATE * 2 * Short.BYTES));
+
+            held = getHeapUsed() - before;
+            start = getCollectionTime();
+            for (int i = 0; i < COLLECTIONS; i++)
+                System.gc();
+            return new long[]{held, (getCollectionTime() - start) / COLLECTIONS};
+        } finally {
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void gcImpactOfLongBuffer() throws IOException, InterruptedException {
+        final long[] heap = measure(false);
+        final long[] direct = measure(true);
+
+        System.out.println("Buffer of " + TARGET + "s: on heap: " + heap[0] / 1024 + "KiB held, " + heap[1] + "ms/collection; direct: " + direct[0] / 1024 + "KiB held, " + direct[1] + "ms/collection");
+
+        // The samples alone are 11250KiB.
+        assertTrue(direct[0] < heap[0] / 2);
+    }
+}
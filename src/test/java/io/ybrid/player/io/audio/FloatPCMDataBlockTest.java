@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import io.ybrid.player.io.audio.analysis.result.Channel;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class FloatPCMDataBlockTest {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int OUTPUT_RATE = 48000;
+    private static final int BLOCK_SIZE = 1152; // [frame], as for MP3
+    private static final double FREQUENCY = 1000; // [Hz]
+    private static final float AMPLITUDE = 1.5f; // above full scale
+    private static final float DELTA = 1e-6f;
+    private static final @NotNull Sync SYNC = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+
+    private static @NotNull FloatPCMDataBlock sine(int channels, long first, int frames) {
+        final float[] data = new float[frames * channels];
+
+        for (int i = 0; i < frames; i++) {
+            final float value = (float) (AMPLITUDE * Math.sin(2 * Math.PI * FREQUENCY * (first + i) / SAMPLE_RATE));
+            for (int channel = 0; channel < channels; channel++)
+                data[i * channels + channel] = value;
+        }
+
+        return new FloatPCMDataBlock(SYNC, null, data, SAMPLE_RATE, channels);
+    }
+
+    private static float peak(@NotNull FloatPCMDataBlock block) {
+        float ret = 0;
+
+        for (int i = 0; i < block.getDataLength(); i++)
+            ret = Math.max(ret, Math.abs(block.getFloatData()[block.getFloatOffset() + i]));
+
+        return ret;
+    }
+
+    @Test
+    public void conversion() {
+        final @NotNull FloatPCMDataBlock block = new FloatPCMDataBlock(SYNC, null, new float[]{0f, 0.5f, -0.5f, 1f, -1f, 2f, -2f, 1e-6f}, SAMPLE_RATE, 2);
+        final short[] data = block.getData();
+
+        assertArrayEquals(new short[]{0, 16384, -16384, Short.MAX_VALUE, Short.MIN_VALUE, Short.MAX_VALUE, Short.MIN_VALUE, 0}, data);
+        // The samples are converted only once.
+        assertSame(data, block.getData());
+        assertSame(data, block.getBackingData());
+        assertEquals(0, block.getDataOffset());
+        assertEquals(Float.BYTES, block.getSampleSize());
+        assertEquals(4, block.getLengthAsFrames());
+
+        for (short value = Short.MIN_VALUE; value < Short.MAX_VALUE; value++)
+            assertEquals(value, FloatPCMDataBlock.toShort(FloatPCMDataBlock.toFloat(value)));
+    }
+
+    @Test
+    public void fromShortBlock() {
+        final @NotNull PCMDataBlock block = new PCMDataBlock(SYNC, null, new short[]{0, 16384, -32768, 32767}, SAMPLE_RATE, 2);
+        final @NotNull FloatPCMDataBlock converted = FloatPCMDataBlock.of(block);
+        final boolean[] audible = new boolean[1];
+
+        block.onAudible(() -> audible[0] = true);
+        assertArrayEquals(new float[]{0f, 0.5f, -1f, 32767f / 32768f}, converted.getFloatData(), DELTA);
+        assertSame(converted, FloatPCMDataBlock.of(converted));
+
+        converted.audible();
+        assertTrue(audible[0]);
+    }
+
+    @Test
+    public void subBlockIsFloatView() {
+        final @NotNull FloatPCMDataBlock block = sine(2, 0, 100);
+        final @NotNull FloatPCMDataBlock view = block.subBlock(10, 30);
+        final @NotNull FloatPCMDataBlock trimmed = block.trim(5, 5);
+
+        assertSame(block.getFloatData(), view.getFloatData());
+        assertEquals(20, view.getFloatOffset());
+        assertEquals(20, view.getLengthAsFrames());
+        assertEquals(block.getFloatData()[20], view.getFloatData()[view.getFloatOffset()], 0f);
+        assertEquals(90, trimmed.getLengthAsFrames());
+        assertArrayEquals(Arrays.copyOfRange(block.getData(), 20, 60), view.getData());
+    }
+
+    @Test
+    public void analysisIsNotClipped() {
+        final @NotNull FloatPCMDataBlock block = new FloatPCMDataBlock(SYNC, null, new float[]{1.5f, 0.25f, -0.5f, -0.25f}, SAMPLE_RATE, 2);
+        final @NotNull Channel[] channels = block.analyse().getChannels();
+
+        assertEquals(1.5, channels[0].getMaxAsDouble(), DELTA);
+        assertEquals(-0.5, channels[0].getMinAsDouble(), DELTA);
+        assertEquals(Short.MAX_VALUE, channels[0].getMaxAsShort());
+        assertEquals(0.5, channels[0].getDCDouble(), DELTA);
+        assertEquals(0., channels[1].getDCDouble(), DELTA);
+        assertEquals(0.25, channels[1].getMaxAsDouble(), DELTA);
+    }
+
+    @Test
+    public void resamplerKeepsFloat() {
+        final @NotNull Resampler<PCMDataSource> resampler = new Resampler<>(new NullSource(), Resampler.Quality.CUBIC);
+        float max = 0;
+
+        resampler.setOutputFormat(OUTPUT_RATE, 2);
+        for (int i = 0; i < 20; i++) {
+            final @NotNull PCMDataBlock converted = resampler.process(sine(1, (long) i * BLOCK_SIZE, BLOCK_SIZE));
+
+            assertTrue(converted instanceof FloatPCMDataBlock);
+            assertEquals(OUTPUT_RATE, converted.getSampleRate());
+            assertEquals(2, converted.getNumberOfChannels());
+            max = Math.max(max, peak((FloatPCMDataBlock) converted));
+        }
+
+        // The signal exceeds full scale and must not be clipped before the output.
+        assertEquals(AMPLITUDE, max, 0.01f);
+
+        // Only converting the channels keeps the type as well.
+        resampler.setOutputFormat(SAMPLE_RATE, 2);
+        assertTrue(resampler.process(sine(1, 0, BLOCK_SIZE)) instanceof FloatPCMDataBlock);
+    }
+
+    @Test
+    public void rechunkerKeepsFloat() throws IOException {
+        final @NotNull Queue<PCMDataBlock> blocks = new ArrayDeque<>();
+        final @NotNull Rechunker<PCMDataSource> rechunker;
+        final @NotNull FloatPCMDataBlock first = sine(2, 0, 300);
+        final @NotNull FloatPCMDataBlock second = sine(2, 300, 300);
+        final @NotNull FloatPCMDataBlock block;
+
+        blocks.add(first);
+        blocks.add(second);
+        rechunker = new Rechunker<>(new PCMDataSource() {
+            @Override
+            public @NotNull PCMDataBlock read() throws IOException {
+                final PCMDataBlock ret = blocks.poll();
+                if (ret == null)
+                    throw new EOFException();
+                return ret;
+            }
+
+            @Override
+            public boolean isValid() {
+                return !blocks.isEmpty();
+            }
+
+            @Override
+            public void close() {
+            }
+        }, 480);
+
+        block = (FloatPCMDataBlock) rechunker.read();
+        assertEquals(480, block.getLengthAsFrames());
+        assertEquals(first.getFloatData()[599], block.getFloatData()[block.getFloatOffset() + 599], 0f);
+        assertEquals(second.getFloatData()[0], block.getFloatData()[block.getFloatOffset() + 600], 0f);
+        assertEquals(120, rechunker.read().getLengthAsFrames());
+    }
+
+    /* Source that is never read, the blocks are passed to process() directly. */
+    private static final class NullSource implements PCMDataSource {
+        @Override
+        public @NotNull PCMDataBlock read() throws IOException {
+            throw new EOFException();
+        }
+
+        @Override
+        public boolean isValid() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2022 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FrameAccumulatorTest {
+    private static final double DELTA = 1e-9;
+    private static final int BLOCKS = 16384;
+
+    @Test
+    public void addAndRemove() {
+        final @NotNull FrameAccumulator accumulator = new FrameAccumulator();
+        final @NotNull PCMDataBlock a = TestBlocks.silence(960, 48000, 2);
+        final @NotNull PCMDataBlock b = TestBlocks.silence(1152, 44100, 2);
+
+        assertEquals(0., accumulator.getLength(), DELTA);
+
+        accumulator.add(a);
+        accumulator.add(a);
+        accumulator.add(b);
+        assertEquals(2 * 960 + 1152, accumulator.getLengthAsFrames());
+        assertEquals(2 * 960 / 48000. + 1152 / 44100., accumulator.getLength(), DELTA);
+
+        accumulator.remove(a);
+        assertEquals(960 / 48000. + 1152 / 44100., accumulator.getLength(), DELTA);
+
+        accumulator.remove(b);
+        accumulator.remove(a);
+        assertEquals(0, accumulator.getLengthAsFrames());
+        assertEquals(0., accumulator.getLength(), DELTA);
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static double cycle(@NotNull FrameAccumulator accumulator, @NotNull PCMDataBlock block) {
+        double sum = 0;
+
+        for (int i = 0; i < BLOCKS; i++) {
+            accumulator.add(block);
+            sum += accumulator.getLength();
+            accumulator.remove(block);
+        }
+
+        return sum;
+    }
+
+    @Test
+    public void lengthIsIndependentOfNumberOfBlocks() {
+        final @NotNull FrameAccumulator accumulator = new FrameAccumulator();
+        final @NotNull PCMDataBlock a = TestBlocks.silence(120, 48000, 2);
+        final @NotNull PCMDataBlock b = TestBlocks.silence(1152, 44100, 2);
+        final long before;
+        double sum = 0;
+
+        for (int i = 0; i < BLOCKS; i++)
+            accumulator.add(a);
+        assertEquals(1, accumulator.getNumberOfSlots());
+
+        for (int i = 0; i < BLOCKS; i++)
+            accumulator.add(b);
+        // getLength() only walks the sample rates, not the blocks.
+        assertEquals(2, accumulator.getNumberOfSlots());
+
+        for (int i = 0; i < BLOCKS; i++)
+            accumulator.remove(a);
+        assertEquals(1, accumulator.getNumberOfSlots());
+
+        // Nothing is allocated once the sample rates are known. Reading the counter itself allocates a few bytes.
+        sum += cycle(accumulator, a);
+        before = getAllocatedBytes();
+        sum += cycle(accumulator, a);
+        assertEquals(0, (getAllocatedBytes() - before) / BLOCKS);
+        assertTrue(sum > 0);
+    }
+}
@@ -31,8 +31,7 @@ import org.jetbrains.annotations.NotNull;
 import org.junit.Before;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.fail;
+import static org.junit.Assert.*;
 
 public class PCMDataBlockTest {
     private static final int SAMPLE_RATE = 48000;
@@ -121,4 +120,26 @@ public class PCMDataBlockTest {
         assertEquals(data[4], channels[0].getMaxAsShort());
         assertEquals(data[5], channels[1].getMaxAsShort());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void viewsShareData() {
+        final @NotNull PCMDataBlock view = block.subBlock(1, 4);
+        final @NotNull PCMDataBlock nested = view.trim(1, 1);
+
+        assertSame(data, view.getBackingData());
+        assertEquals(2, view.getDataOffset());
+        assertEquals(6, view.getDataLength());
+        assertSame(data, nested.getBackingData());
+        assertEquals(4, nested.getDataOffset());
+        assertEquals(2, nested.getDataLength());
+        assertEquals(1, nested.getLengthAsFrames());
+
+        // Existing callers get the samples of the view only, copied once.
+        assertArrayEquals(new short[]{4, 5}, nested.getData());
+        assertSame(nested.getData(), nested.getData());
+        assertSame(data, block.getData());
+
+        expectFail(IllegalArgumentException.class, () -> new PCMDataBlock(block.getSync(), null, data, 6, 4, SAMPLE_RATE, CHANNELS));
+        expectFail(IllegalArgumentException.class, () -> view.subBlock(0, 4));
+    }
+}
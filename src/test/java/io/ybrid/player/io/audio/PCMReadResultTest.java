@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import io.ybrid.player.io.audio.generator.Function;
+import io.ybrid.player.io.audio.generator.Generator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class PCMReadResultTest {
+    private static final int BLOCK_SIZE = 1024; // [frame]
+    private static final int ROUNDS = 20_000;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static @NotNull Generator generator(@NotNull Integer blocks) {
+        final @NotNull Generator generator = new Generator();
+
+        generator.setFunction(Function.createCos(440, 0.5, 0));
+        generator.setChannels(2);
+        generator.setBlockSize(BLOCK_SIZE);
+        generator.setBlocksLeft(blocks);
+        return generator;
+    }
+
+    private static class BlockSource implements PCMDataSource {
+        private final @NotNull Queue<PCMDataBlock> blocks = new ArrayDeque<>();
+
+        void add(int sampleRate, int frames) {
+            final @NotNull Sync sync = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+            final short[] data = new short[frames];
+
+            for (int i = 0; i < frames; i++)
+                data[i] = (short) (blocks.size() * 1000 + i);
+
+            blocks.add(new PCMDataBlock(sync, null, data, sampleRate, 1));
+        }
+
+        @Override
+        public @NotNull PCMDataBlock read() throws IOException {
+            final PCMDataBlock block = blocks.poll();
+            if (block == null)
+                throw new EOFException();
+            return block;
+        }
+
+        @Override
+        public boolean isValid() {
+            return !blocks.isEmpty();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void matchesBlocks() throws IOException {
+        final @NotNull Generator reference = generator(4);
+        final @NotNull Generator source = generator(4);
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final short[] expected = new short[4 * BLOCK_SIZE * 2];
+        final short[] actual = new short[expected.length];
+        int frames = 0;
+
+        for (int i = 0; i < 4; i++)
+            System.arraycopy(reference.read().getData(), 0, expected, i * BLOCK_SIZE * 2, BLOCK_SIZE * 2);
+
+        while (frames < 4 * BLOCK_SIZE) {
+            final int read = source.read(actual, frames * 2, 300, result);
+
+            assertTrue(read > 0 && read <= 300);
+            assertEquals(2, result.getNumberOfChannels());
+            assertEquals(48000, result.getSampleRate());
+            for (int i = 0; i < result.getNumberOfBlocks(); i++)
+                assertEquals(0, (frames + result.getBlockOffset(i)) % BLOCK_SIZE);
+            frames += read;
+        }
+
+        assertEquals(4 * BLOCK_SIZE, frames);
+        assertArrayEquals(expected, actual);
+        assertThrows(EOFException.class, () -> source.read(actual, 0, 300, result));
+    }
+
+    @Test
+    public void stopsAtChangePoints() throws IOException {
+        final @NotNull BlockSource source = new BlockSource();
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final short[] buffer = new short[1000];
+
+        source.add(48000, 100);
+        source.add(48000, 100);
+        source.add(44100, 100);
+
+        assertEquals(200, source.read(buffer, 0, 1000, result));
+        assertFalse(result.isFormatChanged());
+        assertEquals(2, result.getNumberOfBlocks());
+        assertEquals(100, result.getBlockOffset(1));
+        assertEquals(1099, buffer[199]);
+
+        // The source failing after the change point is reported with the next read.
+        assertEquals(100, source.read(buffer, 0, 1000, result));
+        assertTrue(result.isFormatChanged());
+        assertEquals(44100, result.getSampleRate());
+        assertEquals(2000, buffer[0]);
+        assertThrows(EOFException.class, () -> source.read(buffer, 0, 1000, result));
+    }
+
+    @Test
+    public void readsIntoShortBuffers() throws IOException {
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final @NotNull Generator source = generator(1);
+        final @NotNull ShortBuffer direct = ByteBuffer.allocateDirect(BLOCK_SIZE * 2 * Short.BYTES).asShortBuffer();
+        final @NotNull ShortBuffer heap = ShortBuffer.allocate(BLOCK_SIZE * 2);
+        final short[] expected = generator(1).read().getData();
+
+        direct.limit(100 * 2);
+        assertEquals(100, source.read(direct, BLOCK_SIZE, result));
+        assertFalse(direct.hasRemaining());
+        direct.limit(direct.capacity());
+        assertEquals(BLOCK_SIZE - 100, source.read(direct, BLOCK_SIZE, result));
+        for (int i = 0; i < expected.length; i++)
+            assertEquals(expected[i], direct.get(i));
+
+        source.setBlocksLeft(null);
+        heap.position(10);
+        assertEquals(BLOCK_SIZE - 5, source.read(heap, BLOCK_SIZE, result));
+        assertEquals(heap.capacity(), heap.position());
+    }
+
+    @Test
+    public void bufferReadsBlocksAsFrames() throws IOException, InterruptedException {
+        final @NotNull Generator generator = generator(32);
+        final @NotNull Buffer buffer = new Buffer(1, generator, null);
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final short[] expected = new short[32 * BLOCK_SIZE * 2];
+        final short[] actual = new short[expected.length];
+        final @NotNull Generator reference = generator(32);
+        int frames = 0;
+
+        for (int i = 0; i < 32; i++)
+            System.arraycopy(reference.read().getData(), 0, expected, i * BLOCK_SIZE * 2, BLOCK_SIZE * 2);
+
+        try {
+            while (frames < 32 * BLOCK_SIZE)
+                frames += buffer.read(actual, frames * 2, 700, result);
+        } finally {
+            buffer.close();
+        }
+
+        assertEquals(32 * BLOCK_SIZE, frames);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void generatorDoesNotAllocate() throws IOException {
+        final @NotNull Generator source = new Generator();
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final short[] buffer = new short[BLOCK_SIZE * 2];
+        final long blocks, frames;
+        long start;
+
+        source.setFunction(Function.createCos(440, 0.5, 0));
+        source.setChannels(2);
+
+        // warm up
+        for (int i = 0; i < ROUNDS; i++) {
+            source.read();
+            source.read(buffer, 0, BLOCK_SIZE, result);
+        }
+
+        start = getAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++)
+            source.read();
+        blocks = (getAllocatedBytes() - start) / ROUNDS;
+
+        start = getAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++)
+            assertEquals(BLOCK_SIZE, source.read(buffer, 0, BLOCK_SIZE, result));
+        frames = (getAllocatedBytes() - start) / ROUNDS;
+
+        System.out.println("Generating " + ROUNDS + " blocks: as blocks: " + blocks + " bytes/block, into buffer: " + frames + " bytes/block");
+
+        assertTrue(blocks >= BLOCK_SIZE * 2 * Short.BYTES);
+        assertEquals(0, frames);
+    }
+}
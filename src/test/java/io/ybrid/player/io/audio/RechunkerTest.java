@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import io.ybrid.player.io.audio.output.FrameClock;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeFalse;
+
+public class RechunkerTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHUNK = 480; // [frame], 10ms
+    private static final @NotNull Sync SYNC_A = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+    private static final @NotNull Sync SYNC_B = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+
+    /**
+     * Returns the queued blocks and fails with {@link EOFException} once they are used up.
+     * Every frame holds its position in the stream.
+     */
+    private static final class QueueSource implements PCMDataSource {
+        private final @NotNull Queue<PCMDataBlock> blocks = new ArrayDeque<>();
+        private int position = 0;
+
+        public @NotNull PCMDataBlock add(@NotNull Sync sync, int frames) {
+            return add(sync, SAMPLE_RATE, frames);
+        }
+
+        public @NotNull PCMDataBlock add(@NotNull Sync sync, int sampleRate, int frames) {
+            final short[] data = new short[frames * 2];
+            final @NotNull PCMDataBlock block;
+
+            for (int i = 0; i < frames; i++) {
+                data[2 * i] = (short) (position + i);
+                data[2 * i + 1] = (short) (position + i);
+            }
+            position += frames;
+
+            block = new PCMDataBlock(sync, null, data, sampleRate, 2);
+            blocks.add(block);
+            return block;
+        }
+
+        @Override
+        public @NotNull PCMDataBlock read() throws IOException {
+            final PCMDataBlock block = blocks.poll();
+            if (block == null)
+                throw new EOFException();
+            return block;
+        }
+
+        @Override
+        public boolean isValid() {
+            return !blocks.isEmpty();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static void assertContinuous(@NotNull PCMDataBlock block, int first) {
+        final short[] data = block.getData();
+
+        for (int i = 0; i < data.length; i++)
+            assertEquals((short) (first + i / 2), data[i]);
+    }
+
+    @Test
+    public void combinesSmallBlocks() throws IOException {
+        final @NotNull QueueSource source = new QueueSource();
+        final @NotNull Rechunker<QueueSource> rechunker = new Rechunker<>(source, CHUNK);
+
+        for (int i = 0; i < 8; i++)
+            source.add(SYNC_A, 120);
+
+        for (int chunk = 0; chunk < 2; chunk++) {
+            final @NotNull PCMDataBlock block = rechunker.read();
+
+            assertEquals(CHUNK, block.getLengthAsFrames());
+            assertContinuous(block, chunk * CHUNK);
+            assertEquals(4, block.getNumberOfParts());
+            for (int i = 0; i < 4; i++)
+                assertEquals(i * 120, block.getPartOffset(i));
+        }
+        assertFalse(rechunker.isValid());
+    }
+
+    @Test
+    public void splitsLargeBlocks() throws IOException {
+        final @NotNull QueueSource source = new QueueSource();
+        final @NotNull Rechunker<QueueSource> rechunker = new Rechunker<>(source, CHUNK);
+        final @NotNull PCMDataBlock first = source.add(SYNC_A, 1152);
+        final @NotNull PCMDataBlock second = source.add(SYNC_A, 1152);
+        final int[] expectedParts = {1, 0, 1, 0};
+        int position = 0;
+
+        for (final int parts : expectedParts) {
+            final @NotNull PCMDataBlock block = rechunker.read();
+
+            assertEquals(CHUNK, block.getLengthAsFrames());
+            assertContinuous(block, position);
+            assertEquals(parts, block.getNumberOfParts());
+            if (position == 0)
+                assertSame(first, block.getPart(0));
+            if (position == 2 * CHUNK) {
+                assertSame(second, block.getPart(0));
+                assertEquals(1152 - 2 * CHUNK, block.getPartOffset(0));
+            }
+            position += CHUNK;
+        }
+
+        // The end of the stream returns the remainder.
+        assertEquals(2 * 1152 - 4 * CHUNK, rechunker.read().getLengthAsFrames());
+        try {
+            rechunker.read();
+            fail();
+        } catch (EOFException ignored) {
+        }
+    }
+
+    @Test
+    public void endsAtMetadataChange() throws IOException {
+        final @NotNull QueueSource source = new QueueSource();
+        final @NotNull Rechunker<QueueSource> rechunker = new Rechunker<>(source, CHUNK);
+        @NotNull PCMDataBlock block;
+
+        assumeFalse(Objects.equals(SYNC_A, SYNC_B));
+        source.add(SYNC_A, 300);
+        source.add(SYNC_B, 1000);
+
+        block = rechunker.read();
+        assertEquals(300, block.getLengthAsFrames());
+        assertSame(SYNC_A, block.getSync());
+
+        block = rechunker.read();
+        assertEquals(CHUNK, block.getLengthAsFrames());
+        assertSame(SYNC_B, block.getSync());
+        assertContinuous(block, 300);
+    }
+
+    @Test
+    public void endsAtFormatChange() throws IOException {
+        final @NotNull QueueSource source = new QueueSource();
+        final @NotNull Rechunker<QueueSource> rechunker = new Rechunker<>(source, CHUNK);
+        @NotNull PCMDataBlock block;
+
+        source.add(SYNC_A, 300);
+        source.add(SYNC_A, 44100, 1000);
+
+        block = rechunker.read();
+        assertEquals(300, block.getLengthAsFrames());
+        assertEquals(SAMPLE_RATE, block.getSampleRate());
+
+        block = rechunker.read();
+        assertEquals(CHUNK, block.getLengthAsFrames());
+        assertEquals(44100, block.getSampleRate());
+        assertContinuous(block, 300);
+    }
+
+    @Test
+    public void partsAreAudibleAtTheirOffset() throws IOException {
+        final @NotNull QueueSource source = new QueueSource();
+        final @NotNull Rechunker<QueueSource> rechunker = new Rechunker<>(source, CHUNK);
+        final @NotNull FrameClock clock = new FrameClock();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final @NotNull PCMDataBlock block;
+
+        for (int i = 0; i < 4; i++)
+            source.add(SYNC_A, 120).onAudible(audible::incrementAndGet);
+
+        block = rechunker.read();
+        clock.schedule(block);
+        clock.written(block.getLengthAsFrames());
+
+        clock.update(1);
+        clock.runAudible();
+        assertEquals(1, audible.get());
+        clock.update(120);
+        clock.runAudible();
+        assertEquals(1, audible.get());
+        clock.update(121);
+        clock.runAudible();
+        assertEquals(2, audible.get());
+        clock.update(CHUNK);
+        clock.runAudible();
+        assertEquals(4, audible.get());
+
+        // Without a clock all parts are reported with the block.
+        audible.set(0);
+        block.audible();
+        assertEquals(4, audible.get());
+    }
+}
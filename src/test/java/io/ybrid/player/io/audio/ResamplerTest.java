@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import io.ybrid.player.io.audio.generator.Generator;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class ResamplerTest {
+    private static final int INPUT_RATE = 44100;
+    private static final int OUTPUT_RATE = 48000;
+    private static final int BLOCK_SIZE = 1152; // [frame], as for MP3
+    private static final int BLOCKS = 200;
+    private static final double FREQUENCY = 1000; // [Hz]
+    private static final double AMPLITUDE = 16384;
+    private static final int BENCHMARK_BLOCKS = 4000;
+    private static final int ALIAS_OUTPUT_RATE = 32000;
+    private static final double ALIAS_FREQUENCY = 18000; // [Hz]
+    private static final int POLYPHASE_DELAY = 16; // [frame], frames kept for interpolation
+    private static final @NotNull Sync SYNC = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+
+    private static @NotNull PCMDataBlock sine(int sampleRate, int channels, long first, int frames) {
+        return sine(sampleRate, channels, first, frames, FREQUENCY);
+    }
+
+    private static @NotNull PCMDataBlock sine(int sampleRate, int channels, long first, int frames, double frequency) {
+        final short[] data = new short[frames * channels];
+
+        for (int i = 0; i < frames; i++) {
+            final short value = (short) Math.round(AMPLITUDE * Math.sin(2 * Math.PI * frequency * (first + i) / sampleRate));
+            for (int channel = 0; channel < channels; channel++)
+                data[i * channels + channel] = value;
+        }
+
+        return new PCMDataBlock(SYNC, null, data, sampleRate, channels);
+    }
+
+    /**
+     * Resamples a sine and returns the RMS error relative to the ideal signal, skipping the filter's start.
+     */
+    private static double error(@NotNull Resampler.Quality quality) {
+        final @NotNull Resampler<Generator> resampler = new Resampler<>(new Generator(), quality);
+        long output = 0;
+        double error = 0;
+        long count = 0;
+
+        resampler.setOutputFormat(OUTPUT_RATE, 2);
+        for (int block = 0; block < BLOCKS; block++) {
+            final @NotNull PCMDataBlock converted = resampler.process(sine(INPUT_RATE, 1, (long) block * BLOCK_SIZE, BLOCK_SIZE));
+            final short[] data = converted.getData();
+
+            assertEquals(OUTPUT_RATE, converted.getSampleRate());
+            assertEquals(2, converted.getNumberOfChannels());
+
+            for (int i = 0; i < converted.getLengthAsFrames(); i++, output++) {
+                final double expected = AMPLITUDE * Math.sin(2 * Math.PI * FREQUENCY * output / OUTPUT_RATE);
+                assertEquals(data[i * 2], data[i * 2 + 1]);
+                if (output > 100) {
+                    error += (data[i * 2] - expected) * (data[i * 2] - expected);
+                    count++;
+                }
+            }
+        }
+
+        // All input has been converted except for the frames kept for interpolation.
+        assertEquals((double) BLOCKS * BLOCK_SIZE * OUTPUT_RATE / INPUT_RATE, output, 20);
+        return Math.sqrt(error / count) / AMPLITUDE;
+    }
+
+    @Test
+    public void qualityTiers() {
+        final double linear = error(Resampler.Quality.LINEAR);
+        final double cubic = error(Resampler.Quality.CUBIC);
+        final double polyphase = error(Resampler.Quality.POLYPHASE);
+
+        System.out.println("Relative RMS error 44.1kHz -> 48kHz at 1kHz: linear: " + linear + ", cubic: " + cubic + ", polyphase: " + polyphase);
+        assertTrue(linear < 0.01);
+        assertTrue(cubic < linear);
+        assertTrue(polyphase < linear);
+    }
+
+    /**
+     * Converts a tone above the output's Nyquist frequency down and returns the level of what is left relative to the input.
+     */
+    private static double alias(@NotNull Resampler.Quality quality) {
+        final @NotNull Resampler<Generator> resampler = new Resampler<>(new Generator(), quality);
+        double sum = 0;
+        long count = 0;
+
+        resampler.setOutputFormat(ALIAS_OUTPUT_RATE, 1);
+        for (int block = 0; block < BLOCKS; block++) {
+            for (final short sample : resampler.process(sine(OUTPUT_RATE, 1, (long) block * BLOCK_SIZE, BLOCK_SIZE, ALIAS_FREQUENCY)).getData()) {
+                sum += (double) sample * sample;
+                count++;
+            }
+        }
+
+        return Math.sqrt(sum / count) / (AMPLITUDE / Math.sqrt(2));
+    }
+
+    @Test
+    public void polyphaseSuppressesAliasing() {
+        final double linear = alias(Resampler.Quality.LINEAR);
+        final double cubic = alias(Resampler.Quality.CUBIC);
+        final double polyphase = alias(Resampler.Quality.POLYPHASE);
+
+        System.out.println("Alias level 48kHz -> 32kHz at 18kHz: linear: " + toDB(linear) + "dB, cubic: " + toDB(cubic) + "dB, polyphase: " + toDB(polyphase) + "dB");
+        assertTrue(toDB(polyphase) < -60);
+        assertTrue(polyphase < linear / 100);
+    }
+
+    private static long toDB(double level) {
+        return Math.round(20 * Math.log10(level));
+    }
+
+    @Test
+    public void passThroughAndChannels() {
+        final @NotNull Resampler<Generator> resampler = new Resampler<>(new Generator(), Resampler.Quality.POLYPHASE);
+        final @NotNull PCMDataBlock block = sine(OUTPUT_RATE, 2, 0, BLOCK_SIZE);
+        final @NotNull PCMDataBlock stereo = sine(OUTPUT_RATE, 2, 0, BLOCK_SIZE);
+        final @NotNull PCMDataBlock converted;
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+
+        // Without an output format and in the output format blocks are not touched.
+        assertSame(block, resampler.process(block));
+        resampler.setOutputFormat(OUTPUT_RATE, 2);
+        assertSame(block, resampler.process(block));
+
+        // Channels only: no delay, averaged down.
+        resampler.setOutputFormat(OUTPUT_RATE, 1);
+        stereo.onAudible(audible::incrementAndGet);
+        converted = resampler.process(stereo);
+        assertEquals(1, converted.getNumberOfChannels());
+        assertEquals(BLOCK_SIZE, converted.getLengthAsFrames());
+        for (int i = 0; i < BLOCK_SIZE; i++)
+            assertEquals(stereo.getData()[i * 2], converted.getData()[i]);
+
+        // The converted block reports the original one as audible.
+        converted.audible();
+        assertEquals(1, audible.get());
+        assertEquals(stereo.getSync(), converted.getSync());
+    }
+
+    /**
+     * Converts a sine that is continuous in time while its sample rate changes and returns the largest step
+     * between two output frames relative to the largest step of the ideal signal.
+     */
+    private static double handover(@NotNull Resampler.Quality quality) {
+        final int[] rates = {INPUT_RATE, 32000, OUTPUT_RATE, INPUT_RATE, 96000, OUTPUT_RATE};
+        final @NotNull Resampler<Generator> resampler = new Resampler<>(new Generator(), quality);
+        final double maxStep = AMPLITUDE * 2 * Math.PI * FREQUENCY / OUTPUT_RATE;
+        double seconds = 0;
+        double worst = 0;
+        long output = 0;
+        int last = 0;
+
+        resampler.setOutputFormat(OUTPUT_RATE, 1);
+        for (final int rate : rates) {
+            for (int block = 0; block < 20; block++) {
+                final short[] data = new short[BLOCK_SIZE];
+                final @NotNull PCMDataBlock converted;
+
+                for (int i = 0; i < BLOCK_SIZE; i++)
+                    data[i] = (short) Math.round(AMPLITUDE * Math.sin(2 * Math.PI * FREQUENCY * (seconds + (double) i / rate)));
+                seconds += (double) BLOCK_SIZE / rate;
+
+                converted = resampler.process(new PCMDataBlock(SYNC, null, data, rate, 1));
+                assertEquals(OUTPUT_RATE, converted.getSampleRate());
+                for (final short sample : converted.getData()) {
+                    if (output++ > 100)
+                        worst = Math.max(worst, Math.abs(sample - last));
+                    last = sample;
+                }
+            }
+        }
+
+        // No frames are lost on the handovers.
+        assertEquals(seconds * OUTPUT_RATE, output, 2 * POLYPHASE_DELAY);
+        return worst / maxStep;
+    }
+
+    @Test
+    public void handoverIsContinuous() {
+        for (final @NotNull Resampler.Quality quality : Resampler.Quality.values()) {
+            final double step = handover(quality);
+
+            System.out.println("Largest step on handovers with " + quality + ": " + step + " of the signal's");
+            assertTrue(quality + ": " + step, step < 1.25);
+        }
+    }
+
+    @Test
+    public void benchmark() {
+        final @NotNull PCMDataBlock[] input = new PCMDataBlock[16];
+
+        for (int i = 0; i < input.length; i++)
+            input[i] = sine(INPUT_RATE, 2, (long) i * BLOCK_SIZE, BLOCK_SIZE);
+
+        for (final @NotNull Resampler.Quality quality : Resampler.Quality.values()) {
+            final @NotNull Resampler<Generator> resampler = new Resampler<>(new Generator(), quality);
+            long frames = 0;
+            final long start;
+            final long time;
+
+            resampler.setOutputFormat(OUTPUT_RATE, 2);
+            // warm up
+            for (int i = 0; i < BENCHMARK_BLOCKS; i++)
+                resampler.process(input[i % input.length]);
+
+            start = System.nanoTime();
+            for (int i = 0; i < BENCHMARK_BLOCKS; i++)
+                frames += resampler.process(input[i % input.length]).getLengthAsFrames();
+            time = System.nanoTime() - start;
+
+            System.out.println("Resampler " + quality + ": " + (time / frames) + "ns/frame, " +
+                    String.format("%.2f%%", 100. * time / (1e9 * frames / OUTPUT_RATE)) + " of real time (stereo, 44.1kHz -> 48kHz)");
+            assertTrue(time < 1e9 * frames / OUTPUT_RATE);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import io.ybrid.player.io.audio.output.RenderQueue;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class SamplePoolTest {
+    private static final int FRAME = 2304; // one mp3 frame of stereo audio [sample]
+    private static final int ROUNDS = 20_000;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static @NotNull Sync sync() {
+        return Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+    }
+
+    /* This is how decoders created blocks before: a fresh copy of the decoder's buffer. */
+    private static @NotNull PCMDataBlock decodeUnpooled(@NotNull Sync sync, short[] decoded) {
+        return new PCMDataBlock(sync, null, decoded.clone(), 48000, 2);
+    }
+
+    private static @NotNull PCMDataBlock decodePooled(@NotNull Sync sync, short[] decoded, @NotNull SamplePool pool) {
+        final short[] data = pool.acquire(decoded.length);
+
+        System.arraycopy(decoded, 0, data, 0, decoded.length);
+        return new PCMDataBlock(sync, null, data, 0, decoded.length, 48000, 2, pool);
+    }
+
+    @Test
+    public void sizeClasses() {
+        final @NotNull SamplePool pool = new SamplePool(4);
+        final short[] array;
+
+        assertEquals(SamplePool.MIN_SIZE, SamplePool.getSize(1));
+        assertEquals(384, SamplePool.getSize(SamplePool.MIN_SIZE + 1));
+        assertEquals(2048, SamplePool.getSize(1920));
+        assertEquals(3072, SamplePool.getSize(FRAME));
+        assertEquals(SamplePool.MAX_SIZE, SamplePool.getSize(SamplePool.MAX_SIZE));
+        assertEquals(SamplePool.MAX_SIZE + 1, SamplePool.getSize(SamplePool.MAX_SIZE + 1));
+
+        array = pool.acquire(FRAME);
+        assertEquals(3072, array.length);
+        assertEquals(1, pool.getAllocations());
+
+        pool.release(array);
+        assertEquals(1, pool.getPooled());
+        assertSame(array, pool.acquire(2500));
+        assertEquals(1, pool.getReuses());
+
+        // Arrays not matching a size class are not pooled.
+        pool.release(new short[FRAME]);
+        pool.release(pool.acquire(SamplePool.MAX_SIZE + 1));
+        assertEquals(0, pool.getPooled());
+    }
+
+    @Test
+    public void referenceCounting() {
+        final @NotNull SamplePool pool = new SamplePool(4);
+        final @NotNull PCMDataBlock block = decodePooled(sync(), new short[FRAME], pool);
+        final @NotNull PCMDataBlock view = block.subBlock(10, 20);
+
+        assertEquals(2, block.getReferenceCount());
+
+        block.retain();
+        block.release();
+        block.release();
+        // The view keeps the array.
+        assertEquals(0, pool.getPooled());
+
+        view.release();
+        assertEquals(0, block.getReferenceCount());
+        assertEquals(1, pool.getPooled());
+
+        assertThrows(IllegalStateException.class, block::release);
+        assertThrows(IllegalStateException.class, block::retain);
+        assertThrows(IllegalStateException.class, view::release);
+        assertEquals(1, pool.getPooled());
+
+        // Blocks without a pool are not counted, so sources can pass them more than once.
+        final @NotNull PCMDataBlock unpooled = new PCMDataBlock(sync(), null, new short[FRAME], 48000, 2);
+        unpooled.release();
+        unpooled.release();
+        assertEquals(1, unpooled.getReferenceCount());
+    }
+
+    @Test
+    public void rechunkedBlocksAreReturned() throws IOException {
+        final @NotNull SamplePool pool = new SamplePool(16);
+        final @NotNull Sync sync = sync();
+        final short[] decoded = new short[FRAME];
+        final @NotNull PCMDataSource source = new PCMDataSource() {
+            private int left = 8;
+
+            @Override
+            public @NotNull PCMDataBlock read() throws IOException {
+                if (left-- == 0)
+                    throw new EOFException();
+                return decodePooled(sync, decoded, pool);
+            }
+
+            @Override
+            public boolean isValid() {
+                return left > 0;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final @NotNull Rechunker<PCMDataSource> rechunker = new Rechunker<>(source, 480);
+        int chunks = 0;
+
+        while (true) {
+            try {
+                rechunker.read().release();
+            } catch (EOFException e) {
+                break;
+            }
+            chunks++;
+        }
+
+        assertEquals(8 * FRAME / 2 / 480 + 1, chunks);
+        assertEquals(8, pool.getAllocations() + pool.getReuses());
+        assertEquals(1, pool.getAllocations());
+        assertEquals(1, pool.getPooled());
+    }
+
+    @Test
+    public void leakDetection() throws InterruptedException {
+        final @NotNull SamplePool pool = new SamplePool(4);
+
+        pool.setLeakDetection(true);
+        decodePooled(sync(), new short[FRAME], pool).release();
+        //noinspection ResultOfMethodCallIgnored
+        decodePooled(sync(), new short[FRAME], pool);
+
+        for (int i = 0; i < 100 && pool.getLeaks() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertEquals(1, pool.getLeaks());
+    }
+
+    private static long measure(@NotNull SamplePool pool, boolean pooled) {
+        final @NotNull Sync sync = sync();
+        final short[] decoded = new short[FRAME];
+        final short[] device = new short[FRAME];
+        final @NotNull RenderQueue queue = new RenderQueue();
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final long start;
+
+        start = getAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++) {
+            final @NotNull PCMDataBlock block = pooled ? decodePooled(sync, decoded, pool) : decodeUnpooled(sync, decoded);
+
+            assertTrue(queue.offer(block));
+            block.release();
+            assertEquals(FRAME / 2, queue.poll(device, 0, FRAME / 2, result));
+        }
+        return (getAllocatedBytes() - start) / ROUNDS;
+    }
+
+    @Test
+    public void allocationRate() {
+        final @NotNull SamplePool pool = new SamplePool(SamplePool.DEFAULT_CAPACITY);
+        final long unpooled, pooled;
+
+        // warm up
+        measure(pool, false);
+        measure(pool, true);
+
+        unpooled = measure(pool, false);
+        pooled = measure(pool, true);
+
+        System.out.println("Decoding and rendering of " + ROUNDS + " blocks: unpooled: " + unpooled + " bytes/block, pooled: " + pooled + " bytes/block, arrays allocated: " + pool.getAllocations());
+
+        assertTrue(unpooled >= FRAME * 2);
+        assertTrue(pooled * 4 < unpooled);
+        assertEquals(1, pool.getAllocations());
+    }
+}
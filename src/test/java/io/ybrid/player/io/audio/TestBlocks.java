@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2022 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio;
+
+import io.ybrid.api.metadata.Sync;
+import io.ybrid.api.metadata.source.Source;
+import io.ybrid.api.metadata.source.SourceType;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This creates {@link PCMDataBlock}s for tests that need blocks of a given length or content.
+ * <P>
+ * All blocks share the same {@link #SYNC}. Tests of signal processing should use
+ * {@link io.ybrid.player.io.audio.generator.Generator} instead.
+ */
+public final class TestBlocks {
+    /**
+     * The {@link Sync} used by all blocks.
+     */
+    public static final @NotNull Sync SYNC = Sync.Builder.buildEmpty(new Source(SourceType.SESSION));
+
+    private TestBlocks() {
+    }
+
+    /**
+     * Creates a silent block.
+     * @param frames The length in [frame].
+     * @param sampleRate The sample rate in [Hz].
+     * @param channels The number of channels.
+     * @return The new block.
+     */
+    public static @NotNull PCMDataBlock silence(int frames, int sampleRate, int channels) {
+        return new PCMDataBlock(SYNC, null, new short[frames * channels], sampleRate, channels);
+    }
+
+    /**
+     * Creates a block with all samples set to the same value.
+     * @param value The value of all samples.
+     * @param frames The length in [frame].
+     * @param sampleRate The sample rate in [Hz].
+     * @param channels The number of channels.
+     * @return The new block.
+     */
+    public static @NotNull PCMDataBlock constant(short value, int frames, int sampleRate, int channels) {
+        final short[] data = new short[frames * channels];
+
+        Arrays.fill(data, value);
+        return new PCMDataBlock(SYNC, null, data, sampleRate, channels);
+    }
+
+    /**
+     * Creates a block of counting samples, so each sample tells its position in the stream.
+     * The interleaved sample {@code i} of the block is set to {@code first * channels + i}, wrapping around.
+     *
+     * @param first The index of the first frame in [frame].
+     * @param frames The length in [frame].
+     * @param sampleRate The sample rate in [Hz].
+     * @param channels The number of channels.
+     * @return The new block.
+     */
+    public static @NotNull PCMDataBlock ramp(int first, int frames, int sampleRate, int channels) {
+        final short[] data = new short[frames * channels];
+
+        for (int i = 0; i < data.length; i++)
+            data[i] = (short) (first * channels + i);
+
+        return new PCMDataBlock(SYNC, null, data, sampleRate, channels);
+    }
+
+    /**
+     * Counts how often the given block becomes audible.
+     * @param block The block.
+     * @param audible The counter to increment.
+     * @return The block.
+     */
+    public static @NotNull PCMDataBlock counting(@NotNull PCMDataBlock block, @NotNull AtomicInteger audible) {
+        block.onAudible(audible::incrementAndGet);
+        return block;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.PCMReadResult;
+import io.ybrid.player.io.audio.TestBlocks;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class FrameClockTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHANNELS = 2;
+    private static final int FRAMES = 100;
+
+    @Test
+    public void audibleWhenPlayed() {
+        final @NotNull FrameClock clock = new FrameClock();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            clock.schedule(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, CHANNELS), audible));
+            clock.written(FRAMES);
+        }
+
+        // Written is not audible.
+        clock.update(0);
+        clock.runAudible();
+        assertEquals(0, audible.get());
+        assertEquals(3 * FRAMES, clock.getFramesPending());
+
+        // Updating the position alone does not run the callbacks.
+        clock.update(1);
+        assertEquals(0, audible.get());
+        clock.runAudible();
+        assertEquals(1, audible.get());
+
+        clock.update(FRAMES + 50);
+        clock.runAudible();
+        assertEquals(2, audible.get());
+        assertEquals(FRAMES + 50, clock.getFramePosition());
+
+        // The position never decreases.
+        clock.update(20);
+        clock.runAudible();
+        assertEquals(FRAMES + 50, clock.getFramePosition());
+
+        // The device never reports more than written.
+        clock.update(10 * FRAMES);
+        clock.runAudible();
+        assertEquals(3, audible.get());
+        assertEquals(3 * FRAMES, clock.getFramePosition());
+    }
+
+    @Test
+    public void audibleRunsWithoutLock() {
+        final @NotNull FrameClock clock = new FrameClock();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final @NotNull AtomicInteger locked = new AtomicInteger();
+        final @NotNull PCMDataBlock block = TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, CHANNELS), audible);
+
+        block.onAudible(() -> {
+            if (Thread.holdsLock(clock))
+                locked.incrementAndGet();
+        });
+        clock.schedule(block);
+        clock.written(FRAMES);
+        clock.update(1);
+        clock.runAudible();
+
+        // Each block is only reported once.
+        clock.runAudible();
+        assertEquals(1, audible.get());
+        assertEquals(0, locked.get());
+    }
+
+    @Test
+    public void positionContinuesAfterRebase() {
+        final @NotNull FrameClock clock = new FrameClock();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+
+        clock.schedule(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, CHANNELS), audible));
+        clock.written(FRAMES);
+        clock.update(FRAMES / 2);
+        clock.runAudible();
+
+        // Reconfiguration drains the device, so everything written has been played.
+        clock.rebase();
+        assertEquals(FRAMES, clock.getFramePosition());
+
+        clock.schedule(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, CHANNELS), audible));
+        clock.written(FRAMES);
+        clock.update(0);
+        clock.runAudible();
+        assertEquals(1, audible.get());
+        clock.update(1);
+        clock.runAudible();
+        assertEquals(2, audible.get());
+        assertEquals(FRAMES + 1, clock.getFramePosition());
+
+        // Without a device position everything written is assumed to be played.
+        clock.update(-1);
+        clock.runAudible();
+        assertEquals(2 * FRAMES, clock.getFramePosition());
+    }
+
+    /**
+     * Reads a period like the render thread of an output does: The blocks started by each read are scheduled
+     * before the read is written.
+     */
+    private static int render(@NotNull RenderQueue queue, @NotNull PCMReadResult result, @NotNull FrameClock clock, short[] period) {
+        final int frames = period.length / CHANNELS;
+        int done = 0;
+
+        while (done < frames) {
+            final int read = queue.poll(period, done * CHANNELS, frames - done, result);
+
+            if (read == 0)
+                break;
+
+            for (int i = 0; i < result.getNumberOfBlocks(); i++)
+                clock.schedule(result.getBlock(i), clock.getFramesWritten() + result.getBlockOffset(i));
+            clock.written(read);
+            done += read;
+        }
+
+        return done;
+    }
+
+    @Test
+    public void renderSchedulesBlockStarts() throws InterruptedException {
+        final @NotNull FrameClock clock = new FrameClock();
+        final @NotNull RenderQueue queue = new RenderQueue(4);
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final short[] period = new short[256 * CHANNELS];
+
+        for (int i = 0; i < 3; i++)
+            queue.put(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, CHANNELS), audible));
+
+        // Blocks start at 0, 100, and 200 in the first period. Rendering alone does not make them audible.
+        assertEquals(256, render(queue, result, clock, period));
+        assertEquals(0, audible.get());
+
+        clock.update(FRAMES);
+        clock.runAudible();
+        assertEquals(1, audible.get());
+        clock.update(FRAMES + 1);
+        clock.runAudible();
+        assertEquals(2, audible.get());
+
+        // The remainder of the last block is rendered with the next period, the block is not scheduled again.
+        assertEquals(44, render(queue, result, clock, period));
+        clock.update(512);
+        clock.runAudible();
+        assertEquals(3, audible.get());
+    }
+}
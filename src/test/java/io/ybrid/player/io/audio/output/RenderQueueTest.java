@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio.output;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.PCMReadResult;
+import io.ybrid.player.io.audio.SamplePool;
+import io.ybrid.player.io.audio.TestBlocks;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RenderQueueTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int CHANNELS = 2;
+    private static final int PERIOD = 480; // [frame]
+    private static final int BLOCKS = 2000;
+
+    @Test
+    public void renderFixedPeriodsFromVariableBlocks() throws InterruptedException {
+        final @NotNull RenderQueue queue = new RenderQueue(4);
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final @NotNull Thread feeder = new Thread(() -> {
+            int frame = 0;
+            try {
+                for (int i = 0; i < BLOCKS; i++) {
+                    final int frames = 100 + (i * 37) % 1100;
+                    queue.put(TestBlocks.counting(TestBlocks.ramp(frame, frames, SAMPLE_RATE, CHANNELS), audible));
+                    frame += frames;
+                }
+            } catch (InterruptedException ignored) {
+            }
+            queue.close();
+        });
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final short[] period = new short[PERIOD * CHANNELS];
+        int expected = 0;
+
+        feeder.start();
+        while (true) {
+            final int rendered = queue.poll(period, 0, PERIOD, result);
+
+            if (rendered == 0) {
+                if (queue.isDrained())
+                    break;
+                Thread.yield();
+                continue;
+            }
+
+            assertEquals(SAMPLE_RATE, result.getSampleRate());
+            for (int i = 0; i < rendered; i++) {
+                assertEquals((short) (expected * CHANNELS), period[i * CHANNELS]);
+                assertEquals((short) (expected * CHANNELS + 1), period[i * CHANNELS + 1]);
+                expected++;
+            }
+            result.audible();
+        }
+        feeder.join();
+
+        assertEquals(BLOCKS, audible.get());
+    }
+
+    @Test
+    public void renderStopsAtFormatChange() throws InterruptedException {
+        final @NotNull RenderQueue queue = new RenderQueue();
+        final @NotNull PCMReadResult result = new PCMReadResult();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final @NotNull PCMDataBlock first = TestBlocks.counting(TestBlocks.ramp(0, 300, SAMPLE_RATE, CHANNELS), audible);
+        final @NotNull PCMDataBlock second = TestBlocks.counting(TestBlocks.ramp(300, 300, 44100, CHANNELS), audible);
+        final short[] period = new short[PERIOD * CHANNELS];
+
+        queue.put(first);
+        queue.put(second);
+
+        assertEquals(300, queue.poll(period, 0, PERIOD, result));
+        assertEquals(SAMPLE_RATE, result.getSampleRate());
+        assertEquals(1, result.getNumberOfBlocks());
+        assertSame(first, result.getBlock(0));
+
+        // The next format starts with a new read, so the device can be reconfigured first.
+        assertEquals(300, queue.poll(period, 0, PERIOD, result));
+        assertTrue(result.isFormatChanged());
+        assertEquals(44100, result.getSampleRate());
+        assertSame(second, result.getBlock(0));
+        assertEquals(0, result.getBlockOffset(0));
+        assertEquals(300 * CHANNELS, period[0]);
+
+        // Blocks are reported as audible by the reader, not by the queue.
+        assertEquals(0, audible.get());
+        assertEquals(0, queue.poll(period, 0, PERIOD, result));
+        assertFalse(queue.isDrained());
+        queue.close();
+        assertTrue(queue.isDrained());
+    }
+
+    @Test
+    public void clearReleasesStagedBlocks() throws InterruptedException {
+        final @NotNull SamplePool pool = new SamplePool(4);
+        final @NotNull RenderQueue queue = new RenderQueue();
+
+        for (int i = 0; i < 3; i++) {
+            final @NotNull PCMDataBlock block = new PCMDataBlock(TestBlocks.SYNC, null,
+                    pool.acquire(PERIOD * CHANNELS), 0, PERIOD * CHANNELS, SAMPLE_RATE, CHANNELS, pool);
+
+            queue.put(block);
+            block.release();
+        }
+        assertEquals(0, pool.getPooled());
+
+        // The queue holds the only references, so the arrays are returned to the pool.
+        queue.close();
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertEquals(3, pool.getPooled());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.TestBlocks;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class TeeOutputTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int FRAMES = 960; // [frame], 20ms
+    private static final int BLOCKS = 500;
+    private static final int CAPACITY = 8;
+    private static final long TIMEOUT = 5; // [s]
+
+    /**
+     * An output that blocks in {@link #write(PCMDataBlock)} until {@link #release} is counted down.
+     */
+    private static final class SlowOutput implements AudioOutput {
+        private final @NotNull CountDownLatch writing = new CountDownLatch(1);
+        private final @NotNull CountDownLatch release = new CountDownLatch(1);
+        private final @NotNull AtomicInteger written = new AtomicInteger();
+
+        @Override
+        public void prepare(@NotNull PCMDataBlock block) {
+        }
+
+        @Override
+        public void play() {
+        }
+
+        @Override
+        public void write(@NotNull PCMDataBlock block) throws IOException {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            block.audible();
+            written.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void slowBranchDoesNotStallPrimary() throws IOException, InterruptedException {
+        final @NotNull SinkStatistics statistics = new SinkStatistics();
+        final @NotNull TeeOutput tee = new TeeOutput(AudioOutputFactory.getNullFactory(false, statistics).getAudioOutput());
+        final @NotNull SlowOutput slow = new SlowOutput();
+        final @NotNull SinkStatistics fast = new SinkStatistics();
+        final @NotNull TeeOutput.Branch slowBranch = tee.addBranch(slow, CAPACITY);
+        final @NotNull TeeOutput.Branch fastBranch = tee.addBranch(AudioOutputFactory.getNullFactory(false, fast).getAudioOutput(), BLOCKS);
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+
+        tee.prepare(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, 2), audible));
+        tee.play();
+        tee.write(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, 2), audible));
+        assertTrue(slow.writing.await(TIMEOUT, TimeUnit.SECONDS));
+
+        // The slow branch is blocked writing the first block, so this would never return if the primary waited for it.
+        for (int i = 1; i < BLOCKS; i++)
+            tee.write(TestBlocks.counting(TestBlocks.silence(FRAMES, SAMPLE_RATE, 2), audible));
+        assertEquals(BLOCKS, statistics.getBlocks());
+        assertEquals(BLOCKS - 1 - CAPACITY, slowBranch.getDropped());
+        assertEquals(CAPACITY * FRAMES / (double) SAMPLE_RATE, slowBranch.getLag(), 1e-6);
+
+        slow.release.countDown();
+        tee.close();
+
+        assertEquals(1 + CAPACITY, slowBranch.getWritten());
+        assertEquals(BLOCKS, slowBranch.getWritten() + slowBranch.getDropped());
+        assertEquals(slow.written.get(), slowBranch.getWritten());
+        assertEquals(0, fastBranch.getDropped());
+        assertEquals(BLOCKS, fast.getBlocks());
+        assertNull(slowBranch.getException());
+
+        // Only the primary output reports blocks as audible.
+        assertEquals(BLOCKS, audible.get());
+        assertEquals(0., slowBranch.getLag(), 0);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import io.ybrid.player.io.audio.TestBlocks;
+import io.ybrid.player.io.audio.output.AudioOutput;
+import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class FileOutputTest {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int FRAMES = 1152; // [frame]
+    private static final int BLOCKS = 1000; // more than fits the write buffer
+
+    private static @NotNull ByteBuffer write(@NotNull AudioOutputFactory.FileFormat format) throws IOException {
+        final @NotNull Path path = Files.createTempFile("ybrid", ".wav"); //NON-NLS
+        final @NotNull AudioOutput output = AudioOutputFactory.getFileFactory(path, format, null).getAudioOutput();
+
+        try {
+            output.prepare(TestBlocks.ramp(0 * FRAMES, FRAMES, SAMPLE_RATE, 2));
+            output.play();
+            for (int i = 0; i < BLOCKS; i++)
+                output.write(TestBlocks.ramp(i * FRAMES, FRAMES, SAMPLE_RATE, 2));
+            output.close();
+            return ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void assertData(@NotNull ByteBuffer file) {
+        for (int i = 0; i < BLOCKS; i++) {
+            final short[] expected = TestBlocks.ramp(i * FRAMES, FRAMES, SAMPLE_RATE, 2).getData();
+            for (final short sample : expected)
+                assertEquals(sample, file.getShort());
+        }
+        assertFalse(file.hasRemaining());
+    }
+
+    private static @NotNull String tag(@NotNull ByteBuffer buffer) {
+        final byte[] tag = new byte[4];
+        buffer.get(tag);
+        return new String(tag, StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void wav() throws IOException {
+        final @NotNull ByteBuffer file = write(AudioOutputFactory.FileFormat.WAV);
+        final int dataLength = BLOCKS * FRAMES * 2 * Short.BYTES;
+
+        assertEquals("RIFF", tag(file));
+        assertEquals(36 + dataLength, file.getInt());
+        assertEquals("WAVE", tag(file));
+        assertEquals("fmt ", tag(file));
+        assertEquals(16, file.getInt());
+        assertEquals(1, file.getShort());
+        assertEquals(2, file.getShort());
+        assertEquals(SAMPLE_RATE, file.getInt());
+        assertEquals(SAMPLE_RATE * 4, file.getInt());
+        assertEquals(4, file.getShort());
+        assertEquals(16, file.getShort());
+        assertEquals("data", tag(file));
+        assertEquals(dataLength, file.getInt());
+        assertData(file);
+    }
+
+    @Test
+    public void raw() throws IOException {
+        assertData(write(AudioOutputFactory.FileFormat.RAW));
+    }
+
+    @Test
+    public void wavRejectsFormatChange() throws IOException {
+        final @NotNull Path path = Files.createTempFile("ybrid", ".wav"); //NON-NLS
+        final @NotNull AudioOutput output = AudioOutputFactory.getFileFactory(path, AudioOutputFactory.FileFormat.WAV, null).getAudioOutput();
+
+        try {
+            output.prepare(TestBlocks.ramp(0 * FRAMES, FRAMES, SAMPLE_RATE, 2));
+            output.write(TestBlocks.ramp(0 * FRAMES, FRAMES, SAMPLE_RATE, 2));
+            try {
+                output.write(TestBlocks.ramp(1 * FRAMES, FRAMES, 48000, 2));
+                fail();
+            } catch (IOException ignored) {
+            }
+            output.close();
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.TestBlocks;
+import io.ybrid.player.io.audio.output.AudioOutput;
+import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import io.ybrid.player.io.audio.output.SinkStatistics;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class NullOutputTest {
+    private static final int SAMPLE_RATE = 48000;
+    private static final int FRAMES = 960; // [frame], 20ms
+
+    /**
+     * Writes the given length of audio and returns the wall time it took in [s].
+     */
+    private static double play(@NotNull AudioOutput output, double length) throws IOException {
+        final @NotNull PCMDataBlock first = TestBlocks.silence(FRAMES, SAMPLE_RATE, 2);
+        final long start = System.nanoTime();
+
+        output.prepare(first);
+        output.play();
+        for (int i = 0; i < length * SAMPLE_RATE / FRAMES; i++)
+            output.write(TestBlocks.silence(FRAMES, SAMPLE_RATE, 2));
+        return (System.nanoTime() - start) / 1e9;
+    }
+
+    @Test
+    public void fastAsPossible() throws IOException {
+        final @NotNull SinkStatistics statistics = new SinkStatistics();
+        final @NotNull AudioOutput output = AudioOutputFactory.getNullFactory(false, statistics).getAudioOutput();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final @NotNull PCMDataBlock block = TestBlocks.silence(FRAMES, SAMPLE_RATE, 2);
+        final double elapsed;
+
+        elapsed = play(output, 60);
+        block.onAudible(audible::incrementAndGet);
+        output.write(block);
+        output.close();
+
+        System.out.println("Null output: " + Math.round(statistics.getLength()) + "s of audio in " + Math.round(elapsed * 1000) + "ms, " + Math.round(statistics.getRealtimeFactor()) + "x realtime");
+        assertEquals(60 * SAMPLE_RATE + FRAMES, statistics.getFrames());
+        assertEquals(1, audible.get());
+        assertEquals(statistics.getFrames(), output.getFramePosition());
+        assertTrue(elapsed < 5);
+    }
+
+    @Test
+    public void realtime() throws IOException {
+        final @NotNull SinkStatistics statistics = new SinkStatistics();
+        final @NotNull AudioOutput output = AudioOutputFactory.getNullFactory(true, statistics).getAudioOutput();
+        final double elapsed = play(output, 0.5);
+        final long position = output.getFramePosition();
+
+        output.close();
+
+        // The last 100ms are still buffered when the last write returns.
+        assertTrue("elapsed: " + elapsed, elapsed > 0.35 && elapsed < 1.5);
+        assertTrue("position: " + position, position > 0 && position < statistics.getFrames());
+    }
+
+    @Test
+    public void audibleOnWritingThread() throws IOException, InterruptedException {
+        final @NotNull AudioOutput output = AudioOutputFactory.getNullFactory(true, null).getAudioOutput();
+        final @NotNull AtomicInteger audible = new AtomicInteger();
+        final @NotNull AtomicInteger misplaced = new AtomicInteger();
+        final @NotNull Thread writer;
+        final int blocks = 15;
+
+        writer = new Thread(() -> {
+            final @NotNull Thread self = Thread.currentThread();
+
+            try {
+                for (int i = 0; i < blocks; i++) {
+                    final @NotNull PCMDataBlock block = TestBlocks.silence(FRAMES, SAMPLE_RATE, 2);
+
+                    block.onAudible(() -> {
+                        if (Thread.currentThread() != self || Thread.holdsLock(output))
+                            misplaced.incrementAndGet();
+                        audible.incrementAndGet();
+                    });
+                    if (i == 0) {
+                        output.prepare(block);
+                        output.play();
+                    }
+                    output.write(block);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "Writer");
+
+        writer.start();
+        // Queries from other threads update the position but never run the callbacks.
+        while (writer.isAlive())
+            output.getFramePosition();
+        writer.join();
+
+        assertTrue("audible: " + audible.get(), audible.get() > 0 && audible.get() < blocks);
+        assertEquals(0, misplaced.get());
+
+        // Closing drains the device, so the remaining blocks are reported.
+        output.close();
+        assertEquals(blocks, audible.get());
+    }
+}
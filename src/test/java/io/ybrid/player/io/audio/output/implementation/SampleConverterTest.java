@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.io.audio.output.implementation;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+public class SampleConverterTest {
+    private static final int BLOCK = 1920; // 20ms of 48kHz stereo [sample]
+    private static final int ROUNDS = 20_000;
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /* This is how blocks have been converted before. */
+    private static byte[] convertPerSample(short[] data) {
+        final @NotNull ByteBuffer buffer = ByteBuffer.allocate(data.length * 2).order(ByteOrder.nativeOrder());
+
+        for (short val : data)
+            buffer.putShort(val);
+
+        return buffer.array();
+    }
+
+    private static short[] samples() {
+        final short[] data = new short[BLOCK];
+
+        for (int i = 0; i < data.length; i++)
+            data[i] = (short) (i * 31);
+
+        return data;
+    }
+
+    @Test
+    public void convertMatchesPerSampleConversion() {
+        final short[] data = samples();
+
+        for (final @NotNull ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            final @NotNull SampleConverter converter = new SampleConverter(order);
+            final @NotNull ByteBuffer expected = ByteBuffer.allocate(BLOCK * 2).order(order);
+            final byte[] converted;
+
+            for (short val : data)
+                expected.putShort(val);
+
+            converted = converter.convert(data, 0, data.length);
+            for (int i = 0; i < BLOCK * 2; i++)
+                assertEquals(expected.get(i), converted[i]);
+
+            // A shorter conversion reuses the buffer.
+            assertSame(converted, converter.convert(data, 10, 20));
+            assertEquals(expected.get(20), converted[0]);
+        }
+    }
+
+    @Test
+    public void allocationAndThroughput() {
+        final short[] data = samples();
+        final @NotNull SampleConverter converter = new SampleConverter(ByteOrder.nativeOrder());
+        final long oldAllocated, newAllocated, endAllocated, oldTime, newTime;
+        long sum = 0;
+        long start;
+
+        // warm up
+        for (int i = 0; i < ROUNDS; i++) {
+            sum += convertPerSample(data)[i % BLOCK];
+            sum += converter.convert(data, 0, data.length)[i % BLOCK];
+        }
+
+        start = System.nanoTime();
+        oldAllocated = getAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++)
+            sum += convertPerSample(data)[i % BLOCK];
+        oldTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        newAllocated = getAllocatedBytes();
+        for (int i = 0; i < ROUNDS; i++)
+            sum += converter.convert(data, 0, data.length)[i % BLOCK];
+        newTime = System.nanoTime() - start;
+        endAllocated = getAllocatedBytes();
+
+        System.out.println("Conversion of " + ROUNDS + " blocks: per sample: " + (newAllocated - oldAllocated) / ROUNDS + " bytes/block, " + oldTime / ROUNDS + "ns/block; bulk: " + (endAllocated - newAllocated) / ROUNDS + " bytes/block, " + newTime / ROUNDS + "ns/block (" + sum + ")");
+
+        assertTrue(newAllocated - oldAllocated >= (long) ROUNDS * BLOCK * 2);
+        assertTrue(endAllocated - newAllocated < ROUNDS);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.player;
+
+import io.ybrid.api.player.Control;
+import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class BasePlayerTest {
+    private static final long TIMEOUT = 5; // [s]
+
+    @Test
+    public void stopEndsEventThread() throws InterruptedException {
+        final @NotNull StubSession session = new StubSession();
+        final @NotNull BasePlayer player = new BasePlayer(session, null, AudioOutputFactory.getNullFactory(false, null), transportDescription -> {
+            throw new IOException("Not connected");
+        });
+        final @NotNull CountDownLatch delivered = new CountDownLatch(1);
+        final @Nullable Control control = session.getControl();
+
+        assertNotNull(control);
+
+        // An event queued before the player is stopped is still delivered.
+        assertTrue(player.getEventDispatcher().dispatchCritical(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            delivered.countDown();
+        }));
+
+        control.onDetach(session);
+
+        assertTrue(player.getEventDispatcher().awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(0, delivered.getCount());
+        assertNull(session.getControl());
+        assertFalse(player.getEventDispatcher().dispatch(() -> {}));
+    }
+}
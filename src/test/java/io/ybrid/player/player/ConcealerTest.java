@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package io.ybrid.player.player;
+
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.TestBlocks;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConcealerTest {
+    private static final double DELTA = 1e-9;
+    private static final int SAMPLE_RATE = 1000;
+    private static final double FADE_OUT = 0.01; // [s]
+
+    @Test
+    public void fadeOutThenSilence() {
+        final @NotNull Concealer concealer = new Concealer();
+        final @NotNull PCMDataBlock last = TestBlocks.constant(Short.MAX_VALUE, 100, SAMPLE_RATE, 2);
+        final @NotNull PCMDataBlock fade = concealer.conceal(last, FADE_OUT);
+        @NotNull PCMDataBlock block = fade;
+
+        assertEquals(last.getSync(), fade.getSync());
+        assertEquals(2, fade.getNumberOfChannels());
+        assertEquals(10, fade.getLengthAsFrames());
+
+        // Monotonic fade from just below the last level towards zero, same for both channels.
+        assertTrue(fade.getData()[0] < Short.MAX_VALUE);
+        for (int i = 2; i < fade.getData().length; i += 2) {
+            assertEquals(fade.getData()[i], fade.getData()[i + 1]);
+            assertTrue(fade.getData()[i] < fade.getData()[i - 2]);
+        }
+        assertTrue(fade.getData()[fade.getData().length - 1] < Short.MAX_VALUE / 10);
+
+        for (int i = 0; i < 5; i++) {
+            block = concealer.conceal(block, FADE_OUT);
+            for (final short sample : block.getData())
+                assertEquals(0, sample);
+        }
+
+        assertEquals(1, concealer.getGaps());
+        assertEquals(0.01 + 5 * 0.02, concealer.getGapLength(), DELTA);
+        assertEquals(concealer.getGapLength(), concealer.getConcealedLength(), DELTA);
+    }
+
+    @Test
+    public void gapsAreCountedAndEnded() {
+        final @NotNull Concealer concealer = new Concealer();
+        final @NotNull PCMDataBlock last = TestBlocks.constant((short) 1000, 4, SAMPLE_RATE, 2);
+
+        concealer.end();
+        assertEquals(0, concealer.getGaps());
+
+        // The fade out is limited to the length of the last block.
+        assertEquals(4, concealer.conceal(last, FADE_OUT).getLengthAsFrames());
+        concealer.end();
+        assertEquals(0, concealer.getGapLength(), DELTA);
+
+        concealer.conceal(last, FADE_OUT);
+        concealer.conceal(last, FADE_OUT);
+        concealer.end();
+
+        assertEquals(2, concealer.getGaps());
+        assertEquals(2 * 0.004 + 0.02, concealer.getConcealedLength(), DELTA);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.ybrid.player.player;
+
+import io.ybrid.api.player.Control;
+import io.ybrid.player.io.audio.BufferMetrics;
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.output.AudioOutput;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("HardCodedStringLiteral")
+public class LatencyProfileTest {
+    private static final double DEFAULT_OUTPUT_LATENCY = 0.5; // [s]
+
+    /**
+     * This is an output that does not play in real time. Its latency is given by the configured buffer length,
+     * so the test does not depend on the wall clock.
+     */
+    private static final class Output implements AudioOutput {
+        private volatile double bufferLength = Double.NaN;
+
+        @Override
+        public void prepare(@NotNull PCMDataBlock block) {
+        }
+
+        @Override
+        public void play() {
+        }
+
+        @Override
+        public void write(@NotNull PCMDataBlock block) {
+        }
+
+        @Override
+        public void setBufferLength(double bufferLength) {
+            this.bufferLength = bufferLength;
+        }
+
+        @Override
+        public double getLatency() {
+            return Double.isNaN(bufferLength) ? DEFAULT_OUTPUT_LATENCY : bufferLength;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Sets the profile on a player, connects a stream, and prepares playback.
+     */
+    private static void assertApplied(@NotNull LatencyProfile profile) throws IOException, InterruptedException {
+        final @NotNull StubSession session = new StubSession();
+        final @NotNull StubStream.Source source = new StubStream.Source();
+        final @NotNull Output output = new Output();
+        final @NotNull YbridPlayer player = new YbridPlayer(session, new StubStream.DecoderFactory(), () -> output, transportDescription -> source);
+        final @NotNull BufferMetrics metrics = new BufferMetrics();
+        final @Nullable Control control = session.getControl();
+
+        assertNotNull(control);
+        try {
+            player.setLatencyProfile(profile);
+            player.playbackThread.prepare();
+
+            assertEquals(profile.getReadLength(), source.getReadLength());
+
+            assertEquals(profile.getBufferTarget(), player.muxer.getBufferTarget(), 0);
+            assertTrue(player.getMetrics(metrics));
+            assertEquals(profile.getBufferTarget(), metrics.getTarget(), 1e-9);
+
+            if (Double.isNaN(profile.getOutputBufferLength())) {
+                assertTrue(Double.isNaN(output.bufferLength));
+                assertEquals(DEFAULT_OUTPUT_LATENCY, player.playbackThread.getOutputLatency(), 0);
+            } else {
+                assertEquals(profile.getOutputBufferLength(), output.bufferLength, 0);
+                assertEquals(profile.getOutputBufferLength(), player.playbackThread.getOutputLatency(), 0);
+            }
+        } finally {
+            control.onDetach(session);
+        }
+    }
+
+    @Test
+    public void defaultProfileIsApplied() throws IOException, InterruptedException {
+        assertApplied(LatencyProfile.DEFAULT);
+    }
+
+    @Test
+    public void lowLatencyProfileIsApplied() throws IOException, InterruptedException {
+        assertApplied(LatencyProfile.LOW_LATENCY);
+    }
+
+    @Test
+    public void customProfileIsApplied() throws IOException, InterruptedException {
+        assertApplied(new LatencyProfile(3, 1, 0.5, 1024, 0.1));
+    }
+}
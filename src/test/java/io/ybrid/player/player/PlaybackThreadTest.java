@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.ybrid.player.player;
+
+import io.ybrid.api.player.Control;
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.audio.PCMReadResult;
+import io.ybrid.player.io.audio.output.AudioOutputFactory;
+import io.ybrid.player.io.audio.output.PullAudioOutput;
+import io.ybrid.player.io.audio.output.RenderQueue;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * This drives the playback thread of a player using a real time {@link AudioOutputFactory#getNullFactory(boolean, io.ybrid.player.io.audio.output.SinkStatistics) null output}.
+ */
+@SuppressWarnings("HardCodedStringLiteral")
+public class PlaybackThreadTest {
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+    private static final int CHUNK = 160; // [frame], 20ms
+    private static final double PAUSE_LENGTH = 0.3; // [s]
+    private static final double IDLE_TIMEOUT = 0.2; // [s]
+
+    /**
+     * This is an output that pulls only when the test renders a period, so the staged blocks can be inspected.
+     */
+    private static final class PullOutput implements PullAudioOutput {
+        private final @NotNull PCMReadResult result = new PCMReadResult();
+        private volatile @Nullable RenderQueue queue = null;
+        private volatile int staged = -1;
+        private volatile boolean paused = false;
+        private volatile boolean closed = false;
+        private volatile long position = 0;
+
+        @Override
+        public void prepare(@NotNull PCMDataBlock block) {
+        }
+
+        @Override
+        public void play() {
+            paused = false;
+        }
+
+        @Override
+        public void pause() {
+            paused = true;
+        }
+
+        @Override
+        public void write(@NotNull PCMDataBlock block) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void start(@NotNull RenderQueue queue) {
+            staged = queue.size();
+            this.queue = queue;
+        }
+
+        @Override
+        public long getUnderruns() {
+            return 0;
+        }
+
+        @Override
+        public long getFramePosition() {
+            return position;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            result.clear();
+        }
+
+        /**
+         * Renders a period like the render thread of an output does.
+         * @param frames The length of the period in [frame].
+         */
+        void render(int frames) {
+            position += Objects.requireNonNull(queue).poll(new short[frames], 0, frames, result);
+        }
+    }
+
+    private final @NotNull StubSession session = new StubSession();
+    private final @NotNull AtomicInteger outputs = new AtomicInteger();
+    private final @NotNull List<PlayerState> states = new CopyOnWriteArrayList<>();
+    private volatile @NotNull AudioOutputFactory factory = AudioOutputFactory.getNullFactory(true, null);
+    private YbridPlayer player;
+
+    @Before
+    public void setUp() {
+        final @NotNull StubStream.Source source = new StubStream.Source();
+
+        player = new YbridPlayer(session, new StubStream.DecoderFactory(), () -> {
+            outputs.incrementAndGet();
+            return factory.getAudioOutput();
+        }, transportDescription -> source);
+        player.setMetadataConsumer(new MetadataConsumer() {
+            @Override
+            public void onPlayerStateChange(@NotNull PlayerState playerState) {
+                states.add(playerState);
+            }
+        });
+        player.setLatencyProfile(LatencyProfile.LOW_LATENCY);
+        player.setChunkLength(CHUNK);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        final @Nullable Control control = session.getControl();
+
+        if (control != null)
+            control.onDetach(session);
+        player.playbackThread.join(TimeUnit.NANOSECONDS.toMillis(TIMEOUT));
+    }
+
+    private static void await(@NotNull String what, @NotNull BooleanSupplier condition) throws InterruptedException {
+        final long end = System.nanoTime() + TIMEOUT;
+
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timeout waiting for " + what, System.nanoTime() < end);
+            //noinspection BusyWait
+            Thread.sleep(1);
+        }
+    }
+
+    private static void sleep(double seconds) throws InterruptedException {
+        Thread.sleep((long) (seconds * 1000));
+    }
+
+    private void startPlaying() throws InterruptedException {
+        player.playbackThread.start(null);
+        await("playback", () -> player.getPlaybackFramePosition() > StubStream.SAMPLE_RATE / 10);
+    }
+
+    private void awaitState(@NotNull PlayerState state, int count) throws InterruptedException {
+        await(state.toString(), () -> states.stream().filter(state::equals).count() >= count);
+    }
+
+    /**
+     * Asserts the output is fed after a resume, that is it does not stop once the audio it held is played.
+     */
+    private void assertPlaysOn(long position) throws InterruptedException {
+        await("playback after resume", () -> player.getPlaybackFramePosition() > position + StubStream.SAMPLE_RATE / 2);
+    }
+
+    @Test
+    public void pauseKeepsOutput() throws InterruptedException {
+        final long position;
+
+        player.setOutputIdleTimeout(Double.POSITIVE_INFINITY);
+        startPlaying();
+
+        // The output is paused before the state is changed.
+        player.pause();
+        awaitState(PlayerState.PAUSED, 1);
+        position = player.getPlaybackFramePosition();
+        assertTrue(position > 0);
+        sleep(PAUSE_LENGTH);
+        assertEquals(position, player.getPlaybackFramePosition());
+
+        player.resume();
+        awaitState(PlayerState.PLAYING, 2);
+        await("resume latency", () -> !Double.isNaN(player.getResumeLatency()));
+        assertTrue(Double.isFinite(player.getResumeLatency()));
+        assertPlaysOn(position);
+
+        assertEquals(1, outputs.get());
+        assertEquals(Arrays.asList(PlayerState.PREPARING, PlayerState.BUFFERING, PlayerState.PLAYING,
+                PlayerState.PAUSED, PlayerState.PLAYING), states);
+    }
+
+    @Test
+    public void idleTimeoutReleasesOutput() throws InterruptedException {
+        player.setOutputIdleTimeout(IDLE_TIMEOUT);
+        startPlaying();
+
+        player.pause();
+        awaitState(PlayerState.PAUSED, 1);
+        await("output release", () -> player.getPlaybackFramePosition() < 0);
+        assertEquals(1, outputs.get());
+
+        player.resume();
+        awaitState(PlayerState.PLAYING, 2);
+        await("resume latency", () -> !Double.isNaN(player.getResumeLatency()));
+        assertTrue(Double.isFinite(player.getResumeLatency()));
+        // The new output starts counting at zero.
+        assertPlaysOn(0);
+
+        assertEquals(2, outputs.get());
+        assertEquals(Arrays.asList(PlayerState.PREPARING, PlayerState.BUFFERING, PlayerState.PLAYING,
+                PlayerState.PAUSED, PlayerState.PLAYING), states);
+    }
+
+    @Test
+    public void idleTimeoutKeepsStagedBlocks() throws InterruptedException {
+        final @NotNull List<PullOutput> pulling = new CopyOnWriteArrayList<>();
+        final @NotNull PullOutput first;
+        final @NotNull PullOutput second;
+        final int staged;
+
+        factory = () -> {
+            final @NotNull PullOutput output = new PullOutput();
+            pulling.add(output);
+            return output;
+        };
+        player.setOutputIdleTimeout(IDLE_TIMEOUT);
+        player.playbackThread.start(null);
+
+        await("output start", () -> pulling.size() == 1 && pulling.get(0).queue != null);
+        first = pulling.get(0);
+        await("staged blocks", () -> Objects.requireNonNull(first.queue).size() == RenderQueue.DEFAULT_CAPACITY);
+
+        // The playback thread waits for space, so it only notices the pause once a period is rendered.
+        player.pause();
+        first.render(CHUNK);
+        await("pause", () -> first.paused);
+        await("output release", () -> first.closed);
+        staged = Objects.requireNonNull(first.queue).size();
+        assertTrue(staged > 0);
+
+        player.resume();
+        await("output restart", () -> pulling.size() == 2 && pulling.get(1).queue != null);
+        second = pulling.get(1);
+        assertSame(first.queue, second.queue);
+        assertEquals(staged, second.staged);
+
+        // The staged blocks are played first, the resume latency is taken once the new output advances.
+        await("resume latency", () -> {
+            second.render(CHUNK);
+            return !Double.isNaN(player.getResumeLatency());
+        });
+        assertTrue(second.getFramePosition() > 0);
+    }
+}
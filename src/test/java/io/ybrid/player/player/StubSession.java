@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.player;
+
+import io.ybrid.api.player.Control;
+import io.ybrid.api.session.Session;
+import io.ybrid.api.transaction.CompletionState;
+import io.ybrid.api.transaction.Request;
+import io.ybrid.api.transaction.Transaction;
+import io.ybrid.api.transport.ServiceTransportDescription;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * This stands in for a session in tests of players.
+ * <P>
+ * It keeps the {@link Control} of the attached player. Every transaction connects a new transport
+ * to the attached player as the only request players send to the session on their own is to connect a transport.
+ */
+final class StubSession extends Session {
+    static final class StubTransaction implements Transaction {
+        private final @Nullable Runnable action;
+        private volatile @Nullable Throwable error = null;
+
+        StubTransaction(@Nullable Runnable action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (action != null)
+                    action.run();
+            } catch (Throwable e) {
+                error = e;
+            }
+        }
+
+        @Override
+        public void setAudioComplete(@NotNull CompletionState state) {
+        }
+
+        @Override
+        public void onAudioComplete(@NotNull Runnable callback) {
+        }
+
+        @Override
+        public void waitControlComplete() {
+        }
+
+        @Override
+        public void assertSuccess() {
+            if (error != null)
+                throw new IllegalStateException(error);
+        }
+
+        @Override
+        public @Nullable Throwable getError() {
+            return error;
+        }
+    }
+
+    static final class StubTransportDescription extends ServiceTransportDescription {
+        private final @NotNull Transaction transaction = new StubTransaction(null);
+        private final @NotNull WorkaroundMap workarounds = new WorkaroundMap();
+
+        @Override
+        public @NotNull Transaction getTransaction() {
+            return transaction;
+        }
+
+        @Override
+        public @NotNull WorkaroundMap getActiveWorkarounds() {
+            return workarounds;
+        }
+    }
+
+    private volatile @Nullable Control control = null;
+
+    /**
+     * Gets the control of the attached player.
+     * @return The control or {@code null} if no player is attached.
+     */
+    @Nullable Control getControl() {
+        return control;
+    }
+
+    @Override
+    public void attachPlayer(@NotNull Control control) {
+        this.control = control;
+    }
+
+    @Override
+    public void detachPlayer(@NotNull Control control) {
+        this.control = null;
+    }
+
+    @Override
+    public @NotNull Transaction createTransaction(@NotNull Request<?> request) {
+        return new StubTransaction(() -> {
+            final @Nullable Control attached = control;
+
+            if (attached == null)
+                throw new IllegalStateException("No player attached");
+
+            try {
+                attached.connectTransport(new StubTransportDescription());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.ybrid.player.player;
+
+import io.ybrid.api.util.MediaType;
+import io.ybrid.api.util.QualityMap.MediaTypeMap;
+import io.ybrid.api.util.QualityMap.Quality;
+import io.ybrid.player.io.ByteDataBlock;
+import io.ybrid.player.io.ByteDataSource;
+import io.ybrid.player.io.DataSource;
+import io.ybrid.player.io.audio.PCMDataBlock;
+import io.ybrid.player.io.decoder.Decoder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * This provides an endless stream of audio to tests of players.
+ * <P>
+ * The {@link Source} stands in for the network and the {@link DecoderFactory} decodes it,
+ * so a player can be connected without a server or a codec.
+ */
+@SuppressWarnings("HardCodedStringLiteral")
+final class StubStream {
+    static final int SAMPLE_RATE = 8000;
+    private static final int DEFAULT_READ_LENGTH = 4 * 1024; // [byte], as used by ICY
+    private static final @NotNull MediaType MEDIA_TYPE = new MediaType("audio/x-test-pcm");
+
+    /**
+     * This is a stand-in for a network source. It records the read length set by the player.
+     */
+    static final class Source implements ByteDataSource {
+        private volatile int readLength = 0;
+        private byte phase = 0;
+
+        @Override
+        public @NotNull ByteDataBlock read() {
+            final @NotNull byte[] data = new byte[readLength > 0 ? readLength : DEFAULT_READ_LENGTH];
+
+            // A signal rather than silence, so it is not removed by the player.
+            for (int i = 0; i < data.length; i++)
+                data[i] = phase += 37;
+
+            return new ByteDataBlock(null, null, data);
+        }
+
+        @Override
+        public void setReadLength(int readLength) {
+            this.readLength = readLength;
+        }
+
+        /**
+         * Gets the read length set by the player.
+         * @return The read length in [byte] or {@code 0} if not set.
+         */
+        int getReadLength() {
+            return readLength;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public @NotNull MediaType getMediaType() {
+            return MEDIA_TYPE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * This decodes the bytes from the {@link Source} as 16 bit mono samples.
+     */
+    private static final class DecoderStub implements Decoder {
+        private final @NotNull DataSource source;
+
+        private DecoderStub(@NotNull DataSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public @NotNull PCMDataBlock read() throws IOException {
+            final @NotNull ByteDataBlock block = (ByteDataBlock) source.read();
+            final @NotNull byte[] data = block.getData();
+            final @NotNull short[] samples = new short[data.length / Short.BYTES];
+
+            for (int i = 0; i < samples.length; i++)
+                samples[i] = (short) (((data[2 * i] & 0xFF) << 8) | (data[2 * i + 1] & 0xFF));
+
+            return new PCMDataBlock(block.getSync(), block.getPlayoutInfo(), samples, SAMPLE_RATE, 1);
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            source.close();
+        }
+    }
+
+    static final class DecoderFactory implements io.ybrid.player.io.decoder.DecoderFactory {
+        @Override
+        public @Nullable Decoder getDecoder(@NotNull DataSource dataSource) {
+            return MEDIA_TYPE.equals(dataSource.getMediaType()) ? new DecoderStub(dataSource) : null;
+        }
+
+        @Override
+        public @NotNull MediaTypeMap getSupportedMediaTypes() {
+            final @NotNull MediaTypeMap map = new MediaTypeMap();
+            map.put(MEDIA_TYPE, Quality.MOST_ACCEPTABLE);
+            return map;
+        }
+    }
+}
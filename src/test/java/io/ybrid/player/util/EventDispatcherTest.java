@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventDispatcherTest {
+    private static final long TIMEOUT = 5; // [s]
+    private static final long LATE_THRESHOLD = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final int EVENTS = 100;
+
+    @Test
+    public void slowListenerDoesNotBlockProducer() throws InterruptedException {
+        final @NotNull EventDispatcher dispatcher = new EventDispatcher("Test", 4, LATE_THRESHOLD);
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull CountDownLatch done = new CountDownLatch(1);
+
+        try {
+            final long queued;
+
+            assertTrue(dispatcher.dispatch(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }));
+            assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+
+            // The listener is blocked until released, so this would never return if dispatching waited for it.
+            for (int i = 0; i < EVENTS; i++)
+                dispatcher.dispatch(() -> {});
+            queued = System.nanoTime();
+            assertEquals(4, dispatcher.getPending());
+            assertEquals(EVENTS - 4, dispatcher.getDropped());
+
+            // Keep the listener blocked until all pending events are late.
+            while (System.nanoTime() - queued <= LATE_THRESHOLD)
+                //noinspection BusyWait
+                Thread.sleep(1);
+            release.countDown();
+            // The queue may still be full, so the marker must not be dropped.
+            assertTrue(dispatcher.dispatchCritical(done::countDown));
+            assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+            assertEquals(1 + 4 + 1, dispatcher.getExecuted());
+            assertTrue(dispatcher.getLate() >= 4);
+            assertTrue(dispatcher.getMaxDelay() > LATE_THRESHOLD);
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void coalescingKeepsOrder() throws InterruptedException {
+        final @NotNull EventDispatcher dispatcher = new EventDispatcher("Test");
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull CountDownLatch done = new CountDownLatch(1);
+        final @NotNull List<String> log = new ArrayList<>();
+        final @NotNull Object key = new Object();
+
+        try {
+            dispatcher.dispatch(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            dispatcher.dispatch(() -> log.add("a"));
+            for (int i = 0; i < EVENTS; i++) {
+                final int value = i;
+                dispatcher.dispatch(key, () -> log.add("status " + value));
+            }
+            dispatcher.dispatch(() -> log.add("b"));
+            dispatcher.dispatch(done::countDown);
+
+            release.countDown();
+            assertTrue(done.await(TIMEOUT, TimeUnit.SECONDS));
+
+            assertEquals(EVENTS - 1, dispatcher.getCoalesced());
+            assertEquals(0, dispatcher.getDropped());
+            synchronized (log) {
+                assertArrayEquals(new String[]{"a", "status " + (EVENTS - 1), "b"}, log.toArray());
+            }
+        } finally {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    public void criticalEventsAreNotDropped() throws InterruptedException {
+        final @NotNull EventDispatcher dispatcher = new EventDispatcher("Test", 4, LATE_THRESHOLD);
+        final @NotNull CountDownLatch started = new CountDownLatch(1);
+        final @NotNull CountDownLatch release = new CountDownLatch(1);
+        final @NotNull List<String> log = new ArrayList<>();
+
+        try {
+            dispatcher.dispatch(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            assertTrue(started.await(TIMEOUT, TimeUnit.SECONDS));
+            for (int i = 0; i < EVENTS; i++)
+                dispatcher.dispatch(() -> {});
+            assertEquals(4, dispatcher.getPending());
+
+            assertTrue(dispatcher.dispatchCritical(() -> log.add("state")));
+            assertEquals(5, dispatcher.getPending());
+            assertEquals(EVENTS - 4, dispatcher.getDropped());
+        } finally {
+            release.countDown();
+            dispatcher.close();
+        }
+
+        // The critical event is still run after close.
+        assertTrue(dispatcher.awaitTermination(TIMEOUT, TimeUnit.SECONDS));
+        synchronized (log) {
+            assertArrayEquals(new String[]{"state"}, log.toArray());
+        }
+    }
+
+    @Test
+    public void closeDropsNewEvents() {
+        final @NotNull EventDispatcher dispatcher = new EventDispatcher("Test");
+
+        dispatcher.close();
+        assertFalse(dispatcher.dispatch(() -> {}));
+        assertEquals(1, dispatcher.getDropped());
+    }
+}
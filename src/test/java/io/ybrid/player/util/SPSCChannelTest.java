@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2022 nacamar GmbH - Ybrid®, a Hybrid Dynamic Live Audio Technology
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.ybrid.player.util;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SPSCChannelTest {
+    private static final int ELEMENTS = 1_000_000;
+
+    @Test
+    public void nonBlocking() {
+        final @NotNull SPSCChannel<Integer> channel = new SPSCChannel<>(3);
+
+        assertEquals(4, channel.capacity());
+        assertTrue(channel.isEmpty());
+        assertNull(channel.poll());
+
+        for (int i = 0; i < channel.capacity(); i++)
+            assertTrue(channel.offer(i));
+        assertFalse(channel.offer(99));
+        assertEquals(4, channel.size());
+
+        assertEquals(Integer.valueOf(0), channel.poll());
+        assertTrue(channel.offer(4));
+        for (int i = 1; i <= 4; i++)
+            assertEquals(Integer.valueOf(i), channel.poll());
+        assertTrue(channel.isEmpty());
+
+        channel.offer(5);
+        channel.clear();
+        assertTrue(channel.isEmpty());
+    }
+
+    @Test
+    public void timeoutAndClose() throws InterruptedException {
+        final @NotNull SPSCChannel<Integer> channel = new SPSCChannel<>(4);
+
+        assertNull(channel.poll(10, TimeUnit.MILLISECONDS));
+
+        channel.offer(1);
+        channel.close();
+        assertTrue(channel.isClosed());
+        assertEquals(Integer.valueOf(1), channel.take());
+        assertNull(channel.take());
+    }
+
+    @Test
+    public void transferInOrder() throws InterruptedException {
+        final @NotNull SPSCChannel<Integer> channel = new SPSCChannel<>(64);
+        final @NotNull Thread producer = new Thread(() -> {
+            try {
+                for (int i = 0; i < ELEMENTS; i++)
+                    channel.put(i);
+            } catch (InterruptedException ignored) {
+            }
+            channel.close();
+        });
+        int expected = 0;
+
+        producer.start();
+        for (Integer value = channel.take(); value != null; value = channel.take()) {
+            assertEquals(expected, value.intValue());
+            expected++;
+        }
+        producer.join();
+
+        assertEquals(ELEMENTS, expected);
+        assertTrue(channel.isEmpty());
+    }
+}